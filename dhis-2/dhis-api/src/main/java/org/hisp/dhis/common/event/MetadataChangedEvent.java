@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.common.event;
+
+import java.util.Collection;
+import java.util.Set;
+
+import org.springframework.context.ApplicationEvent;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Event published when metadata objects were created, updated or deleted.
+ */
+public class MetadataChangedEvent
+    extends ApplicationEvent
+{
+    private final Set<Class<?>> objectClasses;
+
+    private final boolean external;
+
+    /**
+     * @param source the source of the event.
+     * @param objectClasses the classes of the changed metadata objects.
+     * @param external whether the change was made by another node and is
+     *        observed by all nodes independently, as opposed to a change
+     *        committed by this node.
+     */
+    public MetadataChangedEvent( Object source, Collection<? extends Class<?>> objectClasses, boolean external )
+    {
+        super( source );
+        this.objectClasses = ImmutableSet.copyOf( objectClasses );
+        this.external = external;
+    }
+
+    public Set<Class<?>> getObjectClasses()
+    {
+        return objectClasses;
+    }
+
+    public boolean isExternal()
+    {
+        return external;
+    }
+}
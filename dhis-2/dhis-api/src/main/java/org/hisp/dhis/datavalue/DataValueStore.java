@@ -151,8 +151,9 @@ public interface DataValueStore
      * cannot both be null.
      *
      * @param startDate the start date to compare against data value last
-     *        updated.
-     * @param endDate the end date to compare against data value last updated.
+     *        updated, inclusive.
+     * @param endDate the end date to compare against data value last updated,
+     *        exclusive.
      * @param includeDeleted whether to include deleted data values.
      * @return the number of DataValues.
      */
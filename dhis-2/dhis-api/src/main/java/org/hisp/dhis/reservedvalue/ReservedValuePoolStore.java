@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.reservedvalue;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Store of pre-generated values for tracked entity attributes with generated
+ * text patterns, pooled per attribute and pattern key.
+ */
+public interface ReservedValuePoolStore
+{
+    /**
+     * Removes up to the given number of values from the pool of the given
+     * attribute and key and returns them. Rows locked by concurrent callers
+     * are skipped so that callers never wait for each other.
+     *
+     * @param trackedEntityAttributeId the attribute ID.
+     * @param key the resolved pattern key.
+     * @param numberOfValues the maximum number of values to take.
+     * @return the taken values, possibly fewer than requested.
+     */
+    List<String> takeValues( long trackedEntityAttributeId, String key, int numberOfValues );
+
+    /**
+     * Adds values to the pool of the given attribute and key. Values already
+     * in the pool are ignored.
+     *
+     * @return the number of values added.
+     */
+    int addValues( long trackedEntityAttributeId, String key, List<String> values );
+
+    int getNumberOfValues( long trackedEntityAttributeId, String key );
+
+    /**
+     * Registers demand for the pool of the given attribute and key, which
+     * makes it eligible for refilling. Does nothing if the key is already
+     * registered, so that concurrent callers do not lock the key row.
+     */
+    void registerKey( long trackedEntityAttributeId, String key );
+
+    /**
+     * Marks the pool of the given attribute and key as recently requested.
+     * Does nothing if the key was marked within the last day, so that frequent
+     * callers do not lock the key row.
+     */
+    void touchKey( long trackedEntityAttributeId, String key );
+
+    List<String> getKeys( long trackedEntityAttributeId );
+
+    /**
+     * Removes the pools of the given attribute with their values which have
+     * not been requested since the given date.
+     */
+    void removeIdleKeys( long trackedEntityAttributeId, Date requestedBefore );
+}
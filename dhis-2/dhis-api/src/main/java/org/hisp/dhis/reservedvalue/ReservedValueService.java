@@ -53,4 +53,27 @@ public interface ReservedValueService
     void deleteReservedValueByUid( String uid );
 
     void removeUsedOrExpiredReservations();
+
+    boolean isReservedValuePoolEnabled();
+
+    /**
+     * Returns the keys of the pools of pre-generated values of the given
+     * attribute, or an empty list if the attribute has no generated segment.
+     */
+    List<String> getReservedValuePoolKeys( TrackedEntityAttribute trackedEntityAttribute );
+
+    /**
+     * Tops up the pool of pre-generated values of the given attribute and key
+     * if it fell below the configured low-water mark. Each pool is refilled in
+     * its own transaction, so the lock on the sequence counter of the key is
+     * released as soon as its pool is filled.
+     */
+    void refillReservedValuePool( TrackedEntityAttribute trackedEntityAttribute, String key );
+
+    /**
+     * Removes the pools of the given attributes which have not been requested
+     * for a while. Pools of sequential patterns are kept, as their values were
+     * drawn from the sequence counter and would otherwise be lost.
+     */
+    void removeIdleReservedValuePools( List<TrackedEntityAttribute> trackedEntityAttributes );
 }
@@ -69,6 +69,13 @@ public class ContinuousAnalyticsJobParameters
      */
     private Set<AnalyticsTableType> skipTableTypes = new HashSet<>();
 
+    /**
+     * Whether the partial updates between full updates should merge changed
+     * data into the existing analytics table partitions, including partitions
+     * for previous years, instead of replacing the latest partition.
+     */
+    private boolean incrementalUpdate;
+
     public ContinuousAnalyticsJobParameters()
     {
     }
@@ -118,6 +125,18 @@ public class ContinuousAnalyticsJobParameters
         this.skipTableTypes = skipTableTypes;
     }
 
+    @JsonProperty
+    @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
+    public boolean isIncrementalUpdate()
+    {
+        return incrementalUpdate;
+    }
+
+    public void setIncrementalUpdate( boolean incrementalUpdate )
+    {
+        this.incrementalUpdate = incrementalUpdate;
+    }
+
     @Override
     public Optional<ErrorReport> validate()
     {
@@ -37,6 +37,7 @@ import org.hisp.dhis.dataelement.DataElementOperand;
 import org.hisp.dhis.dataset.DataSet;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.period.Period;
+import org.hisp.dhis.scheduling.JobProgress;
 
 /**
  * @author Jim Grace
@@ -56,6 +57,17 @@ public interface ValidationService
      */
     List<ValidationResult> validationAnalysis( ValidationAnalysisParams parameters );
 
+    /**
+     * Start a validation analysis as part of a job, reporting progress as it
+     * goes. Persisted results are written to the database as they are found
+     * and are only kept in memory if notifications are to be sent.
+     *
+     * @param parameters the parameters to base the analysis on.
+     * @param progress the progress tracking of the job.
+     * @return the number of ValidationResults found.
+     */
+    int validationAnalysis( ValidationAnalysisParams parameters, JobProgress progress );
+
     /**
      * Get validation rule expression details for a validation run.
      *
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.benchmark;
+
+import static org.hisp.dhis.DhisConvenienceTest.createDataElement;
+import static org.hisp.dhis.DhisConvenienceTest.createOrganisationUnit;
+import static org.hisp.dhis.DhisConvenienceTest.createPeriod;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.DimensionItem;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.period.Period;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link DataQueryParams} key generation, copying and dimension
+ * item permutations, which the query planner and the analytics cache invoke
+ * for every partitioned sub-query.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class DataQueryParamsBenchmark
+{
+    @Param( { "10", "100" } )
+    private int items;
+
+    private DataQueryParams params;
+
+    @Setup
+    public void setUp()
+    {
+        List<DataElement> dataElements = new ArrayList<>();
+        List<OrganisationUnit> organisationUnits = new ArrayList<>();
+        List<Period> periods = new ArrayList<>();
+
+        for ( int i = 0; i < items; i++ )
+        {
+            DataElement dataElement = createDataElement( (char) ('A' + (i % 26)) );
+            dataElement.setUid( "deabcdef" + String.format( "%03d", i ) );
+            dataElements.add( dataElement );
+            organisationUnits.add( createOrganisationUnit( "OrgUnit" + i ) );
+        }
+
+        for ( int i = 1; i <= 12; i++ )
+        {
+            periods.add( createPeriod( "2021" + String.format( "%02d", i ) ) );
+        }
+
+        params = DataQueryParams.newBuilder()
+            .withDataElements( dataElements )
+            .withOrganisationUnits( organisationUnits )
+            .withPeriods( periods )
+            .build();
+    }
+
+    @Benchmark
+    public String getKey()
+    {
+        return params.getKey();
+    }
+
+    @Benchmark
+    public DataQueryParams copy()
+    {
+        return DataQueryParams.newBuilder( params ).build();
+    }
+
+    @Benchmark
+    public List<List<DimensionItem>> getDimensionItemPermutations()
+    {
+        return params.getDimensionItemPermutations();
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.benchmark;
+
+import static org.hisp.dhis.DhisConvenienceTest.createConstant;
+import static org.hisp.dhis.DhisConvenienceTest.createDataElement;
+import static org.hisp.dhis.expression.MissingValueStrategy.NEVER_SKIP;
+import static org.hisp.dhis.expression.ParseType.INDICATOR_EXPRESSION;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.cache.NoOpCache;
+import org.hisp.dhis.cache.SimpleCacheBuilder;
+import org.hisp.dhis.common.DimensionItemType;
+import org.hisp.dhis.common.DimensionService;
+import org.hisp.dhis.common.DimensionalItemId;
+import org.hisp.dhis.common.DimensionalItemObject;
+import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.constant.Constant;
+import org.hisp.dhis.constant.ConstantService;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.dataelement.DataElementService;
+import org.hisp.dhis.expression.DefaultExpressionService;
+import org.hisp.dhis.expression.ExpressionService;
+import org.hisp.dhis.hibernate.HibernateGenericStore;
+import org.hisp.dhis.organisationunit.OrganisationUnitGroupService;
+import org.hisp.dhis.organisationunit.OrganisationUnitService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks parsing and evaluation of indicator expressions through the
+ * {@link org.hisp.dhis.parser.expression.CommonExpressionVisitor}, which is
+ * invoked once per indicator and organisation unit / period combination in
+ * analytics and validation.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class ExpressionBenchmark
+{
+    private ExpressionService expressionService;
+
+    private String simpleExpression;
+
+    private String complexExpression;
+
+    private final Map<DimensionalItemId, DimensionalItemObject> itemMap = new HashMap<>();
+
+    private final Map<DimensionalItemObject, Object> valueMap = new HashMap<>();
+
+    private final Map<String, Constant> constantMap = new HashMap<>();
+
+    @Setup
+    @SuppressWarnings( "unchecked" )
+    public void setUp()
+    {
+        CacheProvider cacheProvider = mock( CacheProvider.class );
+        when( cacheProvider.createAllConstantsCache() ).thenReturn( new NoOpCache<>() );
+        when( cacheProvider.<ParseTree> createExpressionParseTreeCache() ).thenReturn(
+            new SimpleCacheBuilder<ParseTree>().forRegion( "expressionParseTree" ).withMaximumSize( 1000 ).build() );
+
+        expressionService = new DefaultExpressionService( mock( HibernateGenericStore.class ),
+            mock( DataElementService.class ), mock( ConstantService.class ), mock( OrganisationUnitService.class ),
+            mock( OrganisationUnitGroupService.class ), mock( DimensionService.class ),
+            mock( IdentifiableObjectManager.class ), cacheProvider );
+
+        DataElement deA = createDataElement( 'A' );
+        DataElement deB = createDataElement( 'B' );
+        DataElement deC = createDataElement( 'C' );
+        Constant constant = createConstant( 'A', 2.5 );
+
+        for ( DataElement de : new DataElement[] { deA, deB, deC } )
+        {
+            itemMap.put( new DimensionalItemId( DimensionItemType.DATA_ELEMENT, de.getUid() ), de );
+        }
+
+        valueMap.put( deA, 12d );
+        valueMap.put( deB, 34d );
+        valueMap.put( deC, 56d );
+        constantMap.put( constant.getUid(), constant );
+
+        simpleExpression = "#{" + deA.getUid() + "}+#{" + deB.getUid() + "}";
+
+        complexExpression = "(#{" + deA.getUid() + "}+#{" + deB.getUid() + "})*C{" + constant.getUid() + "}" +
+            "/if(#{" + deC.getUid() + "}>0,#{" + deC.getUid() + "},1)" +
+            "+firstNonNull(#{" + deA.getUid() + "},0)*2";
+    }
+
+    @Benchmark
+    public Double evaluateSimpleExpression()
+    {
+        return expressionService.getExpressionValue( simpleExpression, INDICATOR_EXPRESSION, itemMap, valueMap,
+            constantMap, null, null, null, NEVER_SKIP, null );
+    }
+
+    @Benchmark
+    public Double evaluateComplexExpression()
+    {
+        return expressionService.getExpressionValue( complexExpression, INDICATOR_EXPRESSION, itemMap, valueMap,
+            constantMap, null, null, null, NEVER_SKIP, null );
+    }
+
+    @Benchmark
+    public Object collectExpressionItemIds()
+    {
+        return expressionService.getExpressionDimensionalItemIds( complexExpression, INDICATOR_EXPRESSION );
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.benchmark;
+
+import static org.hisp.dhis.DhisConvenienceTest.createOrganisationUnit;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.SessionFactory;
+import org.hisp.dhis.attribute.AttributeService;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.cache.NoOpCache;
+import org.hisp.dhis.category.CategoryOption;
+import org.hisp.dhis.fieldfilter.DefaultFieldFilterService;
+import org.hisp.dhis.fieldfilter.DefaultFieldParser;
+import org.hisp.dhis.fieldfilter.FieldFilterParams;
+import org.hisp.dhis.fieldfilter.FieldFilterService;
+import org.hisp.dhis.node.NodeTransformer;
+import org.hisp.dhis.node.transformers.PluckNodeTransformer;
+import org.hisp.dhis.node.types.CollectionNode;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.schema.DefaultPropertyIntrospectorService;
+import org.hisp.dhis.schema.DefaultSchemaService;
+import org.hisp.dhis.schema.introspection.JacksonPropertyIntrospector;
+import org.hisp.dhis.security.acl.AclService;
+import org.hisp.dhis.user.CurrentUserService;
+import org.hisp.dhis.user.UserGroupService;
+import org.hisp.dhis.user.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link DefaultFieldFilterService} rendering of metadata objects
+ * to the node tree used by the metadata API, with plain, nested and
+ * transformed field filters.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class FieldFilterBenchmark
+{
+    @Param( { "100", "1000" } )
+    private int objects;
+
+    private FieldFilterService fieldFilterService;
+
+    private List<CategoryOption> categoryOptions;
+
+    @Setup
+    public void setUp()
+    {
+        CacheProvider cacheProvider = mock( CacheProvider.class );
+        when( cacheProvider.createPropertyTransformerCache() ).thenReturn( new NoOpCache<>() );
+
+        Set<NodeTransformer> nodeTransformers = Collections.singleton( new PluckNodeTransformer() );
+
+        DefaultSchemaService schemaService = new DefaultSchemaService(
+            new DefaultPropertyIntrospectorService( new JacksonPropertyIntrospector() ),
+            mock( SessionFactory.class ) );
+
+        DefaultFieldFilterService service = new DefaultFieldFilterService( new DefaultFieldParser(), schemaService,
+            mock( AclService.class ), mock( CurrentUserService.class ), mock( AttributeService.class ),
+            cacheProvider, mock( UserGroupService.class ), mock( UserService.class ), nodeTransformers );
+        service.init();
+
+        fieldFilterService = service;
+
+        List<OrganisationUnit> organisationUnits = new ArrayList<>();
+
+        for ( int i = 0; i < 10; i++ )
+        {
+            organisationUnits.add( createOrganisationUnit( "OrgUnit" + i ) );
+        }
+
+        categoryOptions = new ArrayList<>( objects );
+
+        for ( int i = 0; i < objects; i++ )
+        {
+            CategoryOption option = new CategoryOption( "Option" + i );
+            option.setAutoFields();
+            option.setCode( "OPTION_" + i );
+            option.getOrganisationUnits().addAll( organisationUnits );
+            categoryOptions.add( option );
+        }
+    }
+
+    @Benchmark
+    public CollectionNode identifiableFields()
+    {
+        return render( "id", "name", "code", "created", "lastUpdated" );
+    }
+
+    @Benchmark
+    public CollectionNode nestedFields()
+    {
+        return render( "id", "name", "organisationUnits[id,name,code]" );
+    }
+
+    @Benchmark
+    public CollectionNode transformedFields()
+    {
+        return render( "id", "organisationUnits~pluck(name)[id,name]" );
+    }
+
+    @Benchmark
+    public CollectionNode presetFields()
+    {
+        return render( ":owner" );
+    }
+
+    private CollectionNode render( String... fields )
+    {
+        return fieldFilterService.toCollectionNode( CategoryOption.class,
+            new FieldFilterParams( categoryOptions, Arrays.asList( fields ) ) );
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.hisp.dhis.common.Grid;
+import org.hisp.dhis.common.GridHeader;
+import org.hisp.dhis.common.ValueType;
+import org.hisp.dhis.system.grid.ListGrid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks building, sorting and meta-data substitution of
+ * {@link ListGrid}, the container for all analytics responses.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class ListGridBenchmark
+{
+    private static final int COLUMNS = 4;
+
+    @Param( { "1000", "100000" } )
+    private int rows;
+
+    private Object[][] values;
+
+    private Map<Object, Object> metaData;
+
+    private Grid grid;
+
+    @Setup
+    public void setUp()
+    {
+        values = new Object[rows][];
+        metaData = new HashMap<>();
+
+        for ( int i = 0; i < rows; i++ )
+        {
+            String dx = "dx" + (i % 100);
+            String ou = "ou" + (i % 1000);
+            String pe = "2021" + String.format( "%02d", (i % 12) + 1 );
+
+            values[i] = new Object[] { dx, ou, pe, (double) (i * 31 % rows) };
+
+            metaData.put( dx, "Data item " + dx );
+            metaData.put( ou, "Org unit " + ou );
+        }
+
+        grid = buildGrid();
+    }
+
+    @Benchmark
+    public Grid buildGrid()
+    {
+        Grid result = new ListGrid();
+        result.addHeader( new GridHeader( "dx", "Data", ValueType.TEXT, false, true ) );
+        result.addHeader( new GridHeader( "ou", "Organisation unit", ValueType.TEXT, false, true ) );
+        result.addHeader( new GridHeader( "pe", "Period", ValueType.TEXT, false, true ) );
+        result.addHeader( new GridHeader( "value", "Value", ValueType.NUMBER, false, false ) );
+
+        for ( Object[] row : values )
+        {
+            result.addRow();
+
+            for ( int i = 0; i < COLUMNS; i++ )
+            {
+                result.addValue( row[i] );
+            }
+        }
+
+        return result;
+    }
+
+    @Benchmark
+    public Grid sortGrid()
+    {
+        return buildGrid().sortGrid( COLUMNS, 1 );
+    }
+
+    @Benchmark
+    public Grid substituteMetaData()
+    {
+        return buildGrid().substituteMetaData( metaData );
+    }
+
+    @Benchmark
+    public Object getColumn()
+    {
+        return grid.getColumn( 1 );
+    }
+}
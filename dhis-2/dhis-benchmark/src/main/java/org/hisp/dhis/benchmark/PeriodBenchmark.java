@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.benchmark;
+
+import static org.hisp.dhis.DhisConvenienceTest.getDate;
+import static org.hisp.dhis.analytics.AnalyticsFinancialYearStartKey.FINANCIAL_YEAR_OCTOBER;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hisp.dhis.period.CalendarPeriodType;
+import org.hisp.dhis.period.DailyPeriodType;
+import org.hisp.dhis.period.MonthlyPeriodType;
+import org.hisp.dhis.period.Period;
+import org.hisp.dhis.period.PeriodType;
+import org.hisp.dhis.period.RelativePeriodEnum;
+import org.hisp.dhis.period.RelativePeriods;
+import org.hisp.dhis.period.WeeklyPeriodType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks period generation, ISO period parsing and relative period
+ * resolution, which run for every analytics request and table update.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class PeriodBenchmark
+{
+    private static final List<String> ISO_PERIODS = Arrays.asList( "20210315", "2021W11", "202103", "2021Q1",
+        "2021S1", "2021", "2021Oct", "2021AprilS1", "2021BiW5", "202102B" );
+
+    private Date startDate;
+
+    private Date endDate;
+
+    private Date now;
+
+    private RelativePeriods relativePeriods;
+
+    @Setup
+    public void setUp()
+    {
+        startDate = getDate( 2010, 1, 1 );
+        endDate = getDate( 2021, 12, 31 );
+        now = getDate( 2021, 6, 15 );
+
+        relativePeriods = new RelativePeriods().setRelativePeriodsFromEnums(
+            Arrays.asList( RelativePeriodEnum.values() ) );
+    }
+
+    @Benchmark
+    public List<Period> generateDailyPeriods()
+    {
+        return generate( new DailyPeriodType() );
+    }
+
+    @Benchmark
+    public List<Period> generateWeeklyPeriods()
+    {
+        return generate( new WeeklyPeriodType() );
+    }
+
+    @Benchmark
+    public List<Period> generateMonthlyPeriods()
+    {
+        return generate( new MonthlyPeriodType() );
+    }
+
+    @Benchmark
+    public int parseIsoPeriods()
+    {
+        int count = 0;
+
+        for ( String isoPeriod : ISO_PERIODS )
+        {
+            if ( PeriodType.getPeriodFromIsoString( isoPeriod ) != null )
+            {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    @Benchmark
+    public List<Period> resolveRelativePeriods()
+    {
+        return relativePeriods.getRelativePeriods( now, null, false, FINANCIAL_YEAR_OCTOBER );
+    }
+
+    private List<Period> generate( CalendarPeriodType periodType )
+    {
+        return periodType.generatePeriods( startDate, endDate );
+    }
+}
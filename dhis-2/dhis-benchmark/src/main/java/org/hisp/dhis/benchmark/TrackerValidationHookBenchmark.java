@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hisp.dhis.common.CodeGenerator;
+import org.hisp.dhis.tracker.TrackerImportStrategy;
+import org.hisp.dhis.tracker.TrackerType;
+import org.hisp.dhis.tracker.bundle.TrackerBundle;
+import org.hisp.dhis.tracker.domain.Enrollment;
+import org.hisp.dhis.tracker.domain.Event;
+import org.hisp.dhis.tracker.domain.TrackedEntity;
+import org.hisp.dhis.tracker.report.ValidationErrorReporter;
+import org.hisp.dhis.tracker.validation.TrackerImportValidationContext;
+import org.hisp.dhis.tracker.validation.TrackerValidationHook;
+import org.hisp.dhis.tracker.validation.hooks.PreCheckMandatoryFieldsValidationHook;
+import org.hisp.dhis.tracker.validation.hooks.PreCheckUidValidationHook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the tracker pre-check validation hooks over a bundle of tracked
+ * entities, enrollments and events where every tenth object is invalid.
+ * Hooks remove invalid objects from the bundle, so a fresh bundle is built
+ * before each invocation.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class TrackerValidationHookBenchmark
+{
+    private static final String INVALID_UID = "invalid";
+
+    @Param( { "1000", "10000" } )
+    private int objects;
+
+    private final TrackerValidationHook uidHook = new PreCheckUidValidationHook();
+
+    private final TrackerValidationHook mandatoryFieldsHook = new PreCheckMandatoryFieldsValidationHook();
+
+    private String orgUnit;
+
+    private String program;
+
+    private String programStage;
+
+    private String trackedEntityType;
+
+    private TrackerImportValidationContext context;
+
+    @Setup( Level.Trial )
+    public void setUpMetadata()
+    {
+        orgUnit = CodeGenerator.generateUid();
+        program = CodeGenerator.generateUid();
+        programStage = CodeGenerator.generateUid();
+        trackedEntityType = CodeGenerator.generateUid();
+    }
+
+    @Setup( Level.Invocation )
+    public void setUpBundle()
+    {
+        List<TrackedEntity> trackedEntities = new ArrayList<>( objects );
+        List<Enrollment> enrollments = new ArrayList<>( objects );
+        List<Event> events = new ArrayList<>( objects );
+
+        for ( int i = 0; i < objects; i++ )
+        {
+            boolean valid = i % 10 != 0;
+
+            String trackedEntity = valid ? CodeGenerator.generateUid() : INVALID_UID;
+            String enrollment = CodeGenerator.generateUid();
+
+            trackedEntities.add( TrackedEntity.builder()
+                .trackedEntity( trackedEntity )
+                .trackedEntityType( trackedEntityType )
+                .orgUnit( orgUnit )
+                .build() );
+
+            enrollments.add( Enrollment.builder()
+                .enrollment( enrollment )
+                .trackedEntity( trackedEntity )
+                .program( program )
+                .orgUnit( valid ? orgUnit : null )
+                .build() );
+
+            events.add( Event.builder()
+                .event( CodeGenerator.generateUid() )
+                .enrollment( enrollment )
+                .program( program )
+                .programStage( programStage )
+                .orgUnit( orgUnit )
+                .build() );
+        }
+
+        TrackerBundle bundle = TrackerBundle.builder()
+            .trackedEntities( trackedEntities )
+            .enrollments( enrollments )
+            .events( events )
+            .build();
+
+        trackedEntities.forEach( t -> bundle.getResolvedStrategyMap().get( TrackerType.TRACKED_ENTITY )
+            .put( t.getUid(), TrackerImportStrategy.CREATE ) );
+        enrollments.forEach( e -> bundle.getResolvedStrategyMap().get( TrackerType.ENROLLMENT )
+            .put( e.getUid(), TrackerImportStrategy.CREATE ) );
+        events.forEach( e -> bundle.getResolvedStrategyMap().get( TrackerType.EVENT )
+            .put( e.getUid(), TrackerImportStrategy.CREATE ) );
+
+        context = new TrackerImportValidationContext( bundle );
+    }
+
+    @Benchmark
+    public ValidationErrorReporter uidHook()
+    {
+        return uidHook.validate( context );
+    }
+
+    @Benchmark
+    public ValidationErrorReporter mandatoryFieldsHook()
+    {
+        return mandatoryFieldsHook.validate( context );
+    }
+}
@@ -179,6 +179,18 @@ public interface AnalyticsTableManager
         // NOOP by default
     }
 
+    /**
+     * Creates pre-aggregated rollup tables for the given temporary analytics
+     * table partition, where data is aggregated to organisation unit levels
+     * with fewer rows than the partition.
+     *
+     * @param partition the analytics table partition.
+     */
+    default void createRollupTables( AnalyticsTablePartition partition )
+    {
+        // NOOP by default
+    }
+
     /**
      * Performs vacuum or optimization of the given table. The type of operation
      * performed is dependent on the underlying DBMS.
@@ -55,6 +55,13 @@ public class AnalyticsTableUpdateParams
      */
     private Integer lastYears;
 
+    /**
+     * Indicates whether the "latest" data should be merged into the existing
+     * analytics table partitions instead of replacing the latest partition.
+     * Only applies to updates of the "latest" partition.
+     */
+    private boolean incrementalUpdate;
+
     /**
      * Indicates whether to skip update of resource tables.
      */
@@ -104,6 +111,11 @@ public class AnalyticsTableUpdateParams
         return lastYears;
     }
 
+    public boolean isIncrementalUpdate()
+    {
+        return incrementalUpdate;
+    }
+
     public boolean isSkipResourceTables()
     {
         return skipResourceTables;
@@ -157,6 +169,15 @@ public class AnalyticsTableUpdateParams
         return Objects.equals( lastYears, AnalyticsTablePartition.LATEST_PARTITION );
     }
 
+    /**
+     * Indicates whether this is an update of the "latest" partition which is
+     * merged into the existing analytics table partitions.
+     */
+    public boolean isIncrementalLatestUpdate()
+    {
+        return isLatestUpdate() && incrementalUpdate;
+    }
+
     // -------------------------------------------------------------------------
     // toString
     // -------------------------------------------------------------------------
@@ -166,6 +187,7 @@ public class AnalyticsTableUpdateParams
     {
         return MoreObjects.toStringHelper( this )
             .add( "last years", lastYears )
+            .add( "incremental update", incrementalUpdate )
             .add( "skip resource tables", skipResourceTables )
             .add( "skip table types", skipTableTypes )
             .add( "skip programs", skipPrograms )
@@ -209,6 +231,7 @@ public class AnalyticsTableUpdateParams
         AnalyticsTableUpdateParams params = new AnalyticsTableUpdateParams();
 
         params.lastYears = this.lastYears;
+        params.incrementalUpdate = this.incrementalUpdate;
         params.skipResourceTables = this.skipResourceTables;
         params.skipTableTypes = new HashSet<>( this.skipTableTypes );
         params.skipPrograms = new HashSet<>( this.skipPrograms );
@@ -258,6 +281,12 @@ public class AnalyticsTableUpdateParams
             return this;
         }
 
+        public Builder withIncrementalUpdate( boolean incrementalUpdate )
+        {
+            this.params.incrementalUpdate = incrementalUpdate;
+            return this;
+        }
+
         public Builder withSkipResourceTables( boolean skipResourceTables )
         {
             this.params.skipResourceTables = skipResourceTables;
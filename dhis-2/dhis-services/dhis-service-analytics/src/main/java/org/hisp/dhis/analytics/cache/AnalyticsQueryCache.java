@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.hisp.dhis.analytics.AnalyticsTable;
+import org.hisp.dhis.analytics.AnalyticsTablePartition;
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.QueryKey;
+import org.hisp.dhis.analytics.table.PartitionUtils;
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.common.CodeGenerator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache for the results of the individual sub-queries produced by the query
+ * planner, which allows identical sub-queries of different analytics requests,
+ * such as dashboard items sharing periods and org units, to reuse results.
+ *
+ * Each cache key includes the current version of the analytics table and
+ * partitions read by the sub-query. Versions are replaced when tables or
+ * partitions are swapped, which makes entries for replaced data unreachable so
+ * that they are evicted by size or expiration. Versions are kept in a shared
+ * cache so that a swap on one instance is seen by all instances of a cluster.
+ *
+ * The cache is bounded by the estimated size of the cached results.
+ */
+@Slf4j
+@Component
+public class AnalyticsQueryCache
+{
+    /**
+     * Estimated overhead in bytes of a result map entry, excluding the key
+     * characters and the value.
+     */
+    private static final int ENTRY_OVERHEAD = 64;
+
+    /**
+     * Estimated size in bytes of a numeric or otherwise small value.
+     */
+    private static final int VALUE_SIZE = 24;
+
+    private final Cache<Map<String, Object>> queryCache;
+
+    private final AnalyticsCacheSettings analyticsCacheSettings;
+
+    /**
+     * Versions of analytics tables and partitions, replaced when swapped.
+     */
+    private final Cache<String> tableVersions;
+
+    public AnalyticsQueryCache( final CacheProvider cacheProvider,
+        final AnalyticsCacheSettings analyticsCacheSettings )
+    {
+        checkNotNull( cacheProvider );
+        checkNotNull( analyticsCacheSettings );
+
+        this.analyticsCacheSettings = analyticsCacheSettings;
+        this.queryCache = cacheProvider.createAnalyticsQueryCache(
+            Duration.ofSeconds( analyticsCacheSettings.fixedExpirationTimeOrDefault() ),
+            AnalyticsQueryCache::weigh );
+        this.tableVersions = cacheProvider.createAnalyticsTableVersionCache();
+    }
+
+    /**
+     * Returns the cached result for the given key, if any.
+     *
+     * @param key the key of the sub-query, see {@link #getKey}.
+     * @return the cached result, or an empty optional.
+     */
+    public Optional<Map<String, Object>> get( String key )
+    {
+        return queryCache.get( key );
+    }
+
+    /**
+     * Caches the result of the given sub-query. The TTL is set according to
+     * the settings available at {@link AnalyticsCacheSettings}.
+     *
+     * @param key the key of the sub-query, computed before the sub-query was
+     *        executed, so that a result read from a table which has been
+     *        swapped while the sub-query was running is cached under the
+     *        replaced version of the table.
+     * @param params the planned sub-query.
+     * @param result the result of the sub-query.
+     */
+    public void put( String key, DataQueryParams params, Map<String, Object> result )
+    {
+        long ttl = analyticsCacheSettings.isProgressiveCachingEnabled()
+            ? analyticsCacheSettings.progressiveExpirationTimeOrDefault( params.getLatestEndDate() )
+            : analyticsCacheSettings.fixedExpirationTimeOrDefault();
+
+        queryCache.put( key, result, ttl );
+    }
+
+    /**
+     * Invalidates cached results which read from the given analytics table
+     * after it has been swapped. Partial updates invalidate the swapped
+     * partitions only, except for latest updates which write to the master
+     * table.
+     *
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     * @param table the swapped {@link AnalyticsTable}.
+     */
+    public void invalidate( AnalyticsTableUpdateParams params, AnalyticsTable table )
+    {
+        if ( params.isPartialUpdate() && !params.isLatestUpdate() )
+        {
+            for ( AnalyticsTablePartition partition : table.getTablePartitions() )
+            {
+                newVersion( partition.getTableName() );
+            }
+        }
+        else
+        {
+            newVersion( table.getTableName() );
+        }
+
+        newVersion( getAnyPartitionKey( table.getTableName() ) );
+
+        log.debug( String.format( "Analytics query cache invalidated for table: '%s'", table.getTableName() ) );
+    }
+
+    public boolean isEnabled()
+    {
+        return analyticsCacheSettings.isCachingEnabled();
+    }
+
+    /**
+     * Returns a key for the given sub-query. Includes the properties set by the
+     * query planner, which are not part of {@link DataQueryParams#getKey()},
+     * and the versions of the tables read by the sub-query. Rollup tables are
+     * swapped together with their source table and share its versions.
+     * <p>
+     * The key is a snapshot of the current table versions and must be
+     * computed before the sub-query is executed.
+     *
+     * @param params the planned sub-query.
+     * @param tableType the {@link AnalyticsTableType}.
+     * @param maxLimit the max number of records to retrieve.
+     * @return the key of the sub-query.
+     */
+    public String getKey( DataQueryParams params, AnalyticsTableType tableType, int maxLimit )
+    {
+        String tableName = PartitionUtils.getRollupSourceTableName( params.getTableName() );
+
+        QueryKey key = new QueryKey()
+            .add( "query", params.getKey() )
+            .add( "tableType", tableType )
+            .add( "maxLimit", maxLimit )
+            .addIgnoreNull( "tableName", params.getTableName() )
+            .addIgnoreNull( "dataType", params.getDataType() )
+            .addIgnoreNull( "periodType", params.getPeriodType() )
+            .addIgnoreNull( "dataPeriodType", params.getDataPeriodType(), () -> params.getDataPeriodType().getName() )
+            .add( "skipPartitioning", params.isSkipPartitioning() )
+            .add( "tableVersion", getVersion( tableName ) );
+
+        if ( !params.isSkipPartitioning() && params.hasPartitions() )
+        {
+            for ( Integer partition : new TreeSet<>( params.getPartitions().getPartitions() ) )
+            {
+                String partitionName = PartitionUtils.getPartitionName( tableName, partition );
+
+                key.add( partitionName, getVersion( partitionName ) );
+            }
+        }
+        else
+        {
+            key.add( "anyPartitionVersion", getVersion( getAnyPartitionKey( tableName ) ) );
+        }
+
+        return key.build();
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private String getVersion( String tableName )
+    {
+        return tableName != null ? tableVersions.get( tableName, name -> CodeGenerator.generateUid() ) : "";
+    }
+
+    private void newVersion( String tableName )
+    {
+        tableVersions.put( tableName, CodeGenerator.generateUid() );
+    }
+
+    /**
+     * Returns the estimated size in bytes of the given cache entry. Cheap to
+     * compute, as only the keys of the result are measured exactly.
+     */
+    static int weigh( String key, Map<String, Object> result )
+    {
+        long size = 2L * key.length() + ENTRY_OVERHEAD;
+
+        for ( Map.Entry<String, Object> entry : result.entrySet() )
+        {
+            Object value = entry.getValue();
+
+            size += ENTRY_OVERHEAD + 2L * entry.getKey().length()
+                + (value instanceof String ? 2L * ((String) value).length() + VALUE_SIZE : VALUE_SIZE);
+        }
+
+        return (int) Math.min( size, Integer.MAX_VALUE );
+    }
+
+    /**
+     * Returns the version key which is replaced on any swap of the given
+     * table, for sub-queries which do not restrict partitions.
+     */
+    private String getAnyPartitionKey( String tableName )
+    {
+        return tableName + ":any";
+    }
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.data;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.hisp.dhis.external.conf.ConfigurationKey.ANALYTICS_QUERY_ADMISSION_TIMEOUT;
+import static org.hisp.dhis.external.conf.ConfigurationKey.ANALYTICS_QUERY_MAX_CONCURRENT;
+import static org.hisp.dhis.external.conf.ConfigurationKey.ANALYTICS_QUERY_MAX_CONCURRENT_PER_USER;
+import static org.hisp.dhis.external.conf.ConfigurationKey.ANALYTICS_QUERY_MAX_QUEUED;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.hisp.dhis.common.QueryRuntimeException;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.feedback.ErrorCode;
+import org.hisp.dhis.user.CurrentUserService;
+import org.springframework.stereotype.Component;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Executor for analytics sub-queries, used for the asynchronous methods of
+ * {@link JdbcAnalyticsManager}. Limits the number of sub-queries executing
+ * concurrently across all users through a bounded thread pool and queue, and
+ * the number of sub-queries in progress for a single user through a semaphore
+ * per user, so that a single heavy request cannot starve other users. The
+ * semaphore of a user expires once no sub-query of the user is in progress or
+ * waiting for admission.
+ *
+ * Sub-queries which cannot be admitted within the admission timeout, or which
+ * exceed the max queue size, are rejected with a
+ * {@link QueryRuntimeException}. This class deliberately does not implement
+ * {@code TaskExecutor}, which would make it the default executor for all
+ * asynchronous methods.
+ *
+ * Interrupting a sub-query, as done when its future is cancelled, also cancels
+ * the JDBC statement registered through
+ * {@link #setRunningStatement(Statement)}, as the driver does not react to
+ * interrupts while waiting for the database.
+ */
+@Slf4j
+@Component( AnalyticsQueryExecutor.BEAN_NAME )
+public class AnalyticsQueryExecutor
+    implements Executor, MeterBinder
+{
+    public static final String BEAN_NAME = "analyticsQueryExecutor";
+
+    private static final String ANONYMOUS = "anonymous";
+
+    private final CurrentUserService currentUserService;
+
+    private final ThreadPoolExecutor executor;
+
+    private final int maxConcurrentPerUser;
+
+    private final long admissionTimeout;
+
+    /**
+     * Semaphores per username. Values are weakly referenced, so that a
+     * semaphore is removed once no task or admission holds it, and can not be
+     * removed while permits are held, which would allow more permits per user.
+     */
+    private final ConcurrentMap<String, Semaphore> userPermits = CacheBuilder.newBuilder()
+        .weakValues()
+        .<String, Semaphore> build()
+        .asMap();
+
+    private Timer waitTimer;
+
+    private Counter rejectedCounter;
+
+    public AnalyticsQueryExecutor( CurrentUserService currentUserService, DhisConfigurationProvider config )
+    {
+        checkNotNull( currentUserService );
+        checkNotNull( config );
+
+        this.currentUserService = currentUserService;
+
+        int maxConcurrent = Integer.parseInt( config.getProperty( ANALYTICS_QUERY_MAX_CONCURRENT ) );
+        int maxQueued = Integer.parseInt( config.getProperty( ANALYTICS_QUERY_MAX_QUEUED ) );
+
+        this.maxConcurrentPerUser = Integer.parseInt( config.getProperty( ANALYTICS_QUERY_MAX_CONCURRENT_PER_USER ) );
+        this.admissionTimeout = Long.parseLong( config.getProperty( ANALYTICS_QUERY_ADMISSION_TIMEOUT ) );
+
+        this.executor = new ThreadPoolExecutor( maxConcurrent, maxConcurrent, 60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>( maxQueued ), new ThreadFactoryBuilder()
+                .setNameFormat( "ANALYTICS-QUERY-%d" )
+                .setDaemon( true )
+                .setThreadFactory( QueryThread::new )
+                .build() );
+
+        this.executor.allowCoreThreadTimeOut( true );
+
+        log.info( String.format( "Analytics query executor created with max concurrent: %d, per user: %d, queued: %d",
+            maxConcurrent, maxConcurrentPerUser, maxQueued ) );
+    }
+
+    // -------------------------------------------------------------------------
+    // Executor implementation
+    // -------------------------------------------------------------------------
+
+    /**
+     * Submits the given task for execution. Blocks the calling thread until
+     * the current user has a permit available, or until the admission timeout
+     * expires.
+     *
+     * @param task the task to execute.
+     * @throws QueryRuntimeException if the task could not be admitted.
+     */
+    @Override
+    public void execute( Runnable task )
+    {
+        Semaphore permits = userPermits.computeIfAbsent( getCurrentUsername(),
+            user -> new Semaphore( maxConcurrentPerUser ) );
+
+        acquire( permits );
+
+        try
+        {
+            executor.execute( new QueryTask( task, permits ) );
+        }
+        catch ( RejectedExecutionException ex )
+        {
+            permits.release();
+            reject( ex );
+        }
+    }
+
+    /**
+     * Registers the given statement as executing for the sub-query of the
+     * calling thread, so that it is cancelled when the sub-query is
+     * interrupted. Does nothing if the calling thread is not a thread of this
+     * executor.
+     *
+     * @param statement the statement, or null once it completed.
+     * @throws CancellationException if the sub-query was interrupted before
+     *         the statement was registered.
+     */
+    public static void setRunningStatement( Statement statement )
+    {
+        Thread thread = Thread.currentThread();
+
+        if ( thread instanceof QueryThread )
+        {
+            ((QueryThread) thread).statement = statement;
+
+            if ( statement != null && thread.isInterrupted() )
+            {
+                ((QueryThread) thread).statement = null;
+
+                throw new CancellationException( "Analytics query was cancelled" );
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // MeterBinder implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void bindTo( MeterRegistry registry )
+    {
+        Gauge.builder( "analytics.query.queued", executor, e -> e.getQueue().size() )
+            .description( "Number of analytics sub-queries waiting for execution" )
+            .register( registry );
+
+        Gauge.builder( "analytics.query.active", executor, ThreadPoolExecutor::getActiveCount )
+            .description( "Number of analytics sub-queries executing" )
+            .register( registry );
+
+        waitTimer = Timer.builder( "analytics.query.wait" )
+            .description( "Time analytics sub-queries wait before execution" )
+            .register( registry );
+
+        rejectedCounter = Counter.builder( "analytics.query.rejected" )
+            .description( "Number of analytics sub-queries rejected by admission control" )
+            .register( registry );
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        executor.shutdownNow();
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private void acquire( Semaphore permits )
+    {
+        try
+        {
+            if ( !permits.tryAcquire( admissionTimeout, TimeUnit.SECONDS ) )
+            {
+                reject( null );
+            }
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+            reject( ex );
+        }
+    }
+
+    private void reject( Exception ex )
+    {
+        if ( rejectedCounter != null )
+        {
+            rejectedCounter.increment();
+        }
+
+        log.warn( ErrorCode.E7134.getMessage() );
+
+        throw new QueryRuntimeException( ErrorCode.E7134, ex );
+    }
+
+    private String getCurrentUsername()
+    {
+        String username = currentUserService.getCurrentUsername();
+
+        return username != null ? username : ANONYMOUS;
+    }
+
+    /**
+     * Task which records its queue wait time and releases the permit of the
+     * submitting user when completed.
+     */
+    private class QueryTask
+        implements Runnable
+    {
+        private final Runnable task;
+
+        private final Semaphore permits;
+
+        private final long submitted = System.nanoTime();
+
+        QueryTask( Runnable task, Semaphore permits )
+        {
+            this.task = task;
+            this.permits = permits;
+        }
+
+        @Override
+        public void run()
+        {
+            if ( waitTimer != null )
+            {
+                waitTimer.record( System.nanoTime() - submitted, TimeUnit.NANOSECONDS );
+            }
+
+            try
+            {
+                task.run();
+            }
+            finally
+            {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Thread which cancels the statement of its sub-query when interrupted.
+     */
+    private static class QueryThread
+        extends Thread
+    {
+        private volatile Statement statement;
+
+        QueryThread( Runnable runnable )
+        {
+            super( runnable );
+        }
+
+        @Override
+        public void interrupt()
+        {
+            super.interrupt();
+
+            Statement running = statement;
+
+            if ( running != null )
+            {
+                try
+                {
+                    running.cancel();
+                }
+                catch ( SQLException ex )
+                {
+                    log.warn( "Failed to cancel analytics query", ex );
+                }
+            }
+        }
+    }
+}
@@ -36,6 +36,7 @@ import static org.hisp.dhis.common.DimensionalObject.PERIOD_DIM_ID;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Function;
 
 import lombok.extern.slf4j.Slf4j;
@@ -63,13 +64,17 @@ import org.hisp.dhis.commons.collection.PaginatedList;
 import org.hisp.dhis.dataelement.DataElement;
 import org.hisp.dhis.dataelement.DataElementGroup;
 import org.hisp.dhis.feedback.ErrorCode;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.period.Period;
 import org.hisp.dhis.period.PeriodType;
+import org.hisp.dhis.setting.SettingKey;
+import org.hisp.dhis.setting.SystemSettingManager;
 import org.hisp.dhis.system.util.MathUtils;
 import org.hisp.dhis.util.ObjectUtils;
 import org.springframework.stereotype.Component;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 
 /**
@@ -80,17 +85,31 @@ import com.google.common.collect.Lists;
 public class DefaultQueryPlanner
     implements QueryPlanner
 {
+    /**
+     * Dimension types other than organisation unit which are retained in
+     * organisation unit level rollup tables.
+     */
+    private static final Set<DimensionType> ROLLUP_DIMENSION_TYPES = ImmutableSet.of(
+        DimensionType.DATA_X, DimensionType.PERIOD, DimensionType.CATEGORY_OPTION_COMBO,
+        DimensionType.ATTRIBUTE_OPTION_COMBO, DimensionType.CATEGORY, DimensionType.CATEGORY_OPTION_GROUP_SET,
+        DimensionType.DATA_ELEMENT_GROUP_SET );
+
     private final QueryValidator queryValidator;
 
     private final PartitionManager partitionManager;
 
-    public DefaultQueryPlanner( QueryValidator queryValidator, PartitionManager partitionManager )
+    private final SystemSettingManager systemSettingManager;
+
+    public DefaultQueryPlanner( QueryValidator queryValidator, PartitionManager partitionManager,
+        SystemSettingManager systemSettingManager )
     {
         checkNotNull( queryValidator );
         checkNotNull( partitionManager );
+        checkNotNull( systemSettingManager );
 
         this.queryValidator = queryValidator;
         this.partitionManager = partitionManager;
+        this.systemSettingManager = systemSettingManager;
     }
 
     // -------------------------------------------------------------------------
@@ -131,6 +150,11 @@ public class DefaultQueryPlanner
             currentQueries.forEach( query -> queries.addAll( grouper.apply( query ) ) );
         }
 
+        if ( AnalyticsTableType.DATA_VALUE == plannerParams.getTableType() )
+        {
+            queries.replaceAll( this::withRollupTableName );
+        }
+
         // ---------------------------------------------------------------------
         // Split queries until optimal number
         // ---------------------------------------------------------------------
@@ -696,6 +720,128 @@ public class DefaultQueryPlanner
     // Supportive methods
     // -------------------------------------------------------------------------
 
+    /**
+     * Sets the table name of the given query to the coarsest organisation unit
+     * level rollup table which can answer the query, if any. A rollup table
+     * can answer the query if the query sums numeric values and only refers to
+     * dimensions which are retained in the rollup table, and if the rollup
+     * table exists for all partitions of the query. Existence is checked
+     * against the cached set of analytics tables rather than the database
+     * catalog.
+     *
+     * @param params the {@link DataQueryParams}.
+     * @return a {@link DataQueryParams}.
+     */
+    private DataQueryParams withRollupTableName( DataQueryParams params )
+    {
+        int maxLevel = getRollupMaxLevel();
+
+        if ( maxLevel == 0 )
+        {
+            return params;
+        }
+
+        int level = getRollupLevel( params );
+
+        if ( level == 0 || level > maxLevel )
+        {
+            return params;
+        }
+
+        Set<String> tables = partitionManager.getAnalyticsPartitions( AnalyticsTableType.DATA_VALUE );
+
+        for ( int i = level; i <= maxLevel; i++ )
+        {
+            String rollupTableName = PartitionUtils.getRollupTableName( params.getTableName(), i );
+
+            boolean exists = params.getPartitions().getPartitions().stream()
+                .allMatch( year -> tables.contains( PartitionUtils.getPartitionName( rollupTableName, year ) ) );
+
+            if ( exists )
+            {
+                log.debug( String.format( "Using rollup table: '%s'", rollupTableName ) );
+
+                return DataQueryParams.newBuilder( params )
+                    .withTableName( rollupTableName )
+                    .build();
+            }
+        }
+
+        return params;
+    }
+
+    /**
+     * Returns the max organisation unit level for which rollup tables are
+     * created, or 0 if rollup tables are disabled.
+     */
+    private int getRollupMaxLevel()
+    {
+        Integer level = systemSettingManager.getIntegerSetting( SettingKey.ANALYTICS_ROLLUP_MAX_LEVEL );
+
+        return level != null ? Math.min( level, PartitionUtils.MAX_ROLLUP_LEVEL ) : 0;
+    }
+
+    /**
+     * Returns the lowest organisation unit level of a rollup table which can
+     * answer the given query, or 0 if no rollup table can answer the query.
+     *
+     * @param params the {@link DataQueryParams}.
+     * @return the organisation unit level, or 0.
+     */
+    private int getRollupLevel( DataQueryParams params )
+    {
+        AnalyticsAggregationType aggregationType = params.getAggregationType();
+
+        boolean supported = params.getTableName() != null &&
+            !params.isSkipPartitioning() && params.hasPartitions() &&
+            params.isDataType( DataType.NUMERIC ) && aggregationType != null &&
+            aggregationType.isAggregationType( AggregationType.SUM ) &&
+            (aggregationType.isPeriodAggregationType( AggregationType.SUM ) ||
+                aggregationType.isPeriodAggregationType( AggregationType.AVERAGE )) &&
+            !aggregationType.isDisaggregation() &&
+            !params.hasPreAggregateMeasureCriteria() &&
+            !params.isRestrictByOrgUnitOpeningClosedDate() &&
+            !params.isRestrictByCategoryOptionStartEndDate() &&
+            !params.isTimely();
+
+        if ( !supported )
+        {
+            return 0;
+        }
+
+        int level = 1;
+
+        for ( DimensionalObject dimension : params.getDimensionsAndFilters() )
+        {
+            if ( DimensionType.ORGANISATION_UNIT == dimension.getDimensionType() )
+            {
+                String name = dimension.getDimensionName();
+
+                if ( name == null || !name.startsWith( LEVEL_PREFIX ) ||
+                    !MathUtils.isInteger( name.substring( LEVEL_PREFIX.length() ) ) )
+                {
+                    return 0;
+                }
+
+                level = Math.max( level, Integer.parseInt( name.substring( LEVEL_PREFIX.length() ) ) );
+            }
+            else if ( !ROLLUP_DIMENSION_TYPES.contains( dimension.getDimensionType() ) )
+            {
+                return 0;
+            }
+        }
+
+        if ( params.isDataApproval() )
+        {
+            for ( OrganisationUnit unit : params.getDataApprovalLevels().keySet() )
+            {
+                level = Math.max( level, unit.getLevel() );
+            }
+        }
+
+        return level <= PartitionUtils.MAX_ROLLUP_LEVEL ? level : 0;
+    }
+
     /**
      * Log query split operation.
      *
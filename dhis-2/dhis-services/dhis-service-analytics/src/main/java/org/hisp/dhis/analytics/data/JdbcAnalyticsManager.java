@@ -50,6 +50,8 @@ import static org.hisp.dhis.commons.util.TextUtils.getQuotedCommaDelimitedString
 import static org.hisp.dhis.commons.util.TextUtils.removeLastOr;
 import static org.hisp.dhis.util.DateUtils.getMediumDateString;
 
+import java.sql.ResultSet;
+import java.sql.Statement;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
@@ -62,6 +64,7 @@ import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
 
+import org.apache.commons.lang3.mutable.MutableInt;
 import org.hisp.dhis.analytics.AggregationType;
 import org.hisp.dhis.analytics.AnalyticsAggregationType;
 import org.hisp.dhis.analytics.AnalyticsManager;
@@ -89,8 +92,9 @@ import org.hisp.dhis.period.PeriodType;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.AsyncResult;
 import org.springframework.stereotype.Component;
@@ -115,6 +119,8 @@ public class JdbcAnalyticsManager
 
     private static final int LAST_VALUE_YEARS_OFFSET = -10;
 
+    private static final int FETCH_SIZE = 10000;
+
     private static final Map<MeasureFilter, String> OPERATOR_SQL_MAP = ImmutableMap.<MeasureFilter, String> builder()
         .put( MeasureFilter.EQ, "=" )
         .put( MeasureFilter.GT, ">" )
@@ -128,7 +134,7 @@ public class JdbcAnalyticsManager
     private final JdbcTemplate jdbcTemplate;
 
     public JdbcAnalyticsManager( QueryPlanner queryPlanner,
-        @Qualifier( "readOnlyJdbcTemplate" ) JdbcTemplate jdbcTemplate )
+        @Qualifier( "readReplicaJdbcTemplate" ) JdbcTemplate jdbcTemplate )
     {
         checkNotNull( queryPlanner );
         checkNotNull( jdbcTemplate );
@@ -142,7 +148,7 @@ public class JdbcAnalyticsManager
     // -------------------------------------------------------------------------
 
     @Override
-    @Async
+    @Async( AnalyticsQueryExecutor.BEAN_NAME )
     public Future<Map<String, Object>> getAggregatedDataValues( DataQueryParams params, AnalyticsTableType tableType,
         int maxLimit )
     {
@@ -669,21 +675,22 @@ public class JdbcAnalyticsManager
 
     /**
      * Retrieves data from the database based on the given query and SQL and
-     * puts into a value key and value mapping.
+     * puts into a value key and value mapping. Rows are streamed from the
+     * result set with a bounded fetch size and are not copied into an
+     * intermediate row set, see {@link #streamQuery(String, RowCallbackHandler)}.
      */
     private Map<String, Object> getKeyValueMap( DataQueryParams params, String sql, int maxLimit )
     {
-        Map<String, Object> map = new HashMap<>();
+        final Map<String, Object> map = new HashMap<>();
 
         log.debug( String.format( "Analytics SQL: %s", sql ) );
 
-        SqlRowSet rowSet = jdbcTemplate.queryForRowSet( sql );
-
-        int counter = 0;
+        final List<DimensionalObject> dimensions = params.getDimensions();
+        final boolean textValue = params.isDataType( TEXT );
+        final MutableInt counter = new MutableInt();
 
-        while ( rowSet.next() )
-        {
-            boolean exceedsMaxLimit = maxLimit > 0 && ++counter > maxLimit;
+        streamQuery( sql, rs -> {
+            boolean exceedsMaxLimit = maxLimit > 0 && counter.incrementAndGet() > maxLimit;
 
             if ( exceedsMaxLimit )
             {
@@ -692,32 +699,80 @@ public class JdbcAnalyticsManager
 
             StringBuilder key = new StringBuilder();
 
-            for ( DimensionalObject dim : params.getDimensions() )
+            for ( DimensionalObject dim : dimensions )
             {
-                String value = dim.isFixed() ? dim.getDimensionName() : rowSet.getString( dim.getDimensionName() );
+                String value = dim.isFixed() ? dim.getDimensionName() : rs.getString( dim.getDimensionName() );
 
                 key.append( value ).append( DIMENSION_SEP );
             }
 
             key.deleteCharAt( key.length() - 1 );
 
-            if ( params.isDataType( TEXT ) )
+            if ( textValue )
             {
-                String value = rowSet.getString( VALUE_ID );
-
-                map.put( key.toString(), value );
+                map.put( key.toString(), rs.getString( VALUE_ID ) );
             }
             else // NUMERIC
             {
-                Double value = rowSet.getDouble( VALUE_ID );
-
-                map.put( key.toString(), value );
+                map.put( key.toString(), rs.getDouble( VALUE_ID ) );
             }
-        }
+        } );
 
         return map;
     }
 
+    /**
+     * Runs the given query with a bounded fetch size and passes each row to the
+     * given handler. The PostgreSQL driver only fetches rows in batches through
+     * a cursor when autocommit is off, so unless a transaction is already
+     * active the query runs in a read-only transaction which is rolled back
+     * once all rows are read. The statement is cancelled if the sub-query is
+     * cancelled while it runs.
+     */
+    private void streamQuery( String sql, RowCallbackHandler handler )
+    {
+        jdbcTemplate.execute( (ConnectionCallback<Void>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            boolean readOnly = connection.isReadOnly();
+
+            if ( autoCommit )
+            {
+                connection.setAutoCommit( false );
+                connection.setReadOnly( true );
+            }
+
+            try ( Statement statement = connection.createStatement() )
+            {
+                statement.setFetchSize( FETCH_SIZE );
+
+                AnalyticsQueryExecutor.setRunningStatement( statement );
+
+                try ( ResultSet rs = statement.executeQuery( sql ) )
+                {
+                    while ( rs.next() )
+                    {
+                        handler.processRow( rs );
+                    }
+                }
+                finally
+                {
+                    AnalyticsQueryExecutor.setRunningStatement( null );
+                }
+            }
+            finally
+            {
+                if ( autoCommit )
+                {
+                    connection.rollback();
+                    connection.setReadOnly( readOnly );
+                    connection.setAutoCommit( true );
+                }
+            }
+
+            return null;
+        } );
+    }
+
     /**
      * Generates a comma-delimited string based on the dimension names of the
      * given dimensions where each dimension name is quoted.
@@ -109,6 +109,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.Future;
 import java.util.function.Function;
@@ -127,6 +128,7 @@ import org.hisp.dhis.analytics.QueryPlanner;
 import org.hisp.dhis.analytics.QueryPlannerParams;
 import org.hisp.dhis.analytics.QueryValidator;
 import org.hisp.dhis.analytics.RawAnalyticsManager;
+import org.hisp.dhis.analytics.cache.AnalyticsQueryCache;
 import org.hisp.dhis.analytics.event.EventAnalyticsService;
 import org.hisp.dhis.analytics.event.EventQueryParams;
 import org.hisp.dhis.analytics.resolver.ExpressionResolver;
@@ -187,12 +189,15 @@ public class DataHandler
 
     private final OrganisationUnitService organisationUnitService;
 
+    private final AnalyticsQueryCache analyticsQueryCache;
+
     private DataAggregator dataAggregator;
 
     public DataHandler( EventAnalyticsService eventAnalyticsService, RawAnalyticsManager rawAnalyticsManager,
         ConstantService constantService, ExpressionResolvers resolvers, ExpressionService expressionService,
         QueryPlanner queryPlanner, QueryValidator queryValidator, SystemSettingManager systemSettingManager,
-        AnalyticsManager analyticsManager, OrganisationUnitService organisationUnitService )
+        AnalyticsManager analyticsManager, OrganisationUnitService organisationUnitService,
+        AnalyticsQueryCache analyticsQueryCache )
     {
         checkNotNull( eventAnalyticsService );
         checkNotNull( rawAnalyticsManager );
@@ -204,6 +209,7 @@ public class DataHandler
         checkNotNull( systemSettingManager );
         checkNotNull( analyticsManager );
         checkNotNull( organisationUnitService );
+        checkNotNull( analyticsQueryCache );
 
         this.eventAnalyticsService = eventAnalyticsService;
         this.rawAnalyticsManager = rawAnalyticsManager;
@@ -215,6 +221,7 @@ public class DataHandler
         this.systemSettingManager = systemSettingManager;
         this.analyticsManager = analyticsManager;
         this.organisationUnitService = organisationUnitService;
+        this.analyticsQueryCache = analyticsQueryCache;
     }
 
     /**
@@ -1106,25 +1113,78 @@ public class DataHandler
         return map;
     }
 
+    /**
+     * Executes the given planned sub-queries in parallel and adds the results
+     * to the given map. Results of sub-queries are cached when the analytics
+     * cache is enabled, so that identical sub-queries of other requests can be
+     * served from the cache until the underlying analytics tables are swapped.
+     * Pending sub-queries are cancelled if a sub-query fails or is rejected.
+     *
+     * @param tableType the {@link AnalyticsTableType}.
+     * @param maxLimit the max number of records to retrieve.
+     * @param map the map to add the results to.
+     * @param queries the list of planned sub-queries.
+     */
     private void executeQueries( AnalyticsTableType tableType, int maxLimit, Map<String, Object> map,
         List<DataQueryParams> queries )
     {
+        boolean cacheEnabled = analyticsQueryCache.isEnabled();
+
+        List<DataQueryParams> fetchQueries = new ArrayList<>();
+
+        List<String> fetchKeys = new ArrayList<>();
+
         List<Future<Map<String, Object>>> futures = new ArrayList<>();
 
         for ( DataQueryParams query : queries )
         {
-            futures.add( analyticsManager.getAggregatedDataValues( query, tableType, maxLimit ) );
+            // Key is taken before the query runs, so that results read from a
+            // table swapped meanwhile are cached under the replaced version
+
+            String cacheKey = cacheEnabled ? analyticsQueryCache.getKey( query, tableType, maxLimit ) : null;
+
+            Optional<Map<String, Object>> cachedValues = cacheEnabled
+                ? analyticsQueryCache.get( cacheKey )
+                : Optional.empty();
+
+            if ( cachedValues.isPresent() )
+            {
+                map.putAll( cachedValues.get() );
+            }
+            else
+            {
+                try
+                {
+                    futures.add( analyticsManager.getAggregatedDataValues( query, tableType, maxLimit ) );
+                    fetchQueries.add( query );
+                    fetchKeys.add( cacheKey );
+                }
+                catch ( RuntimeException ex )
+                {
+                    // Cancel submitted queries as admission of this query was
+                    // rejected and the result will be discarded
+
+                    futures.forEach( future -> future.cancel( true ) );
+
+                    throw ex;
+                }
+            }
         }
 
-        for ( Future<Map<String, Object>> future : futures )
+        for ( int i = 0; i < futures.size(); i++ )
         {
             try
             {
-                Map<String, Object> taskValues = future.get();
+                Map<String, Object> taskValues = futures.get( i ).get();
 
                 if ( taskValues != null )
                 {
                     map.putAll( taskValues );
+
+                    if ( cacheEnabled )
+                    {
+                        analyticsQueryCache.put( fetchKeys.get( i ), fetchQueries.get( i ), taskValues );
+                    }
                 }
             }
             catch ( Exception ex )
@@ -1132,6 +1192,10 @@ public class DataHandler
                 log.error( getStackTrace( ex ) );
                 log.error( getStackTrace( ex.getCause() ) );
 
+                // Cancel remaining queries as the result will be discarded
+
+                futures.forEach( future -> future.cancel( true ) );
+
                 if ( ex.getCause() instanceof RuntimeException )
                 {
                     // Throw the real exception
@@ -27,10 +27,11 @@
  */
 package org.hisp.dhis.analytics.partition;
 
-import java.util.HashMap;
+import static java.util.Collections.unmodifiableSet;
+
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
@@ -44,6 +45,9 @@ import org.springframework.context.event.EventListener;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 /**
  * @author Lars Helge Overland
  */
@@ -52,7 +56,13 @@ import org.springframework.stereotype.Component;
 public class JdbcPartitionManager
     implements PartitionManager
 {
-    private Map<AnalyticsTableType, Set<String>> analyticsPartitions = new HashMap<>();
+    /**
+     * Names of existing analytics tables per table type. Expires so that
+     * tables swapped by other instances are seen within a minute.
+     */
+    private final Cache<AnalyticsTableType, Set<String>> analyticsPartitions = CacheBuilder.newBuilder()
+        .expireAfterWrite( 1, TimeUnit.MINUTES )
+        .build();
 
     @Autowired
     private JdbcTemplate jdbcTemplate;
@@ -60,9 +70,11 @@ public class JdbcPartitionManager
     @Override
     public Set<String> getAnalyticsPartitions( AnalyticsTableType tableType )
     {
-        if ( analyticsPartitions.containsKey( tableType ) )
+        Set<String> cached = analyticsPartitions.getIfPresent( tableType );
+
+        if ( cached != null )
         {
-            return analyticsPartitions.get( tableType );
+            return cached;
         }
 
         final String sql = "select table_name from information_schema.tables " +
@@ -71,7 +83,8 @@ public class JdbcPartitionManager
 
         log.info( "Information schema analytics table SQL: " + sql );
 
-        Set<String> partitions = new HashSet<>( jdbcTemplate.queryForList( sql, String.class ) );
+        Set<String> partitions = unmodifiableSet(
+            new HashSet<>( jdbcTemplate.queryForList( sql, String.class ) ) );
 
         analyticsPartitions.put( tableType, partitions );
 
@@ -108,11 +121,17 @@ public class JdbcPartitionManager
 
     }
 
+    @Override
+    public void invalidateAnalyticsPartitions( AnalyticsTableType tableType )
+    {
+        analyticsPartitions.invalidate( tableType );
+    }
+
     @Override
     @EventListener
     public void handleApplicationCachesCleared( ApplicationCacheClearedEvent event )
     {
-        analyticsPartitions = new HashMap<>();
+        analyticsPartitions.invalidateAll();
         log.info( "Analytics partition cache cleared" );
     }
 }
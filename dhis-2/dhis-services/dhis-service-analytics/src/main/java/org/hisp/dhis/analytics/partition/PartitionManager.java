@@ -41,7 +41,8 @@ import org.hisp.dhis.common.event.ApplicationCacheClearedEvent;
 public interface PartitionManager
 {
     /**
-     * Returns a set of names of current event analytics partitions.
+     * Returns a set of names of current analytics partitions. The set is
+     * cached and must not be modified.
      *
      * @param tableType the type to get all existing table partitions for.
      */
@@ -62,6 +63,14 @@ public interface PartitionManager
      */
     void filterNonExistingPartitions( Partitions partitions, String tableName );
 
+    /**
+     * Invalidates the cached names of analytics partitions of the given type,
+     * to be called after tables have been swapped.
+     *
+     * @param tableType the {@link AnalyticsTableType}.
+     */
+    void invalidateAnalyticsPartitions( AnalyticsTableType tableType );
+
     /**
      * Event handler for {@link ApplicationCacheClearedEvent}.
      *
@@ -33,6 +33,7 @@ import static org.hisp.dhis.analytics.ColumnDataType.TEXT;
 import static org.hisp.dhis.analytics.util.AnalyticsSqlUtils.quote;
 import static org.hisp.dhis.util.DateUtils.getLongDateString;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
@@ -209,6 +210,12 @@ public abstract class AbstractJdbcTableManager
     @Override
     public void swapTable( AnalyticsTableUpdateParams params, AnalyticsTable table )
     {
+        if ( params.isIncrementalLatestUpdate() && tableTypeIsPartitioned() )
+        {
+            mergeLatestPartition( table );
+            return;
+        }
+
         boolean tableExists = partitionManager.tableExists( table.getTableName() );
         boolean skipMasterTable = params.isPartialUpdate() && tableExists;
 
@@ -234,12 +241,16 @@ public abstract class AbstractJdbcTableManager
     public void dropTable( String tableName )
     {
         executeSilently( "drop table if exists " + tableName );
+
+        partitionManager.invalidateAnalyticsPartitions( getAnalyticsTableType() );
     }
 
     @Override
     public void dropTableCascade( String tableName )
     {
         executeSilently( "drop table if exists " + tableName + " cascade" );
+
+        partitionManager.invalidateAnalyticsPartitions( getAnalyticsTableType() );
     }
 
     @Override
@@ -369,7 +380,7 @@ public abstract class AbstractJdbcTableManager
         final String createTableSql = "create table if not exists ";
 
         String sqlCreate = createTableSql + tableName + " (";
-        String sqlCreateTemp = createTableSql + tempTableName + " (";
+        String sqlCreateTemp = getCreateTempTableSql() + " if not exists " + tempTableName + " (";
 
         String columns = ListUtils.union( table.getDimensionColumns(), table.getValueColumns() )
             .stream()
@@ -424,8 +435,9 @@ public abstract class AbstractJdbcTableManager
     /**
      * Creates a {@link AnalyticsTable} with a partition for the "latest" data.
      * The start date of the partition is the time of the last successful full
-     * analytics table update. The end date of the partition is the start time
-     * of this analytics table update process.
+     * analytics table update, or the time of the last successful update of any
+     * kind for incremental updates. The end date of the partition is the start
+     * time of this analytics table update process.
      *
      * @param params the {@link AnalyticsTableUpdateParams}.
      * @param dimensionColumns the list of dimension
@@ -447,13 +459,15 @@ public abstract class AbstractJdbcTableManager
         Date endDate = params.getStartTime();
         boolean hasUpdatedData = hasUpdatedLatestData( lastAnyTableUpdate, endDate );
 
+        Date startDate = params.isIncrementalUpdate() ? lastAnyTableUpdate : lastFullTableUpdate;
+
         AnalyticsTable table = new AnalyticsTable( getAnalyticsTableType(), dimensionColumns, valueColumns );
 
         if ( hasUpdatedData )
         {
-            table.addPartitionTable( AnalyticsTablePartition.LATEST_PARTITION, lastFullTableUpdate, endDate );
+            table.addPartitionTable( AnalyticsTablePartition.LATEST_PARTITION, startDate, endDate );
             log.info( "Added latest analytics partition with start: '{}' and end: '{}'",
-                getLongDateString( lastFullTableUpdate ), getLongDateString( endDate ) );
+                getLongDateString( startDate ), getLongDateString( endDate ) );
         }
         else
         {
@@ -595,6 +609,7 @@ public abstract class AbstractJdbcTableManager
         String tempTableName = tablePartition.getTempTableName();
 
         final String[] sqlSteps = {
+            getSetLoggedSql( tempTableName ),
             " alter table " + mainTableName + " detach partition " + realTableName,
             " drop table " + realTableName + " cascade",
             " alter table " + tempTableName + " rename to " + realTableName,
@@ -602,7 +617,9 @@ public abstract class AbstractJdbcTableManager
                 + " for values in (" + tablePartition.getYear() + ")"
         };
 
-        final String sql = String.join( ";", sqlSteps ) + ";";
+        final String sql = Arrays.stream( sqlSteps )
+            .filter( StringUtils::isNotEmpty )
+            .collect( Collectors.joining( ";" ) ) + ";";
 
         log.debug( sql );
 
@@ -615,17 +632,68 @@ public abstract class AbstractJdbcTableManager
         String tempTableName = mainTable.getTempTableName();
 
         final String[] sqlSteps = {
+            getSetLoggedSql( tempTableName ),
             " drop table if exists " + mainTableName + " cascade",
             " alter table " + tempTableName + " rename to " + mainTableName
         };
 
-        final String sql = String.join( ";", sqlSteps ) + ";";
+        final String sql = Arrays.stream( sqlSteps )
+            .filter( StringUtils::isNotEmpty )
+            .collect( Collectors.joining( ";" ) ) + ";";
 
         log.debug( sql );
 
         executeSilently( sql );
     }
 
+    /**
+     * Merges the "latest" temporary partition into the existing partitions of
+     * the given analytics table, meaning inserts the rows of the temporary
+     * table into the real table and drops the temporary table. The rows which
+     * were updated since the last update must have been removed from the real
+     * table up front. Partitions for years which do not yet exist are created.
+     *
+     * @param mainTable the partition table.
+     */
+    private void mergeLatestPartition( AnalyticsTable mainTable )
+    {
+        AnalyticsTablePartition latestPartition = mainTable.getLatestPartition();
+
+        if ( latestPartition == null )
+        {
+            return;
+        }
+
+        String mainTableName = mainTable.getTableName();
+        String tempTableName = latestPartition.getTempTableName();
+
+        List<Integer> years = jdbcTemplate.queryForList( "select distinct cast(" + quote( getPartitionColumn() )
+            + " as integer) from " + tempTableName, Integer.class );
+
+        for ( Integer year : years )
+        {
+            AnalyticsTablePartition partition = new AnalyticsTablePartition( mainTable, year, null, null, false );
+
+            if ( !partitionManager.tableExists( partition.getTableName() ) )
+            {
+                log.warn( "Creating missing analytics partition: '{}'", partition.getTableName() );
+
+                createTableAsPartitionOf( mainTable, partition );
+            }
+        }
+
+        String columns = ListUtils.union( mainTable.getDimensionColumns(), mainTable.getValueColumns() )
+            .stream()
+            .map( AnalyticsTableColumn::getName )
+            .collect( Collectors.joining( "," ) );
+
+        invokeTimeAndLog( "insert into " + mainTableName + " (" + columns + ") " +
+            "select " + columns + " from " + tempTableName,
+            String.format( "Merge latest data into table: '%s', years: %s", mainTableName, years ) );
+
+        dropTableCascade( tempTableName );
+    }
+
     /**
      * Create a analytics table (non partition)
      *
@@ -649,7 +717,8 @@ public abstract class AbstractJdbcTableManager
         createTableAsPartitionOf( table, partition );
 
         String tableName = partition == null ? table.getTableName() : partition.getTempTableName();
-        String sqlCreate = "create table if not exists " + tableName + " (";
+        String sqlCreate = (partition == null ? "create table" : getCreateTempTableSql()) + " if not exists "
+            + tableName + " (";
         for ( AnalyticsTableColumn col : ListUtils.union( table.getDimensionColumns(), table.getValueColumns() ) )
         {
             String notNull = col.getNotNull().isNotNull() ? " not null" : "";
@@ -692,6 +761,36 @@ public abstract class AbstractJdbcTableManager
         }
     }
 
+    /**
+     * Returns the create table statement for temporary analytics tables. The
+     * temporary tables are created unlogged if so configured, which means that
+     * populating, indexing and analyzing them does not write to the WAL.
+     */
+    private String getCreateTempTableSql()
+    {
+        return isUnloggedTables() ? "create unlogged table" : "create table";
+    }
+
+    /**
+     * Returns a statement which makes the given temporary table logged before
+     * it replaces the real table, or an empty string if temporary tables are
+     * not created unlogged.
+     *
+     * @param tempTableName the temporary table name.
+     */
+    private String getSetLoggedSql( String tempTableName )
+    {
+        return isUnloggedTables() ? " alter table " + tempTableName + " set logged" : "";
+    }
+
+    /**
+     * Indicates whether temporary analytics tables should be created unlogged.
+     */
+    private boolean isUnloggedTables()
+    {
+        return systemSettingManager.getBoolSetting( SettingKey.UNLOGGED_ANALYTICS_TABLES_IN_ANALYTICS_TABLE_EXPORT );
+    }
+
     /**
      * Indicates whether this analytics table type is partitioned.
      */
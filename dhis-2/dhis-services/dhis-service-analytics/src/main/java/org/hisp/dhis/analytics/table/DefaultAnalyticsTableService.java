@@ -46,6 +46,7 @@ import org.hisp.dhis.analytics.AnalyticsTablePartition;
 import org.hisp.dhis.analytics.AnalyticsTableService;
 import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
+import org.hisp.dhis.analytics.cache.AnalyticsQueryCache;
 import org.hisp.dhis.common.IdentifiableObjectUtils;
 import org.hisp.dhis.commons.util.SystemUtils;
 import org.hisp.dhis.dataelement.DataElementService;
@@ -76,6 +77,8 @@ public class DefaultAnalyticsTableService
 
     private final SystemSettingManager systemSettingManager;
 
+    private final AnalyticsQueryCache analyticsQueryCache;
+
     @Override
     public AnalyticsTableType getAnalyticsTableType()
     {
@@ -161,6 +164,13 @@ public class DefaultAnalyticsTableService
         analyzeTables( partitions, progress );
         clock.logTime( "Analyzed tables" );
 
+        if ( !params.isLatestUpdate() )
+        {
+            progress.startingStage( "Creating rollup tables " + tableType, partitions.size() );
+            createRollupTables( partitions, progress );
+            clock.logTime( "Created rollup tables" );
+        }
+
         if ( params.isLatestUpdate() )
         {
             progress.startingStage( "Removing updated and deleted data " + tableType );
@@ -316,7 +326,18 @@ public class DefaultAnalyticsTableService
     }
 
     /**
-     * Swaps the given analytics tables.
+     * Creates the organisation unit level rollup tables for the given
+     * analytics table partitions.
+     */
+    private void createRollupTables( List<AnalyticsTablePartition> partitions, JobProgress progress )
+    {
+        progress.runStageInParallel( getProcessNo(), partitions, AnalyticsTablePartition::getTableName,
+            tableManager::createRollupTables );
+    }
+
+    /**
+     * Swaps the given analytics tables and invalidates cached query results
+     * for the swapped tables.
      *
      * @param params the {@link AnalyticsTableUpdateParams}.
      * @param tables the list of {@link AnalyticsTable}.
@@ -326,7 +347,10 @@ public class DefaultAnalyticsTableService
         resourceTableService.dropAllSqlViews( progress );
 
         progress.startingStage( "Swapping analytics tables " + getAnalyticsTableType(), tables.size() );
-        progress.runStage( tables, AnalyticsTable::getTableName, table -> tableManager.swapTable( params, table ) );
+        progress.runStage( tables, AnalyticsTable::getTableName, table -> {
+            tableManager.swapTable( params, table );
+            analyticsQueryCache.invalidate( params, table );
+        } );
 
         resourceTableService.createAllSqlViews( progress );
     }
@@ -45,6 +45,7 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -516,6 +517,65 @@ public class JdbcAnalyticsTableManager
         jdbcTemplate.execute( sql.toString() );
     }
 
+    @Override
+    public void createRollupTables( AnalyticsTablePartition partition )
+    {
+        if ( partition.isLatestPartition() )
+        {
+            return;
+        }
+
+        int maxLevel = getRollupMaxLevel();
+
+        for ( int level = 1; level <= maxLevel; level++ )
+        {
+            String tableName = getRollupTempTableName( partition, level );
+            String columns = StringUtils.join( getRollupColumns( partition, level ), "," );
+
+            dropTableCascade( tableName );
+
+            String sql = "create table " + tableName + " as " +
+                "select " + columns + ", " +
+                "sum(daysxvalue) as daysxvalue, sum(daysno) as daysno, sum(value) as value " +
+                "from " + partition.getTempTableName() + " " +
+                "where value is not null " +
+                "group by " + columns;
+
+            invokeTimeAndLog( sql, String.format( "Create rollup table: %s", tableName ) );
+
+            analyzeTable( tableName );
+        }
+    }
+
+    /**
+     * Swaps the given analytics table and the rollup tables of its partitions.
+     * Rollup tables of levels which are no longer enabled are dropped for the
+     * swapped partitions. Latest updates change data in the existing
+     * partitions, so all rollup tables are dropped as they would otherwise
+     * become stale.
+     *
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     * @param table the analytics table.
+     */
+    @Override
+    public void swapTable( AnalyticsTableUpdateParams params, AnalyticsTable table )
+    {
+        super.swapTable( params, table );
+
+        if ( params.isLatestUpdate() )
+        {
+            dropRollupTables();
+        }
+        else
+        {
+            table.getTablePartitions().stream()
+                .filter( partition -> !partition.isLatestPartition() )
+                .forEach( this::swapRollupTables );
+        }
+
+        partitionManager.invalidateAnalyticsPartitions( getAnalyticsTableType() );
+    }
+
     @Override
     public void vacuumTables( AnalyticsTablePartition partition )
     {
@@ -532,6 +592,103 @@ public class JdbcAnalyticsTableManager
         return FIXED_COLS;
     }
 
+    /**
+     * Returns the max organisation unit level for which rollup tables are
+     * created, or 0 if rollup tables are disabled.
+     */
+    private int getRollupMaxLevel()
+    {
+        Integer level = systemSettingManager.getIntegerSetting( SettingKey.ANALYTICS_ROLLUP_MAX_LEVEL );
+
+        return level != null ? Math.min( level, PartitionUtils.MAX_ROLLUP_LEVEL ) : 0;
+    }
+
+    /**
+     * Returns the quoted names of the dimension columns to retain in the
+     * rollup table of the given level. Excludes the row identifier, the org
+     * unit columns below the level and org unit group set columns, as these
+     * depend on the individual org unit.
+     *
+     * @param partition the {@link AnalyticsTablePartition}.
+     * @param level the organisation unit level.
+     * @return a list of column names.
+     */
+    private List<String> getRollupColumns( AnalyticsTablePartition partition, int level )
+    {
+        Set<String> orgUnitLevelColumns = Sets.newHashSet();
+
+        for ( int i = 1; i <= level; i++ )
+        {
+            orgUnitLevelColumns.add( quote( PREFIX_ORGUNITLEVEL + i ) );
+        }
+
+        Set<String> excludedColumns = Sets.newHashSet( quote( "id" ), quote( "ou" ), quote( "oulevel" ) );
+
+        return partition.getMasterTable().getDimensionColumns().stream()
+            .filter( col -> !excludedColumns.contains( col.getName() ) )
+            .filter( col -> !col.getAlias().startsWith( "ougs." ) )
+            .filter( col -> !col.getAlias().startsWith( "ous." ) || orgUnitLevelColumns.contains( col.getName() ) )
+            .map( AnalyticsTableColumn::getName )
+            .collect( Collectors.toList() );
+    }
+
+    /**
+     * Replaces the rollup tables of the given partition with the temporary
+     * rollup tables.
+     *
+     * @param partition the {@link AnalyticsTablePartition}.
+     */
+    private void swapRollupTables( AnalyticsTablePartition partition )
+    {
+        int maxLevel = getRollupMaxLevel();
+
+        for ( int level = 1; level <= PartitionUtils.MAX_ROLLUP_LEVEL; level++ )
+        {
+            String realTableName = getRollupTableName( partition, level );
+
+            if ( level <= maxLevel )
+            {
+                String tempTableName = getRollupTempTableName( partition, level );
+
+                executeSilently( "drop table if exists " + realTableName + " cascade;" +
+                    "alter table " + tempTableName + " rename to " + realTableName + ";" );
+            }
+            else
+            {
+                dropTableCascade( realTableName );
+            }
+        }
+    }
+
+    /**
+     * Drops all rollup tables.
+     */
+    private void dropRollupTables()
+    {
+        for ( int level = 1; level <= PartitionUtils.MAX_ROLLUP_LEVEL; level++ )
+        {
+            String sql = "select table_name from information_schema.tables " +
+                "where table_name like '" + PartitionUtils.getRollupTableName( getTableName(), level ) + "\\_%' " +
+                "and table_type = 'BASE TABLE'";
+
+            jdbcTemplate.queryForList( sql, String.class ).forEach( this::dropTableCascade );
+        }
+    }
+
+    private String getRollupTableName( AnalyticsTablePartition partition, int level )
+    {
+        return PartitionUtils.getPartitionName(
+            PartitionUtils.getRollupTableName( partition.getMasterTable().getTableName(), level ),
+            partition.getYear() );
+    }
+
+    private String getRollupTempTableName( AnalyticsTablePartition partition, int level )
+    {
+        return PartitionUtils.getPartitionName(
+            PartitionUtils.getRollupTableName( partition.getMasterTable().getTempTableName(), level ),
+            partition.getYear() );
+    }
+
     /**
      * Indicates whether the system should ignore data which has not been
      * approved in analytics tables.
@@ -32,6 +32,8 @@ import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.hisp.dhis.analytics.AnalyticsTable;
 import org.hisp.dhis.analytics.AnalyticsTablePartition;
@@ -57,6 +59,15 @@ public class PartitionUtils
 {
     public static final String SEP = "_";
 
+    public static final String ROLLUP_PREFIX = "ou";
+
+    /**
+     * The max organisation unit level for which rollup tables can be created.
+     */
+    public static final int MAX_ROLLUP_LEVEL = 3;
+
+    private static final Pattern ROLLUP_TABLE_PATTERN = Pattern.compile( "(.+)" + SEP + ROLLUP_PREFIX + "\\d+" );
+
     /**
      * Returns the start date for the given year, inclusive.
      *
@@ -259,4 +270,36 @@ public class PartitionUtils
     {
         return tableName + SEP + partition;
     }
+
+    /**
+     * Returns the name of the rollup table of the given table for the given
+     * organisation unit level, such as {@code analytics_ou2}.
+     *
+     * @param tableName the table name.
+     * @param level the organisation unit level.
+     * @return the rollup table name.
+     */
+    public static String getRollupTableName( String tableName, int level )
+    {
+        return tableName + SEP + ROLLUP_PREFIX + level;
+    }
+
+    /**
+     * Returns the name of the table from which the given rollup table is
+     * derived, or the given table name if it is not a rollup table name.
+     *
+     * @param tableName the table name, such as {@code analytics_ou2}.
+     * @return the source table name, such as {@code analytics}.
+     */
+    public static String getRollupSourceTableName( String tableName )
+    {
+        if ( tableName == null )
+        {
+            return null;
+        }
+
+        Matcher matcher = ROLLUP_TABLE_PATTERN.matcher( tableName );
+
+        return matcher.matches() ? matcher.group( 1 ) : tableName;
+    }
 }
@@ -60,6 +60,10 @@ import com.google.common.base.Preconditions;
  * update is performed when the current time is after the next scheduled full
  * update time. Otherwise, a partial update of the latest analytics partition
  * table is performed.
+ * <p>
+ * When {@link ContinuousAnalyticsJobParameters#isIncrementalUpdate()} is set,
+ * the partial update merges the data changed since the last update into the
+ * existing analytics table partitions.
  *
  * @author Lars Helge Overland
  */
@@ -131,10 +135,12 @@ public class ContinuousAnalyticsTableJob implements Job
         }
         else
         {
-            log.info( "Performing latest analytics table partition update" );
+            log.info( "Performing latest analytics table partition update, incremental: {}",
+                parameters.isIncrementalUpdate() );
 
             AnalyticsTableUpdateParams params = AnalyticsTableUpdateParams.newBuilder()
                 .withLatestPartition()
+                .withIncrementalUpdate( parameters.isIncrementalUpdate() )
                 .withSkipResourceTables( true )
                 .withSkipTableTypes( parameters.getSkipTableTypes() )
                 .withJobId( jobConfiguration )
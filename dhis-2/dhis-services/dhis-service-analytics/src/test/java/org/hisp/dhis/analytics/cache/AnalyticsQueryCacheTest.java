@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.mockito.junit.MockitoJUnit.rule;
+
+import java.util.Map;
+import java.util.Optional;
+
+import org.hisp.dhis.analytics.AnalyticsTable;
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.Partitions;
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.cache.TestCache;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoRule;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class AnalyticsQueryCacheTest
+{
+    @Mock
+    private CacheProvider cacheProvider;
+
+    @Mock
+    private AnalyticsCacheSettings analyticsCacheSettings;
+
+    @Rule
+    public MockitoRule mockitoRule = rule();
+
+    private final Cache<String> tableVersions = new TestCache<>();
+
+    private AnalyticsQueryCache analyticsQueryCache;
+
+    private final Map<String, Object> result = ImmutableMap.of( "deabcdefghA-2019", 12d );
+
+    @Before
+    public void setUp()
+    {
+        when( cacheProvider.createAnalyticsQueryCache( any(), any() ) ).thenReturn( new TestCache<>() );
+        when( cacheProvider.<String> createAnalyticsTableVersionCache() ).thenReturn( tableVersions );
+        when( analyticsCacheSettings.fixedExpirationTimeOrDefault() ).thenReturn( 60L );
+
+        analyticsQueryCache = new AnalyticsQueryCache( cacheProvider, analyticsCacheSettings );
+    }
+
+    @Test
+    public void testGetPut()
+    {
+        DataQueryParams paramsA = getParams( 2019 );
+        DataQueryParams paramsB = getParams( 2020 );
+
+        put( paramsA );
+
+        assertTrue( get( paramsA, 0 ).isPresent() );
+        assertFalse( get( paramsA, 100 ).isPresent() );
+        assertFalse( get( paramsB, 0 ).isPresent() );
+    }
+
+    @Test
+    public void testInvalidateFullUpdate()
+    {
+        DataQueryParams params = getParams( 2019 );
+
+        put( params );
+
+        analyticsQueryCache.invalidate( AnalyticsTableUpdateParams.newBuilder().build(), getTable( 2020 ) );
+
+        assertFalse( get( params, 0 ).isPresent() );
+    }
+
+    @Test
+    public void testInvalidatePartialUpdate()
+    {
+        DataQueryParams paramsA = getParams( 2019 );
+        DataQueryParams paramsB = getParams( 2020 );
+
+        put( paramsA );
+        put( paramsB );
+
+        analyticsQueryCache.invalidate( AnalyticsTableUpdateParams.newBuilder().withLastYears( 1 ).build(),
+            getTable( 2020 ) );
+
+        assertTrue( get( paramsA, 0 ).isPresent() );
+        assertFalse( get( paramsB, 0 ).isPresent() );
+    }
+
+    @Test
+    public void testInvalidateOnOtherInstance()
+    {
+        // Instances share the table versions through the version cache
+        AnalyticsQueryCache otherInstance = new AnalyticsQueryCache( cacheProvider, analyticsCacheSettings );
+
+        DataQueryParams params = getParams( 2019 );
+
+        put( params );
+
+        otherInstance.invalidate( AnalyticsTableUpdateParams.newBuilder().build(), getTable( 2019 ) );
+
+        assertFalse( get( params, 0 ).isPresent() );
+    }
+
+    @Test
+    public void testResultOfSwappedTableIsNotServed()
+    {
+        DataQueryParams params = getParams( 2019 );
+
+        String key = analyticsQueryCache.getKey( params, AnalyticsTableType.DATA_VALUE, 0 );
+
+        // Table is swapped while the query is running
+
+        analyticsQueryCache.invalidate( AnalyticsTableUpdateParams.newBuilder().build(), getTable( 2019 ) );
+
+        analyticsQueryCache.put( key, params, result );
+
+        assertFalse( get( params, 0 )
+            .isPresent() );
+    }
+
+    @Test
+    public void testWeigh()
+    {
+        assertEquals( 64 + 2 * 3, AnalyticsQueryCache.weigh( "key", ImmutableMap.of() ) );
+        assertEquals( 64 + 2 * 3 + 64 + 2 * 16 + 24, AnalyticsQueryCache.weigh( "key", result ) );
+        assertEquals( 64 + 2 * 3 + 64 + 2 * 1 + 2 * 5 + 24,
+            AnalyticsQueryCache.weigh( "key", ImmutableMap.of( "a", "value" ) ) );
+    }
+
+    private void put( DataQueryParams params )
+    {
+        analyticsQueryCache.put( analyticsQueryCache.getKey( params, AnalyticsTableType.DATA_VALUE, 0 ), params,
+            result );
+    }
+
+    private Optional<Map<String, Object>> get( DataQueryParams params, int maxLimit )
+    {
+        return analyticsQueryCache.get( analyticsQueryCache.getKey( params, AnalyticsTableType.DATA_VALUE, maxLimit ) );
+    }
+
+    private DataQueryParams getParams( Integer year )
+    {
+        return DataQueryParams.newBuilder()
+            .withTableName( AnalyticsTableType.DATA_VALUE.getTableName() )
+            .withPartitions( new Partitions( Sets.newHashSet( year ) ) ).build();
+    }
+
+    private AnalyticsTable getTable( Integer year )
+    {
+        return new AnalyticsTable( AnalyticsTableType.DATA_VALUE, Lists.newArrayList(), Lists.newArrayList() )
+            .addPartitionTable( year, null, null );
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.data;
+
+import static org.hisp.dhis.external.conf.ConfigurationKey.ANALYTICS_QUERY_ADMISSION_TIMEOUT;
+import static org.hisp.dhis.external.conf.ConfigurationKey.ANALYTICS_QUERY_MAX_CONCURRENT;
+import static org.hisp.dhis.external.conf.ConfigurationKey.ANALYTICS_QUERY_MAX_CONCURRENT_PER_USER;
+import static org.hisp.dhis.external.conf.ConfigurationKey.ANALYTICS_QUERY_MAX_QUEUED;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Statement;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.hisp.dhis.common.QueryRuntimeException;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.user.CurrentUserService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+public class AnalyticsQueryExecutorTest
+{
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private CurrentUserService currentUserService;
+
+    @Mock
+    private DhisConfigurationProvider config;
+
+    private AnalyticsQueryExecutor executor;
+
+    private TaskExecutorAdapter subject;
+
+    @Before
+    public void setUp()
+    {
+        when( config.getProperty( ANALYTICS_QUERY_MAX_CONCURRENT ) ).thenReturn( "2" );
+        when( config.getProperty( ANALYTICS_QUERY_MAX_CONCURRENT_PER_USER ) ).thenReturn( "1" );
+        when( config.getProperty( ANALYTICS_QUERY_MAX_QUEUED ) ).thenReturn( "10" );
+        when( config.getProperty( ANALYTICS_QUERY_ADMISSION_TIMEOUT ) ).thenReturn( "1" );
+
+        executor = new AnalyticsQueryExecutor( currentUserService, config );
+        subject = new TaskExecutorAdapter( executor );
+    }
+
+    @After
+    public void tearDown()
+    {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testPerUserLimit()
+        throws Exception
+    {
+        CountDownLatch latch = new CountDownLatch( 1 );
+
+        when( currentUserService.getCurrentUsername() ).thenReturn( "admin" );
+
+        Future<String> future = subject.submit( () -> {
+            latch.await();
+            return "A";
+        } );
+
+        assertThrows( QueryRuntimeException.class, () -> subject.submit( () -> "B" ) );
+
+        when( currentUserService.getCurrentUsername() ).thenReturn( "other" );
+
+        assertEquals( "C", subject.submit( () -> "C" ).get() );
+
+        latch.countDown();
+
+        assertEquals( "A", future.get() );
+
+        when( currentUserService.getCurrentUsername() ).thenReturn( "admin" );
+
+        assertEquals( "D", subject.submit( () -> "D" ).get() );
+    }
+
+    @Test
+    public void testCancelledTaskReleasesPermit()
+        throws Exception
+    {
+        CountDownLatch latch = new CountDownLatch( 1 );
+
+        when( currentUserService.getCurrentUsername() ).thenReturn( "admin" );
+
+        Future<String> future = subject.submit( () -> {
+            latch.await();
+            return "A";
+        } );
+
+        future.cancel( true );
+
+        assertEquals( "B", subject.submit( () -> "B" ).get() );
+    }
+
+    @Test
+    public void testCancelledTaskCancelsRunningStatement()
+        throws Exception
+    {
+        CountDownLatch started = new CountDownLatch( 1 );
+        CountDownLatch latch = new CountDownLatch( 1 );
+        Statement statement = mock( Statement.class );
+
+        when( currentUserService.getCurrentUsername() ).thenReturn( "admin" );
+
+        Future<String> future = subject.submit( () -> {
+            AnalyticsQueryExecutor.setRunningStatement( statement );
+            started.countDown();
+            latch.await();
+            return "A";
+        } );
+
+        assertTrue( started.await( 5, TimeUnit.SECONDS ) );
+
+        future.cancel( true );
+
+        verify( statement, timeout( 5000 ) ).cancel();
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.data;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static org.hisp.dhis.DhisConvenienceTest.createDataElement;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.common.QueryRuntimeException;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.feedback.ErrorCode;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.period.PeriodType;
+import org.junit.Test;
+
+public class AnalyticsServiceQueryAdmissionTest
+    extends AnalyticsServiceBaseTest
+{
+    @Test
+    public void verifySubmittedQueriesAreCancelledWhenQueryIsRejected()
+    {
+        DataElement deA = createDataElement( 'A' );
+
+        DataQueryParams params = DataQueryParams.newBuilder()
+            .withOrganisationUnit( new OrganisationUnit( "aaaa" ) )
+            .withDataElements( newArrayList( deA ) )
+            .withPeriods( newArrayList( PeriodType.getPeriodFromIsoString( "202101" ) ) )
+            .build();
+
+        initMock( params, newArrayList( DataQueryParams.newBuilder( params ).build(),
+            DataQueryParams.newBuilder( params ).build() ) );
+
+        CompletableFuture<Map<String, Object>> submitted = new CompletableFuture<>();
+
+        when( analyticsManager.getAggregatedDataValues( any( DataQueryParams.class ),
+            any( AnalyticsTableType.class ), anyInt() ) )
+                .thenReturn( submitted )
+                .thenThrow( new QueryRuntimeException( ErrorCode.E7134, null ) );
+
+        assertThrows( QueryRuntimeException.class, () -> target.getAggregatedDataValueGrid( params ) );
+
+        assertTrue( submitted.isCancelled() );
+    }
+}
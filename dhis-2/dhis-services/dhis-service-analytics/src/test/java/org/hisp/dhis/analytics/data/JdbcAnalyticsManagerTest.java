@@ -32,8 +32,20 @@ import static org.hamcrest.Matchers.containsString;
 import static org.hisp.dhis.DhisConvenienceTest.*;
 import static org.hisp.dhis.common.DimensionalObject.*;
 import static org.hisp.dhis.common.DimensionalObjectUtils.getList;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Map;
+
 import org.hisp.dhis.analytics.*;
 import org.hisp.dhis.analytics.partition.PartitionManager;
 import org.hisp.dhis.common.BaseDimensionalObject;
@@ -52,8 +64,8 @@ import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
 
 /**
  * @author Luciano Fiandesio
@@ -73,7 +85,13 @@ public class JdbcAnalyticsManagerTest
     private JdbcTemplate jdbcTemplate;
 
     @Mock
-    private SqlRowSet rowSet;
+    private Connection connection;
+
+    @Mock
+    private Statement statement;
+
+    @Mock
+    private ResultSet resultSet;
 
     @Mock
     private NestedIndicatorCyclicDependencyInspector nestedIndicatorCyclicDependencyInspector;
@@ -85,20 +103,25 @@ public class JdbcAnalyticsManagerTest
 
     @Before
     public void setUp()
+        throws Exception
     {
         QueryPlanner queryPlanner = new DefaultQueryPlanner(
             new DefaultQueryValidator( this.systemSettingManager ),
-            partitionManager );
-
-        mockRowSet();
+            partitionManager, systemSettingManager );
 
-        when( jdbcTemplate.queryForRowSet( sql.capture() ) ).thenReturn( rowSet );
+        when( jdbcTemplate.execute( any( ConnectionCallback.class ) ) ).thenAnswer(
+            invocation -> invocation.<ConnectionCallback<?>> getArgument( 0 ).doInConnection( connection ) );
+        when( connection.getAutoCommit() ).thenReturn( true );
+        when( connection.createStatement() ).thenReturn( statement );
+        // Result set without rows unless stubbed otherwise
+        when( statement.executeQuery( anyString() ) ).thenReturn( resultSet );
 
         subject = new JdbcAnalyticsManager( queryPlanner, jdbcTemplate );
     }
 
     @Test
     public void verifyQueryGeneratedWhenDataElementHasLastAggregationType()
+        throws Exception
     {
         DataQueryParams params = createParams( AggregationType.LAST );
 
@@ -109,6 +132,7 @@ public class JdbcAnalyticsManagerTest
 
     @Test
     public void verifyQueryGeneratedWhenDataElementHasLastAvgOrgUnitAggregationType()
+        throws Exception
     {
         DataQueryParams params = createParams( AggregationType.LAST_AVERAGE_ORG_UNIT );
 
@@ -119,6 +143,7 @@ public class JdbcAnalyticsManagerTest
 
     @Test
     public void verifyQueryGeneratedWhenDataElementHasLastInPeriodAggregationType()
+        throws Exception
     {
         DataQueryParams params = createParams( AggregationType.LAST_IN_PERIOD );
 
@@ -129,6 +154,7 @@ public class JdbcAnalyticsManagerTest
 
     @Test
     public void verifyQueryGeneratedWhenDataElementHasLastInPeriodAvgOrgUnitAggregationType()
+        throws Exception
     {
         DataQueryParams params = createParams( AggregationType.LAST_IN_PERIOD_AVERAGE_ORG_UNIT );
 
@@ -137,10 +163,52 @@ public class JdbcAnalyticsManagerTest
         assertExpectedLastSql( "desc" );
     }
 
-    private void mockRowSet()
+    @Test
+    public void verifyKeyValueMapIsBuiltFromStreamedRows()
+        throws Exception
+    {
+        DataQueryParams params = createParams( AggregationType.SUM );
+
+        String dx = params.getDataElements().get( 0 ).getUid();
+
+        when( resultSet.next() ).thenReturn( true, false );
+        when( resultSet.getString( DATA_X_DIM_ID ) ).thenReturn( dx );
+        when( resultSet.getString( PERIOD_DIM_ID ) ).thenReturn( "201501" );
+        when( resultSet.getDouble( DataQueryParams.VALUE_ID ) ).thenReturn( 5d );
+
+        Map<String, Object> map = subject.getAggregatedDataValues( params, AnalyticsTableType.DATA_VALUE, 20000 )
+            .get();
+
+        assertEquals( 1, map.size() );
+        assertEquals( 5d, map.get( dx + DIMENSION_SEP + "201501" ) );
+    }
+
+    @Test
+    public void verifyRowsAreStreamedInReadOnlyTransaction()
+        throws Exception
+    {
+        subject.getAggregatedDataValues( createParams( AggregationType.SUM ), AnalyticsTableType.DATA_VALUE, 20000 )
+            .get();
+
+        verify( connection ).setAutoCommit( false );
+        verify( connection ).setReadOnly( true );
+        verify( statement ).setFetchSize( anyInt() );
+        verify( connection ).rollback();
+        verify( connection ).setAutoCommit( true );
+    }
+
+    @Test
+    public void verifyActiveTransactionIsNotEnded()
+        throws Exception
     {
-        // Simulate no rows
-        when( rowSet.next() ).thenReturn( false );
+        when( connection.getAutoCommit() ).thenReturn( false );
+
+        subject.getAggregatedDataValues( createParams( AggregationType.SUM ), AnalyticsTableType.DATA_VALUE, 20000 )
+            .get();
+
+        verify( statement ).setFetchSize( anyInt() );
+        verify( connection, never() ).setAutoCommit( anyBoolean() );
+        verify( connection, never() ).rollback();
     }
 
     private DataQueryParams createParams( AggregationType aggregationType )
@@ -158,8 +226,16 @@ public class JdbcAnalyticsManagerTest
             .addDimension( new BaseDimensionalObject( PERIOD_DIM_ID, DimensionType.PERIOD, getList( peA ) ) ).build();
     }
 
+    private void verifySql()
+        throws Exception
+    {
+        verify( statement ).executeQuery( sql.capture() );
+    }
+
     private void assertExpectedSql( String sortOrder )
+        throws Exception
     {
+        verifySql();
 
         String lastAggregationTypeSql = "(select \"year\",\"pestartdate\",\"peenddate\",\"level\",\"daysxvalue\","
             + "\"daysno\",\"value\",\"textvalue\",\"dx\",cast('201501' as text) as \"pe\",\"ou\","
@@ -172,7 +248,9 @@ public class JdbcAnalyticsManagerTest
     }
 
     private void assertExpectedLastSql( String sortOrder )
+        throws Exception
     {
+        verifySql();
 
         String lastAggregationTypeSql = "(select \"year\",\"pestartdate\",\"peenddate\",\"level\",\"daysxvalue\","
             + "\"daysno\",\"value\",\"textvalue\",\"dx\",cast('201501' as text) as \"pe\",\"ou\","
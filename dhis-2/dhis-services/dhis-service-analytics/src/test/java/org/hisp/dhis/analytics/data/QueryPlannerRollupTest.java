@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.data;
+
+import static org.hisp.dhis.DhisConvenienceTest.createDataElement;
+import static org.hisp.dhis.analytics.DataQueryParams.DISPLAY_NAME_DATA_X;
+import static org.hisp.dhis.analytics.DataQueryParams.DISPLAY_NAME_ORGUNIT;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.DataQueryGroups;
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.QueryPlanner;
+import org.hisp.dhis.analytics.QueryPlannerParams;
+import org.hisp.dhis.analytics.QueryValidator;
+import org.hisp.dhis.analytics.partition.PartitionManager;
+import org.hisp.dhis.analytics.table.PartitionUtils;
+import org.hisp.dhis.category.CategoryCombo;
+import org.hisp.dhis.common.BaseDimensionalObject;
+import org.hisp.dhis.common.DimensionType;
+import org.hisp.dhis.common.DimensionalItemObject;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.period.MonthlyPeriodType;
+import org.hisp.dhis.setting.SettingKey;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+
+public class QueryPlannerRollupTest
+{
+    private static final String TABLE_NAME = AnalyticsTableType.DATA_VALUE.getTableName();
+
+    private QueryPlanner subject;
+
+    @Mock
+    private QueryValidator queryValidator;
+
+    @Mock
+    private PartitionManager partitionManager;
+
+    @Mock
+    private SystemSettingManager systemSettingManager;
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Before
+    public void setUp()
+    {
+        subject = new DefaultQueryPlanner( queryValidator, partitionManager, systemSettingManager );
+    }
+
+    @Test
+    public void verifyRollupIsSkippedWhenDisabled()
+    {
+        when( systemSettingManager.getIntegerSetting( SettingKey.ANALYTICS_ROLLUP_MAX_LEVEL ) ).thenReturn( 0 );
+
+        assertEquals( TABLE_NAME, planQuery().getTableName() );
+
+        verify( partitionManager, never() ).getAnalyticsPartitions( any() );
+        verify( partitionManager, never() ).tableExists( anyString() );
+    }
+
+    @Test
+    public void verifyRollupTableIsUsedWhenItExists()
+    {
+        String rollupTableName = PartitionUtils.getRollupTableName( TABLE_NAME, 1 );
+
+        when( systemSettingManager.getIntegerSetting( SettingKey.ANALYTICS_ROLLUP_MAX_LEVEL ) ).thenReturn( 2 );
+        when( partitionManager.getAnalyticsPartitions( AnalyticsTableType.DATA_VALUE ) )
+            .thenReturn( ImmutableSet.of( PartitionUtils.getPartitionName( rollupTableName, 2014 ) ) );
+
+        assertEquals( rollupTableName, planQuery().getTableName() );
+
+        verify( partitionManager, never() ).tableExists( anyString() );
+    }
+
+    @Test
+    public void verifyRollupIsSkippedWhenTableDoesNotExist()
+    {
+        when( systemSettingManager.getIntegerSetting( SettingKey.ANALYTICS_ROLLUP_MAX_LEVEL ) ).thenReturn( 2 );
+        when( partitionManager.getAnalyticsPartitions( AnalyticsTableType.DATA_VALUE ) )
+            .thenReturn( ImmutableSet.of( PartitionUtils.getPartitionName( TABLE_NAME, 2014 ) ) );
+
+        assertEquals( TABLE_NAME, planQuery().getTableName() );
+
+        verify( partitionManager, never() ).tableExists( anyString() );
+    }
+
+    private DataQueryParams planQuery()
+    {
+        List<DimensionalItemObject> periods = new ArrayList<>();
+        periods.add( new MonthlyPeriodType().createPeriod( new DateTime( 2014, 4, 1, 0, 0 ).toDate() ) );
+
+        DataQueryParams queryParams = DataQueryParams.newBuilder().withDimensions(
+            Lists.newArrayList( new BaseDimensionalObject( "pe", DimensionType.PERIOD, periods ),
+                new BaseDimensionalObject( "dx", DimensionType.DATA_X, DISPLAY_NAME_DATA_X, "display name",
+                    Lists.newArrayList( createDataElement( 'A', new CategoryCombo() ) ) ) ) )
+            .withFilters( Lists.newArrayList(
+                new BaseDimensionalObject( "ou", DimensionType.ORGANISATION_UNIT, null, DISPLAY_NAME_ORGUNIT,
+                    ImmutableList.of( new OrganisationUnit( "bbb", "bbb", "OU_2", null, null, "c2" ) ) ) ) )
+            .build();
+
+        DataQueryGroups dataQueryGroups = subject.planQuery( queryParams,
+            QueryPlannerParams.newBuilder().withTableType( AnalyticsTableType.DATA_VALUE ).build() );
+
+        assertEquals( 1, dataQueryGroups.getAllQueries().size() );
+
+        return dataQueryGroups.getAllQueries().get( 0 );
+    }
+}
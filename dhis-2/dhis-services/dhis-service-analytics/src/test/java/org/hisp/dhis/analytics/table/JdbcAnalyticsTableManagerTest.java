@@ -28,9 +28,14 @@
 package org.hisp.dhis.analytics.table;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Date;
@@ -47,6 +52,7 @@ import org.hisp.dhis.category.CategoryService;
 import org.hisp.dhis.common.IdentifiableObjectManager;
 import org.hisp.dhis.dataapproval.DataApprovalLevelService;
 import org.hisp.dhis.jdbc.StatementBuilder;
+import org.hisp.dhis.organisationunit.OrganisationUnitLevel;
 import org.hisp.dhis.organisationunit.OrganisationUnitService;
 import org.hisp.dhis.resourcetable.ResourceTableService;
 import org.hisp.dhis.setting.SettingKey;
@@ -56,6 +62,7 @@ import org.joda.time.DateTime;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -77,6 +84,12 @@ public class JdbcAnalyticsTableManagerTest
     @Mock
     private JdbcTemplate jdbcTemplate;
 
+    @Mock
+    private PartitionManager partitionManager;
+
+    @Mock
+    private OrganisationUnitService organisationUnitService;
+
     @Rule
     public MockitoRule mockitoRule = MockitoJUnit.rule();
 
@@ -86,10 +99,10 @@ public class JdbcAnalyticsTableManagerTest
     public void setUp()
     {
         subject = new JdbcAnalyticsTableManager( mock( IdentifiableObjectManager.class ),
-            mock( OrganisationUnitService.class ),
+            organisationUnitService,
             mock( CategoryService.class ), systemSettingManager, mock( DataApprovalLevelService.class ),
             mock( ResourceTableService.class ), mock( AnalyticsTableHookService.class ), mock( StatementBuilder.class ),
-            mock( PartitionManager.class ), mock( DatabaseInfo.class ), jdbcTemplate );
+            partitionManager, mock( DatabaseInfo.class ), jdbcTemplate );
     }
 
     @Test
@@ -168,6 +181,73 @@ public class JdbcAnalyticsTableManagerTest
         assertEquals( startTime, partition.getEndDate() );
     }
 
+    @Test
+    public void testGetIncrementalLatestAnalyticsTable()
+    {
+        Date lastFullTableUpdate = new DateTime( 2019, 3, 1, 2, 0 ).toDate();
+        Date lastLatestPartitionUpdate = new DateTime( 2019, 3, 1, 9, 0 ).toDate();
+        Date startTime = new DateTime( 2019, 3, 1, 10, 0 ).toDate();
+
+        AnalyticsTableUpdateParams params = AnalyticsTableUpdateParams.newBuilder()
+            .withStartTime( startTime )
+            .withLatestPartition()
+            .withIncrementalUpdate( true )
+            .build();
+
+        List<Map<String, Object>> queryResp = Lists.newArrayList();
+        queryResp.add( ImmutableMap.of( "dataelementid", 1 ) );
+
+        when( systemSettingManager.getDateSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE ) )
+            .thenReturn( lastFullTableUpdate );
+        when( systemSettingManager.getDateSetting( SettingKey.LAST_SUCCESSFUL_LATEST_ANALYTICS_PARTITION_UPDATE ) )
+            .thenReturn( lastLatestPartitionUpdate );
+        when( jdbcTemplate.queryForList( Mockito.anyString() ) ).thenReturn( queryResp );
+
+        List<AnalyticsTable> tables = subject.getAnalyticsTables( params );
+
+        assertEquals( 1, tables.size() );
+
+        AnalyticsTablePartition partition = tables.get( 0 ).getLatestPartition();
+
+        assertNotNull( partition );
+        assertTrue( params.isIncrementalLatestUpdate() );
+        assertEquals( lastLatestPartitionUpdate, partition.getStartDate() );
+        assertEquals( startTime, partition.getEndDate() );
+    }
+
+    @Test
+    public void testSwapIncrementalLatestAnalyticsTable()
+    {
+        Date lastFullTableUpdate = new DateTime( 2019, 3, 1, 2, 0 ).toDate();
+        Date startTime = new DateTime( 2019, 3, 1, 10, 0 ).toDate();
+
+        AnalyticsTableUpdateParams params = AnalyticsTableUpdateParams.newBuilder()
+            .withStartTime( startTime )
+            .withLatestPartition()
+            .withIncrementalUpdate( true )
+            .build();
+
+        List<Map<String, Object>> queryResp = Lists.newArrayList();
+        queryResp.add( ImmutableMap.of( "dataelementid", 1 ) );
+
+        when( systemSettingManager.getDateSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE ) )
+            .thenReturn( lastFullTableUpdate );
+        when( jdbcTemplate.queryForList( Mockito.anyString() ) ).thenReturn( queryResp );
+        when( jdbcTemplate.queryForList( startsWith( "select distinct" ), eq( Integer.class ) ) )
+            .thenReturn( Lists.newArrayList( 2017, 2019 ) );
+        when( partitionManager.tableExists( "analytics_2017" ) ).thenReturn( false );
+        when( partitionManager.tableExists( "analytics_2019" ) ).thenReturn( true );
+
+        AnalyticsTable table = subject.getAnalyticsTables( params ).get( 0 );
+
+        subject.swapTable( params, table );
+
+        verify( jdbcTemplate ).execute(
+            "create table if not exists analytics_2017 partition of analytics for values in (2017)" );
+        verify( jdbcTemplate ).execute( startsWith( "insert into analytics (" ) );
+        verify( jdbcTemplate ).execute( "drop table if exists analytics_temp_0 cascade" );
+    }
+
     @Test( expected = IllegalArgumentException.class )
     public void testGetLatestAnalyticsTableNoFullTableUpdate()
     {
@@ -186,4 +266,86 @@ public class JdbcAnalyticsTableManagerTest
 
         subject.getAnalyticsTables( params );
     }
+
+    @Test
+    public void testCreateUnloggedTempTables()
+    {
+        Date startTime = new DateTime( 2019, 3, 1, 10, 0 ).toDate();
+        List<Integer> dataYears = Lists.newArrayList( 2018, 2019 );
+
+        AnalyticsTableUpdateParams params = AnalyticsTableUpdateParams.newBuilder()
+            .withStartTime( startTime )
+            .build();
+
+        when( jdbcTemplate.queryForList( Mockito.anyString(), ArgumentMatchers.<Class<Integer>> any() ) )
+            .thenReturn( dataYears );
+        when( systemSettingManager.getBoolSetting( SettingKey.UNLOGGED_ANALYTICS_TABLES_IN_ANALYTICS_TABLE_EXPORT ) )
+            .thenReturn( true );
+
+        AnalyticsTable table = subject.getAnalyticsTables( params ).get( 0 );
+
+        subject.createTable( table );
+
+        verify( jdbcTemplate ).execute( startsWith( "create table if not exists " + table.getTableName() + " (" ) );
+
+        for ( AnalyticsTablePartition partition : table.getTablePartitions() )
+        {
+            verify( jdbcTemplate ).execute(
+                startsWith( "create unlogged table if not exists " + partition.getTempTableName() + " (" ) );
+        }
+
+        subject.swapTable( params, table );
+
+        for ( AnalyticsTablePartition partition : table.getTablePartitions() )
+        {
+            verify( jdbcTemplate ).execute(
+                startsWith( " alter table " + partition.getTempTableName() + " set logged;" ) );
+        }
+    }
+
+    @Test
+    public void testCreateAndSwapRollupTables()
+    {
+        Date startTime = new DateTime( 2019, 3, 1, 10, 0 ).toDate();
+        List<Integer> dataYears = Lists.newArrayList( 2019 );
+
+        AnalyticsTableUpdateParams params = AnalyticsTableUpdateParams.newBuilder()
+            .withStartTime( startTime )
+            .build();
+
+        when( jdbcTemplate.queryForList( Mockito.anyString(), ArgumentMatchers.<Class<Integer>> any() ) )
+            .thenReturn( dataYears );
+        when( organisationUnitService.getFilledOrganisationUnitLevels() ).thenReturn( Lists.newArrayList(
+            new OrganisationUnitLevel( 1, "National" ), new OrganisationUnitLevel( 2, "District" ),
+            new OrganisationUnitLevel( 3, "Chiefdom" ) ) );
+        when( systemSettingManager.getIntegerSetting( SettingKey.ANALYTICS_ROLLUP_MAX_LEVEL ) ).thenReturn( 2 );
+
+        AnalyticsTable table = subject.getAnalyticsTables( params ).get( 0 );
+        AnalyticsTablePartition partition = table.getTablePartitions().get( 0 );
+
+        subject.createRollupTables( partition );
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass( String.class );
+
+        verify( jdbcTemplate ).execute( "drop table if exists analytics_temp_ou1_2019 cascade" );
+        verify( jdbcTemplate ).execute( "drop table if exists analytics_temp_ou2_2019 cascade" );
+        verify( jdbcTemplate, never() ).execute( startsWith( "create table analytics_temp_ou3_2019" ) );
+        verify( jdbcTemplate ).execute( startsWith( "create table analytics_temp_ou2_2019 as select" ) );
+        verify( jdbcTemplate, Mockito.atLeastOnce() ).execute( sql.capture() );
+
+        String rollupSql = sql.getAllValues().stream()
+            .filter( s -> s.startsWith( "create table analytics_temp_ou2_2019" ) )
+            .findFirst().orElse( "" );
+
+        assertTrue( rollupSql.contains( "\"uidlevel2\"" ) );
+        assertFalse( rollupSql.contains( "\"uidlevel3\"" ) );
+        assertFalse( rollupSql.contains( "\"ou\"" ) );
+        assertTrue( rollupSql.contains( "from analytics_temp_2019" ) );
+
+        subject.swapTable( params, table );
+
+        verify( jdbcTemplate ).execute( "drop table if exists analytics_ou2_2019 cascade;" +
+            "alter table analytics_temp_ou2_2019 rename to analytics_ou2_2019;" );
+        verify( jdbcTemplate ).execute( "drop table if exists analytics_ou3_2019 cascade" );
+    }
 }
@@ -142,4 +142,17 @@ public class PartitionUtilsTest
         assertEquals( 1, partitions.getPartitions().size() );
         assertTrue( partitions.getPartitions().contains( 2018 ) );
     }
+
+    @Test
+    public void testGetRollupTableNames()
+    {
+        assertEquals( "analytics_ou2", PartitionUtils.getRollupTableName( "analytics", 2 ) );
+        assertEquals( "analytics_ou2_2019",
+            PartitionUtils.getPartitionName( PartitionUtils.getRollupTableName( "analytics", 2 ), 2019 ) );
+
+        assertEquals( "analytics", PartitionUtils.getRollupSourceTableName( "analytics_ou2" ) );
+        assertEquals( "analytics", PartitionUtils.getRollupSourceTableName( "analytics" ) );
+        assertEquals( "analytics_orgunittarget",
+            PartitionUtils.getRollupSourceTableName( "analytics_orgunittarget" ) );
+    }
 }
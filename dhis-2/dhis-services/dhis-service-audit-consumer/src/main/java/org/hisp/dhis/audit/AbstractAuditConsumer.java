@@ -44,6 +44,8 @@ public abstract class AbstractAuditConsumer
 {
     protected AuditService auditService;
 
+    protected AuditBatcher auditBatcher;
+
     protected ObjectMapper objectMapper;
 
     protected boolean isAuditLogEnabled;
@@ -69,6 +71,12 @@ public abstract class AbstractAuditConsumer
                 log.info( objectMapper.writeValueAsString( audit ) );
             }
 
+            if ( isAuditDatabaseEnabled && isBatchEnabled() )
+            {
+                auditBatcher.add( audit );
+                return;
+            }
+
             if ( isAuditDatabaseEnabled )
             {
                 auditService.addAudit( audit );
@@ -85,4 +93,9 @@ public abstract class AbstractAuditConsumer
             log.error( "An error occurred persisting an Audit message of type 'TRACKER'", e );
         }
     }
+
+    private boolean isBatchEnabled()
+    {
+        return auditBatcher != null && auditBatcher.isEnabled();
+    }
 }
@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.audit;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.springframework.stereotype.Component;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Buffers audits received by the audit consumers and saves them to the
+ * database in batches, when the buffer reaches the batch size or when the
+ * oldest buffered audit reaches the batch interval.
+ *
+ * The audit topics are consumed through non-durable subscriptions and their
+ * messages are acknowledged when they are received, the same as when batching
+ * is disabled. The buffer is saved when the application shuts down, but
+ * buffered audits are lost if the application stops without shutting down.
+ */
+@Slf4j
+@Component
+public class AuditBatcher
+    implements MeterBinder
+{
+    private final AuditService auditService;
+
+    private final boolean enabled;
+
+    private final int batchSize;
+
+    private final long batchInterval;
+
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Audits received but not saved yet. Guarded by this.
+     */
+    private List<Audit> buffer = new ArrayList<>();
+
+    /**
+     * Time in milliseconds when the oldest audit of the buffer was received.
+     * Guarded by this.
+     */
+    private long bufferStart;
+
+    private volatile Timer flushTimer;
+
+    private volatile Timer lagTimer;
+
+    public AuditBatcher( AuditService auditService, DhisConfigurationProvider config )
+    {
+        this.auditService = auditService;
+        this.enabled = config.isEnabled( ConfigurationKey.AUDIT_DATABASE_BATCH_ENABLED );
+        this.batchSize = Integer.parseInt( config.getProperty( ConfigurationKey.AUDIT_DATABASE_BATCH_SIZE ) );
+        this.batchInterval = Long.parseLong( config.getProperty( ConfigurationKey.AUDIT_DATABASE_BATCH_INTERVAL ) );
+
+        if ( enabled )
+        {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor( new ThreadFactoryBuilder()
+                .setNameFormat( "audit-batcher-%d" )
+                .setDaemon( true )
+                .build() );
+
+            this.scheduler.scheduleWithFixedDelay( this::flushIfDue, batchInterval, batchInterval / 2 + 1,
+                TimeUnit.MILLISECONDS );
+        }
+        else
+        {
+            this.scheduler = null;
+        }
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Adds an audit to the buffer. Saves the buffered audits if the buffer
+     * reached the batch size, which blocks the calling consumer until the
+     * batch is saved.
+     *
+     * @param audit the audit.
+     */
+    public void add( Audit audit )
+    {
+        List<Audit> batch = null;
+
+        synchronized ( this )
+        {
+            if ( buffer.isEmpty() )
+            {
+                bufferStart = System.currentTimeMillis();
+            }
+
+            buffer.add( audit );
+
+            if ( buffer.size() >= batchSize )
+            {
+                batch = drain();
+            }
+        }
+
+        if ( batch != null )
+        {
+            flush( batch );
+        }
+    }
+
+    private void flushIfDue()
+    {
+        List<Audit> batch = null;
+
+        synchronized ( this )
+        {
+            if ( !buffer.isEmpty() && System.currentTimeMillis() - bufferStart >= batchInterval )
+            {
+                batch = drain();
+            }
+        }
+
+        if ( batch != null )
+        {
+            flush( batch );
+        }
+    }
+
+    private List<Audit> drain()
+    {
+        List<Audit> batch = buffer;
+        buffer = new ArrayList<>( batchSize );
+        return batch;
+    }
+
+    private void flush( List<Audit> audits )
+    {
+        long start = System.nanoTime();
+
+        try
+        {
+            auditService.addAudits( audits );
+        }
+        catch ( Exception e )
+        {
+            log.error( "Failed to save batch of " + audits.size() + " audits, saving audits one by one", e );
+
+            saveOneByOne( audits );
+        }
+
+        recordMetrics( audits, System.nanoTime() - start );
+    }
+
+    private void saveOneByOne( List<Audit> audits )
+    {
+        for ( Audit audit : audits )
+        {
+            try
+            {
+                auditService.addAudit( audit );
+            }
+            catch ( Exception e )
+            {
+                log.error( "An error occurred persisting an Audit message of type '" + audit.getAuditScope() + "'",
+                    e );
+            }
+        }
+    }
+
+    private void recordMetrics( List<Audit> audits, long flushNanos )
+    {
+        if ( flushTimer == null )
+        {
+            return;
+        }
+
+        flushTimer.record( flushNanos, TimeUnit.NANOSECONDS );
+
+        LocalDateTime now = LocalDateTime.now();
+
+        audits.stream()
+            .filter( audit -> audit.getCreatedAt() != null )
+            .forEach( audit -> lagTimer.record( Duration.between( audit.getCreatedAt(), now ) ) );
+    }
+
+    synchronized int getBufferSize()
+    {
+        return buffer.size();
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        if ( scheduler == null )
+        {
+            return;
+        }
+
+        scheduler.shutdownNow();
+
+        List<Audit> batch;
+
+        synchronized ( this )
+        {
+            batch = drain();
+        }
+
+        if ( !batch.isEmpty() )
+        {
+            flush( batch );
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // MeterBinder implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void bindTo( MeterRegistry registry )
+    {
+        Gauge.builder( "audit.consumer.buffered", this, AuditBatcher::getBufferSize )
+            .description( "Number of audits received but not saved to the database" )
+            .register( registry );
+
+        lagTimer = Timer.builder( "audit.consumer.lag" )
+            .description( "Time between the creation of audits and saving them to the database" )
+            .register( registry );
+
+        flushTimer = Timer.builder( "audit.consumer.flush" )
+            .description( "Time taken to save a batch of audits to the database" )
+            .register( registry );
+    }
+}
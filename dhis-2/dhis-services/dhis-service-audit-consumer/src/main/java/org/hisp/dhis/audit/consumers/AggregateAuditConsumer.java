@@ -31,6 +31,7 @@ import javax.jms.TextMessage;
 
 import org.hisp.dhis.artemis.Topics;
 import org.hisp.dhis.audit.AbstractAuditConsumer;
+import org.hisp.dhis.audit.AuditBatcher;
 import org.hisp.dhis.audit.AuditService;
 import org.hisp.dhis.external.conf.ConfigurationKey;
 import org.hisp.dhis.external.conf.DhisConfigurationProvider;
@@ -48,10 +49,12 @@ public class AggregateAuditConsumer
 {
     public AggregateAuditConsumer(
         AuditService auditService,
+        AuditBatcher auditBatcher,
         ObjectMapper objectMapper,
         DhisConfigurationProvider dhisConfig )
     {
         this.auditService = auditService;
+        this.auditBatcher = auditBatcher;
         this.objectMapper = objectMapper;
 
         this.isAuditLogEnabled = dhisConfig.isEnabled( ConfigurationKey.AUDIT_LOGGER );
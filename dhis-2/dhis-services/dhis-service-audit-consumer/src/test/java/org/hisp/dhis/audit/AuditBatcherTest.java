@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.audit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+public class AuditBatcherTest
+{
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private AuditService auditService;
+
+    @Mock
+    private DhisConfigurationProvider config;
+
+    private AuditBatcher batcher;
+
+    @After
+    public void tearDown()
+    {
+        if ( batcher != null )
+        {
+            batcher.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldSaveWhenBatchSizeIsReached()
+    {
+        batcher = createBatcher( 2, 60_000 );
+
+        Audit auditA = createAudit( "A" );
+        Audit auditB = createAudit( "B" );
+
+        batcher.add( auditA );
+
+        verify( auditService, never() ).addAudits( anyList() );
+        assertEquals( 1, batcher.getBufferSize() );
+
+        batcher.add( auditB );
+
+        verify( auditService ).addAudits( List.of( auditA, auditB ) );
+        assertEquals( 0, batcher.getBufferSize() );
+    }
+
+    @Test
+    public void shouldSaveWhenBatchIntervalElapsed()
+    {
+        batcher = createBatcher( 100, 50 );
+
+        Audit audit = createAudit( "A" );
+
+        batcher.add( audit );
+
+        await().atMost( 5, TimeUnit.SECONDS ).until( () -> batcher.getBufferSize() == 0 );
+
+        verify( auditService ).addAudits( List.of( audit ) );
+    }
+
+    @Test
+    public void shouldSaveOneByOneWhenBatchFails()
+    {
+        batcher = createBatcher( 2, 60_000 );
+
+        Audit auditA = createAudit( "A" );
+        Audit auditB = createAudit( "B" );
+
+        doThrow( new RuntimeException( "batch" ) ).when( auditService ).addAudits( anyList() );
+        doThrow( new RuntimeException( "single" ) ).when( auditService ).addAudit( auditA );
+
+        batcher.add( auditA );
+        batcher.add( auditB );
+
+        verify( auditService ).addAudit( auditA );
+        verify( auditService ).addAudit( auditB );
+    }
+
+    @Test
+    public void shouldSaveBufferOnShutdown()
+    {
+        batcher = createBatcher( 100, 60_000 );
+
+        Audit audit = createAudit( "A" );
+
+        batcher.add( audit );
+        batcher.shutdown();
+
+        verify( auditService ).addAudits( List.of( audit ) );
+    }
+
+    private AuditBatcher createBatcher( int batchSize, long batchInterval )
+    {
+        when( config.isEnabled( ConfigurationKey.AUDIT_DATABASE_BATCH_ENABLED ) ).thenReturn( true );
+        when( config.getProperty( ConfigurationKey.AUDIT_DATABASE_BATCH_SIZE ) )
+            .thenReturn( String.valueOf( batchSize ) );
+        when( config.getProperty( ConfigurationKey.AUDIT_DATABASE_BATCH_INTERVAL ) )
+            .thenReturn( String.valueOf( batchInterval ) );
+
+        return new AuditBatcher( auditService, config );
+    }
+
+    private Audit createAudit( String uid )
+    {
+        return Audit.builder()
+            .auditType( AuditType.CREATE )
+            .auditScope( AuditScope.TRACKER )
+            .uid( uid )
+            .build();
+    }
+}
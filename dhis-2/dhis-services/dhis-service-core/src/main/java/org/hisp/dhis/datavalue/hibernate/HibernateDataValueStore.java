@@ -531,7 +531,7 @@ public class HibernateDataValueStore extends HibernateGenericStore<DataValue>
 
         if ( endDate != null )
         {
-            predicateList.add( root -> builder.lessThanOrEqualTo( root.get( "lastUpdated" ), endDate ) );
+            predicateList.add( root -> builder.lessThan( root.get( "lastUpdated" ), endDate ) );
         }
 
         return getCount( builder, newJpaParameters()
@@ -84,7 +84,6 @@ import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
 
 import org.hisp.dhis.analytics.DataType;
-import org.hisp.dhis.antlr.Parser;
 import org.hisp.dhis.antlr.ParserException;
 import org.hisp.dhis.cache.Cache;
 import org.hisp.dhis.cache.CacheProvider;
@@ -119,6 +118,7 @@ import org.hisp.dhis.organisationunit.OrganisationUnitService;
 import org.hisp.dhis.parser.expression.CommonExpressionVisitor;
 import org.hisp.dhis.parser.expression.ExpressionItem;
 import org.hisp.dhis.parser.expression.ExpressionItemMethod;
+import org.hisp.dhis.parser.expression.ParseTreeCache;
 import org.hisp.dhis.parser.expression.function.VectorAvg;
 import org.hisp.dhis.parser.expression.function.VectorCount;
 import org.hisp.dhis.parser.expression.function.VectorMax;
@@ -248,6 +248,8 @@ public class DefaultExpressionService
      */
     private final Cache<Map<String, Constant>> constantMapCache;
 
+    private final ParseTreeCache parseTreeCache;
+
     // -------------------------------------------------------------------------
     // Constructor
     // -------------------------------------------------------------------------
@@ -273,6 +275,7 @@ public class DefaultExpressionService
         this.dimensionService = dimensionService;
         this.idObjectManager = idObjectManager;
         this.constantMapCache = cacheProvider.createAllConstantsCache();
+        this.parseTreeCache = new ParseTreeCache( cacheProvider.createExpressionParseTreeCache() );
     }
 
     // -------------------------------------------------------------------------
@@ -726,7 +729,9 @@ public class DefaultExpressionService
     }
 
     /**
-     * Visits an expression and returns the expected expression type.
+     * Visits an expression and returns the expected expression type. The
+     * parse tree is shared between evaluations of the same expression, so
+     * each expression is only parsed once however many times it is evaluated.
      *
      * @param expression the expresion to visit.
      * @param dataType the expected data type of the expression value.
@@ -738,7 +743,7 @@ public class DefaultExpressionService
     {
         try
         {
-            Object result = Parser.visit( expression, visitor );
+            Object result = parseTreeCache.visit( expression, visitor );
 
             switch ( dataType )
             {
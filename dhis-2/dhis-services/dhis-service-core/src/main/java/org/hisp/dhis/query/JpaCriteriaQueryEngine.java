@@ -249,6 +249,20 @@ public class JpaCriteriaQueryEngine<T extends IdentifiableObject>
 
         query.getAliases().forEach( alias -> root.get( alias ).alias( alias ) );
 
+        // sharing predicates are added to the returned predicate, so a
+        // disjunction must be nested to not widen the sharing restrictions
+        if ( Junction.Type.OR == query.getRootJunctionType() )
+        {
+            Predicate conjunction = builder.conjunction();
+
+            if ( !junction.getExpressions().isEmpty() )
+            {
+                conjunction.getExpressions().add( junction );
+            }
+
+            return conjunction;
+        }
+
         return junction;
     }
 
@@ -33,13 +33,19 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
 import java.util.Set;
 
 import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Root;
 
+import org.hisp.dhis.common.BaseIdentifiableObject;
+import org.hisp.dhis.common.BaseNameableObject;
+import org.hisp.dhis.common.UserContext;
 import org.hisp.dhis.query.Conjunction;
 import org.hisp.dhis.query.Criterion;
+import org.hisp.dhis.query.Direction;
 import org.hisp.dhis.query.Disjunction;
 import org.hisp.dhis.query.Junction;
 import org.hisp.dhis.query.Order;
@@ -48,15 +54,36 @@ import org.hisp.dhis.query.Restriction;
 import org.hisp.dhis.schema.Property;
 import org.hisp.dhis.schema.Schema;
 import org.hisp.dhis.schema.SchemaService;
+import org.hisp.dhis.user.UserSettingKey;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
 /**
  * @author Morten Olav Hansen <mortenoh@gmail.com>
  */
 @Component( "org.hisp.dhis.query.planner.QueryPlanner" )
 public class DefaultQueryPlanner implements QueryPlanner
 {
+    /**
+     * Display properties which resolve to the value of a persisted property
+     * when no database locale is set, mapped to that persisted property.
+     */
+    private static final Map<String, String> DISPLAY_PROPERTIES = ImmutableMap.of(
+        "displayName", "name",
+        "displayShortName", "shortName",
+        "displayDescription", "description" );
+
+    /**
+     * Classes declaring the default implementation of the display property
+     * getters. Classes overriding a getter compute the value differently and
+     * are left to the in-memory engine.
+     */
+    private static final Set<Class<?>> DISPLAY_PROPERTY_DECLARING_CLASSES = ImmutableSet.of(
+        BaseIdentifiableObject.class, BaseNameableObject.class );
+
     private final SchemaService schemaService;
 
     @Autowired
@@ -76,11 +103,12 @@ public class DefaultQueryPlanner implements QueryPlanner
     @Override
     public QueryPlan planQuery( Query query, boolean persistedOnly )
     {
-        // if only one filter, always set to Junction.Type AND
-        Junction.Type junctionType = query.getCriterions().size() <= 1 ? Junction.Type.AND
-            : query.getRootJunctionType();
+        pushDownDisplayProperties( query );
 
-        if ( (!isFilterOnPersistedFieldOnly( query ) || Junction.Type.OR == junctionType) && !persistedOnly )
+        // criteria on non-persisted properties are run in-memory on the
+        // entire table, as are disjunctions mixing them with persisted ones;
+        // disjunctions on persisted properties only are run by the database
+        if ( !isFilterOnPersistedFieldOnly( query ) && !persistedOnly )
         {
             return QueryPlan.QueryPlanBuilder.newBuilder()
                 .persistedQuery( Query.from( query.getSchema() ).setPlannedQuery( true ) )
@@ -311,6 +339,89 @@ public class DefaultQueryPlanner implements QueryPlanner
         return criteriaJunction;
     }
 
+    /**
+     * Replaces criteria and orders on display properties with criteria and
+     * orders on the persisted properties they resolve to, so that they can be
+     * run by the database. This is only done when no database locale is set
+     * for the current user, as the display properties are otherwise
+     * translated.
+     *
+     * @param query the query to rewrite.
+     */
+    private void pushDownDisplayProperties( Query query )
+    {
+        if ( UserContext.getUserSetting( UserSettingKey.DB_LOCALE ) != null )
+        {
+            return;
+        }
+
+        pushDownDisplayProperties( query.getSchema(), query.getCriterions() );
+
+        query.getOrders().replaceAll( order -> {
+            Property property = getPersistedDisplayProperty( query.getSchema(), order.getProperty().getName() );
+
+            if ( property == null )
+            {
+                return order;
+            }
+
+            Order persistedOrder = new Order( property,
+                order.isAscending() ? Direction.ASCENDING : Direction.DESCENDING );
+
+            return order.isIgnoreCase() ? persistedOrder.ignoreCase() : persistedOrder;
+        } );
+    }
+
+    private void pushDownDisplayProperties( Schema schema, List<Criterion> criterions )
+    {
+        ListIterator<Criterion> iterator = criterions.listIterator();
+
+        while ( iterator.hasNext() )
+        {
+            Criterion criterion = iterator.next();
+
+            if ( criterion instanceof Junction )
+            {
+                pushDownDisplayProperties( schema, ((Junction) criterion).getCriterions() );
+            }
+            else if ( criterion instanceof Restriction && ((Restriction) criterion).getOperator() != null )
+            {
+                Restriction restriction = (Restriction) criterion;
+                Property property = getPersistedDisplayProperty( schema, restriction.getPath() );
+
+                if ( property != null )
+                {
+                    iterator.set( new Restriction( property.getName(), restriction.getOperator() ) );
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the persisted property which the given display property resolves
+     * to when no database locale is set, or null if the display property is
+     * not known, is overridden by the schema class or the persisted property
+     * does not exist.
+     *
+     * @param schema the schema.
+     * @param path the property path.
+     * @return the persisted property, or null.
+     */
+    private Property getPersistedDisplayProperty( Schema schema, String path )
+    {
+        String persistedName = DISPLAY_PROPERTIES.get( path );
+        Property property = schema.getProperty( path );
+
+        if ( persistedName == null || property == null || property.isPersisted()
+            || property.getGetterMethod() == null
+            || !DISPLAY_PROPERTY_DECLARING_CLASSES.contains( property.getGetterMethod().getDeclaringClass() ) )
+        {
+            return null;
+        }
+
+        return schema.getPersistedProperty( persistedName );
+    }
+
     /**
      * Check if all the criteria for the given query are associated to
      * "persisted" properties
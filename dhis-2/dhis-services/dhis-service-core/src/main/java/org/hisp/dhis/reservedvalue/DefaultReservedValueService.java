@@ -30,6 +30,8 @@ package org.hisp.dhis.reservedvalue;
 import static org.hisp.dhis.util.Constants.RESERVED_VALUE_GENERATION_ATTEMPT;
 import static org.hisp.dhis.util.Constants.RESERVED_VALUE_GENERATION_TIMEOUT;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
@@ -44,6 +46,8 @@ import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.textpattern.TextPattern;
 import org.hisp.dhis.textpattern.TextPatternGenerationException;
 import org.hisp.dhis.textpattern.TextPatternMethod;
@@ -65,6 +69,11 @@ import com.google.common.collect.ImmutableMap;
 public class DefaultReservedValueService
     implements ReservedValueService
 {
+    /**
+     * Number of days after which pools which have not been requested are
+     * removed.
+     */
+    private static final int POOL_IDLE_DAYS = 7;
 
     private final TextPatternService textPatternService;
 
@@ -72,6 +81,10 @@ public class DefaultReservedValueService
 
     private final ValueGeneratorService valueGeneratorService;
 
+    private final ReservedValuePoolStore reservedValuePoolStore;
+
+    private final DhisConfigurationProvider config;
+
     @Override
     @Transactional
     public List<ReservedValue> reserve( TrackedEntityAttribute trackedEntityAttribute, int numberOfReservations,
@@ -87,12 +100,7 @@ public class DefaultReservedValueService
 
         TextPattern textPattern = trackedEntityAttribute.getTextPattern();
 
-        TextPatternSegment generatedSegment = textPattern.getSegments()
-            .stream()
-            .filter(
-                ( tp ) -> tp.getMethod().isGenerated() && Boolean.TRUE.equals( trackedEntityAttribute.isGenerated() ) )
-            .findFirst()
-            .orElse( null );
+        TextPatternSegment generatedSegment = getGeneratedSegment( trackedEntityAttribute );
 
         String key = textPatternService.resolvePattern( textPattern, values );
 
@@ -104,7 +112,23 @@ public class DefaultReservedValueService
             .ownerObject( textPattern.getOwnerObject().name() )
             .ownerUid( textPattern.getOwnerUid() ).key( key ).value( valueKey ).expiryDate( expires ).build();
 
-        checkIfEnoughValues( numberOfReservations, generatedSegment, reservedValue );
+        if ( generatedSegment != null && isReservedValuePoolEnabled() )
+        {
+            reservedValue.setTrackedEntityAttributeId( trackedEntityAttribute.getId() );
+
+            reservedValuePoolStore.touchKey( trackedEntityAttribute.getId(), key );
+
+            resultList.addAll( takePooledValues( generatedSegment, reservedValue, numberOfReservations ) );
+
+            if ( resultList.size() == numberOfReservations )
+            {
+                return resultList;
+            }
+
+            reservedValuePoolStore.registerKey( trackedEntityAttribute.getId(), key );
+        }
+
+        checkIfEnoughValues( numberOfReservations - resultList.size(), generatedSegment, reservedValue );
 
         if ( generatedSegment == null )
         {
@@ -120,7 +144,7 @@ public class DefaultReservedValueService
         }
         else
         {
-            int numberOfValuesLeftToGenerate = numberOfReservations;
+            int numberOfValuesLeftToGenerate = numberOfReservations - resultList.size();
 
             boolean isPersistable = generatedSegment.getMethod().isPersistable();
 
@@ -141,8 +165,8 @@ public class DefaultReservedValueService
                     List<String> resolvedPatterns = getResolvedPatterns( values, textPattern,
                         generatedSegment, generatedValues );
 
-                    saveGeneratedValues( numberOfReservations, resultList, textPattern, reservedValue, isPersistable,
-                        resolvedPatterns );
+                    saveGeneratedValues( numberOfValuesLeftToGenerate, resultList, textPattern, reservedValue,
+                        isPersistable, resolvedPatterns );
 
                     numberOfValuesLeftToGenerate = numberOfReservations - resultList.size();
 
@@ -174,6 +198,109 @@ public class DefaultReservedValueService
         return resultList;
     }
 
+    private TextPatternSegment getGeneratedSegment( TrackedEntityAttribute trackedEntityAttribute )
+    {
+        return trackedEntityAttribute.getTextPattern().getSegments()
+            .stream()
+            .filter(
+                ( tp ) -> tp.getMethod().isGenerated() && Boolean.TRUE.equals( trackedEntityAttribute.isGenerated() ) )
+            .findFirst()
+            .orElse( null );
+    }
+
+    /**
+     * Takes pre-generated values from the pool of the attribute and key of the
+     * given reserved value. Values of persistable patterns are checked again
+     * and reserved, as they may have been used or reserved on demand since the
+     * pool was filled.
+     */
+    private List<ReservedValue> takePooledValues( TextPatternSegment generatedSegment, ReservedValue reservedValue,
+        int numberOfReservations )
+    {
+        List<String> pooledValues = reservedValuePoolStore.takeValues( reservedValue.getTrackedEntityAttributeId(),
+            reservedValue.getKey(), numberOfReservations );
+
+        if ( pooledValues.isEmpty() )
+        {
+            return Collections.emptyList();
+        }
+
+        if ( !generatedSegment.getMethod().isPersistable() )
+        {
+            return pooledValues.stream().map( value -> reservedValue.toBuilder().value( value ).build() )
+                .collect( Collectors.toList() );
+        }
+
+        List<ReservedValue> availableValues = reservedValueStore.getAvailableValues( reservedValue,
+            new ArrayList<>( pooledValues ), reservedValue.getOwnerObject() );
+
+        reservedValueStore.bulkInsertReservedValues( availableValues );
+
+        return availableValues;
+    }
+
+    private void fillPool( TrackedEntityAttribute trackedEntityAttribute, TextPatternSegment generatedSegment,
+        String key, int numberOfValues )
+    {
+        TextPattern textPattern = trackedEntityAttribute.getTextPattern();
+
+        ReservedValue reservedValue = ReservedValue.builder().ownerObject( textPattern.getOwnerObject().name() )
+            .ownerUid( textPattern.getOwnerUid() ).key( key )
+            .trackedEntityAttributeId( trackedEntityAttribute.getId() ).build();
+
+        int attemptsLeft = RESERVED_VALUE_GENERATION_ATTEMPT;
+        int numberOfValuesLeftToAdd = numberOfValues;
+
+        try
+        {
+            while ( attemptsLeft-- > 0 && numberOfValuesLeftToAdd > 0 )
+            {
+                List<String> values = valueGeneratorService
+                    .generateValues( generatedSegment, textPattern, key, numberOfValuesLeftToAdd )
+                    .stream()
+                    .map( value -> key.replace( generatedSegment.getRawSegment(), value ) )
+                    .distinct()
+                    .collect( Collectors.toList() );
+
+                if ( generatedSegment.getMethod().isPersistable() )
+                {
+                    values = reservedValueStore.getAvailableValues( reservedValue, values,
+                        reservedValue.getOwnerObject() ).stream()
+                        .map( ReservedValue::getValue )
+                        .collect( Collectors.toList() );
+                }
+
+                numberOfValuesLeftToAdd -= reservedValuePoolStore.addValues( trackedEntityAttribute.getId(), key,
+                    values );
+            }
+        }
+        catch ( ReserveValueException | ExecutionException e )
+        {
+            log.warn( String.format( "Refilling reserved value pool of attribute %s with key %s failed: %s",
+                trackedEntityAttribute.getUid(), key, e.getMessage() ) );
+        }
+        catch ( InterruptedException e )
+        {
+            log.warn( String.format( "Refilling reserved value pool of attribute %s with key %s was interrupted",
+                trackedEntityAttribute.getUid(), key ) );
+
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private int getPoolSize()
+    {
+        return Integer.parseInt( config.getProperty( ConfigurationKey.RESERVED_VALUE_POOL_SIZE ) );
+    }
+
+    private int getPoolLowWaterMark()
+    {
+        int lowWaterMark = Integer.parseInt(
+            config.getProperty( ConfigurationKey.RESERVED_VALUE_POOL_LOW_WATER_MARK ) );
+
+        return lowWaterMark > 0 ? Math.min( lowWaterMark, getPoolSize() ) : Math.max( 1, getPoolSize() / 2 );
+    }
+
     private void checkTimeout( long startTime )
         throws TimeoutException
     {
@@ -273,4 +400,60 @@ public class DefaultReservedValueService
     {
         reservedValueStore.removeUsedOrExpiredReservations();
     }
+
+    @Override
+    public boolean isReservedValuePoolEnabled()
+    {
+        return getPoolSize() > 0;
+    }
+
+    @Override
+    @Transactional( readOnly = true )
+    public List<String> getReservedValuePoolKeys( TrackedEntityAttribute trackedEntityAttribute )
+    {
+        if ( getGeneratedSegment( trackedEntityAttribute ) == null )
+        {
+            return Collections.emptyList();
+        }
+
+        return reservedValuePoolStore.getKeys( trackedEntityAttribute.getId() );
+    }
+
+    @Override
+    @Transactional
+    public void refillReservedValuePool( TrackedEntityAttribute trackedEntityAttribute, String key )
+    {
+        TextPatternSegment generatedSegment = getGeneratedSegment( trackedEntityAttribute );
+
+        if ( generatedSegment == null )
+        {
+            return;
+        }
+
+        int numberOfPooledValues = reservedValuePoolStore.getNumberOfValues( trackedEntityAttribute.getId(), key );
+
+        if ( numberOfPooledValues < getPoolLowWaterMark() )
+        {
+            fillPool( trackedEntityAttribute, generatedSegment, key, getPoolSize() - numberOfPooledValues );
+        }
+    }
+
+    @Override
+    @Transactional
+    public void removeIdleReservedValuePools( List<TrackedEntityAttribute> trackedEntityAttributes )
+    {
+        Date requestedBefore = Date.from( Instant.now().minus( POOL_IDLE_DAYS, ChronoUnit.DAYS ) );
+
+        for ( TrackedEntityAttribute trackedEntityAttribute : trackedEntityAttributes )
+        {
+            TextPatternSegment generatedSegment = getGeneratedSegment( trackedEntityAttribute );
+
+            // values of sequential pools were drawn from the sequence counter
+            // and would be lost if the pool was removed
+            if ( generatedSegment != null && !TextPatternMethod.SEQUENTIAL.equals( generatedSegment.getMethod() ) )
+            {
+                reservedValuePoolStore.removeIdleKeys( trackedEntityAttribute.getId(), requestedBefore );
+            }
+        }
+    }
 }
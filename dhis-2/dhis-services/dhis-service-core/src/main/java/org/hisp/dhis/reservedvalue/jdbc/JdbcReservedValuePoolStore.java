@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.reservedvalue.jdbc;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.util.Date;
+import java.util.List;
+
+import lombok.RequiredArgsConstructor;
+
+import org.hisp.dhis.reservedvalue.ReservedValuePoolStore;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Postgres based {@link ReservedValuePoolStore}. Values are handed out with
+ * {@code FOR UPDATE SKIP LOCKED} so that concurrent reservations for the same
+ * attribute and key each take distinct rows without queueing behind each
+ * other.
+ */
+@Repository( "org.hisp.dhis.reservedvalue.ReservedValuePoolStore" )
+@RequiredArgsConstructor
+public class JdbcReservedValuePoolStore
+    implements ReservedValuePoolStore
+{
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<String> takeValues( long trackedEntityAttributeId, String key, int numberOfValues )
+    {
+        String sql = "with taken as (" +
+            "delete from reservedvaluepool where reservedvaluepoolid in (" +
+            "select reservedvaluepoolid from reservedvaluepool " +
+            "where trackedentityattributeid = ? and key = ? " +
+            "order by reservedvaluepoolid limit ? " +
+            "for update skip locked) " +
+            "returning reservedvaluepoolid, value) " +
+            "select value from taken order by reservedvaluepoolid";
+
+        return jdbcTemplate.queryForList( sql, String.class, trackedEntityAttributeId, key, numberOfValues );
+    }
+
+    @Override
+    public int addValues( long trackedEntityAttributeId, String key, List<String> values )
+    {
+        if ( values.isEmpty() )
+        {
+            return 0;
+        }
+
+        String sql = "insert into reservedvaluepool (trackedentityattributeid, key, value, created) " +
+            "select ?, ?, v, now() from unnest(?) as v " +
+            "on conflict (trackedentityattributeid, key, value) do nothing";
+
+        Integer added = jdbcTemplate.execute( (ConnectionCallback<Integer>) connection -> {
+            Array array = connection.createArrayOf( "varchar", values.toArray() );
+
+            try ( PreparedStatement statement = connection.prepareStatement( sql ) )
+            {
+                statement.setLong( 1, trackedEntityAttributeId );
+                statement.setString( 2, key );
+                statement.setArray( 3, array );
+
+                return statement.executeUpdate();
+            }
+            finally
+            {
+                array.free();
+            }
+        } );
+
+        return added == null ? 0 : added;
+    }
+
+    @Override
+    public int getNumberOfValues( long trackedEntityAttributeId, String key )
+    {
+        Integer count = jdbcTemplate.queryForObject(
+            "select count(*) from reservedvaluepool where trackedentityattributeid = ? and key = ?",
+            Integer.class, trackedEntityAttributeId, key );
+
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    public void registerKey( long trackedEntityAttributeId, String key )
+    {
+        jdbcTemplate.update( "insert into reservedvaluepoolkey (trackedentityattributeid, key, lastrequested) " +
+            "values (?, ?, now()) on conflict (trackedentityattributeid, key) do nothing",
+            trackedEntityAttributeId, key );
+    }
+
+    @Override
+    public void touchKey( long trackedEntityAttributeId, String key )
+    {
+        jdbcTemplate.update( "update reservedvaluepoolkey set lastrequested = now() " +
+            "where trackedentityattributeid = ? and key = ? and lastrequested < now() - interval '1 day'",
+            trackedEntityAttributeId, key );
+    }
+
+    @Override
+    public List<String> getKeys( long trackedEntityAttributeId )
+    {
+        return jdbcTemplate.queryForList(
+            "select key from reservedvaluepoolkey where trackedentityattributeid = ? order by key",
+            String.class, trackedEntityAttributeId );
+    }
+
+    @Override
+    public void removeIdleKeys( long trackedEntityAttributeId, Date requestedBefore )
+    {
+        jdbcTemplate.update( "delete from reservedvaluepoolkey " +
+            "where trackedentityattributeid = ? and lastrequested < ?", trackedEntityAttributeId, requestedBefore );
+    }
+}
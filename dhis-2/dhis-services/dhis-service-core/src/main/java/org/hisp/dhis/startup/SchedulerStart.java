@@ -32,6 +32,7 @@ import static java.lang.String.format;
 import static org.hisp.dhis.scheduling.JobStatus.FAILED;
 import static org.hisp.dhis.scheduling.JobStatus.SCHEDULED;
 import static org.hisp.dhis.scheduling.JobType.FILE_RESOURCE_CLEANUP;
+import static org.hisp.dhis.scheduling.JobType.REFILL_RESERVED_VALUE_POOLS;
 import static org.hisp.dhis.scheduling.JobType.REMOVE_USED_OR_EXPIRED_RESERVED_VALUES;
 
 import java.util.ArrayList;
@@ -65,6 +66,8 @@ public class SchedulerStart extends AbstractStartupRoutine
 
     private static final String CRON_DAILY_7AM = "0 0 7 ? * *";
 
+    private static final String CRON_EVERY_5_MINUTES = "0 0/5 * * * *";
+
     private static final String LEADER_JOB_CRON_FORMAT = "0 0/%s * * * *";
 
     enum SystemJob
@@ -83,6 +86,8 @@ public class SchedulerStart extends AbstractStartupRoutine
             "Dataset notification" ),
         REMOVE_EXPIRED_OR_USED_RESERVED_VALUES( CRON_DAILY_2AM, "uwWCT2BMmlq", REMOVE_USED_OR_EXPIRED_RESERVED_VALUES,
             "Remove expired or used reserved values" ),
+        REFILL_RESERVED_VALUE_POOL( CRON_EVERY_5_MINUTES, "qFHh3XmR9kE", REFILL_RESERVED_VALUE_POOLS,
+            "Refill reserved value pools" ),
         LEADER_ELECTION( LEADER_JOB_CRON_FORMAT, "MoUd5BTQ3lY", JobType.LEADER_ELECTION,
             "Leader election in cluster" );
 
@@ -190,6 +195,7 @@ public class SchedulerStart extends AbstractStartupRoutine
         addDefaultJob( SystemJob.ACCOUNT_EXPIRY_ALERT, jobConfigurations );
         addDefaultJob( SystemJob.DATA_SET_NOTIFICATION, jobConfigurations );
         addDefaultJob( SystemJob.REMOVE_EXPIRED_OR_USED_RESERVED_VALUES, jobConfigurations );
+        addDefaultJob( SystemJob.REFILL_RESERVED_VALUE_POOL, jobConfigurations );
 
         if ( verifyNoJobExist( SystemJob.LEADER_ELECTION.name, jobConfigurations )
             && "true".equalsIgnoreCase( redisEnabled ) )
@@ -79,6 +79,8 @@ import org.hisp.dhis.commons.collection.CollectionUtils;
 import org.hisp.dhis.commons.util.SqlHelper;
 import org.hisp.dhis.dxf2.events.event.EventContext;
 import org.hisp.dhis.event.EventStatus;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.jdbc.StatementBuilder;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.organisationunit.OrganisationUnitStore;
@@ -136,6 +138,8 @@ public class HibernateTrackedEntityInstanceStore
 
     private static final String GT_EQUAL = " >= ";
 
+    private static final String SEARCH_RANK = "searchrank";
+
     // -------------------------------------------------------------------------
     // Dependencies
     // -------------------------------------------------------------------------
@@ -144,18 +148,23 @@ public class HibernateTrackedEntityInstanceStore
 
     private final StatementBuilder statementBuilder;
 
+    private final DhisConfigurationProvider config;
+
     public HibernateTrackedEntityInstanceStore( SessionFactory sessionFactory, JdbcTemplate jdbcTemplate,
         ApplicationEventPublisher publisher, CurrentUserService currentUserService,
-        AclService aclService, OrganisationUnitStore organisationUnitStore, StatementBuilder statementBuilder )
+        AclService aclService, OrganisationUnitStore organisationUnitStore, StatementBuilder statementBuilder,
+        DhisConfigurationProvider config )
     {
         super( sessionFactory, jdbcTemplate, publisher, TrackedEntityInstance.class, currentUserService, aclService,
             false );
 
         checkNotNull( statementBuilder );
         checkNotNull( organisationUnitStore );
+        checkNotNull( config );
 
         this.statementBuilder = statementBuilder;
         this.organisationUnitStore = organisationUnitStore;
+        this.config = config;
     }
 
     // -------------------------------------------------------------------------
@@ -453,7 +462,8 @@ public class HibernateTrackedEntityInstanceStore
      *
      * @param params
      * @param isCountQuery indicates if the query is a count query. In that case
-     *        we skip order and limit.
+     *        we skip order and limit, except for the maximum number of search
+     *        candidates.
      * @param isGridQuery indicates if the query is a grid query.
      * @return an SQL subquery
      */
@@ -486,6 +496,14 @@ public class HibernateTrackedEntityInstanceStore
                 // LIMIT, OFFSET
                 .append( getFromSubQueryLimitAndOffset( params ) );
         }
+        else if ( getMaxCandidates( params ) > 0 )
+        {
+            fromSubQuery
+                .append( LIMIT )
+                .append( SPACE )
+                .append( getMaxCandidates( params ) )
+                .append( SPACE );
+        }
 
         return fromSubQuery.append( ") TEI " )
             .toString();
@@ -512,6 +530,7 @@ public class HibernateTrackedEntityInstanceStore
             .append( "TEI.deleted, " )
             .append( "OU.uid as ou, " )
             .append( "OU.name as ouname " )
+            .append( params.isOrQuery() ? ", Q." + SEARCH_RANK + SPACE : "" )
             .append( getFromSubQueryOrderAttributes( params ) )
             .toString();
     }
@@ -644,10 +663,16 @@ public class HibernateTrackedEntityInstanceStore
     /**
      * Generates a single INNER JOIN for searching for an attribute by query
      * strings. Searches are done using lower() expression, since attribute
-     * values are case insensitive. The query search is extremely slow compared
-     * to alternatives. A query string (Can be multiple) has to match at least 1
+     * values are case insensitive, which allows using the trigram index on
+     * lower(value). A query string (Can be multiple) has to match at least 1
      * attribute value for each attribute we have access to. We use Regex to
      * search, allowing both exact match and with wildcards (EQ or LIKE).
+     * <p>
+     * The matching tracked entity instances are found in a subquery, which
+     * ranks them by exact matches first, then prefix matches, then any other
+     * matches. The maximum number of search candidates is not applied here,
+     * but after the org unit, program ownership and tracked entity type
+     * constraints, see {@link #getMaxCandidates}.
      *
      * @param params
      * @param attributes
@@ -662,34 +687,59 @@ public class HibernateTrackedEntityInstanceStore
         final String start = params.getQuery().isOperator( QueryOperator.LIKE ) ? anyChar : wordStart;
         final String end = params.getQuery().isOperator( QueryOperator.LIKE ) ? anyChar : wordEnd;
         SqlHelper orHlp = new SqlHelper( true );
+        SqlHelper exactHlp = new SqlHelper( true );
+        SqlHelper prefixHlp = new SqlHelper( true );
+        StringBuilder matches = new StringBuilder();
+        StringBuilder exactMatches = new StringBuilder();
+        StringBuilder prefixMatches = new StringBuilder();
 
         List<Long> itemIds = params.getAttributesAndFilters().stream()
             .map( QueryItem::getItem )
             .map( DimensionalItemObject::getId )
             .collect( Collectors.toList() );
 
-        attributes
-            .append( "INNER JOIN trackedentityattributevalue Q " )
-            .append( "ON Q.trackedentityinstanceid IN (" )
-            .append( getCommaDelimitedString( itemIds ) )
-            .append( ") AND (" );
-
         for ( String queryToken : getTokens( params.getQuery().getFilter() ) )
         {
-            final String query = statementBuilder.encode( queryToken, false );
+            final String query = StringUtils.lowerCase( statementBuilder.encode( queryToken, false ) );
 
-            attributes
+            matches
                 .append( orHlp.or() )
                 .append( "lower(Q.value) " )
                 .append( regexp )
                 .append( " '" )
                 .append( start )
-                .append( StringUtils.lowerCase( query ) )
+                .append( query )
                 .append( end )
                 .append( SINGLE_QUOTE );
+
+            exactMatches
+                .append( exactHlp.or() )
+                .append( "lower(Q.value) = '" )
+                .append( query )
+                .append( SINGLE_QUOTE );
+
+            prefixMatches
+                .append( prefixHlp.or() )
+                .append( "lower(Q.value) like '" )
+                .append( query )
+                .append( "%'" );
         }
 
-        attributes.append( ")" );
+        attributes
+            .append( "INNER JOIN (SELECT Q.trackedentityinstanceid, " )
+            .append( "max(CASE WHEN " )
+            .append( exactMatches )
+            .append( " THEN 2 WHEN " )
+            .append( prefixMatches )
+            .append( " THEN 1 ELSE 0 END) AS " )
+            .append( SEARCH_RANK )
+            .append( " FROM trackedentityattributevalue Q " )
+            .append( "WHERE Q.trackedentityattributeid IN (" )
+            .append( getCommaDelimitedString( itemIds ) )
+            .append( ") AND (" )
+            .append( matches )
+            .append( ") GROUP BY Q.trackedentityinstanceid" )
+            .append( ") Q ON Q.trackedentityinstanceid = TEI.trackedentityinstanceid " );
     }
 
     /**
@@ -1171,7 +1221,8 @@ public class HibernateTrackedEntityInstanceStore
             .append( "TET.uid, " )
             .append( "TEI.potentialduplicate, " )
             .append( "TEI.inactive " )
-            .append( (params.isIncludeDeleted() ? ", TEI.deleted " : "") );
+            .append( (params.isIncludeDeleted() ? ", TEI.deleted " : "") )
+            .append( (params.isOrQuery() ? ", TEI." + SEARCH_RANK + SPACE : "") );
 
         if ( !getOrderAttributes( params ).isEmpty() )
         {
@@ -1230,6 +1281,12 @@ public class HibernateTrackedEntityInstanceStore
 
         if ( params.getAttributesAndFilters().stream().noneMatch( qi -> qi.hasFilter() && qi.isUnique() ) )
         {
+            if ( params.isOrQuery() )
+            {
+                return "ORDER BY " + (innerOrder ? "Q." : "TEI.") + SEARCH_RANK
+                    + " DESC, TEI.trackedentityinstanceid ASC ";
+            }
+
             return "ORDER BY TEI.trackedentityinstanceid ASC ";
         }
         else
@@ -1330,6 +1387,9 @@ public class HibernateTrackedEntityInstanceStore
      * <p>
      * If neither maxteilimit or paging is set, we have no limit.
      * <p>
+     * In all cases the limit never goes past the maximum number of search
+     * candidates, if there is one.
+     * <p>
      * The limit is set in the subquery, so the latter joins have fewer rows to
      * consider.
      *
@@ -1339,49 +1399,74 @@ public class HibernateTrackedEntityInstanceStore
      */
     private String getFromSubQueryLimitAndOffset( TrackedEntityInstanceQueryParams params )
     {
-        StringBuilder limitOffset = new StringBuilder();
         int limit = params.getMaxTeiLimit();
+        Integer rows = null;
 
-        if ( limit == 0 && !params.isPaging() )
+        if ( limit == 0 && params.isPaging() )
         {
-            return "";
+            rows = params.getPageSizeWithDefault();
         }
-        else if ( limit == 0 && params.isPaging() )
+        else if ( params.isPaging() )
         {
-            return limitOffset
-                .append( LIMIT )
-                .append( SPACE )
-                .append( params.getPageSizeWithDefault() )
-                .append( SPACE )
-                .append( OFFSET )
-                .append( SPACE )
-                .append( params.getOffset() )
-                .append( SPACE )
-                .toString();
+            rows = Math.min( limit + 1, params.getPageSizeWithDefault() );
         }
-        else if ( params.isPaging() )
+        else if ( limit > 0 )
         {
-            return limitOffset
-                .append( LIMIT )
-                .append( SPACE )
-                .append( Math.min( limit + 1, params.getPageSizeWithDefault() ) )
-                .append( SPACE )
+            // We add +1, since we use this limit to restrict a user to search
+            // to wide.
+            rows = limit + 1;
+        }
+
+        int maxCandidates = getMaxCandidates( params );
+
+        if ( maxCandidates > 0 )
+        {
+            int remaining = params.isPaging() ? Math.max( 0, maxCandidates - params.getOffset() ) : maxCandidates;
+            rows = rows == null ? remaining : Math.min( rows, remaining );
+        }
+
+        if ( rows == null )
+        {
+            return "";
+        }
+
+        StringBuilder limitOffset = new StringBuilder()
+            .append( LIMIT )
+            .append( SPACE )
+            .append( rows )
+            .append( SPACE );
+
+        if ( params.isPaging() )
+        {
+            limitOffset
                 .append( OFFSET )
                 .append( SPACE )
                 .append( params.getOffset() )
-                .append( SPACE )
-                .toString();
+                .append( SPACE );
         }
-        else
+
+        return limitOffset.toString();
+    }
+
+    /**
+     * The maximum number of best ranked tracked entity instances returned when
+     * searching attribute values by query. It is applied to the constraint
+     * subquery, after the org unit, program ownership and tracked entity type
+     * constraints, so candidates outside the scope of the search never take
+     * the place of candidates inside it. Pages beyond the maximum are empty and
+     * the count is capped at the maximum.
+     *
+     * @param params
+     * @return the maximum number of candidates, or 0 if there is no maximum.
+     */
+    private int getMaxCandidates( TrackedEntityInstanceQueryParams params )
+    {
+        if ( !params.isOrQuery() )
         {
-            return limitOffset
-                .append( LIMIT )
-                .append( SPACE )
-                .append( limit + 1 ) // We add +1, since we use this limit to
-                // restrict a user to search to wide.
-                .append( SPACE )
-                .toString();
+            return 0;
         }
+
+        return Integer.parseInt( config.getProperty( ConfigurationKey.TRACKER_SEARCH_MAX_CANDIDATES ) );
     }
 
     @Override
@@ -466,6 +466,8 @@ public class DataValueServiceTest
 
         assertEquals( 3, dataValueService.getDataValueCountLastUpdatedBetween( getDate( 1970, 1, 1 ), null, false ) );
         assertEquals( 3, dataValueService.getDataValueCountLastUpdatedBetween( getDate( 1970, 1, 1 ), null, true ) );
+        assertEquals( 0, dataValueService.getDataValueCountLastUpdatedBetween( getDate( 1970, 1, 1 ),
+            dataValueA.getLastUpdated(), true ) );
 
         dataValueService.deleteDataValue( dataValueC );
 
@@ -58,10 +58,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.antlr.v4.runtime.tree.ParseTree;
 import org.apache.commons.math3.util.Precision;
 import org.hisp.dhis.DhisSpringTest;
 import org.hisp.dhis.analytics.DataType;
 import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.cache.SimpleCacheBuilder;
 import org.hisp.dhis.category.Category;
 import org.hisp.dhis.category.CategoryCombo;
 import org.hisp.dhis.category.CategoryOption;
@@ -251,6 +253,9 @@ public class ExpressionService2Test extends DhisSpringTest
     @Before
     public void setUp()
     {
+        when( cacheProvider.<ParseTree> createExpressionParseTreeCache() ).thenReturn(
+            new SimpleCacheBuilder<ParseTree>().forRegion( "expressionParseTree" ).withMaximumSize( 100 ).build() );
+
         target = new DefaultExpressionService( hibernateGenericStore, dataElementService, constantService,
             organisationUnitService, organisationUnitGroupService, dimensionService, idObjectManager, cacheProvider );
 
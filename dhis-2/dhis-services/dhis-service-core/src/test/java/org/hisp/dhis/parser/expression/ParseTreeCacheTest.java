@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.parser.expression;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.hisp.dhis.antlr.ParserException;
+import org.hisp.dhis.cache.SimpleCacheBuilder;
+import org.junit.Test;
+
+/**
+ * Tests {@link ParseTreeCache}.
+ */
+public class ParseTreeCacheTest
+{
+    private final ParseTreeCache parseTreeCache = new ParseTreeCache( new SimpleCacheBuilder<ParseTree>()
+        .forRegion( "expressionParseTree" )
+        .withMaximumSize( 100 )
+        .build() );
+
+    @Test
+    public void testParseTreeIsReused()
+    {
+        ParseTree tree = parseTreeCache.getParseTree( "#{fbfJHSPpUQD}+C{xxxxxxxxx05}" );
+
+        assertSame( tree, parseTreeCache.getParseTree( "#{fbfJHSPpUQD}+C{xxxxxxxxx05}" ) );
+        assertNotSame( tree, parseTreeCache.getParseTree( "#{fbfJHSPpUQD}-C{xxxxxxxxx05}" ) );
+    }
+
+    @Test( expected = ParserException.class )
+    public void testSyntaxError()
+    {
+        parseTreeCache.getParseTree( "#{fbfJHSPpUQD}+" );
+    }
+
+    @Test
+    public void testSyntaxErrorIsNotCached()
+    {
+        for ( int i = 0; i < 2; i++ )
+        {
+            try
+            {
+                parseTreeCache.getParseTree( "#{fbfJHSPpUQD}+" );
+            }
+            catch ( ParserException e )
+            {
+                continue;
+            }
+
+            fail( "expected ParserException" );
+        }
+    }
+}
@@ -28,21 +28,29 @@
 package org.hisp.dhis.query.planner;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.beans.PropertyDescriptor;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 
 import org.apache.commons.beanutils.PropertyUtils;
 import org.hisp.dhis.attribute.Attribute;
+import org.hisp.dhis.common.UserContext;
 import org.hisp.dhis.query.Junction;
+import org.hisp.dhis.query.Order;
 import org.hisp.dhis.query.Query;
+import org.hisp.dhis.query.Restriction;
 import org.hisp.dhis.query.Restrictions;
+import org.hisp.dhis.query.operators.MatchMode;
 import org.hisp.dhis.schema.Property;
 import org.hisp.dhis.schema.Schema;
 import org.hisp.dhis.schema.SchemaService;
 import org.hisp.dhis.schema.descriptors.OrganisationUnitSchemaDescriptor;
+import org.hisp.dhis.user.UserSettingKey;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -70,6 +78,12 @@ public class DefaultQueryPlannerTest
         this.subject = new DefaultQueryPlanner( schemaService );
     }
 
+    @After
+    public void tearDown()
+    {
+        UserContext.reset();
+    }
+
     @Test
     public void verifyPlanQueryReturnsPersistedAndNotPersistedQueries()
         throws Exception
@@ -184,6 +198,89 @@ public class DefaultQueryPlannerTest
         assertEquals( nonPersistedQuery.getRootJunctionType(), Junction.Type.AND );
     }
 
+    @Test
+    public void verifyPlanQueryRunsDisjunctionOnPersistedFieldsInDatabase()
+        throws Exception
+    {
+        Schema schema = createSchema();
+
+        Query query = Query.from( schema, Junction.Type.OR );
+        query.setMaxResults( 10 );
+        query.setFirstResult( 20 );
+
+        query.add( Restrictions.ilike( "name", "test", MatchMode.ANYWHERE ) );
+        query.add( Restrictions.eq( "id", 100 ) );
+
+        QueryPlan queryPlan = subject.planQuery( query, false );
+
+        Query persistedQuery = queryPlan.getPersistedQuery();
+
+        assertEquals( 2, persistedQuery.getCriterions().size() );
+        assertEquals( Junction.Type.OR, persistedQuery.getRootJunctionType() );
+        assertEquals( 20, persistedQuery.getFirstResult().intValue() );
+        assertEquals( 10, persistedQuery.getMaxResults().intValue() );
+        assertTrue( queryPlan.getNonPersistedQuery().isEmpty() );
+    }
+
+    @Test
+    public void verifyPlanQueryPushesDownDisplayName()
+        throws Exception
+    {
+        Schema schema = createSchema();
+
+        Query query = Query.from( schema, Junction.Type.OR );
+        query.setMaxResults( 10 );
+
+        query.add( Restrictions.ilike( "displayName", "test", MatchMode.ANYWHERE ) );
+        query.add( Restrictions.eq( "id", 100 ) );
+        query.addOrder( Order.iasc( schema.getProperty( "displayName" ) ) );
+
+        QueryPlan queryPlan = subject.planQuery( query, false );
+
+        Query persistedQuery = queryPlan.getPersistedQuery();
+
+        assertEquals( 2, persistedQuery.getCriterions().size() );
+        assertEquals( "name", ((Restriction) persistedQuery.getCriterions().get( 0 )).getPath() );
+        assertEquals( "name", persistedQuery.getOrders().get( 0 ).getProperty().getName() );
+        assertTrue( persistedQuery.getOrders().get( 0 ).isIgnoreCase() );
+        assertEquals( 10, persistedQuery.getMaxResults().intValue() );
+        assertTrue( queryPlan.getNonPersistedQuery().isEmpty() );
+    }
+
+    @Test
+    public void verifyPlanQueryKeepsTranslatedDisplayNameInMemory()
+        throws Exception
+    {
+        UserContext.setUserSetting( UserSettingKey.DB_LOCALE, Locale.FRENCH );
+
+        Schema schema = createSchema();
+
+        Query query = Query.from( schema, Junction.Type.AND );
+        query.add( Restrictions.eq( "displayName", "test" ) );
+
+        QueryPlan queryPlan = subject.planQuery( query, false );
+
+        assertTrue( queryPlan.getPersistedQuery().getCriterions().isEmpty() );
+        assertFalse( queryPlan.getNonPersistedQuery().isEmpty() );
+        assertEquals( "displayName",
+            ((Restriction) queryPlan.getNonPersistedQuery().getCriterions().get( 0 )).getPath() );
+    }
+
+    private Schema createSchema()
+        throws Exception
+    {
+        final Attribute attribute = new Attribute();
+        final Map<String, Property> propertyMap = new HashMap<>();
+        addProperty( propertyMap, attribute, "id", true );
+        addProperty( propertyMap, attribute, "uid", true );
+        addProperty( propertyMap, attribute, "name", true );
+        addProperty( propertyMap, attribute, "displayName", false );
+        Schema schema = new OrganisationUnitSchemaDescriptor().getSchema();
+        schema.setPropertyMap( propertyMap );
+
+        return schema;
+    }
+
     private void addProperty( Map<String, Property> propertyMap, Object bean, String property, boolean persisted )
         throws Exception
     {
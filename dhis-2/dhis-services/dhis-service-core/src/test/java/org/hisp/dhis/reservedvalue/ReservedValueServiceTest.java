@@ -30,21 +30,31 @@ package org.hisp.dhis.reservedvalue;
 import static java.util.Calendar.DATE;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThrows;
+import static org.hisp.dhis.external.conf.ConfigurationKey.RESERVED_VALUE_POOL_LOW_WATER_MARK;
+import static org.hisp.dhis.external.conf.ConfigurationKey.RESERVED_VALUE_POOL_SIZE;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.anyList;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
 
 import org.hisp.dhis.common.Objects;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.textpattern.DefaultTextPatternService;
 import org.hisp.dhis.textpattern.TextPattern;
 import org.hisp.dhis.textpattern.TextPatternGenerationException;
@@ -72,6 +82,12 @@ public class ReservedValueServiceTest
     @Mock
     private ValueGeneratorService valueGeneratorService;
 
+    @Mock
+    private ReservedValuePoolStore reservedValuePoolStore;
+
+    @Mock
+    private DhisConfigurationProvider config;
+
     @Captor
     private ArgumentCaptor<ReservedValue> reservedValue;
 
@@ -89,7 +105,10 @@ public class ReservedValueServiceTest
     public void setUpClass()
     {
         reservedValueService = new DefaultReservedValueService( textPatternService, reservedValueStore,
-            valueGeneratorService );
+            valueGeneratorService, reservedValuePoolStore, config );
+
+        lenient().when( config.getProperty( RESERVED_VALUE_POOL_SIZE ) ).thenReturn( "0" );
+        lenient().when( config.getProperty( RESERVED_VALUE_POOL_LOW_WATER_MARK ) ).thenReturn( "0" );
 
         Calendar calendar = Calendar.getInstance();
         calendar.add( DATE, 1 );
@@ -246,6 +265,105 @@ public class ReservedValueServiceTest
                 .size() );
     }
 
+    @Test
+    public void shouldReserveValuesFromPool()
+        throws TextPatternParser.TextPatternParsingException,
+        TextPatternGenerationException,
+        ReserveValueException,
+        ExecutionException,
+        InterruptedException
+    {
+        when( config.getProperty( RESERVED_VALUE_POOL_SIZE ) ).thenReturn( "10" );
+        when( reservedValuePoolStore.takeValues( anyLong(), anyString(), anyInt() ) )
+            .thenReturn( Arrays.asList( "TEST-01", "TEST-02" ) );
+
+        assertEquals( Arrays.asList( "TEST-01", "TEST-02" ),
+            reservedValueService
+                .reserve( createTrackedEntityAttribute( Objects.TRACKEDENTITYATTRIBUTE, ownerUid, sequentialText ), 2,
+                    new HashMap<>(), futureDate )
+                .stream().map( ReservedValue::getValue ).collect( Collectors.toList() ) );
+
+        verify( valueGeneratorService, never() ).generateValues( any(), any(), any(), anyInt() );
+        verify( reservedValuePoolStore, times( 1 ) ).touchKey( anyLong(), eq( "TEST-SEQUENTIAL(##)" ) );
+        verify( reservedValuePoolStore, never() ).registerKey( anyLong(), anyString() );
+    }
+
+    @Test
+    public void shouldGenerateMissingValuesWhenPoolIsShort()
+        throws TextPatternParser.TextPatternParsingException,
+        TextPatternGenerationException,
+        ReserveValueException,
+        ExecutionException,
+        InterruptedException
+    {
+        when( config.getProperty( RESERVED_VALUE_POOL_SIZE ) ).thenReturn( "10" );
+        when( reservedValuePoolStore.takeValues( anyLong(), anyString(), anyInt() ) )
+            .thenReturn( Collections.singletonList( "TEST-01" ) );
+        when( valueGeneratorService.generateValues( any(), any(), any(), eq( 1 ) ) )
+            .thenReturn( Collections.singletonList( "02" ) );
+
+        assertEquals( Arrays.asList( "TEST-01", "TEST-02" ),
+            reservedValueService
+                .reserve( createTrackedEntityAttribute( Objects.TRACKEDENTITYATTRIBUTE, ownerUid, sequentialText ), 2,
+                    new HashMap<>(), futureDate )
+                .stream().map( ReservedValue::getValue ).collect( Collectors.toList() ) );
+
+        verify( reservedValuePoolStore, times( 1 ) ).registerKey( anyLong(), eq( "TEST-SEQUENTIAL(##)" ) );
+    }
+
+    @Test
+    public void shouldRefillPoolBelowLowWaterMark()
+        throws TextPatternParser.TextPatternParsingException,
+        ReserveValueException,
+        ExecutionException,
+        InterruptedException
+    {
+        when( config.getProperty( RESERVED_VALUE_POOL_SIZE ) ).thenReturn( "4" );
+        when( reservedValuePoolStore.getNumberOfValues( anyLong(), anyString() ) ).thenReturn( 1 );
+        when( valueGeneratorService.generateValues( any(), any(), any(), eq( 3 ) ) )
+            .thenReturn( Arrays.asList( "02", "03", "04" ) );
+        when( reservedValuePoolStore.addValues( anyLong(), anyString(), anyList() ) ).thenReturn( 3 );
+
+        reservedValueService.refillReservedValuePool(
+            createTrackedEntityAttribute( Objects.TRACKEDENTITYATTRIBUTE, ownerUid, sequentialText ),
+            "TEST-SEQUENTIAL(##)" );
+
+        verify( reservedValuePoolStore, times( 1 ) ).addValues( anyLong(), eq( "TEST-SEQUENTIAL(##)" ),
+            eq( Arrays.asList( "TEST-02", "TEST-03", "TEST-04" ) ) );
+    }
+
+    @Test
+    public void shouldNotRefillPoolAboveLowWaterMark()
+        throws TextPatternParser.TextPatternParsingException
+    {
+        when( config.getProperty( RESERVED_VALUE_POOL_SIZE ) ).thenReturn( "4" );
+        when( reservedValuePoolStore.getNumberOfValues( anyLong(), anyString() ) ).thenReturn( 2 );
+
+        reservedValueService.refillReservedValuePool(
+            createTrackedEntityAttribute( Objects.TRACKEDENTITYATTRIBUTE, ownerUid, sequentialText ),
+            "TEST-SEQUENTIAL(##)" );
+
+        verify( reservedValuePoolStore, never() ).addValues( anyLong(), anyString(), anyList() );
+    }
+
+    @Test
+    public void shouldKeepIdleSequentialPools()
+        throws TextPatternParser.TextPatternParsingException
+    {
+        TrackedEntityAttribute sequentialAttribute = createTrackedEntityAttribute( Objects.TRACKEDENTITYATTRIBUTE,
+            ownerUid, sequentialText );
+        sequentialAttribute.setId( 1 );
+
+        TrackedEntityAttribute randomAttribute = createTrackedEntityAttribute( Objects.TRACKEDENTITYATTRIBUTE,
+            ownerUid, randomText );
+        randomAttribute.setId( 2 );
+
+        reservedValueService.removeIdleReservedValuePools( Arrays.asList( sequentialAttribute, randomAttribute ) );
+
+        verify( reservedValuePoolStore, never() ).removeIdleKeys( eq( 1L ), any() );
+        verify( reservedValuePoolStore, times( 1 ) ).removeIdleKeys( eq( 2L ), any() );
+    }
+
     private static TrackedEntityAttribute createTrackedEntityAttribute( Objects objects, String uid, String pattern )
         throws TextPatternParser.TextPatternParsingException
     {
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.reservedvalue.jdbc;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import org.hisp.dhis.IntegrationTestBase;
+import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.reservedvalue.ReservedValuePoolStore;
+import org.hisp.dhis.trackedentity.TrackedEntityAttribute;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Runs the pool queries of {@link JdbcReservedValuePoolStore} against
+ * Postgres, as {@code FOR UPDATE SKIP LOCKED} is what keeps concurrent
+ * reservations from taking the same values.
+ */
+public class JdbcReservedValuePoolStoreTest
+    extends IntegrationTestBase
+{
+    private static final String KEY = "TEST-SEQUENTIAL(###)";
+
+    private static final int POOL_SIZE = 200;
+
+    @Autowired
+    private ReservedValuePoolStore reservedValuePoolStore;
+
+    @Autowired
+    private IdentifiableObjectManager manager;
+
+    private long attributeId;
+
+    private List<String> values;
+
+    @Override
+    public void setUpTest()
+    {
+        TrackedEntityAttribute attribute = createTrackedEntityAttribute( 'A' );
+        manager.save( attribute );
+        attributeId = attribute.getId();
+
+        values = IntStream.rangeClosed( 1, POOL_SIZE )
+            .mapToObj( i -> String.format( "TEST-%03d", i ) )
+            .collect( toList() );
+
+        reservedValuePoolStore.registerKey( attributeId, KEY );
+
+        assertEquals( POOL_SIZE, reservedValuePoolStore.addValues( attributeId, KEY, values ) );
+    }
+
+    @Test
+    public void testAddValuesIgnoresPooledValues()
+    {
+        assertEquals( 1, reservedValuePoolStore.addValues( attributeId, KEY, List.of( "TEST-001", "TEST-201" ) ) );
+        assertEquals( POOL_SIZE + 1, reservedValuePoolStore.getNumberOfValues( attributeId, KEY ) );
+    }
+
+    @Test
+    public void testTakeValuesInPoolOrder()
+    {
+        assertEquals( values.subList( 0, 3 ), reservedValuePoolStore.takeValues( attributeId, KEY, 3 ) );
+        assertEquals( values.subList( 3, 5 ), reservedValuePoolStore.takeValues( attributeId, KEY, 2 ) );
+        assertEquals( POOL_SIZE - 5, reservedValuePoolStore.getNumberOfValues( attributeId, KEY ) );
+    }
+
+    @Test
+    public void testTakeValuesSkipsValuesTakenByOpenTransaction()
+        throws Exception
+    {
+        CountDownLatch taken = new CountDownLatch( 1 );
+        CountDownLatch release = new CountDownLatch( 1 );
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+        try
+        {
+            Future<List<String>> held = executorService.submit( () -> transactionTemplate.execute( status -> {
+                List<String> heldValues = reservedValuePoolStore.takeValues( attributeId, KEY, 10 );
+                taken.countDown();
+                await( release );
+                return heldValues;
+            } ) );
+
+            assertTrue( taken.await( 10, SECONDS ) );
+
+            List<String> next = transactionTemplate
+                .execute( status -> reservedValuePoolStore.takeValues( attributeId, KEY, 10 ) );
+
+            release.countDown();
+
+            assertEquals( values.subList( 0, 10 ), held.get( 10, SECONDS ) );
+            assertEquals( values.subList( 10, 20 ), next );
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testConcurrentTakeValuesAreDisjoint()
+        throws Exception
+    {
+        int threadCount = 8;
+
+        Callable<List<String>> task = () -> {
+            List<String> takenValues = new ArrayList<>();
+
+            for ( int i = 0; i < 5; i++ )
+            {
+                takenValues.addAll( transactionTemplate
+                    .execute( status -> reservedValuePoolStore.takeValues( attributeId, KEY, 5 ) ) );
+            }
+
+            return takenValues;
+        };
+
+        ExecutorService executorService = Executors.newFixedThreadPool( threadCount );
+        List<String> allTaken = new ArrayList<>();
+
+        try
+        {
+            for ( Future<List<String>> future : executorService.invokeAll( Collections.nCopies( threadCount, task ) ) )
+            {
+                // Throws an exception if an exception was thrown by the task.
+                allTaken.addAll( future.get() );
+            }
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+
+        assertThat( new HashSet<>( allTaken ), hasSize( allTaken.size() ) );
+        assertTrue( values.containsAll( allTaken ) );
+        assertEquals( POOL_SIZE - allTaken.size(), reservedValuePoolStore.getNumberOfValues( attributeId, KEY ) );
+    }
+
+    @Test
+    public void testRemoveIdleKeysOfAttribute()
+    {
+        TrackedEntityAttribute other = createTrackedEntityAttribute( 'B' );
+        manager.save( other );
+
+        reservedValuePoolStore.registerKey( other.getId(), KEY );
+        reservedValuePoolStore.addValues( other.getId(), KEY, values );
+
+        reservedValuePoolStore.removeIdleKeys( attributeId, new Date( System.currentTimeMillis() + 60_000 ) );
+
+        assertEquals( List.of(), reservedValuePoolStore.getKeys( attributeId ) );
+        assertEquals( 0, reservedValuePoolStore.getNumberOfValues( attributeId, KEY ) );
+        assertEquals( List.of( KEY ), reservedValuePoolStore.getKeys( other.getId() ) );
+        assertEquals( POOL_SIZE, reservedValuePoolStore.getNumberOfValues( other.getId(), KEY ) );
+    }
+
+    private static void await( CountDownLatch latch )
+    {
+        try
+        {
+            latch.await( 10, SECONDS );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -36,19 +36,24 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import org.hisp.dhis.DhisSpringTest;
 import org.hisp.dhis.analytics.AggregationType;
 import org.hisp.dhis.common.IdentifiableObjectManager;
 import org.hisp.dhis.common.OrganisationUnitSelectionMode;
+import org.hisp.dhis.common.QueryFilter;
 import org.hisp.dhis.common.QueryItem;
 import org.hisp.dhis.common.QueryOperator;
 import org.hisp.dhis.common.ValueType;
 import org.hisp.dhis.dbms.DbmsManager;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.organisationunit.OrganisationUnitService;
 import org.hisp.dhis.program.Program;
@@ -86,6 +91,9 @@ public class TrackedEntityInstanceStoreTest
     @Autowired
     private ProgramInstanceService programInstanceService;
 
+    @Autowired
+    private DhisConfigurationProvider config;
+
     private TrackedEntityInstance teiA;
 
     private TrackedEntityInstance teiB;
@@ -149,6 +157,12 @@ public class TrackedEntityInstanceStoreTest
         teiF = createTrackedEntityInstance( ouC );
     }
 
+    @Override
+    public void tearDownTest()
+    {
+        config.getProperties().remove( ConfigurationKey.TRACKER_SEARCH_MAX_CANDIDATES.getKey() );
+    }
+
     @Test
     public void testTrackedEntityInstanceExists()
     {
@@ -379,4 +393,95 @@ public class TrackedEntityInstanceStoreTest
         assertThat( grid.get( 0 ).get( atC.getUid() ), is( "OrganisationUnitC" ) );
 
     }
+
+    @Test
+    public void testQueryRanksExactThenPrefixThenOtherMatches()
+    {
+        saveWithAttributeA( teiA, "Johnson" );
+        saveWithAttributeA( teiB, "John" );
+        saveWithAttributeA( teiC, "Mary Johnson" );
+        saveWithAttributeA( teiD, "Peter" );
+
+        dbmsManager.flushSession();
+
+        TrackedEntityInstanceQueryParams params = createQueryParams( "john" );
+
+        assertEquals( getUids( teiB, teiA, teiC ), getUids( teiStore.getTrackedEntityInstancesGrid( params ) ) );
+        assertEquals( 3, teiStore.getTrackedEntityInstanceCountForGrid( params ) );
+    }
+
+    @Test
+    public void testQueryRanksBestMatchOfMultipleTokens()
+    {
+        saveWithAttributeA( teiA, "Johnson" );
+        saveWithAttributeA( teiB, "John" );
+        saveWithAttributeA( teiC, "Mary Johnson" );
+        saveWithAttributeA( teiD, "Peter" );
+        saveWithAttributeA( teiE, "Mary" );
+
+        dbmsManager.flushSession();
+
+        TrackedEntityInstanceQueryParams params = createQueryParams( "john mary" );
+
+        assertEquals( getUids( teiB, teiE, teiA, teiC ),
+            getUids( teiStore.getTrackedEntityInstancesGrid( params ) ) );
+        assertEquals( 4, teiStore.getTrackedEntityInstanceCountForGrid( params ) );
+    }
+
+    @Test
+    public void testQueryMaxCandidatesAppliesAfterOrgUnitScope()
+    {
+        saveWithAttributeA( teiA, "John" );
+        saveWithAttributeA( teiB, "John" );
+        saveWithAttributeA( teiD, "Johnson" );
+        saveWithAttributeA( teiE, "Mary Johnson" );
+        saveWithAttributeA( teiF, "Johnny" );
+
+        dbmsManager.flushSession();
+
+        config.getProperties().put( ConfigurationKey.TRACKER_SEARCH_MAX_CANDIDATES.getKey(), "2" );
+
+        TrackedEntityInstanceQueryParams params = createQueryParams( "john" )
+            .addOrganisationUnit( ouC )
+            .setOrganisationUnitMode( OrganisationUnitSelectionMode.SELECTED );
+
+        assertEquals( getUids( teiD, teiF ), getUids( teiStore.getTrackedEntityInstancesGrid( params ) ) );
+        assertEquals( 2, teiStore.getTrackedEntityInstanceCountForGrid( params ) );
+
+        params.setPage( 2 ).setPageSize( 1 );
+
+        assertEquals( getUids( teiF ), getUids( teiStore.getTrackedEntityInstancesGrid( params ) ) );
+
+        params.setPage( 3 );
+
+        assertTrue( teiStore.getTrackedEntityInstancesGrid( params ).isEmpty() );
+    }
+
+    private void saveWithAttributeA( TrackedEntityInstance tei, String value )
+    {
+        teiStore.save( tei );
+        attributeValueService.addTrackedEntityAttributeValue( new TrackedEntityAttributeValue( atA, tei, value ) );
+    }
+
+    private TrackedEntityInstanceQueryParams createQueryParams( String query )
+    {
+        QueryItem queryItem = new QueryItem( atA );
+        queryItem.setValueType( atA.getValueType() );
+
+        return new TrackedEntityInstanceQueryParams()
+            .setQuery( new QueryFilter( QueryOperator.LIKE, query ) )
+            .setAttributes( Collections.singletonList( queryItem ) )
+            .setOrganisationUnitMode( OrganisationUnitSelectionMode.ALL );
+    }
+
+    private static List<String> getUids( TrackedEntityInstance... teis )
+    {
+        return Arrays.stream( teis ).map( TrackedEntityInstance::getUid ).collect( Collectors.toList() );
+    }
+
+    private static List<String> getUids( List<Map<String, String>> grid )
+    {
+        return grid.stream().map( row -> row.get( TrackedEntityInstanceQueryParams.TRACKED_ENTITY_INSTANCE_ID ) )
+            .collect( Collectors.toList() );
+    }
 }
@@ -66,6 +66,8 @@ public class ImportOptions
 
     private boolean skipExistingCheck;
 
+    private boolean batchExistingCheck;
+
     private boolean sharing;
 
     private boolean skipNotifications;
@@ -138,6 +140,7 @@ public class ImportOptions
         options.importStrategy = this.importStrategy;
         options.mergeMode = this.mergeMode;
         options.skipExistingCheck = this.skipExistingCheck;
+        options.batchExistingCheck = this.batchExistingCheck;
         options.sharing = this.sharing;
         options.skipNotifications = this.skipNotifications;
         options.datasetAllowsPeriods = this.datasetAllowsPeriods;
@@ -282,6 +285,18 @@ public class ImportOptions
         return skipExistingCheck;
     }
 
+    /**
+     * Indicates whether existing data values should be looked up with one
+     * set-based query per chunk of imported values instead of one query per
+     * value.
+     */
+    @JsonProperty
+    @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
+    public boolean isBatchExistingCheck()
+    {
+        return batchExistingCheck;
+    }
+
     @JsonProperty
     @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
     public boolean isSharing()
@@ -539,6 +554,12 @@ public class ImportOptions
         return this;
     }
 
+    public ImportOptions setBatchExistingCheck( boolean batchExistingCheck )
+    {
+        this.batchExistingCheck = batchExistingCheck;
+        return this;
+    }
+
     public ImportOptions setSharing( boolean sharing )
     {
         this.sharing = sharing;
@@ -661,6 +682,7 @@ public class ImportOptions
             .add( "importStrategy", importStrategy )
             .add( "mergeMode", mergeMode )
             .add( "skipExistingCheck", skipExistingCheck )
+            .add( "batchExistingCheck", batchExistingCheck )
             .add( "ignoreEmptyCollection", ignoreEmptyCollection )
             .add( "sharing", sharing )
             .add( "skipNotifications", skipNotifications )
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.dxf2.datavalueset;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+
+import lombok.Value;
+
+/**
+ * Key of a data value for keyset pagination of data value exports. Data
+ * values are ordered by period start date, created time and the identifiers
+ * of the data value, and a page starts after the key of the last data value
+ * of the previous page.
+ */
+@Value
+public class DataValueKey
+{
+    private static final String SEPARATOR = ",";
+
+    Date periodStartDate;
+
+    Timestamp created;
+
+    long dataElementId;
+
+    long periodId;
+
+    long sourceId;
+
+    long categoryOptionComboId;
+
+    long attributeOptionComboId;
+
+    /**
+     * @return the key as a string which can be read by
+     *         {@link #fromKeyString(String)}.
+     */
+    public String toKeyString()
+    {
+        return String.join( SEPARATOR, periodStartDate.toString(), created.toString(),
+            String.valueOf( dataElementId ), String.valueOf( periodId ), String.valueOf( sourceId ),
+            String.valueOf( categoryOptionComboId ), String.valueOf( attributeOptionComboId ) );
+    }
+
+    /**
+     * @param key a key string as created by {@link #toKeyString()}.
+     * @return the key.
+     * @throws IllegalArgumentException if the key string is not valid.
+     */
+    public static DataValueKey fromKeyString( String key )
+    {
+        String[] values = key.split( SEPARATOR );
+
+        if ( values.length != 7 )
+        {
+            throw new IllegalArgumentException( "Invalid data value key: " + key );
+        }
+
+        return new DataValueKey( Date.valueOf( values[0] ), Timestamp.valueOf( values[1] ),
+            Long.parseLong( values[2] ), Long.parseLong( values[3] ), Long.parseLong( values[4] ),
+            Long.parseLong( values[5] ), Long.parseLong( values[6] ) );
+    }
+}
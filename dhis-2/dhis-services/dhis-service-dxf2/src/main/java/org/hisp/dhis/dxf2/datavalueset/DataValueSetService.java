@@ -73,15 +73,25 @@ public interface DataValueSetService
     /**
      * Query for {@link DataValueSet DataValueSets} and write result as JSON.
      *
+     * Data values are ordered by their {@link DataValueKey} and a page starts
+     * after the key of the last data value of the previous page, so that data
+     * values which are updated after they have been written do not shift the
+     * following pages.
+     *
      * @param lastUpdated specifies the date to filter complete data sets last
      *        updated after
+     * @param lastUpdatedBefore specifies the date to filter complete data sets
+     *        last updated before, exclusive
      * @param outputStream the stream to write to
      * @param idSchemes idSchemes
      * @param pageSize pageSize
-     * @param page page
+     * @param after the key of the last data value of the previous page, or
+     *        null for the first page
+     * @return the key of the last data value written, or null if the page is
+     *         empty
      */
-    void writeDataValueSetJson( Date lastUpdated, OutputStream outputStream, IdSchemes idSchemes, int pageSize,
-        int page );
+    DataValueKey writeDataValueSetJson( Date lastUpdated, Date lastUpdatedBefore, OutputStream outputStream,
+        IdSchemes idSchemes, int pageSize, DataValueKey after );
 
     void writeDataValueSetCsv( DataExportParams params, Writer writer );
 
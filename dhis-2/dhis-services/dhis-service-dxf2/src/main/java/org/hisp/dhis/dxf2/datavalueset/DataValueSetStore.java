@@ -29,10 +29,13 @@ package org.hisp.dhis.dxf2.datavalueset;
 
 import java.io.OutputStream;
 import java.io.Writer;
+import java.util.Collection;
 import java.util.Date;
+import java.util.Map;
 
 import org.hisp.dhis.common.IdSchemes;
 import org.hisp.dhis.datavalue.DataExportParams;
+import org.hisp.dhis.datavalue.DataValue;
 
 /**
  * @author Lars Helge Overland
@@ -58,13 +61,35 @@ public interface DataValueSetStore
     /**
      * Query for {@link DataValueSet DataValueSets} and write result as JSON.
      *
+     * Data values are ordered by their {@link DataValueKey} and a page starts
+     * after the key of the last data value of the previous page, so that data
+     * values which are updated after they have been written do not shift the
+     * following pages.
+     *
      * @param lastUpdated specifies the date to filter complete data sets last
      *        updated after
+     * @param lastUpdatedBefore specifies the date to filter complete data sets
+     *        last updated before, exclusive
      * @param outputStream the stream to write to
      * @param idSchemes idSchemes
      * @param pageSize pageSize
-     * @param page page
+     * @param after the key of the last data value of the previous page, or
+     *        null for the first page
+     * @return the key of the last data value written, or null if the page is
+     *         empty
+     */
+    DataValueKey writeDataValueSetJson( Date lastUpdated, Date lastUpdatedBefore, OutputStream outputStream,
+        IdSchemes idSchemes, int pageSize, DataValueKey after );
+
+    /**
+     * Looks up the persisted data values matching the given data values by
+     * data element, period, org unit, category option combo and attribute
+     * option combo using a single set-based query.
+     *
+     * @param dataValues the data values to look up, all of which must have
+     *        persisted associations.
+     * @return a mapping from each given data value to its persisted
+     *         counterpart, for the data values which exist.
      */
-    void writeDataValueSetJson( Date lastUpdated, OutputStream outputStream, IdSchemes idSchemes, int pageSize,
-        int page );
+    Map<DataValue, DataValue> getExistingDataValues( Collection<DataValue> dataValues );
 }
@@ -43,10 +43,13 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import lombok.AllArgsConstructor;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 
 import org.apache.commons.lang3.BooleanUtils;
@@ -140,6 +143,8 @@ public class DefaultDataValueSetService
 
     private static final int CACHE_MISS_THRESHOLD = 250;
 
+    private static final int EXISTING_CHECK_BATCH_SIZE = 1000;
+
     private final IdentifiableObjectManager identifiableObjectManager;
 
     private final CategoryService categoryService;
@@ -399,10 +404,11 @@ public class DefaultDataValueSetService
 
     @Override
     @Transactional
-    public void writeDataValueSetJson( Date lastUpdated, OutputStream outputStream, IdSchemes idSchemes, int pageSize,
-        int page )
+    public DataValueKey writeDataValueSetJson( Date lastUpdated, Date lastUpdatedBefore, OutputStream outputStream,
+        IdSchemes idSchemes, int pageSize, DataValueKey after )
     {
-        dataValueSetStore.writeDataValueSetJson( lastUpdated, outputStream, idSchemes, pageSize, page );
+        return dataValueSetStore.writeDataValueSetJson( lastUpdated, lastUpdatedBefore, outputStream, idSchemes,
+            pageSize, after );
     }
 
     @Override
@@ -742,6 +748,8 @@ public class DefaultDataValueSetService
         clock.logTime( "Validated outer meta-data" );
         notifier.notify( id, notificationLevel, "Importing data values" );
 
+        List<PendingDataValue> pendingValues = new ArrayList<>();
+
         int index = 0;
         while ( dataValueSet.hasNextDataValue() )
         {
@@ -773,59 +781,27 @@ public class DefaultDataValueSetService
             // -----------------------------------------------------------------
             // Save, update or delete data value
             // -----------------------------------------------------------------
-            DataValue existingValue = !context.isSkipExistingCheck()
-                ? context.getDataValueBatchHandler().findObject( internalValue )
-                : null;
-
-            // -----------------------------------------------------------------
-            // Preserve any existing created date unless overwritten by import
-            // -----------------------------------------------------------------
-            if ( existingValue != null && !dataValue.hasCreated() )
+            if ( context.isBatchExistingCheck() && !context.isSkipExistingCheck() )
             {
-                internalValue.setCreated( existingValue.getCreated() );
-            }
-
-            final ImportStrategy strategy = context.getStrategy();
-            boolean zeroAndInsignificant = ValidationUtils.dataValueIsZeroAndInsignificant(
-                dataValue.getValue(), valueContext.getDataElement() );
-            if ( zeroAndInsignificant && (existingValue == null || strategy.isCreate()) )
-            {
-                // Ignore value
-                context.getSummary().skipValue();
-                continue;
-            }
+                pendingValues.add( new PendingDataValue( dataValue, valueContext, internalValue ) );
 
-            // -----------------------------------------------------------------
-            // Check soft deleted data values on update and import
-            // -----------------------------------------------------------------
-            if ( !context.isSkipExistingCheck() && existingValue != null && !existingValue.isDeleted() )
-            {
-                if ( strategy.isCreateAndUpdate() || strategy.isUpdate() )
-                {
-                    saveDataValueUpdate( context, importCount, dataValue, valueContext, internalValue, existingValue );
-                }
-                else if ( strategy.isDelete() )
+                if ( pendingValues.size() >= EXISTING_CHECK_BATCH_SIZE )
                 {
-                    saveDataValueDelete( context, importCount, dataValue, valueContext, internalValue, existingValue );
-                }
-                else
-                {
-                    importCount.incrementIgnored();
+                    saveDataValues( context, importCount, pendingValues );
                 }
             }
             else
             {
-                if ( strategy.isCreateAndUpdate() || strategy.isCreate() )
-                {
-                    saveDataValueCreate( context, importCount, valueContext, internalValue, existingValue );
-                }
-                else
-                {
-                    importCount.incrementIgnored();
-                }
+                DataValue existingValue = !context.isSkipExistingCheck()
+                    ? context.getDataValueBatchHandler().findObject( internalValue )
+                    : null;
+
+                saveDataValue( context, importCount, dataValue, valueContext, internalValue, existingValue );
             }
         }
 
+        saveDataValues( context, importCount, pendingValues );
+
         context.getDataValueBatchHandler().flush();
 
         if ( !context.isSkipAudit() )
@@ -850,6 +826,85 @@ public class DefaultDataValueSetService
         return context.getSummary();
     }
 
+    /**
+     * Resolves the existing data values of the given pending data values with
+     * a single set-based query, saves the pending data values and clears the
+     * given list.
+     */
+    private void saveDataValues( ImportContext context, ImportCount importCount,
+        List<PendingDataValue> pendingValues )
+    {
+        if ( pendingValues.isEmpty() )
+        {
+            return;
+        }
+
+        Map<DataValue, DataValue> existingValues = dataValueSetStore.getExistingDataValues( pendingValues.stream()
+            .map( PendingDataValue::getInternalValue )
+            .collect( Collectors.toList() ) );
+
+        for ( PendingDataValue pending : pendingValues )
+        {
+            saveDataValue( context, importCount, pending.getDataValue(), pending.getValueContext(),
+                pending.getInternalValue(), existingValues.get( pending.getInternalValue() ) );
+        }
+
+        pendingValues.clear();
+    }
+
+    private void saveDataValue( ImportContext context, ImportCount importCount,
+        org.hisp.dhis.dxf2.datavalue.DataValue dataValue, ImportContext.DataValueContext valueContext,
+        DataValue internalValue, DataValue existingValue )
+    {
+        // ---------------------------------------------------------------------
+        // Preserve any existing created date unless overwritten by import
+        // ---------------------------------------------------------------------
+        if ( existingValue != null && !dataValue.hasCreated() )
+        {
+            internalValue.setCreated( existingValue.getCreated() );
+        }
+
+        final ImportStrategy strategy = context.getStrategy();
+        boolean zeroAndInsignificant = ValidationUtils.dataValueIsZeroAndInsignificant(
+            dataValue.getValue(), valueContext.getDataElement() );
+        if ( zeroAndInsignificant && (existingValue == null || strategy.isCreate()) )
+        {
+            // Ignore value
+            context.getSummary().skipValue();
+            return;
+        }
+
+        // ---------------------------------------------------------------------
+        // Check soft deleted data values on update and import
+        // ---------------------------------------------------------------------
+        if ( !context.isSkipExistingCheck() && existingValue != null && !existingValue.isDeleted() )
+        {
+            if ( strategy.isCreateAndUpdate() || strategy.isUpdate() )
+            {
+                saveDataValueUpdate( context, importCount, dataValue, valueContext, internalValue, existingValue );
+            }
+            else if ( strategy.isDelete() )
+            {
+                saveDataValueDelete( context, importCount, dataValue, valueContext, internalValue, existingValue );
+            }
+            else
+            {
+                importCount.incrementIgnored();
+            }
+        }
+        else
+        {
+            if ( strategy.isCreateAndUpdate() || strategy.isCreate() )
+            {
+                saveDataValueCreate( context, importCount, valueContext, internalValue, existingValue );
+            }
+            else
+            {
+                importCount.incrementIgnored();
+            }
+        }
+    }
+
     private void saveDataValueCreate( ImportContext context, ImportCount importCount,
         ImportContext.DataValueContext valueContext, DataValue internalValue, DataValue existingValue )
     {
@@ -1073,6 +1128,7 @@ public class DefaultDataValueSetService
                 : options.getImportStrategy() )
             .dryRun( data.getDryRun() != null ? data.getDryRun() : options.isDryRun() )
             .skipExistingCheck( options.isSkipExistingCheck() )
+            .batchExistingCheck( options.isBatchExistingCheck() )
             .strictPeriods( options.isStrictPeriods()
                 || settings.getBoolSetting( SettingKey.DATA_IMPORT_STRICT_PERIODS ) )
             .strictDataElements( options.isStrictDataElements()
@@ -1251,4 +1307,17 @@ public class DefaultDataValueSetService
         summary.setDataSetComplete( DateUtils.getMediumDateString( completeDate ) );
     }
 
+    /**
+     * A validated data value awaiting the batched lookup of its existing
+     * counterpart.
+     */
+    @Value
+    private static class PendingDataValue
+    {
+        org.hisp.dhis.dxf2.datavalue.DataValue dataValue;
+
+        ImportContext.DataValueContext valueContext;
+
+        DataValue internalValue;
+    }
 }
@@ -111,6 +111,8 @@ public final class ImportContext
 
     private final boolean skipExistingCheck;
 
+    private final boolean batchExistingCheck;
+
     private final boolean strictPeriods;
 
     private final boolean strictDataElements;
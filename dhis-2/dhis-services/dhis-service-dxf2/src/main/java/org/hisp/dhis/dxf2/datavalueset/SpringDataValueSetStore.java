@@ -37,7 +37,12 @@ import java.io.OutputStream;
 import java.io.Writer;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -135,16 +140,86 @@ public class SpringDataValueSetStore
     }
 
     @Override
-    public void writeDataValueSetJson( Date lastUpdated, OutputStream outputStream, IdSchemes idSchemes, int pageSize,
-        int page )
+    public DataValueKey writeDataValueSetJson( Date lastUpdated, Date lastUpdatedBefore, OutputStream outputStream,
+        IdSchemes idSchemes, int pageSize, DataValueKey after )
     {
         DataValueSet dataValueSet = new StreamingJsonDataValueSet( outputStream );
 
-        final int offset = (page - 1) * pageSize;
-        final String sql = buildDataValueSql( lastUpdated, idSchemes ) +
-            "order by pe.startdate asc, dv.created asc, deid asc limit " + pageSize + " offset " + offset;
+        String sql = buildDataValueSql( lastUpdated, idSchemes ) +
+            "and dv.lastupdated < '" + DateUtils.getLongDateString( lastUpdatedBefore ) + "' ";
 
-        writeDataValueSet( sql, new DataExportParams(), null, dataValueSet );
+        if ( after != null )
+        {
+            sql += "and (pe.startdate, dv.created, dv.dataelementid, dv.periodid, dv.sourceid, " +
+                "dv.categoryoptioncomboid, dv.attributeoptioncomboid) > ('" + after.getPeriodStartDate() + "', '" +
+                after.getCreated() + "', " + after.getDataElementId() + ", " + after.getPeriodId() + ", " +
+                after.getSourceId() + ", " + after.getCategoryOptionComboId() + ", " +
+                after.getAttributeOptionComboId() + ") ";
+        }
+
+        sql += "order by pe.startdate asc, dv.created asc, dv.dataelementid asc, dv.periodid asc, dv.sourceid asc, " +
+            "dv.categoryoptioncomboid asc, dv.attributeoptioncomboid asc limit " + pageSize;
+
+        AtomicReference<DataValueKey> lastKey = new AtomicReference<>();
+
+        writeDataValueSet( sql, new DataExportParams(), null, dataValueSet,
+            rs -> lastKey.set( new DataValueKey( rs.getDate( "pestart" ), rs.getTimestamp( "created" ),
+                rs.getLong( "dataelementid" ), rs.getLong( "periodid" ), rs.getLong( "sourceid" ),
+                rs.getLong( "categoryoptioncomboid" ), rs.getLong( "attributeoptioncomboid" ) ) ) );
+
+        return lastKey.get();
+    }
+
+    @Override
+    public Map<org.hisp.dhis.datavalue.DataValue, org.hisp.dhis.datavalue.DataValue> getExistingDataValues(
+        Collection<org.hisp.dhis.datavalue.DataValue> dataValues )
+    {
+        final Map<org.hisp.dhis.datavalue.DataValue, org.hisp.dhis.datavalue.DataValue> existing = new HashMap<>();
+
+        if ( dataValues.isEmpty() )
+        {
+            return existing;
+        }
+
+        final Map<String, org.hisp.dhis.datavalue.DataValue> keyMap = new HashMap<>();
+
+        for ( org.hisp.dhis.datavalue.DataValue dataValue : dataValues )
+        {
+            keyMap.put( getDataValueKey( dataValue.getDataElement().getId(), dataValue.getPeriod().getId(),
+                dataValue.getSource().getId(), dataValue.getCategoryOptionCombo().getId(),
+                dataValue.getAttributeOptionCombo().getId() ), dataValue );
+        }
+
+        final String sql = "select dv.dataelementid, dv.periodid, dv.sourceid, dv.categoryoptioncomboid, " +
+            "dv.attributeoptioncomboid, dv.value, dv.storedby, dv.created, dv.comment, dv.followup, dv.deleted " +
+            "from datavalue dv " +
+            "where (dv.dataelementid, dv.periodid, dv.sourceid, dv.categoryoptioncomboid, " +
+            "dv.attributeoptioncomboid) in (" +
+            keyMap.keySet().stream().map( key -> "(" + key + ")" ).collect( Collectors.joining( "," ) ) + ")";
+
+        jdbcTemplate.query( sql, rs -> {
+            org.hisp.dhis.datavalue.DataValue dataValue = keyMap.get( getDataValueKey(
+                rs.getLong( "dataelementid" ), rs.getLong( "periodid" ), rs.getLong( "sourceid" ),
+                rs.getLong( "categoryoptioncomboid" ), rs.getLong( "attributeoptioncomboid" ) ) );
+
+            if ( dataValue != null )
+            {
+                org.hisp.dhis.datavalue.DataValue dv = new org.hisp.dhis.datavalue.DataValue();
+
+                dv.setValue( rs.getString( "value" ) );
+                dv.setStoredBy( rs.getString( "storedby" ) );
+                dv.setCreated( rs.getTimestamp( "created" ) );
+                dv.setComment( rs.getString( "comment" ) );
+                dv.setFollowup( rs.getBoolean( "followup" ) );
+                dv.setDeleted( rs.getBoolean( "deleted" ) );
+
+                existing.put( dataValue, dv );
+            }
+        } );
+
+        log.debug( "Found {} existing data values out of {}", existing.size(), dataValues.size() );
+
+        return existing;
     }
 
     private String buildDataValueSql( Date lastUpdated, IdSchemes idSchemes )
@@ -157,7 +232,8 @@ public class SpringDataValueSetStore
         final String sql = "select de." + deScheme + " as deid, pe.startdate as pestart, pt.name as ptname, ou."
             + ouScheme + " as ouid, " +
             "coc." + ocScheme + " as cocid, aoc." + aocScheme + " as aocid, " +
-            "dv.value, dv.storedby, dv.created, dv.lastupdated, dv.comment, dv.followup, dv.deleted " +
+            "dv.value, dv.storedby, dv.created, dv.lastupdated, dv.comment, dv.followup, dv.deleted, " +
+            "dv.dataelementid, dv.periodid, dv.sourceid, dv.categoryoptioncomboid, dv.attributeoptioncomboid " +
             "from datavalue dv " +
             "join dataelement de on (dv.dataelementid=de.dataelementid) " +
             "join period pe on (dv.periodid=pe.periodid) " +
@@ -172,6 +248,17 @@ public class SpringDataValueSetStore
 
     private void writeDataValueSet( String sql, DataExportParams params, Date completeDate,
         final DataValueSet dataValueSet )
+    {
+        writeDataValueSet( sql, params, completeDate, dataValueSet, rs -> {
+        } );
+    }
+
+    /**
+     * @param rowListener called for every row after its data value has been
+     *        written.
+     */
+    private void writeDataValueSet( String sql, DataExportParams params, Date completeDate,
+        final DataValueSet dataValueSet, RowCallbackHandler rowListener )
     {
         if ( params.isSingleDataValueSet() )
         {
@@ -215,6 +302,8 @@ public class SpringDataValueSetStore
                 }
 
                 dataValue.close();
+
+                rowListener.processRow( rs );
             }
         } );
 
@@ -225,6 +314,13 @@ public class SpringDataValueSetStore
     // Supportive methods
     // --------------------------------------------------------------------------
 
+    private static String getDataValueKey( long dataElementId, long periodId, long orgUnitId,
+        long categoryOptionComboId, long attributeOptionComboId )
+    {
+        return dataElementId + "," + periodId + "," + orgUnitId + "," + categoryOptionComboId + ","
+            + attributeOptionComboId;
+    }
+
     private String getDataValueSql( DataExportParams params )
     {
         Preconditions.checkArgument( !params.getAllDataElements().isEmpty() );
@@ -60,6 +60,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
@@ -312,12 +313,7 @@ public abstract class AbstractEventService implements EventService
 
         for ( Event event : eventList )
         {
-            boolean canSkipCheck = event.getTrackedEntityInstance() == null ||
-                trackerOwnershipAccessManager.canSkipOwnershipCheck( user, event.getProgramType() );
-
-            if ( canSkipCheck || trackerOwnershipAccessManager.hasAccess( user,
-                entityInstanceService.getTrackedEntityInstance( event.getTrackedEntityInstance() ),
-                programService.getProgram( event.getProgram() ) ) )
+            if ( hasOwnershipAccess( user, event ) )
             {
                 events.getEvents().add( event );
             }
@@ -326,6 +322,73 @@ public abstract class AbstractEventService implements EventService
         return events;
     }
 
+    @Transactional( readOnly = true )
+    @Override
+    public void streamEvents( EventSearchParams params, Consumer<Event> consumer )
+    {
+        User user = currentUserService.getCurrentUser();
+
+        validate( params, user );
+
+        List<OrganisationUnit> organisationUnits = getOrganisationUnits( params, user );
+
+        params.handleCurrentUserSelectionMode( user );
+
+        Map<String, Program> programs = new HashMap<>();
+
+        eventStore.streamEvents( params, organisationUnits,
+            page -> streamAccessibleEvents( user, page, programs, consumer ) );
+    }
+
+    /**
+     * Passes the events of the given page the user has ownership access to to
+     * the given consumer. The tracked entity instances of the page are loaded
+     * in one query and evicted from the session afterwards, so that the
+     * session does not grow with the number of streamed pages. Programs are
+     * few and kept for the whole stream.
+     */
+    private void streamAccessibleEvents( User user, List<Event> page, Map<String, Program> programs,
+        Consumer<Event> consumer )
+    {
+        List<String> teiUids = page.stream()
+            .filter( event -> !canSkipOwnershipCheck( user, event ) )
+            .map( Event::getTrackedEntityInstance )
+            .distinct()
+            .collect( Collectors.toList() );
+
+        Map<String, TrackedEntityInstance> teis = entityInstanceService
+            .getTrackedEntityInstancesByUid( teiUids, user ).stream()
+            .collect( Collectors.toMap( TrackedEntityInstance::getUid, tei -> tei ) );
+
+        Map<String, Boolean> access = new HashMap<>();
+
+        for ( Event event : page )
+        {
+            if ( canSkipOwnershipCheck( user, event ) || access.computeIfAbsent(
+                event.getTrackedEntityInstance() + ":" + event.getProgram(),
+                key -> trackerOwnershipAccessManager.hasAccess( user, teis.get( event.getTrackedEntityInstance() ),
+                    programs.computeIfAbsent( event.getProgram(), programService::getProgram ) ) ) )
+            {
+                consumer.accept( event );
+            }
+        }
+
+        teis.values().forEach( manager::evict );
+    }
+
+    private boolean canSkipOwnershipCheck( User user, Event event )
+    {
+        return event.getTrackedEntityInstance() == null ||
+            trackerOwnershipAccessManager.canSkipOwnershipCheck( user, event.getProgramType() );
+    }
+
+    private boolean hasOwnershipAccess( User user, Event event )
+    {
+        return canSkipOwnershipCheck( user, event ) || trackerOwnershipAccessManager.hasAccess( user,
+            entityInstanceService.getTrackedEntityInstance( event.getTrackedEntityInstance() ),
+            programService.getProgram( event.getProgram() ) );
+    }
+
     @Transactional( readOnly = true )
     @Override
     public Grid getEventsGrid( EventSearchParams params )
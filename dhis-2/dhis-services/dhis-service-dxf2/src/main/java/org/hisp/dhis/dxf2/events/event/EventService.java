@@ -33,6 +33,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import org.hisp.dhis.common.Grid;
 import org.hisp.dhis.dxf2.common.ImportOptions;
@@ -54,6 +55,16 @@ public interface EventService
 
     Events getEvents( EventSearchParams params );
 
+    /**
+     * Passes all events matching the given parameters to the given consumer,
+     * one at a time, without loading all events into memory. Paging
+     * parameters are ignored.
+     *
+     * @param params the event search parameters.
+     * @param consumer the consumer of the events.
+     */
+    void streamEvents( EventSearchParams params, Consumer<Event> consumer );
+
     EventRows getEventRows( EventSearchParams params );
 
     Grid getEventsGrid( EventSearchParams params );
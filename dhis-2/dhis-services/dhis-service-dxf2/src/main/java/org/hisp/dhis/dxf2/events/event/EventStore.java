@@ -30,6 +30,7 @@ package org.hisp.dhis.dxf2.events.event;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import org.hisp.dhis.dxf2.events.report.EventRow;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
@@ -64,6 +65,21 @@ public interface EventStore
     List<Event> getEvents( EventSearchParams params, List<OrganisationUnit> organisationUnits,
         Map<String, Set<String>> psdesWithSkipSyncTrue );
 
+    /**
+     * Passes all events matching the given parameters to the given consumer,
+     * one page at a time, ordered by last updated and id. Events are fetched in
+     * pages of {@link EventSearchParams#getPageSizeWithDefault()} using keyset
+     * pagination on last updated and id, so that the number of events held in
+     * memory is bounded by the page size. Page, ordering and paging flags of
+     * the parameters are ignored.
+     *
+     * @param params the event search parameters.
+     * @param organisationUnits the organisation units to search in.
+     * @param pageConsumer the consumer of the pages of events.
+     */
+    void streamEvents( EventSearchParams params, List<OrganisationUnit> organisationUnits,
+        Consumer<List<Event>> pageConsumer );
+
     List<Map<String, String>> getEventsGrid( EventSearchParams params, List<OrganisationUnit> organisationUnits );
 
     List<EventRow> getEventRows( EventSearchParams params, List<OrganisationUnit> organisationUnits );
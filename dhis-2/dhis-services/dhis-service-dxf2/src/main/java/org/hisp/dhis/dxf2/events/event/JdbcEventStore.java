@@ -84,6 +84,7 @@ import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
@@ -92,9 +93,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import lombok.RequiredArgsConstructor;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 
 import org.apache.commons.lang3.StringUtils;
@@ -193,6 +196,8 @@ public class JdbcEventStore implements EventStore
 
     private static final String DOT_NAME = ".name)";
 
+    private static final String KEYSET_ORDER_QUERY = "order by psi_lastupdated asc, psi_id asc ";
+
     private static final Map<String, String> QUERY_PARAM_COL_MAP = ImmutableMap.<String, String> builder()
         .put( EVENT_ID, "psi_uid" )
         .put( EVENT_PROGRAM_ID, "p_uid" )
@@ -368,13 +373,63 @@ public class JdbcEventStore implements EventStore
 
         setAccessiblePrograms( user, params );
 
+        String sql = buildSql( params, organisationUnits, user );
+
+        return filterAccessibleEvents( params, user,
+            getEvents( params, user, sql, psdesWithSkipSyncTrue, new ArrayList<>() ) );
+    }
+
+    @Override
+    public void streamEvents( EventSearchParams params, List<OrganisationUnit> organisationUnits,
+        Consumer<List<Event>> pageConsumer )
+    {
+        User user = currentUserService.getCurrentUser();
+
+        setAccessiblePrograms( user, params );
+
+        EventKey cursor = null;
+
+        while ( true )
+        {
+            List<EventKey> keys = new ArrayList<>();
+
+            String sql = buildSql( params, organisationUnits, user, cursor, KEYSET_ORDER_QUERY,
+                " limit " + params.getPageSizeWithDefault() + " " );
+
+            List<Event> events = getEvents( params, user, sql, Collections.emptyMap(), keys );
+
+            if ( events.isEmpty() )
+            {
+                return;
+            }
+
+            // The page limit applies to rows of events and category options,
+            // so the last event of a page may be incomplete. It is fetched
+            // again as the first event of the next page.
+
+            int complete = events.size() == 1 ? 1 : events.size() - 1;
+
+            pageConsumer.accept( filterAccessibleEvents( params, user, events.subList( 0, complete ) ) );
+
+            cursor = keys.get( complete - 1 );
+        }
+    }
+
+    /**
+     * Maps the rows of the given event query to events.
+     *
+     * @param keys list to which the keyset pagination key of each event is
+     *        added, in the order of the returned events.
+     */
+    private List<Event> getEvents( EventSearchParams params, User user, String sql,
+        Map<String, Set<String>> psdesWithSkipSyncTrue, List<EventKey> keys )
+    {
         Map<String, Event> eventUidToEventMap = new HashMap<>( params.getPageSizeWithDefault() );
         List<Event> events = new ArrayList<>();
         List<Long> relationshipIds = new ArrayList<>();
 
         final Gson gson = new Gson();
 
-        String sql = buildSql( params, organisationUnits, user );
         SqlRowSet rowSet = jdbcTemplate.queryForRowSet( sql );
 
         log.debug( "Event query SQL: " + sql );
@@ -469,6 +524,7 @@ public class JdbcEventStore implements EventStore
                 }
 
                 events.add( event );
+                keys.add( new EventKey( rowSet.getTimestamp( "psi_lastupdated" ), rowSet.getLong( "psi_id" ) ) );
             }
             else
             {
@@ -570,6 +626,15 @@ public class JdbcEventStore implements EventStore
             convertDataValuesIdentifiers( dataElementIdScheme, dataValuesList, dataElementUidToIdentifierCache );
         }
 
+        return events;
+    }
+
+    /**
+     * Removes the events for which the user cannot access all category options
+     * of the attribute option combo.
+     */
+    private List<Event> filterAccessibleEvents( EventSearchParams params, User user, List<Event> events )
+    {
         if ( params.getCategoryOptionCombo() == null && !isSuper( user ) )
         {
             return events.stream().filter( ev -> ev.getAttributeCategoryOptions() != null
@@ -949,14 +1014,27 @@ public class JdbcEventStore implements EventStore
      * separate queries is to be able to page properly on events.
      */
     private String buildSql( EventSearchParams params, List<OrganisationUnit> organisationUnits, User user )
+    {
+        return buildSql( params, organisationUnits, user, null, getOrderQuery( params ),
+            getEventPagingQuery( params ) );
+    }
+
+    /**
+     * @param cursor the key after which events are selected for keyset
+     *        pagination, or null.
+     * @param orderQuery the order by clause.
+     * @param pagingQuery the limit and offset clause.
+     */
+    private String buildSql( EventSearchParams params, List<OrganisationUnit> organisationUnits, User user,
+        EventKey cursor, String orderQuery, String pagingQuery )
     {
         StringBuilder sqlBuilder = new StringBuilder().append( "select * from (" );
 
-        sqlBuilder.append( getEventSelectQuery( params, organisationUnits, user ) );
+        sqlBuilder.append( getEventSelectQuery( params, organisationUnits, user, cursor ) );
 
-        sqlBuilder.append( getOrderQuery( params ) );
+        sqlBuilder.append( orderQuery );
 
-        sqlBuilder.append( getEventPagingQuery( params ) );
+        sqlBuilder.append( pagingQuery );
 
         sqlBuilder.append( ") as event left join (" );
 
@@ -976,12 +1054,18 @@ public class JdbcEventStore implements EventStore
             sqlBuilder.append( RELATIONSHIP_IDS_QUERY );
         }
 
-        sqlBuilder.append( getOrderQuery( params ) );
+        sqlBuilder.append( orderQuery );
 
         return sqlBuilder.toString();
     }
 
     private String getEventSelectQuery( EventSearchParams params, List<OrganisationUnit> organisationUnits, User user )
+    {
+        return getEventSelectQuery( params, organisationUnits, user, null );
+    }
+
+    private String getEventSelectQuery( EventSearchParams params, List<OrganisationUnit> organisationUnits, User user,
+        EventKey cursor )
     {
         List<Long> orgUnitIds = getIdentifiers( organisationUnits );
 
@@ -1149,6 +1233,12 @@ public class JdbcEventStore implements EventStore
 
         sqlBuilder.append( addLastUpdatedFilters( params, hlp, true ) );
 
+        if ( cursor != null )
+        {
+            sqlBuilder.append( hlp.whereAnd() ).append( " (psi.lastupdated, psi.programstageinstanceid) > ('" )
+                .append( cursor.getLastUpdated() ).append( "', " ).append( cursor.getId() ).append( ") " );
+        }
+
         // Comparing milliseconds instead of always creating new Date( 0 );
         if ( params.getSkipChangedBefore() != null && params.getSkipChangedBefore().getTime() > 0 )
         {
@@ -1917,4 +2007,14 @@ public class JdbcEventStore implements EventStore
         return batch.stream().sorted( Comparator.comparing( ProgramStageInstance::getUid ) ).collect( toList() );
     }
 
+    /**
+     * Key of an event for keyset pagination.
+     */
+    @Value
+    private static class EventKey
+    {
+        Timestamp lastUpdated;
+
+        long id;
+    }
 }
@@ -30,7 +30,9 @@ package org.hisp.dhis.dxf2.events.event.csv;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * @author Morten Olav Hansen <mortenoh@gmail.com>
@@ -40,6 +42,25 @@ public interface CsvEventService<T>
     void writeEvents( OutputStream outputStream, List<T> events, boolean withHeader )
         throws IOException;
 
+    /**
+     * Writes the events which the given producer passes to its consumer.
+     * Implementations should write each event as it is produced, without
+     * collecting all events in memory.
+     *
+     * @param outputStream the output stream.
+     * @param eventProducer the producer, which passes events to the given
+     *        consumer.
+     * @param withHeader whether to write a header row.
+     */
+    default void writeEventStream( OutputStream outputStream, Consumer<Consumer<T>> eventProducer,
+        boolean withHeader )
+        throws IOException
+    {
+        List<T> events = new ArrayList<>();
+        eventProducer.accept( events::add );
+        writeEvents( outputStream, events, withHeader );
+    }
+
     List<T> readEvents( InputStream inputStream, boolean skipFirst )
         throws IOException,
         org.locationtech.jts.io.ParseException;
@@ -30,8 +30,10 @@ package org.hisp.dhis.dxf2.events.event.csv;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.apache.commons.lang3.StringUtils;
 import org.hisp.dhis.dxf2.events.event.DataValue;
@@ -44,6 +46,7 @@ import org.springframework.stereotype.Service;
 import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import com.fasterxml.jackson.dataformat.csv.CsvMapper;
 import com.fasterxml.jackson.dataformat.csv.CsvParser;
 import com.fasterxml.jackson.dataformat.csv.CsvSchema;
@@ -71,47 +74,82 @@ public class DefaultCsvEventService
 
         for ( Event event : events )
         {
-            CsvEventDataValue templateDataValue = new CsvEventDataValue();
-            templateDataValue.setEvent( event.getEvent() );
-            templateDataValue.setStatus( event.getStatus() != null ? event.getStatus().name() : null );
-            templateDataValue.setProgram( event.getProgram() );
-            templateDataValue.setProgramStage( event.getProgramStage() );
-            templateDataValue.setEnrollment( event.getEnrollment() );
-            templateDataValue.setOrgUnit( event.getOrgUnit() );
-            templateDataValue.setEventDate( event.getEventDate() );
-            templateDataValue.setDueDate( event.getDueDate() );
-            templateDataValue.setStoredBy( event.getStoredBy() );
-            templateDataValue.setCompletedDate( event.getCompletedDate() );
-            templateDataValue.setCompletedBy( event.getCompletedBy() );
-
-            if ( event.getGeometry() != null )
-            {
-                templateDataValue.setGeometry( event.getGeometry().toText() );
+            dataValues.addAll( toCsvDataValues( event ) );
+        }
+
+        writer.writeValue( outputStream, dataValues );
+    }
+
+    @Override
+    public void writeEventStream( OutputStream outputStream, Consumer<Consumer<Event>> eventProducer,
+        boolean withHeader )
+        throws IOException
+    {
+        ObjectWriter writer = CSV_MAPPER.writer( CSV_SCHEMA.withUseHeader( withHeader ) );
 
-                if ( event.getGeometry().getGeometryType().equals( "Point" ) )
+        try ( SequenceWriter sequenceWriter = writer.writeValues( outputStream ) )
+        {
+            eventProducer.accept( event -> {
+                try
                 {
-                    templateDataValue.setLongitude( event.getGeometry().getCoordinate().x );
-                    templateDataValue.setLatitude( event.getGeometry().getCoordinate().y );
+                    sequenceWriter.writeAll( toCsvDataValues( event ) );
                 }
-            }
+                catch ( IOException ex )
+                {
+                    throw new UncheckedIOException( ex );
+                }
+            } );
+        }
+        catch ( UncheckedIOException ex )
+        {
+            throw ex.getCause();
+        }
+    }
+
+    private List<CsvEventDataValue> toCsvDataValues( Event event )
+    {
+        List<CsvEventDataValue> dataValues = new ArrayList<>();
+
+        CsvEventDataValue templateDataValue = new CsvEventDataValue();
+        templateDataValue.setEvent( event.getEvent() );
+        templateDataValue.setStatus( event.getStatus() != null ? event.getStatus().name() : null );
+        templateDataValue.setProgram( event.getProgram() );
+        templateDataValue.setProgramStage( event.getProgramStage() );
+        templateDataValue.setEnrollment( event.getEnrollment() );
+        templateDataValue.setOrgUnit( event.getOrgUnit() );
+        templateDataValue.setEventDate( event.getEventDate() );
+        templateDataValue.setDueDate( event.getDueDate() );
+        templateDataValue.setStoredBy( event.getStoredBy() );
+        templateDataValue.setCompletedDate( event.getCompletedDate() );
+        templateDataValue.setCompletedBy( event.getCompletedBy() );
+
+        if ( event.getGeometry() != null )
+        {
+            templateDataValue.setGeometry( event.getGeometry().toText() );
 
-            for ( DataValue value : event.getDataValues() )
+            if ( event.getGeometry().getGeometryType().equals( "Point" ) )
             {
-                CsvEventDataValue dataValue = new CsvEventDataValue( templateDataValue );
-                dataValue.setDataElement( value.getDataElement() );
-                dataValue.setValue( value.getValue() );
-                dataValue.setProvidedElsewhere( value.getProvidedElsewhere() );
+                templateDataValue.setLongitude( event.getGeometry().getCoordinate().x );
+                templateDataValue.setLatitude( event.getGeometry().getCoordinate().y );
+            }
+        }
 
-                if ( value.getStoredBy() != null )
-                {
-                    dataValue.setStoredBy( value.getStoredBy() );
-                }
+        for ( DataValue value : event.getDataValues() )
+        {
+            CsvEventDataValue dataValue = new CsvEventDataValue( templateDataValue );
+            dataValue.setDataElement( value.getDataElement() );
+            dataValue.setValue( value.getValue() );
+            dataValue.setProvidedElsewhere( value.getProvidedElsewhere() );
 
-                dataValues.add( dataValue );
+            if ( value.getStoredBy() != null )
+            {
+                dataValue.setStoredBy( value.getStoredBy() );
             }
+
+            dataValues.add( dataValue );
         }
 
-        writer.writeValue( outputStream, dataValues );
+        return dataValues;
     }
 
     @Override
@@ -43,6 +43,7 @@ import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.common.IdentifiableObjectManager;
 import org.hisp.dhis.common.IdentifiableObjectUtils;
 import org.hisp.dhis.common.MergeMode;
+import org.hisp.dhis.common.event.MetadataChangedEvent;
 import org.hisp.dhis.dbms.DbmsManager;
 import org.hisp.dhis.dxf2.metadata.FlushMode;
 import org.hisp.dhis.dxf2.metadata.objectbundle.feedback.ObjectBundleCommitReport;
@@ -57,6 +58,7 @@ import org.hisp.dhis.schema.SchemaService;
 import org.hisp.dhis.system.notification.Notifier;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -88,6 +90,8 @@ public class DefaultObjectBundleService implements ObjectBundleService
 
     private final ObjectBundleHooks objectBundleHooks;
 
+    private final ApplicationEventPublisher eventPublisher;
+
     @Override
     @Transactional( readOnly = true )
     public ObjectBundle create( ObjectBundleParams params )
@@ -143,6 +147,11 @@ public class DefaultObjectBundleService implements ObjectBundleService
         cacheManager.clearCache();
         bundle.setObjectBundleStatus( ObjectBundleStatus.COMMITTED );
 
+        if ( !typeReports.isEmpty() )
+        {
+            eventPublisher.publishEvent( new MetadataChangedEvent( this, typeReports.keySet(), false ) );
+        }
+
         return commitReport;
     }
 
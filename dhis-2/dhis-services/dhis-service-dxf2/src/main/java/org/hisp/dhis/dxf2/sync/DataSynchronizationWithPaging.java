@@ -28,6 +28,7 @@
 package org.hisp.dhis.dxf2.sync;
 
 import org.hisp.dhis.dxf2.synch.SystemInstance;
+import org.hisp.dhis.scheduling.JobProgress;
 import org.hisp.dhis.system.util.Clock;
 
 /**
@@ -47,6 +48,15 @@ public abstract class DataSynchronizationWithPaging
 
     public abstract SynchronizationResult synchronizeData( final int pageSize );
 
+    /**
+     * Synchronizes data and reports the progress of the synchronization to
+     * the given {@link JobProgress}. By default the progress is not reported.
+     */
+    public SynchronizationResult synchronizeData( final int pageSize, JobProgress progress )
+    {
+        return synchronizeData( pageSize );
+    }
+
     protected void runSyncWithPaging( int pageSize )
     {
         syncResult = true;
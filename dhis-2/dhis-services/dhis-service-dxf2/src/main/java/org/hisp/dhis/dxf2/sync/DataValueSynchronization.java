@@ -29,29 +29,46 @@ package org.hisp.dhis.dxf2.sync;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.Calendar;
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicReference;
 
 import lombok.extern.slf4j.Slf4j;
 
+import org.apache.commons.lang3.time.DateUtils;
 import org.hisp.dhis.common.IdSchemes;
 import org.hisp.dhis.datavalue.DataValueService;
+import org.hisp.dhis.dxf2.datavalueset.DataValueKey;
 import org.hisp.dhis.dxf2.datavalueset.DataValueSetService;
+import org.hisp.dhis.scheduling.JobProgress;
+import org.hisp.dhis.scheduling.NoopJobProgress;
 import org.hisp.dhis.setting.SettingKey;
 import org.hisp.dhis.setting.SystemSettingManager;
 import org.hisp.dhis.system.util.Clock;
-import org.hisp.dhis.system.util.CodecUtils;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RequestCallback;
 import org.springframework.web.client.RestTemplate;
 
 /**
+ * Synchronizes data values which changed since the last successful
+ * synchronization. The data values of a run are bounded by the time the run
+ * started and are paged by their {@link DataValueKey}. A checkpoint with the
+ * key of the last synchronized data value is kept after every page, so that a
+ * failed or cancelled run is resumed after the last page which was
+ * synchronized.
+ *
  * @author David Katuscak <katuscak.d@gmail.com>
  */
 @Slf4j
 @Component
-public class DataValueSynchronization extends DataSynchronizationWithPaging
+public class DataValueSynchronization extends PipelinedDataSynchronizationWithPaging<DataValueKey>
 {
+    /**
+     * Maximum number of pages prepared ahead of the page being sent.
+     */
+    private static final int MAX_PREPARED_PAGES = 2;
+
+    private static final String CHECKPOINT_SEPARATOR = ";";
+
     private final DataValueService dataValueService;
 
     private final DataValueSetService dataValueSetService;
@@ -62,6 +79,12 @@ public class DataValueSynchronization extends DataSynchronizationWithPaging
 
     private Date lastUpdatedAfter;
 
+    private Date lastUpdatedBefore;
+
+    private int firstPage;
+
+    private DataValueKey firstKey;
+
     public DataValueSynchronization( DataValueService dataValueService, DataValueSetService dataValueSetService,
         SystemSettingManager systemSettingManager, RestTemplate restTemplate )
     {
@@ -78,6 +101,12 @@ public class DataValueSynchronization extends DataSynchronizationWithPaging
 
     @Override
     public SynchronizationResult synchronizeData( final int pageSize )
+    {
+        return synchronizeData( pageSize, NoopJobProgress.INSTANCE );
+    }
+
+    @Override
+    public SynchronizationResult synchronizeData( final int pageSize, JobProgress progress )
     {
         if ( !SyncUtils.testServerAvailability( systemSettingManager, restTemplate ).isAvailable() )
         {
@@ -96,17 +125,24 @@ public class DataValueSynchronization extends DataSynchronizationWithPaging
                 .newSuccessResultWithMessage( "Skipping synchronization, no new or updated DataValues" );
         }
 
-        runSyncWithPaging( pageSize );
+        progress.startingStage( "Synchronizing " + objectsToSynchronize + " data values",
+            Math.max( 0, pages - firstPage + 1 ) );
+
+        runPipelinedSyncWithPaging( firstPage, firstKey, pageSize, MAX_PREPARED_PAGES, progress );
 
         if ( syncResult )
         {
             clock.logTime( "SUCCESS! DataValueSynchronization job is done. It took" );
             SyncUtils.setLastSyncSuccess( systemSettingManager, SettingKey.LAST_SUCCESSFUL_DATA_VALUE_SYNC,
-                new Date( clock.getStartTime() ) );
+                lastUpdatedBefore );
+            systemSettingManager.deleteSystemSetting( SettingKey.DATA_VALUE_SYNC_CHECKPOINT );
+            progress.completedStage( String.format( "%d data values synchronized in %d ms",
+                objectsToSynchronize, clock.getTime() ) );
             return SynchronizationResult
                 .newSuccessResultWithMessage( "DataValueSynchronization done. It took " + clock.getTime() + " ms." );
         }
 
+        progress.failedStage( "DataValueSynchronization failed, next run resumes from the last synchronized page" );
         return SynchronizationResult.newFailureResultWithMessage( "DataValueSynchronization failed." );
     }
 
@@ -119,7 +155,10 @@ public class DataValueSynchronization extends DataSynchronizationWithPaging
             .getDateSetting( SettingKey.SKIP_SYNCHRONIZATION_FOR_DATA_CHANGED_BEFORE );
         lastUpdatedAfter = lastSuccessTime.after( skipChangedBefore ) ? lastSuccessTime : skipChangedBefore;
 
-        objectsToSynchronize = dataValueService.getDataValueCountLastUpdatedAfter( lastUpdatedAfter, true );
+        initializeCheckpoint( pageSize );
+
+        objectsToSynchronize = dataValueService.getDataValueCountLastUpdatedBetween( lastUpdatedAfter,
+            lastUpdatedBefore, true );
 
         log.info( "DataValues last changed before " + skipChangedBefore + " will not be synchronized." );
 
@@ -137,28 +176,59 @@ public class DataValueSynchronization extends DataSynchronizationWithPaging
         }
     }
 
-    protected void synchronizePage( int page, int pageSize )
+    /**
+     * Resumes the run of the stored checkpoint if it covers the same data
+     * values with the same page size, otherwise starts a new run which covers
+     * the data values changed before the start of this run.
+     */
+    private void initializeCheckpoint( final int pageSize )
     {
-        log.info( String.format( "Synchronizing page %d with page size %d", page, pageSize ) );
+        final String checkpoint = systemSettingManager.getStringSetting( SettingKey.DATA_VALUE_SYNC_CHECKPOINT );
+        final String[] values = checkpoint != null ? checkpoint.split( CHECKPOINT_SEPARATOR ) : new String[0];
 
-        if ( !sendSyncRequest( pageSize, page ) )
+        if ( values.length == 5 && Long.parseLong( values[0] ) == lastUpdatedAfter.getTime()
+            && Integer.parseInt( values[2] ) == pageSize )
         {
-            syncResult = false;
+            lastUpdatedBefore = new Date( Long.parseLong( values[1] ) );
+            firstPage = Integer.parseInt( values[3] ) + 1;
+            firstKey = DataValueKey.fromKeyString( values[4] );
+
+            log.info( "Resuming DataValueSynchronization at page " + firstPage );
         }
+        else
+        {
+            lastUpdatedBefore = DateUtils.truncate( new Date( clock.getStartTime() ), Calendar.SECOND );
+            firstPage = 1;
+            firstKey = null;
+        }
+    }
+
+    @Override
+    protected PreparedPage<DataValueKey> preparePage( DataValueKey after, int pageSize )
+    {
+        AtomicReference<DataValueKey> lastKey = new AtomicReference<>();
+
+        byte[] payload = SyncUtils.compress( out -> lastKey.set( dataValueSetService.writeDataValueSetJson(
+            lastUpdatedAfter, lastUpdatedBefore, out, new IdSchemes(), pageSize, after ) ) );
+
+        return new PreparedPage<>( payload, lastKey.get() );
     }
 
-    private boolean sendSyncRequest( int syncPageSize, int page )
+    @Override
+    protected boolean sendPage( int page, byte[] payload )
     {
-        final RequestCallback requestCallback = request -> {
-            request.getHeaders().setContentType( MediaType.APPLICATION_JSON );
-            request.getHeaders().add( SyncUtils.HEADER_AUTHORIZATION,
-                CodecUtils.getBasicAuthString( instance.getUsername(), instance.getPassword() ) );
+        log.info( String.format( "Synchronizing page %d of %d", page, pages ) );
 
-            dataValueSetService.writeDataValueSetJson( lastUpdatedAfter, request.getBody(), new IdSchemes(),
-                syncPageSize, page );
-        };
+        return SyncUtils.sendSyncRequest( systemSettingManager, restTemplate,
+            SyncUtils.getCompressedJsonRequestCallback( payload, instance ), instance, SyncEndpoint.DATA_VALUE_SETS );
+    }
 
-        return SyncUtils.sendSyncRequest( systemSettingManager, restTemplate, requestCallback, instance,
-            SyncEndpoint.DATA_VALUE_SETS );
+    @Override
+    protected void pageSynchronized( int page, int pageSize, DataValueKey lastKey )
+    {
+        systemSettingManager.saveSystemSetting( SettingKey.DATA_VALUE_SYNC_CHECKPOINT,
+            String.join( CHECKPOINT_SEPARATOR, String.valueOf( lastUpdatedAfter.getTime() ),
+                String.valueOf( lastUpdatedBefore.getTime() ), String.valueOf( pageSize ), String.valueOf( page ),
+                lastKey.toKeyString() ) );
     }
 }
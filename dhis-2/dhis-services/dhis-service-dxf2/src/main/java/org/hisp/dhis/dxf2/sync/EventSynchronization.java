@@ -45,10 +45,7 @@ import org.hisp.dhis.render.RenderService;
 import org.hisp.dhis.setting.SettingKey;
 import org.hisp.dhis.setting.SystemSettingManager;
 import org.hisp.dhis.system.util.Clock;
-import org.hisp.dhis.system.util.CodecUtils;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RequestCallback;
 import org.springframework.web.client.RestTemplate;
 
 /**
@@ -184,14 +181,9 @@ public class EventSynchronization extends DataSynchronizationWithPaging
 
     private boolean sendSyncRequest( Events events )
     {
-        final RequestCallback requestCallback = request -> {
-            request.getHeaders().setContentType( MediaType.APPLICATION_JSON );
-            request.getHeaders().add( SyncUtils.HEADER_AUTHORIZATION,
-                CodecUtils.getBasicAuthString( instance.getUsername(), instance.getPassword() ) );
-            renderService.toJson( request.getBody(), events );
-        };
-
-        return SyncUtils.sendSyncRequest( systemSettingManager, restTemplate, requestCallback, instance,
-            SyncEndpoint.EVENTS );
+        final byte[] payload = SyncUtils.compress( out -> renderService.toJson( out, events ) );
+
+        return SyncUtils.sendSyncRequest( systemSettingManager, restTemplate,
+            SyncUtils.getCompressedJsonRequestCallback( payload, instance ), instance, SyncEndpoint.EVENTS );
     }
 }
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.dxf2.sync;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import org.hisp.dhis.scheduling.JobProgress;
+
+/**
+ * A {@link DataSynchronizationWithPaging} which synchronizes its pages as a
+ * pipeline. A background thread prepares the payloads of the upcoming pages
+ * while the current page is sent, so that reading and serializing data does
+ * not wait for the remote server and vice versa.
+ *
+ * Pages are selected by keyset pagination. A page starts after the key of the
+ * last object of the previous page, so objects which leave the synchronized
+ * range while the synchronization is running do not shift the following
+ * pages.
+ *
+ * @param <K> the type of the key of the synchronized objects
+ */
+@Slf4j
+public abstract class PipelinedDataSynchronizationWithPaging<K> extends DataSynchronizationWithPaging
+{
+    /**
+     * A page prepared to be sent to the remote server.
+     */
+    @Value
+    protected static class PreparedPage<K>
+    {
+        /**
+         * The compressed payload of the page.
+         */
+        byte[] payload;
+
+        /**
+         * The key of the last object in the page, or null if the page is
+         * empty.
+         */
+        K lastKey;
+
+        boolean isEmpty()
+        {
+            return lastKey == null;
+        }
+    }
+
+    /**
+     * Synchronizes the pages from {@code firstPage} up to {@link #pages}. At
+     * most {@code maxPreparedPages} upcoming pages are prepared while the
+     * current page is sent. Pages are sent one at a time and in order, and
+     * {@link #pageSynchronized(int, int, Object)} is called for every page
+     * accepted by the remote server. Synchronization stops at the first
+     * failed page, at the first empty page or when cancellation of the job is
+     * requested.
+     *
+     * @param firstPage the number of the first page
+     * @param firstKey the key after which the first page starts, or null to
+     *        start with the first object
+     * @param pageSize the maximum number of objects in a page
+     * @param maxPreparedPages the maximum number of pages prepared ahead
+     * @param progress the progress of the job
+     */
+    protected void runPipelinedSyncWithPaging( int firstPage, K firstKey, int pageSize, int maxPreparedPages,
+        JobProgress progress )
+    {
+        syncResult = true;
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Deque<Future<PreparedPage<K>>> preparedPages = new ArrayDeque<>();
+        Future<PreparedPage<K>> lastPreparedPage = null;
+        int nextPage = firstPage;
+
+        try
+        {
+            for ( int page = firstPage; page <= pages; page++ )
+            {
+                while ( nextPage <= pages && preparedPages.size() < maxPreparedPages )
+                {
+                    final Future<PreparedPage<K>> previousPage = lastPreparedPage;
+                    lastPreparedPage = executor.submit( () -> prepareNextPage( previousPage, firstKey, pageSize ) );
+                    preparedPages.add( lastPreparedPage );
+                    nextPage++;
+                }
+
+                if ( progress.isCancellationRequested() )
+                {
+                    log.info( String.format( "Synchronization cancelled before page %d", page ) );
+                    syncResult = false;
+                    return;
+                }
+
+                progress.startingWorkItem( String.format( "Page %d of %d", page, pages ) );
+                long startTime = System.currentTimeMillis();
+
+                PreparedPage<K> preparedPage = preparedPages.poll().get();
+
+                if ( preparedPage.isEmpty() )
+                {
+                    progress.completedWorkItem( "No objects left to synchronize" );
+                    return;
+                }
+
+                if ( !sendPage( page, preparedPage.getPayload() ) )
+                {
+                    progress.failedWorkItem( String.format( "Page %d was not accepted by the remote server", page ) );
+                    syncResult = false;
+                    return;
+                }
+
+                long time = Math.max( 1, System.currentTimeMillis() - startTime );
+                int objects = Math.min( pageSize, objectsToSynchronize - (page - 1) * pageSize );
+                progress.completedWorkItem( String.format( "%d objects, %d kB compressed, %d objects/s",
+                    objects, preparedPage.getPayload().length / 1024, objects * 1000L / time ) );
+
+                pageSynchronized( page, pageSize, preparedPage.getLastKey() );
+            }
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+            syncResult = false;
+        }
+        catch ( ExecutionException ex )
+        {
+            log.error( "Preparing synchronization page failed", ex.getCause() );
+            progress.failedWorkItem( ex );
+            syncResult = false;
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Prepares the page following the given previous page. Pages are prepared
+     * one at a time on the background thread, so the previous page is
+     * already prepared when this is called.
+     */
+    private PreparedPage<K> prepareNextPage( Future<PreparedPage<K>> previousPage, K firstKey, int pageSize )
+        throws InterruptedException,
+        ExecutionException
+    {
+        if ( previousPage == null )
+        {
+            return preparePage( firstKey, pageSize );
+        }
+
+        PreparedPage<K> previous = previousPage.get();
+
+        return previous.isEmpty() ? previous : preparePage( previous.getLastKey(), pageSize );
+    }
+
+    /**
+     * Produces the payload of the page which starts after the given key.
+     * Called on a background thread.
+     *
+     * @param after the key of the last object of the previous page, or null
+     *        for the first page
+     * @param pageSize the maximum number of objects in the page
+     * @return the prepared page
+     */
+    protected abstract PreparedPage<K> preparePage( K after, int pageSize );
+
+    /**
+     * Sends the prepared payload of the given page to the remote server.
+     *
+     * @return true if the remote server accepted the page, false otherwise
+     */
+    protected abstract boolean sendPage( int page, byte[] payload );
+
+    /**
+     * Called after the given page has been accepted by the remote server.
+     *
+     * @param lastKey the key of the last object of the page
+     */
+    protected abstract void pageSynchronized( int page, int pageSize, K lastKey );
+
+    @Override
+    protected final void runSyncWithPaging( int pageSize )
+    {
+        throw new IllegalStateException(
+            "Method runSyncWithPaging(int pageSize) is not supported by pipelined synchronization" );
+    }
+
+    @Override
+    protected final void synchronizePage( int page, int pageSize )
+    {
+        throw new IllegalStateException(
+            "Method synchronizePage(int page, int pageSize) is not supported by pipelined synchronization" );
+    }
+}
@@ -29,8 +29,13 @@ package org.hisp.dhis.dxf2.sync;
 
 import static org.apache.commons.lang3.StringUtils.isEmpty;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.Date;
 import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -51,6 +56,7 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
@@ -109,6 +115,49 @@ public class SyncUtils
         return false;
     }
 
+    /**
+     * Writes a payload as gzip compressed bytes. The import endpoints detect
+     * compressed request bodies, and keeping the compressed payload in memory
+     * allows retries to send it again without producing it again.
+     *
+     * @param writer writes the uncompressed payload
+     * @return the compressed payload
+     */
+    static byte[] compress( PayloadWriter writer )
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try ( GZIPOutputStream out = new GZIPOutputStream( bytes ) )
+        {
+            writer.write( out );
+        }
+        catch ( IOException ex )
+        {
+            throw new UncheckedIOException( ex );
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Creates a request callback which sends the given gzip compressed JSON
+     * payload to the remote instance.
+     *
+     * @param payload the compressed payload, see {@link #compress}
+     * @param instance SystemInstance of remote system
+     * @return the request callback
+     */
+    static RequestCallback getCompressedJsonRequestCallback( byte[] payload, SystemInstance instance )
+    {
+        return request -> {
+            request.getHeaders().setContentType( MediaType.APPLICATION_JSON );
+            request.getHeaders().add( HEADER_AUTHORIZATION,
+                CodecUtils.getBasicAuthString( instance.getUsername(), instance.getPassword() ) );
+
+            request.getBody().write( payload );
+        };
+    }
+
     public static Optional<AbstractWebMessageResponse> runSyncRequest( RestTemplate restTemplate,
         RequestCallback requestCallback, Class<? extends AbstractWebMessageResponse> klass, String syncUrl,
         int maxSyncAttempts )
@@ -496,4 +545,11 @@ public class SyncUtils
 
         return systemInstance;
     }
+
+    @FunctionalInterface
+    interface PayloadWriter
+    {
+        void write( OutputStream out )
+            throws IOException;
+    }
 }
@@ -87,7 +87,7 @@ public class DataSynchronizationJob extends SynchronizationJob
     {
         DataSynchronizationJobParameters jobParameters = (DataSynchronizationJobParameters) jobConfiguration
             .getJobParameters();
-        dataValueSynchronization.synchronizeData( jobParameters.getPageSize() );
+        dataValueSynchronization.synchronizeData( jobParameters.getPageSize(), progress );
         notifier.notify( jobConfiguration, "Data value sync successful" );
 
         completenessSynchronization.synchronizeData();
@@ -31,10 +31,13 @@ import static java.util.Collections.singleton;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
 
 import org.hisp.dhis.IntegrationTestBase;
 import org.hisp.dhis.attribute.Attribute;
@@ -71,6 +74,7 @@ import org.hisp.dhis.user.User;
 import org.hisp.dhis.user.UserService;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Sets;
@@ -114,6 +118,9 @@ public class DataValueSetServiceExportTest
     @Autowired
     private ObjectMapper jsonMapper;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private DataElement deA;
 
     private DataElement deB;
@@ -583,6 +590,38 @@ public class DataValueSetServiceExportTest
         assertEquals( 14, dvs.getDataValues().size() );
     }
 
+    @Test
+    public void testExportLastUpdatedPagesAreNotShiftedByUpdates()
+        throws IOException
+    {
+        Date lastUpdated = getDate( 1970, 1, 1 );
+        Date lastUpdatedBefore = new Date( System.currentTimeMillis() + 60_000L );
+        Set<String> exported = new HashSet<>();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataValueKey key = dataValueSetService.writeDataValueSetJson( lastUpdated, lastUpdatedBefore, out,
+            new IdSchemes(), 5, null );
+        addDataValueKeys( out, exported );
+
+        // The last data value of the first page is updated while the export is
+        // in progress, so it leaves the exported range
+
+        jdbcTemplate.update( "update datavalue set lastupdated = ? where dataelementid = ? and periodid = ? " +
+            "and sourceid = ? and categoryoptioncomboid = ? and attributeoptioncomboid = ?",
+            new Date( lastUpdatedBefore.getTime() + 60_000L ), key.getDataElementId(), key.getPeriodId(),
+            key.getSourceId(), key.getCategoryOptionComboId(), key.getAttributeOptionComboId() );
+
+        while ( key != null )
+        {
+            out = new ByteArrayOutputStream();
+            key = dataValueSetService.writeDataValueSetJson( lastUpdated, lastUpdatedBefore, out, new IdSchemes(),
+                5, key );
+            addDataValueKeys( out, exported );
+        }
+
+        assertEquals( 12, exported.size() );
+    }
+
     @Test
     public void testMissingDataSetElementGroup()
     {
@@ -706,4 +745,19 @@ public class DataValueSetServiceExportTest
             ErrorCode.E2012 );
     }
 
+    /**
+     * Adds the keys of the data values written to the given stream, and
+     * asserts that no data value is exported twice.
+     */
+    private void addDataValueKeys( ByteArrayOutputStream out, Set<String> keys )
+        throws IOException
+    {
+        DataValueSet dvs = jsonMapper.readValue( out.toByteArray(), DataValueSet.class );
+
+        for ( org.hisp.dhis.dxf2.datavalue.DataValue dv : dvs.getDataValues() )
+        {
+            assertTrue( keys.add( dv.getDataElement() + dv.getPeriod() + dv.getOrgUnit() +
+                dv.getCategoryOptionCombo() + dv.getAttributeOptionCombo() ) );
+        }
+    }
 }
@@ -66,6 +66,7 @@ import org.hisp.dhis.dataset.DataSet;
 import org.hisp.dhis.dataset.DataSetService;
 import org.hisp.dhis.datavalue.DataValue;
 import org.hisp.dhis.datavalue.DataValueAudit;
+import org.hisp.dhis.datavalue.DataValueService;
 import org.hisp.dhis.dxf2.common.ImportOptions;
 import org.hisp.dhis.dxf2.importsummary.ImportConflict;
 import org.hisp.dhis.dxf2.importsummary.ImportConflicts;
@@ -127,6 +128,9 @@ public class DataValueSetServiceTest extends TransactionalIntegrationTest
     @Autowired
     private DataValueSetService dataValueSetServiceNoMocks;
 
+    @Autowired
+    private DataValueService dataValueService;
+
     @Autowired
     private CompleteDataSetRegistrationService registrationService;
 
@@ -1093,6 +1097,34 @@ public class DataValueSetServiceTest extends TransactionalIntegrationTest
         assertEquals( "Updates to unchanged data value did not skip audit", 0, auditValues.size() );
     }
 
+    @Test
+    public void testImportDataValuesBatchExistingCheck()
+        throws Exception
+    {
+        dataValueService.addDataValue( new DataValue( deA, peA, ouA, ocDef, ocDef, "10000" ) );
+        dbmsManager.flushSession();
+
+        in = new ClassPathResource( "datavalueset/dataValueSetA.xml" ).getInputStream();
+
+        ImportOptions importOptions = new ImportOptions().setBatchExistingCheck( true );
+
+        ImportSummary summary = dataValueSetService.saveDataValueSet( in, importOptions );
+
+        assertNotNull( summary );
+        assertEquals( ImportStatus.SUCCESS, summary.getStatus() );
+        assertHasNoConflicts( summary );
+        assertEquals( 2, summary.getImportCount().getImported() );
+        assertEquals( 1, summary.getImportCount().getUpdated() );
+
+        List<DataValue> inserts = mockDataValueBatchHandler.getInserts();
+        List<DataValue> updates = mockDataValueBatchHandler.getUpdates();
+
+        assertEquals( 2, inserts.size() );
+        assertEquals( 1, updates.size() );
+        assertEquals( new DataValue( deA, peA, ouA, ocDef, ocDef ), updates.get( 0 ) );
+        assertEquals( "10001", updates.get( 0 ).getValue() );
+    }
+
     @Test
     public void testImportNullDataValues()
         throws Exception
@@ -28,12 +28,17 @@
 package org.hisp.dhis.dxf2.events.event;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.sql.DataSource;
 
@@ -45,6 +50,7 @@ import org.hisp.dhis.user.CurrentUserService;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
@@ -108,6 +114,55 @@ public class JdbcEventStoreTest
         verify( rowSet, times( 4 ) ).getString( "psi_eventdatavalues" );
     }
 
+    @Test
+    public void shouldStreamEventsInKeysetPages()
+    {
+        SqlRowSet firstPage = mockEventRowSet( "EventUid001", "EventUid002" );
+        SqlRowSet secondPage = mockEventRowSet( "EventUid002" );
+        SqlRowSet lastPage = mockEventRowSet();
+        when( jdbcTemplate.queryForRowSet( anyString() ) ).thenReturn( firstPage, secondPage, lastPage );
+
+        List<String> events = new ArrayList<>();
+        subject.streamEvents( new EventSearchParams(), new ArrayList<>(),
+            page -> page.forEach( e -> events.add( e.getEvent() ) ) );
+
+        // the last event of the first page is held back and streamed from
+        // the second page, as its rows may be split across pages
+        assertThat( events, contains( "EventUid001", "EventUid002" ) );
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass( String.class );
+        verify( jdbcTemplate, times( 3 ) ).queryForRowSet( sql.capture() );
+
+        assertThat( sql.getAllValues().get( 0 ), not( containsString( "psi.programstageinstanceid) >" ) ) );
+        assertThat( sql.getAllValues().get( 1 ),
+            containsString( "(psi.lastupdated, psi.programstageinstanceid) > ('2021-01-01 10:00:00.123', 1)" ) );
+        assertThat( sql.getAllValues().get( 2 ),
+            containsString( "(psi.lastupdated, psi.programstageinstanceid) > ('2021-01-01 10:00:00.123', 2)" ) );
+    }
+
+    private SqlRowSet mockEventRowSet( String... uids )
+    {
+        SqlRowSet eventRowSet = mock( SqlRowSet.class );
+        AtomicInteger row = new AtomicInteger( -1 );
+
+        when( eventRowSet.next() ).thenAnswer( invocation -> row.incrementAndGet() < uids.length );
+        when( eventRowSet.getString( "psi_uid" ) ).thenAnswer( invocation -> uids[row.get()] );
+        when( eventRowSet.getLong( "psi_id" ) )
+            .thenAnswer( invocation -> Long.parseLong( uids[row.get()].substring( 8 ) ) );
+        when( eventRowSet.getTimestamp( "psi_lastupdated" ) )
+            .thenReturn( Timestamp.valueOf( "2021-01-01 10:00:00.123" ) );
+
+        when( eventRowSet.getString( "p_identifier" ) ).thenReturn( "PrgUID00001" );
+        when( eventRowSet.getString( "ps_identifier" ) ).thenReturn( "PsUID000001" );
+        when( eventRowSet.getString( "ou_identifier" ) ).thenReturn( "OuUID000001" );
+        when( eventRowSet.getString( "coc_identifier" ) ).thenReturn( "CocUID00001" );
+        when( eventRowSet.getString( "deco_uid" ) ).thenReturn( "DecoUID0001" );
+        when( eventRowSet.getString( "psi_status" ) ).thenReturn( "ACTIVE" );
+        when( eventRowSet.getString( "p_type" ) ).thenReturn( "without_registration" );
+
+        return eventRowSet;
+    }
+
     private void mockRowSet()
     {
         // Simulate 3 rows
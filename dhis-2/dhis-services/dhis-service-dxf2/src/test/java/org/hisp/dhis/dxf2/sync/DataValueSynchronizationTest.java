@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.dxf2.sync;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Timestamp;
+import java.util.Date;
+
+import org.hisp.dhis.common.IdSchemes;
+import org.hisp.dhis.datavalue.DataValueService;
+import org.hisp.dhis.dxf2.datavalueset.DataValueKey;
+import org.hisp.dhis.dxf2.datavalueset.DataValueSetService;
+import org.hisp.dhis.dxf2.importsummary.ImportStatus;
+import org.hisp.dhis.dxf2.importsummary.ImportSummary;
+import org.hisp.dhis.scheduling.JobProgress;
+import org.hisp.dhis.setting.SettingKey;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseExtractor;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Tests the checkpoints of {@link DataValueSynchronization}.
+ */
+public class DataValueSynchronizationTest
+{
+    private static final int PAGE_SIZE = 2;
+
+    private static final Date LAST_SUCCESS = new Date( 1_600_000_000_000L );
+
+    private static final DataValueKey KEY_A = new DataValueKey( java.sql.Date.valueOf( "2021-01-01" ),
+        Timestamp.valueOf( "2021-02-03 10:11:12.123456" ), 1L, 2L, 3L, 4L, 5L );
+
+    private static final DataValueKey KEY_B = new DataValueKey( java.sql.Date.valueOf( "2021-02-01" ),
+        Timestamp.valueOf( "2021-02-03 10:11:12.5" ), 1L, 6L, 3L, 4L, 5L );
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private DataValueService dataValueService;
+
+    @Mock
+    private DataValueSetService dataValueSetService;
+
+    @Mock
+    private SystemSettingManager systemSettingManager;
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    @Mock
+    private JobProgress progress;
+
+    private DataValueSynchronization subject;
+
+    @Before
+    @SuppressWarnings( "unchecked" )
+    public void setUp()
+    {
+        when( systemSettingManager.getStringSetting( SettingKey.REMOTE_INSTANCE_URL ) )
+            .thenReturn( "https://remote" );
+        when( systemSettingManager.getStringSetting( SettingKey.REMOTE_INSTANCE_USERNAME ) ).thenReturn( "admin" );
+        when( systemSettingManager.getStringSetting( SettingKey.REMOTE_INSTANCE_PASSWORD ) ).thenReturn( "district" );
+        when( systemSettingManager.getDateSetting( SettingKey.LAST_SUCCESSFUL_DATA_VALUE_SYNC ) )
+            .thenReturn( LAST_SUCCESS );
+        when( systemSettingManager.getDateSetting( SettingKey.SKIP_SYNCHRONIZATION_FOR_DATA_CHANGED_BEFORE ) )
+            .thenReturn( new Date( 0L ) );
+        when( restTemplate.exchange( anyString(), eq( HttpMethod.GET ), any( HttpEntity.class ), eq( String.class ) ) )
+            .thenReturn( new ResponseEntity<>( HttpStatus.OK ) );
+        when( dataValueService.getDataValueCountLastUpdatedBetween( eq( LAST_SUCCESS ), any( Date.class ),
+            eq( true ) ) ).thenReturn( 4 );
+
+        when( dataValueSetService.writeDataValueSetJson( any( Date.class ), any( Date.class ), any(),
+            any( IdSchemes.class ), eq( PAGE_SIZE ), isNull() ) ).thenReturn( KEY_A );
+        when( dataValueSetService.writeDataValueSetJson( any( Date.class ), any( Date.class ), any(),
+            any( IdSchemes.class ), eq( PAGE_SIZE ), eq( KEY_A ) ) ).thenReturn( KEY_B );
+
+        subject = new DataValueSynchronization( dataValueService, dataValueSetService, systemSettingManager,
+            restTemplate );
+    }
+
+    @Test
+    public void testCheckpointIsSavedAfterEveryPage()
+    {
+        givenRemoteResponses( ImportStatus.SUCCESS, ImportStatus.SUCCESS );
+
+        assertEquals( SynchronizationStatus.SUCCESS, subject.synchronizeData( PAGE_SIZE ).status );
+
+        ArgumentCaptor<String> checkpoints = ArgumentCaptor.forClass( String.class );
+        verify( systemSettingManager, times( 2 ) )
+            .saveSystemSetting( eq( SettingKey.DATA_VALUE_SYNC_CHECKPOINT ), checkpoints.capture() );
+
+        assertTrue( checkpoints.getAllValues().get( 0 ).endsWith( ";2;1;" + KEY_A.toKeyString() ) );
+        assertTrue( checkpoints.getAllValues().get( 1 ).endsWith( ";2;2;" + KEY_B.toKeyString() ) );
+        verify( systemSettingManager ).deleteSystemSetting( SettingKey.DATA_VALUE_SYNC_CHECKPOINT );
+    }
+
+    @Test
+    public void testFailedRunIsResumedAfterCheckpoint()
+    {
+        givenRemoteResponses( ImportStatus.SUCCESS, ImportStatus.ERROR );
+
+        assertEquals( SynchronizationStatus.FAILURE, subject.synchronizeData( PAGE_SIZE ).status );
+
+        ArgumentCaptor<String> checkpoint = ArgumentCaptor.forClass( String.class );
+        verify( systemSettingManager ).saveSystemSetting( eq( SettingKey.DATA_VALUE_SYNC_CHECKPOINT ),
+            checkpoint.capture() );
+        verify( systemSettingManager, never() ).deleteSystemSetting( SettingKey.DATA_VALUE_SYNC_CHECKPOINT );
+
+        ArgumentCaptor<Date> firstRunBefore = ArgumentCaptor.forClass( Date.class );
+        verify( dataValueSetService ).writeDataValueSetJson( eq( LAST_SUCCESS ), firstRunBefore.capture(), any(),
+            any( IdSchemes.class ), eq( PAGE_SIZE ), isNull() );
+
+        when( systemSettingManager.getStringSetting( SettingKey.DATA_VALUE_SYNC_CHECKPOINT ) )
+            .thenReturn( checkpoint.getValue() );
+        givenRemoteResponses( ImportStatus.SUCCESS );
+
+        assertEquals( SynchronizationStatus.SUCCESS, subject.synchronizeData( PAGE_SIZE ).status );
+
+        // the page after the checkpoint is prepared once per run, the first
+        // page is not prepared again
+        verify( dataValueSetService ).writeDataValueSetJson( any( Date.class ), any( Date.class ), any(),
+            any( IdSchemes.class ), anyInt(), isNull() );
+        verify( dataValueSetService, times( 2 ) ).writeDataValueSetJson(
+            eq( LAST_SUCCESS ), eq( firstRunBefore.getValue() ), any(), any( IdSchemes.class ), eq( PAGE_SIZE ),
+            eq( KEY_A ) );
+        verify( systemSettingManager ).saveSystemSetting( SettingKey.LAST_SUCCESSFUL_DATA_VALUE_SYNC,
+            firstRunBefore.getValue() );
+        verify( systemSettingManager ).deleteSystemSetting( SettingKey.DATA_VALUE_SYNC_CHECKPOINT );
+    }
+
+    @Test
+    public void testCheckpointWithDifferentPageSizeIsIgnored()
+    {
+        Date checkpointBefore = new Date( LAST_SUCCESS.getTime() + 1000L );
+
+        when( systemSettingManager.getStringSetting( SettingKey.DATA_VALUE_SYNC_CHECKPOINT ) )
+            .thenReturn( String.join( ";", String.valueOf( LAST_SUCCESS.getTime() ),
+                String.valueOf( checkpointBefore.getTime() ), String.valueOf( PAGE_SIZE + 1 ), "1",
+                KEY_A.toKeyString() ) );
+        givenRemoteResponses( ImportStatus.SUCCESS, ImportStatus.SUCCESS );
+
+        assertEquals( SynchronizationStatus.SUCCESS, subject.synchronizeData( PAGE_SIZE ).status );
+
+        ArgumentCaptor<Date> before = ArgumentCaptor.forClass( Date.class );
+        verify( dataValueSetService ).writeDataValueSetJson( eq( LAST_SUCCESS ), before.capture(), any(),
+            any( IdSchemes.class ), eq( PAGE_SIZE ), isNull() );
+        assertNotEquals( checkpointBefore, before.getValue() );
+    }
+
+    @Test
+    @SuppressWarnings( "unchecked" )
+    public void testStopsWhenCancelled()
+    {
+        when( progress.isCancellationRequested() ).thenReturn( true );
+
+        SynchronizationResult result = subject.synchronizeData( PAGE_SIZE, progress );
+
+        assertEquals( SynchronizationStatus.FAILURE, result.status );
+        verify( restTemplate, never() ).execute( anyString(), eq( HttpMethod.POST ), any( RequestCallback.class ),
+            any( ResponseExtractor.class ) );
+        verify( systemSettingManager, never() ).saveSystemSetting( eq( SettingKey.DATA_VALUE_SYNC_CHECKPOINT ),
+            any() );
+        verify( systemSettingManager, never() ).deleteSystemSetting( SettingKey.DATA_VALUE_SYNC_CHECKPOINT );
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private void givenRemoteResponses( ImportStatus first, ImportStatus... others )
+    {
+        ImportSummary[] summaries = new ImportSummary[others.length];
+
+        for ( int i = 0; i < others.length; i++ )
+        {
+            summaries[i] = new ImportSummary( others[i] );
+        }
+
+        when( restTemplate.execute( anyString(), eq( HttpMethod.POST ), any( RequestCallback.class ),
+            any( ResponseExtractor.class ) ) ).thenReturn( new ImportSummary( first ), summaries );
+    }
+}
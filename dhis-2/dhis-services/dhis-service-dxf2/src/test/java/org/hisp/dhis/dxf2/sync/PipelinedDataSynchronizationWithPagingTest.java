@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.dxf2.sync;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.hisp.dhis.scheduling.JobProgress;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+/**
+ * Tests the pipeline of {@link PipelinedDataSynchronizationWithPaging} with
+ * pages of consecutive numbers, where each number is its own key.
+ */
+public class PipelinedDataSynchronizationWithPagingTest
+{
+    private static final int MAX_PREPARED_PAGES = 2;
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private JobProgress progress;
+
+    @Test
+    public void testPagesAreSentInOrder()
+    {
+        NumberSynchronization sync = new NumberSynchronization( 10, 3 );
+
+        sync.run( 1, null );
+
+        assertTrue( sync.syncResult );
+        assertEquals( asList( "1,2,3", "4,5,6", "7,8,9", "10" ), sync.sentPages );
+        assertEquals( asList( "1:3", "2:6", "3:9", "4:10" ), sync.checkpoints );
+    }
+
+    @Test
+    public void testPagesArePreparedAheadUpToLimit()
+    {
+        NumberSynchronization sync = new NumberSynchronization( 10, 1 );
+
+        sync.run( 1, null );
+
+        assertTrue( sync.syncResult );
+        assertEquals( 10, sync.sentPages.size() );
+
+        for ( int i = 0; i < sync.preparedWhenSent.size(); i++ )
+        {
+            assertTrue( sync.preparedWhenSent.get( i ) <= i + MAX_PREPARED_PAGES );
+        }
+    }
+
+    @Test
+    public void testStopsAtFailedPage()
+    {
+        NumberSynchronization sync = new NumberSynchronization( 10, 3 );
+        sync.failingPage = 2;
+
+        sync.run( 1, null );
+
+        assertFalse( sync.syncResult );
+        assertEquals( asList( "1,2,3", "4,5,6" ), sync.sentPages );
+        assertEquals( Collections.singletonList( "1:3" ), sync.checkpoints );
+        verify( progress ).failedWorkItem( anyString() );
+    }
+
+    @Test
+    public void testStopsWhenCancelled()
+    {
+        when( progress.isCancellationRequested() ).thenReturn( false, true );
+
+        NumberSynchronization sync = new NumberSynchronization( 10, 3 );
+
+        sync.run( 1, null );
+
+        assertFalse( sync.syncResult );
+        assertEquals( Collections.singletonList( "1,2,3" ), sync.sentPages );
+        assertEquals( Collections.singletonList( "1:3" ), sync.checkpoints );
+    }
+
+    @Test
+    public void testResumesAfterFirstKey()
+    {
+        NumberSynchronization sync = new NumberSynchronization( 10, 3 );
+
+        sync.run( 3, 6 );
+
+        assertTrue( sync.syncResult );
+        assertEquals( asList( "7,8,9", "10" ), sync.sentPages );
+        assertEquals( asList( "3:9", "4:10" ), sync.checkpoints );
+    }
+
+    @Test
+    public void testStopsAtEmptyPage()
+    {
+        NumberSynchronization sync = new NumberSynchronization( 10, 3 );
+        sync.numbers = 5;
+
+        sync.run( 1, null );
+
+        assertTrue( sync.syncResult );
+        assertEquals( asList( "1,2,3", "4,5" ), sync.sentPages );
+        verify( progress, never() ).failedWorkItem( anyString() );
+    }
+
+    private class NumberSynchronization extends PipelinedDataSynchronizationWithPaging<Integer>
+    {
+        private final int pageSize;
+
+        private int numbers;
+
+        private int failingPage = -1;
+
+        private final List<Integer> preparedPages = Collections.synchronizedList( new ArrayList<>() );
+
+        private final List<Integer> preparedWhenSent = new ArrayList<>();
+
+        private final List<String> sentPages = new ArrayList<>();
+
+        private final List<String> checkpoints = new ArrayList<>();
+
+        NumberSynchronization( int numbers, int pageSize )
+        {
+            this.numbers = numbers;
+            this.pageSize = pageSize;
+            this.objectsToSynchronize = numbers;
+            this.pages = (numbers + pageSize - 1) / pageSize;
+        }
+
+        void run( int firstPage, Integer firstKey )
+        {
+            runPipelinedSyncWithPaging( firstPage, firstKey, pageSize, MAX_PREPARED_PAGES, progress );
+        }
+
+        @Override
+        public SynchronizationResult synchronizeData( int pageSize )
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected PreparedPage<Integer> preparePage( Integer after, int pageSize )
+        {
+            int first = after == null ? 1 : after + 1;
+            int last = Math.min( numbers, first + pageSize - 1 );
+
+            preparedPages.add( first );
+
+            String page = IntStream.rangeClosed( first, last ).mapToObj( String::valueOf )
+                .collect( Collectors.joining( "," ) );
+
+            return new PreparedPage<>( page.getBytes( StandardCharsets.UTF_8 ), first <= last ? last : null );
+        }
+
+        @Override
+        protected boolean sendPage( int page, byte[] payload )
+        {
+            preparedWhenSent.add( preparedPages.size() );
+            sentPages.add( new String( payload, StandardCharsets.UTF_8 ) );
+
+            return page != failingPage;
+        }
+
+        @Override
+        protected void pageSynchronized( int page, int pageSize, Integer lastKey )
+        {
+            checkpoints.add( page + ":" + lastKey );
+        }
+    }
+}
@@ -30,6 +30,12 @@ package org.hisp.dhis.dxf2.sync;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.IOUtils;
 import org.hisp.dhis.DhisSpringTest;
 import org.hisp.dhis.dxf2.synch.SystemInstance;
 import org.hisp.dhis.setting.SettingKey;
@@ -78,4 +84,18 @@ public class SyncUtilsTest extends DhisSpringTest
             SyncEndpoint.EVENTS );
         assertThat( systemInstance.getUrl(), is( EVENTS_URL_WITH_SYNC_STRATEGY ) );
     }
+
+    @Test
+    public void compressTest()
+        throws IOException
+    {
+        String json = "{\"dataValues\":[]}";
+
+        byte[] payload = SyncUtils.compress( out -> out.write( json.getBytes( StandardCharsets.UTF_8 ) ) );
+
+        try ( GZIPInputStream in = new GZIPInputStream( new ByteArrayInputStream( payload ) ) )
+        {
+            assertThat( IOUtils.toString( in, StandardCharsets.UTF_8 ), is( json ) );
+        }
+    }
 }
@@ -64,6 +64,7 @@ import org.hisp.dhis.node.NodeTransformer;
 import org.hisp.dhis.node.Preset;
 import org.hisp.dhis.node.types.CollectionNode;
 import org.hisp.dhis.node.types.ComplexNode;
+import org.hisp.dhis.node.types.LazyCollectionNode;
 import org.hisp.dhis.node.types.SimpleNode;
 import org.hisp.dhis.period.PeriodType;
 import org.hisp.dhis.preheat.Preheat;
@@ -193,13 +194,59 @@ public class DefaultFieldFilterService implements FieldFilterService
     @Override
     public CollectionNode toCollectionNode( Class<?> wrapper, FieldFilterParams params )
     {
-        String fields = params.getFields() == null ? "" : Joiner.on( "," ).join( params.getFields() );
-
         Schema rootSchema = schemaService.getDynamicSchema( wrapper );
 
         CollectionNode collectionNode = new CollectionNode( rootSchema.getCollectionName() );
         collectionNode.setNamespace( rootSchema.getNamespace() );
 
+        FieldMap fieldMap = getFieldMap( params );
+
+        if ( fieldMap == null )
+        {
+            return collectionNode;
+        }
+
+        params.getObjects().forEach( object -> {
+            AbstractNode node = buildNode( fieldMap, wrapper, object, params.getUser(), params.getDefaults() );
+
+            if ( node != null )
+            {
+                collectionNode.addChild( node );
+            }
+        } );
+
+        return collectionNode;
+    }
+
+    @Override
+    public CollectionNode toLazyCollectionNode( Class<?> wrapper, FieldFilterParams params )
+    {
+        Schema rootSchema = schemaService.getDynamicSchema( wrapper );
+
+        FieldMap fieldMap = getFieldMap( params );
+
+        List<?> objects = fieldMap == null ? Collections.emptyList()
+            : params.getObjects().stream()
+                .filter( object -> !shouldExclude( object, params.getDefaults() ) )
+                .collect( Collectors.toList() );
+
+        CollectionNode collectionNode = new LazyCollectionNode( rootSchema.getCollectionName(), objects,
+            object -> buildNode( fieldMap, wrapper, object, params.getUser(), params.getDefaults() ) );
+        collectionNode.setNamespace( rootSchema.getNamespace() );
+
+        return collectionNode;
+    }
+
+    /**
+     * Parses the fields of the given parameters and sets the current user if
+     * no user is given.
+     *
+     * @return the field map, or null if there are no objects
+     */
+    private FieldMap getFieldMap( FieldFilterParams params )
+    {
+        String fields = params.getFields() == null ? "" : Joiner.on( "," ).join( params.getFields() );
+
         List<?> objects = params.getObjects();
 
         if ( params.getSkipSharing() )
@@ -215,9 +262,9 @@ public class DefaultFieldFilterService implements FieldFilterService
                 .collect( Collectors.joining( "," ) );
         }
 
-        if ( params.getObjects().isEmpty() || objects.stream().allMatch( Objects::isNull ) )
+        if ( objects.isEmpty() || objects.stream().allMatch( Objects::isNull ) )
         {
-            return collectionNode;
+            return null;
         }
 
         FieldMap fieldMap = new FieldMap();
@@ -235,23 +282,12 @@ public class DefaultFieldFilterService implements FieldFilterService
             fieldMap = fieldParser.parse( fields );
         }
 
-        final FieldMap finalFieldMap = fieldMap;
-
         if ( params.getUser() == null )
         {
             params.setUser( currentUserService.getCurrentUser() );
         }
 
-        objects.forEach( object -> {
-            AbstractNode node = buildNode( finalFieldMap, wrapper, object, params.getUser(), params.getDefaults() );
-
-            if ( node != null )
-            {
-                collectionNode.addChild( node );
-            }
-        } );
-
-        return collectionNode;
+        return fieldMap;
     }
 
     @Override
@@ -51,6 +51,14 @@ public interface FieldFilterService
      */
     CollectionNode toCollectionNode( Class<?> wrapper, FieldFilterParams params );
 
+    /**
+     * Perform inclusion/exclusion on a list of objects like
+     * {@link #toCollectionNode(Class, FieldFilterParams)}, but create the node
+     * of each object only while the collection is serialized. The returned
+     * collection is meant to be serialized and not to be modified.
+     */
+    CollectionNode toLazyCollectionNode( Class<?> wrapper, FieldFilterParams params );
+
     /**
      * This method will build and return a CollectionNode based on the given
      * parameters. This method works with POJO/DTO without nested objects. It's
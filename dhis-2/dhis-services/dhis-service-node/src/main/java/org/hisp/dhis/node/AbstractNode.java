@@ -133,6 +133,15 @@ public abstract class AbstractNode implements Node
         this.parent = parent;
     }
 
+    /**
+     * Makes this node the parent of the given child without adding the child
+     * to the children of this node.
+     */
+    protected void adoptChild( Node child )
+    {
+        ((AbstractNode) child).setParent( this );
+    }
+
     @Override
     public boolean is( NodeType type )
     {
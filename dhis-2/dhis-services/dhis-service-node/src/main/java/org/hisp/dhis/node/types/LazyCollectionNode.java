@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.node.types;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.hisp.dhis.node.Node;
+
+/**
+ * Collection node which creates the nodes of its children from a list of
+ * objects each time the children are accessed, and does not keep them. This
+ * allows serializing large collections without holding the nodes of all
+ * objects in memory at the same time. The node factory must create a node for
+ * every object, and children can not be added.
+ *
+ * @deprecated No new usage of this class and its children should happen, we
+ *             should instead directly use Jackson ObjectMappers or Jackson
+ *             object factory if we need dynamically created objects.
+ */
+@Deprecated
+public class LazyCollectionNode extends CollectionNode
+{
+    private final List<Node> lazyChildren;
+
+    public <T> LazyCollectionNode( String name, List<T> objects, Function<T, ? extends Node> nodeFactory )
+    {
+        super( name );
+
+        this.lazyChildren = new AbstractList<Node>()
+        {
+            @Override
+            public Node get( int index )
+            {
+                Node child = nodeFactory.apply( objects.get( index ) );
+                adoptChild( child );
+
+                return child;
+            }
+
+            @Override
+            public int size()
+            {
+                return objects.size();
+            }
+        };
+    }
+
+    @Override
+    public <T extends Node> T addChild( T child )
+    {
+        throw new UnsupportedOperationException( "Children of a lazy collection node are created from its objects" );
+    }
+
+    @Override
+    public List<Node> getUnorderedChildren()
+    {
+        return lazyChildren;
+    }
+
+    @Override
+    public List<Node> getChildren()
+    {
+        return lazyChildren;
+    }
+}
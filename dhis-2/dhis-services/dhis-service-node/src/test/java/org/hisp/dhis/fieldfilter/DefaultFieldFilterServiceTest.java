@@ -326,6 +326,48 @@ public class DefaultFieldFilterServiceTest
         assertThat( ouNames, Matchers.containsInAnyOrder( "Test 1", "Test 2" ) );
     }
 
+    @Test
+    public void lazyCollectionNode()
+    {
+        final CategoryOption co1 = new CategoryOption();
+        co1.setUid( "abc1" );
+        co1.setName( "Option 1" );
+
+        final CategoryOption co2 = new CategoryOption();
+        co2.setUid( "abc2" );
+        co2.setName( "default" );
+
+        final CategoryOption co3 = new CategoryOption();
+        co3.setUid( "abc3" );
+        co3.setName( "Option 3" );
+
+        final FieldFilterParams params = new FieldFilterParams( Arrays.asList( co1, co2, co3 ),
+            Arrays.asList( "id", "name" ) );
+        params.setDefaults( Defaults.EXCLUDE );
+
+        final CollectionNode eager = service.toCollectionNode( CategoryOption.class, params );
+        final CollectionNode lazy = service.toLazyCollectionNode( CategoryOption.class, params );
+
+        Assert.assertEquals( eager.getName(), lazy.getName() );
+        Assert.assertEquals( eager.getNamespace(), lazy.getNamespace() );
+        Assert.assertEquals( eager.getChildren().size(), lazy.getChildren().size() );
+
+        for ( int i = 0; i < lazy.getChildren().size(); i++ )
+        {
+            final Node eagerChild = eager.getChildren().get( i );
+            final Node lazyChild = lazy.getChildren().get( i );
+
+            Assert.assertSame( lazy, lazyChild.getParent() );
+            Assert.assertEquals( eagerChild.getName(), lazyChild.getName() );
+
+            for ( String field : Arrays.asList( "id", "name" ) )
+            {
+                Assert.assertEquals( ((SimpleNode) getNamedNode( eagerChild.getUnorderedChildren(), field )).getValue(),
+                    ((SimpleNode) getNamedNode( lazyChild.getUnorderedChildren(), field )).getValue() );
+            }
+        }
+    }
+
     private Node getNamedNode( @Nonnull Collection<? extends Node> nodes, @Nonnull String name )
     {
         return nodes.stream().filter( n -> name.equals( n.getName() ) ).findFirst().orElse( null );
@@ -44,6 +44,7 @@ import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -257,9 +258,9 @@ public class DefaultPredictionService
         log.info( "Running " + predictorList.size() + " predictors from " + startDate.toString() + " to "
             + endDate.toString() );
 
-        for ( Predictor predictor : predictorList )
+        for ( List<Predictor> fetchGroup : getFetchGroups( predictorList ) )
         {
-            predict( predictor, startDate, endDate, predictionSummary );
+            predict( fetchGroup, startDate, endDate, predictionSummary );
         }
 
         log.info( "Finished predictors from " + startDate.toString() + " to " + endDate.toString() + ": "
@@ -271,64 +272,27 @@ public class DefaultPredictionService
     @Override
     public void predict( Predictor predictor, Date startDate, Date endDate, PredictionSummary predictionSummary )
     {
-        Expression generator = predictor.getGenerator();
-        Expression skipTest = predictor.getSampleSkipTest();
-        DataElement outputDataElement = predictor.getOutput();
-        DataType expressionDataType = DataType.fromValueType( outputDataElement.getValueType() );
-
-        Map<DimensionalItemId, DimensionalItemObject> outputPeriodItemMap = new HashMap<>();
-        Map<DimensionalItemId, DimensionalItemObject> sampledItemMap = new HashMap<>();
-        expressionService.getExpressionDimensionalItemMaps( generator.getExpression(),
-            PREDICTOR_EXPRESSION, expressionDataType, outputPeriodItemMap, sampledItemMap );
-        Set<String> orgUnitGroupIds = expressionService.getExpressionOrgUnitGroupIds( generator.getExpression(),
-            PREDICTOR_EXPRESSION );
-        if ( skipTest != null )
-        {
-            expressionService.getExpressionDimensionalItemMaps( skipTest.getExpression(),
-                PREDICTOR_SKIP_TEST, DataType.BOOLEAN, sampledItemMap, sampledItemMap );
-            orgUnitGroupIds.addAll( expressionService.getExpressionOrgUnitGroupIds(
-                skipTest.getExpression(), PREDICTOR_SKIP_TEST ) );
-        }
-        Map<String, OrganisationUnitGroup> orgUnitGroupMap = orgUnitGroupIds.stream()
-            .map( organisationUnitGroupService::getOrganisationUnitGroup )
-            .filter( Objects::nonNull )
-            .collect( Collectors.toMap( OrganisationUnitGroup::getUid, g -> g ) );
-        Map<DimensionalItemId, DimensionalItemObject> itemMap = new HashMap<>( outputPeriodItemMap );
-        itemMap.putAll( sampledItemMap );
-        Set<DimensionalItemObject> outputPeriodItems = new HashSet<>( outputPeriodItemMap.values() );
-        Set<DimensionalItemObject> sampledItems = new HashSet<>( sampledItemMap.values() );
-        Set<DimensionalItemObject> items = new HashSet<>( itemMap.values() );
-        Map<String, Constant> constantMap = constantService.getConstantMap();
-        List<Period> outputPeriods = getPeriodsBetweenDates( predictor.getPeriodType(), startDate, endDate );
-        Set<Period> existingOutputPeriods = getExistingPeriods( outputPeriods );
-        ListMap<Period, Period> samplePeriodsMap = getSamplePeriodsMap( outputPeriods, predictor );
-        Set<Period> allSamplePeriods = samplePeriodsMap.uniqueValues();
-        Set<Period> existingSamplePeriods = getExistingPeriods( new ArrayList<>( allSamplePeriods ) );
-        outputPeriods = periodService.reloadPeriods( outputPeriods );
-        Set<Period> outputPeriodSet = new HashSet<>( outputPeriods );
-        CategoryOptionCombo defaultCategoryOptionCombo = categoryService.getDefaultCategoryOptionCombo();
-        CategoryOptionCombo outputOptionCombo = predictor.getOutputCombo() == null
-            ? defaultCategoryOptionCombo
-            : predictor.getOutputCombo();
-        CachingMap<String, CategoryOptionCombo> cocMap = new CachingMap<>();
-        Date now = new Date();
-
-        Set<Period> queryPeriods = getPeriodsFrom( sampledItems, allSamplePeriods, outputPeriodItems, outputPeriods );
-        Set<Period> existingQueryPeriods = getPeriodsFrom( sampledItems, existingSamplePeriods, outputPeriodItems,
-            existingOutputPeriods );
-
-        boolean requireData = generator.getMissingValueStrategy() != NEVER_SKIP && (!items.isEmpty());
-        DimensionalItemObject forwardReference = getForwardReference( outputDataElement, outputOptionCombo, items );
-        Set<DataElementOperand> predictionDeoSet = Sets.newHashSet(
-            new DataElementOperand( outputDataElement, outputOptionCombo ) );
-
-        Set<DataElement> dataElements = new HashSet<>();
-        Set<DataElementOperand> dataElementOperands = new HashSet<>();
-        Set<DimensionalItemObject> analyticsAttributeOptionItems = new HashSet<>();
-        Set<DimensionalItemObject> analyticsNonAttributeOptionItems = new HashSet<>();
-        categorizeItems( items, dataElements, dataElementOperands,
-            analyticsAttributeOptionItems, analyticsNonAttributeOptionItems );
+        predict( Lists.newArrayList( predictor ), startDate, endDate, predictionSummary );
+    }
 
+    /**
+     * Runs a group of predictors which share their data value fetches. For
+     * each organisation unit level, the datavalue table is read once for all
+     * the predictors in the group that predict at that level, and each
+     * organisation unit is then predicted for each of these predictors.
+     * <p>
+     * The predictors must have the same period type, and must not read or
+     * write data elements written by another predictor in the group (see
+     * {@link #getFetchGroups(List)}).
+     *
+     * @param predictors the predictors to run.
+     * @param startDate the start date of the predictor run.
+     * @param endDate the end date of the predictor run.
+     * @param predictionSummary the prediction summary to add to.
+     */
+    private void predict( List<Predictor> predictors, Date startDate, Date endDate,
+        PredictionSummary predictionSummary )
+    {
         Set<OrganisationUnit> currentUserOrgUnits = new HashSet<>();
         String storedBy = "system-process";
         User currentUser = currentUserService.getCurrentUser();
@@ -339,114 +303,366 @@ public class DefaultPredictionService
             storedBy = currentUser.getUsername();
         }
 
+        Map<String, Constant> constantMap = constantService.getConstantMap();
+        CategoryOptionCombo defaultCategoryOptionCombo = categoryService.getDefaultCategoryOptionCombo();
+        Date now = new Date();
+
+        List<PredictorContext> contexts = new ArrayList<>();
+
+        for ( Predictor predictor : predictors )
+        {
+            contexts.add( getPredictorContext( predictor, startDate, endDate, constantMap,
+                defaultCategoryOptionCombo ) );
+        }
+
+        // All predictors in the group have the same period type, so they have
+        // the same output periods.
+
+        Set<Period> existingOutputPeriods = contexts.get( 0 ).existingOutputPeriods;
+        Set<Period> outputPeriodSet = new HashSet<>( contexts.get( 0 ).outputPeriods );
+
         PredictionDataValueFetcher oldPredictionFetcher = new PredictionDataValueFetcher(
             dataValueService, categoryService ).setIncludeDeleted( true );
         PredictionDataValueFetcher dataValueFetcher = new PredictionDataValueFetcher(
             dataValueService, categoryService ).setIncludeChildren( true );
-        PredictionAnalyticsDataFetcher analyticsFetcher = new PredictionAnalyticsDataFetcher( analyticsService );
         PredictionWriter predictionWriter = new PredictionWriter( dataValueService, batchHandlerFactory );
 
         predictionWriter.init( existingOutputPeriods, predictionSummary );
 
-        predictionSummary.incrementPredictors();
+        contexts.forEach( c -> predictionSummary.incrementPredictors() );
 
         // Do separate predictor processing for each organisation unit level
         // selected. This is because at each level, predictions might be based
         // on data aggregated from all descendant org units. So to prevent
         // confusion, data for different levels are fetched independently.
 
-        for ( OrganisationUnitLevel orgUnitLevel : predictor.getOrganisationUnitLevels() )
+        Set<OrganisationUnitLevel> orgUnitLevels = new LinkedHashSet<>();
+        predictors.forEach( p -> orgUnitLevels.addAll( p.getOrganisationUnitLevels() ) );
+
+        for ( OrganisationUnitLevel orgUnitLevel : orgUnitLevels )
         {
+            List<PredictorContext> levelContexts = contexts.stream()
+                .filter( c -> c.predictor.getOrganisationUnitLevels().contains( orgUnitLevel ) )
+                .collect( Collectors.toList() );
+
             List<OrganisationUnit> orgUnits = new ArrayList<>( organisationUnitService
                 .getOrganisationUnitsAtOrgUnitLevels( Lists.newArrayList( orgUnitLevel ), currentUserOrgUnits ) );
 
             orgUnits.sort( Comparator.comparing( OrganisationUnit::getPath ) );
 
+            Set<DataElement> outputDataElements = new HashSet<>();
+            Set<DataElementOperand> predictionDeoSet = new HashSet<>();
+            Set<Period> existingQueryPeriods = new HashSet<>();
+            Set<DataElement> dataElements = new HashSet<>();
+            Set<DataElementOperand> dataElementOperands = new HashSet<>();
+
+            for ( PredictorContext c : levelContexts )
+            {
+                outputDataElements.add( c.outputDataElement );
+                predictionDeoSet.add( new DataElementOperand( c.outputDataElement, c.outputOptionCombo ) );
+                existingQueryPeriods.addAll( c.existingQueryPeriods );
+                dataElements.addAll( c.dataElements );
+                dataElementOperands.addAll( c.dataElementOperands );
+
+                c.analyticsFetcher.init( orgUnits, c.queryPeriods, c.analyticsAttributeOptionItems,
+                    c.analyticsNonAttributeOptionItems );
+            }
+
             oldPredictionFetcher.init( currentUserOrgUnits, orgUnitLevel.getLevel(), orgUnits,
-                outputPeriodSet, Sets.newHashSet( outputDataElement ), predictionDeoSet );
+                outputPeriodSet, outputDataElements, predictionDeoSet );
 
             dataValueFetcher.init( currentUserOrgUnits, orgUnitLevel.getLevel(), orgUnits,
                 existingQueryPeriods, dataElements, dataElementOperands );
 
-            analyticsFetcher.init( orgUnits, queryPeriods, analyticsAttributeOptionItems,
-                analyticsNonAttributeOptionItems );
-
             for ( OrganisationUnit orgUnit : orgUnits )
             {
-                MapMap<Period, DimensionalItemObject, Object> nonAocData = analyticsFetcher.getNonAocData( orgUnit );
+                List<DataValue> dataValues = dataValueFetcher.getDataValues( orgUnit );
 
-                MapMapMap<String, Period, DimensionalItemObject, Object> aocData = analyticsFetcher
-                    .getAocData( orgUnit );
+                List<DataValue> oldPredictions = oldPredictionFetcher.getDataValues( orgUnit );
 
-                List<DataValue> dataValues = dataValueFetcher.getDataValues( orgUnit );
+                for ( PredictorContext c : levelContexts )
+                {
+                    List<DataValue> predictions = predictOrgUnit( c, orgUnit, dataValues, defaultCategoryOptionCombo,
+                        storedBy, now );
+
+                    predictionWriter.write( predictions, oldPredictions.stream()
+                        .filter( dv -> dv.getDataElement().equals( c.outputDataElement ) )
+                        .collect( Collectors.toList() ) );
+                }
+            }
+        }
+        predictionWriter.flush();
+    }
+
+    /**
+     * Prepares everything needed to run a predictor, apart from the data.
+     *
+     * @param predictor the predictor.
+     * @param startDate the start date of the predictor run.
+     * @param endDate the end date of the predictor run.
+     * @param constantMap the constants.
+     * @param defaultCategoryOptionCombo system default category option combo.
+     * @return the predictor context.
+     */
+    private PredictorContext getPredictorContext( Predictor predictor, Date startDate, Date endDate,
+        Map<String, Constant> constantMap, CategoryOptionCombo defaultCategoryOptionCombo )
+    {
+        PredictorContext c = new PredictorContext();
+
+        c.predictor = predictor;
+        c.generator = predictor.getGenerator();
+        c.skipTest = predictor.getSampleSkipTest();
+        c.outputDataElement = predictor.getOutput();
+        c.expressionDataType = DataType.fromValueType( c.outputDataElement.getValueType() );
+        c.constantMap = constantMap;
+
+        Map<DimensionalItemId, DimensionalItemObject> outputPeriodItemMap = new HashMap<>();
+        Map<DimensionalItemId, DimensionalItemObject> sampledItemMap = new HashMap<>();
+        getItemMaps( predictor, c.expressionDataType, outputPeriodItemMap, sampledItemMap );
+        Set<String> orgUnitGroupIds = expressionService.getExpressionOrgUnitGroupIds(
+            c.generator.getExpression(), PREDICTOR_EXPRESSION );
+        if ( c.skipTest != null )
+        {
+            orgUnitGroupIds.addAll( expressionService.getExpressionOrgUnitGroupIds(
+                c.skipTest.getExpression(), PREDICTOR_SKIP_TEST ) );
+        }
+        c.orgUnitGroupMap = orgUnitGroupIds.stream()
+            .map( organisationUnitGroupService::getOrganisationUnitGroup )
+            .filter( Objects::nonNull )
+            .collect( Collectors.toMap( OrganisationUnitGroup::getUid, g -> g ) );
+        c.itemMap = new HashMap<>( outputPeriodItemMap );
+        c.itemMap.putAll( sampledItemMap );
+        c.outputPeriodItems = new HashSet<>( outputPeriodItemMap.values() );
+        c.sampledItems = new HashSet<>( sampledItemMap.values() );
+        c.items = new HashSet<>( c.itemMap.values() );
+        List<Period> outputPeriods = getPeriodsBetweenDates( predictor.getPeriodType(), startDate, endDate );
+        c.existingOutputPeriods = getExistingPeriods( outputPeriods );
+        c.samplePeriodsMap = getSamplePeriodsMap( outputPeriods, predictor );
+        c.allSamplePeriods = c.samplePeriodsMap.uniqueValues();
+        Set<Period> existingSamplePeriods = getExistingPeriods( new ArrayList<>( c.allSamplePeriods ) );
+        c.outputPeriods = periodService.reloadPeriods( outputPeriods );
+        c.outputOptionCombo = predictor.getOutputCombo() == null
+            ? defaultCategoryOptionCombo
+            : predictor.getOutputCombo();
+        c.cocMap = new CachingMap<>();
+
+        c.queryPeriods = getPeriodsFrom( c.sampledItems, c.allSamplePeriods, c.outputPeriodItems, c.outputPeriods );
+        c.existingQueryPeriods = getPeriodsFrom( c.sampledItems, existingSamplePeriods, c.outputPeriodItems,
+            c.existingOutputPeriods );
+
+        c.requireData = c.generator.getMissingValueStrategy() != NEVER_SKIP && (!c.items.isEmpty());
+        c.forwardReference = getForwardReference( c.outputDataElement, c.outputOptionCombo, c.items );
+
+        c.dataElements = new HashSet<>();
+        c.dataElementOperands = new HashSet<>();
+        c.analyticsAttributeOptionItems = new HashSet<>();
+        c.analyticsNonAttributeOptionItems = new HashSet<>();
+        categorizeItems( c.items, c.dataElements, c.dataElementOperands,
+            c.analyticsAttributeOptionItems, c.analyticsNonAttributeOptionItems );
+
+        c.analyticsFetcher = new PredictionAnalyticsDataFetcher( analyticsService );
+
+        return c;
+    }
+
+    /**
+     * Makes the predictions of a predictor for one organisation unit.
+     *
+     * @param c the predictor context.
+     * @param orgUnit the organisation unit.
+     * @param dataValues the data values fetched for the organisation unit,
+     *        which may include values needed by other predictors.
+     * @param defaultCategoryOptionCombo system default category option combo.
+     * @param storedBy the user storing the predictions.
+     * @param now the time the predictions are stored.
+     * @return the predicted data values.
+     */
+    private List<DataValue> predictOrgUnit( PredictorContext c, OrganisationUnit orgUnit, List<DataValue> dataValues,
+        CategoryOptionCombo defaultCategoryOptionCombo, String storedBy, Date now )
+    {
+        MapMap<Period, DimensionalItemObject, Object> nonAocData = c.analyticsFetcher.getNonAocData( orgUnit );
+
+        MapMapMap<String, Period, DimensionalItemObject, Object> aocData = c.analyticsFetcher
+            .getAocData( orgUnit );
+
+        addDataValuesToAocData( dataValues.stream()
+            .filter( dv -> c.existingQueryPeriods.contains( dv.getPeriod() ) )
+            .collect( Collectors.toList() ), aocData, c.items );
+
+        Set<String> attributeOptionCombos = getAttributeOptionCombos( aocData, defaultCategoryOptionCombo );
+
+        List<DataValue> predictions = new ArrayList<>();
+
+        // Predict independently for each AOC, adding in the data,
+        // if any, that is stored without an AOC.
+
+        for ( String aoc : attributeOptionCombos )
+        {
+            MapMap<Period, DimensionalItemObject, Object> periodValueMap = firstNonNull( aocData.get( aoc ),
+                new MapMap<>() );
+
+            periodValueMap.putMap( nonAocData );
+
+            Set<Period> skippedPeriods = getSkippedPeriods( c.allSamplePeriods, c.itemMap, periodValueMap,
+                c.skipTest, c.constantMap, c.orgUnitGroupMap, orgUnit );
 
-                addDataValuesToAocData( dataValues, aocData, items );
+            // Predict for each output period.
 
-                Set<String> attributeOptionCombos = getAttributeOptionCombos( aocData, defaultCategoryOptionCombo );
+            for ( Period outputPeriod : c.outputPeriods )
+            {
+                List<Period> samplePeriods = new ArrayList<>( c.samplePeriodsMap.get( outputPeriod ) );
 
-                List<DataValue> predictions = new ArrayList<>();
+                samplePeriods.removeAll( skippedPeriods );
 
-                // Predict independently for each AOC, adding in the data,
-                // if any, that is stored without an AOC.
+                Map<DimensionalItemObject, Object> valueMap = firstNonNull( periodValueMap.get( outputPeriod ),
+                    new HashMap<>() );
 
-                for ( String aoc : attributeOptionCombos )
+                if ( c.requireData && !dataIsPresent( c.outputPeriodItems, valueMap, c.sampledItems, samplePeriods,
+                    periodValueMap ) )
                 {
-                    MapMap<Period, DimensionalItemObject, Object> periodValueMap = firstNonNull( aocData.get( aoc ),
-                        new MapMap<>() );
+                    continue;
+                }
 
-                    periodValueMap.putMap( nonAocData );
+                Object value = expressionService.getExpressionValue( c.generator.getExpression(),
+                    PREDICTOR_EXPRESSION, c.itemMap, valueMap, c.constantMap, null, c.orgUnitGroupMap,
+                    outputPeriod.getDaysInPeriod(), c.generator.getMissingValueStrategy(), orgUnit,
+                    samplePeriods, periodValueMap, c.expressionDataType );
 
-                    Set<Period> skippedPeriods = getSkippedPeriods( allSamplePeriods, itemMap, periodValueMap, skipTest,
-                        constantMap, orgUnitGroupMap, orgUnit );
+                carryPredictionForward( value, outputPeriod, c.forwardReference, periodValueMap );
 
-                    // Predict for each output period.
+                if ( value != null || c.generator.getMissingValueStrategy() == NEVER_SKIP )
+                {
+                    String valueString = formatPrediction( value, c.outputDataElement );
 
-                    for ( Period outputPeriod : outputPeriods )
+                    if ( valueString != null )
                     {
-                        List<Period> samplePeriods = new ArrayList<>( samplePeriodsMap.get( outputPeriod ) );
-
-                        samplePeriods.removeAll( skippedPeriods );
-
-                        Map<DimensionalItemObject, Object> valueMap = firstNonNull( periodValueMap.get( outputPeriod ),
-                            new HashMap<>() );
-
-                        if ( requireData && !dataIsPresent( outputPeriodItems, valueMap, sampledItems, samplePeriods,
-                            periodValueMap ) )
-                        {
-                            continue;
-                        }
-
-                        Object value = expressionService.getExpressionValue( generator.getExpression(),
-                            PREDICTOR_EXPRESSION, itemMap, valueMap, constantMap, null, orgUnitGroupMap,
-                            outputPeriod.getDaysInPeriod(), generator.getMissingValueStrategy(), orgUnit,
-                            samplePeriods, periodValueMap, expressionDataType );
-
-                        carryPredictionForward( value, outputPeriod, forwardReference, periodValueMap );
-
-                        if ( value != null || generator.getMissingValueStrategy() == NEVER_SKIP )
-                        {
-                            String valueString = formatPrediction( value, outputDataElement );
-
-                            if ( valueString != null )
-                            {
-                                predictions.add( new DataValue( outputDataElement,
-                                    outputPeriod, orgUnit, outputOptionCombo,
-                                    cocMap.get( aoc, () -> categoryService.getCategoryOptionCombo( aoc ) ),
-                                    valueString, storedBy, now, null ) );
-                            }
-                        }
+                        predictions.add( new DataValue( c.outputDataElement,
+                            outputPeriod, orgUnit, c.outputOptionCombo,
+                            c.cocMap.get( aoc, () -> categoryService.getCategoryOptionCombo( aoc ) ),
+                            valueString, storedBy, now, null ) );
                     }
                 }
-                predictionWriter.write( predictions, oldPredictionFetcher.getDataValues( orgUnit ) );
             }
         }
-        predictionWriter.flush();
+
+        return predictions;
     }
 
     // -------------------------------------------------------------------------
     // Supportive Methods
     // -------------------------------------------------------------------------
 
+    /**
+     * Splits the predictors to run into groups that can share their data
+     * value fetches. A group is a run of consecutive predictors with the same
+     * period type, where no predictor reads or writes the output data element
+     * of another predictor in the group. This keeps the results the same as
+     * running the predictors one by one, in the order given: a predictor that
+     * uses the output of an earlier predictor starts a new group, so it reads
+     * the values predicted by the earlier one.
+     *
+     * @param predictors the predictors to run, in order.
+     * @return the groups of predictors, in order.
+     */
+    List<List<Predictor>> getFetchGroups( List<Predictor> predictors )
+    {
+        List<List<Predictor>> fetchGroups = new ArrayList<>();
+
+        List<Predictor> group = new ArrayList<>();
+
+        Set<DataElement> groupInputs = new HashSet<>();
+
+        Set<DataElement> groupOutputs = new HashSet<>();
+
+        for ( Predictor predictor : predictors )
+        {
+            Set<DataElement> inputs = getInputDataElements( predictor );
+
+            DataElement output = predictor.getOutput();
+
+            boolean independent = !group.isEmpty()
+                && group.get( 0 ).getPeriodType().equals( predictor.getPeriodType() )
+                && !groupOutputs.contains( output )
+                && !groupInputs.contains( output )
+                && Sets.intersection( inputs, groupOutputs ).isEmpty();
+
+            if ( !independent && !group.isEmpty() )
+            {
+                fetchGroups.add( group );
+                group = new ArrayList<>();
+                groupInputs = new HashSet<>();
+                groupOutputs = new HashSet<>();
+            }
+
+            group.add( predictor );
+            groupInputs.addAll( inputs );
+            groupOutputs.add( output );
+        }
+
+        if ( !group.isEmpty() )
+        {
+            fetchGroups.add( group );
+        }
+
+        return fetchGroups;
+    }
+
+    /**
+     * Gets the data elements whose values a predictor reads, either directly
+     * or through data element operands.
+     *
+     * @param predictor the predictor.
+     * @return the data elements read by the predictor.
+     */
+    private Set<DataElement> getInputDataElements( Predictor predictor )
+    {
+        Map<DimensionalItemId, DimensionalItemObject> outputPeriodItemMap = new HashMap<>();
+        Map<DimensionalItemId, DimensionalItemObject> sampledItemMap = new HashMap<>();
+        getItemMaps( predictor, DataType.fromValueType( predictor.getOutput().getValueType() ),
+            outputPeriodItemMap, sampledItemMap );
+
+        Set<DataElement> dataElements = new HashSet<>();
+
+        for ( DimensionalItemObject item : Sets.union( new HashSet<>( outputPeriodItemMap.values() ),
+            new HashSet<>( sampledItemMap.values() ) ) )
+        {
+            if ( item instanceof DataElement )
+            {
+                dataElements.add( (DataElement) item );
+            }
+            else if ( item instanceof DataElementOperand )
+            {
+                dataElements.add( ((DataElementOperand) item).getDataElement() );
+            }
+        }
+
+        return dataElements;
+    }
+
+    /**
+     * Finds the items in the predictor generator and skip test expressions.
+     *
+     * @param predictor the predictor.
+     * @param expressionDataType the data type of the generator expression.
+     * @param outputPeriodItemMap map to add the output period items to.
+     * @param sampledItemMap map to add the sampled items to.
+     */
+    private void getItemMaps( Predictor predictor, DataType expressionDataType,
+        Map<DimensionalItemId, DimensionalItemObject> outputPeriodItemMap,
+        Map<DimensionalItemId, DimensionalItemObject> sampledItemMap )
+    {
+        expressionService.getExpressionDimensionalItemMaps( predictor.getGenerator().getExpression(),
+            PREDICTOR_EXPRESSION, expressionDataType, outputPeriodItemMap, sampledItemMap );
+
+        Expression skipTest = predictor.getSampleSkipTest();
+
+        if ( skipTest != null )
+        {
+            expressionService.getExpressionDimensionalItemMaps( skipTest.getExpression(),
+                PREDICTOR_SKIP_TEST, DataType.BOOLEAN, sampledItemMap, sampledItemMap );
+        }
+    }
+
     /**
      * Returns a Set of periods. Includes sample periods if there are any sample
      * items, and includes output periods if there are any output items.
@@ -866,4 +1082,62 @@ public class DefaultPredictionService
     {
         return !Sets.intersection( items, valueMap.keySet() ).isEmpty();
     }
+
+    /**
+     * Everything needed to run a predictor, apart from the data.
+     */
+    private static class PredictorContext
+    {
+        private Predictor predictor;
+
+        private Expression generator;
+
+        private Expression skipTest;
+
+        private DataElement outputDataElement;
+
+        private CategoryOptionCombo outputOptionCombo;
+
+        private DataType expressionDataType;
+
+        private Map<String, Constant> constantMap;
+
+        private Map<String, OrganisationUnitGroup> orgUnitGroupMap;
+
+        private Map<DimensionalItemId, DimensionalItemObject> itemMap;
+
+        private Set<DimensionalItemObject> outputPeriodItems;
+
+        private Set<DimensionalItemObject> sampledItems;
+
+        private Set<DimensionalItemObject> items;
+
+        private List<Period> outputPeriods;
+
+        private Set<Period> existingOutputPeriods;
+
+        private ListMap<Period, Period> samplePeriodsMap;
+
+        private Set<Period> allSamplePeriods;
+
+        private Set<Period> queryPeriods;
+
+        private Set<Period> existingQueryPeriods;
+
+        private boolean requireData;
+
+        private DimensionalItemObject forwardReference;
+
+        private Set<DataElement> dataElements;
+
+        private Set<DataElementOperand> dataElementOperands;
+
+        private Set<DimensionalItemObject> analyticsAttributeOptionItems;
+
+        private Set<DimensionalItemObject> analyticsNonAttributeOptionItems;
+
+        private CachingMap<String, CategoryOptionCombo> cocMap;
+
+        private PredictionAnalyticsDataFetcher analyticsFetcher;
+    }
 }
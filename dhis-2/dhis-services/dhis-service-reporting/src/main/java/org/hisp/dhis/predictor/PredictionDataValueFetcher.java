@@ -168,7 +168,7 @@ public class PredictionDataValueFetcher
         orgUnitLookup = orgUnits.stream().collect( Collectors.toMap( OrganisationUnit::getPath, ou -> ou ) );
         dataElementLookup = dataElements.stream().collect( Collectors.toMap( DataElement::getId, de -> de ) );
         dataElementLookup.putAll( dataElementOperands.stream().collect(
-            Collectors.toMap( d -> d.getDataElement().getId(), DataElementOperand::getDataElement ) ) );
+            Collectors.toMap( d -> d.getDataElement().getId(), DataElementOperand::getDataElement, ( a, b ) -> a ) ) );
         periodLookup = periods.stream().collect( Collectors.toMap( Period::getId, p -> p ) );
         cocLookup = new CachingMap<>();
 
@@ -196,7 +196,9 @@ public class DataValidationTask
                             break loop;
                         }
                         validationResults = new HashSet<>();
+                        long start = System.nanoTime();
                         validateRule();
+                        context.addRuleTime( ruleX.getRule(), System.nanoTime() - start );
                         addValidationResultsToContext();
                     }
                 }
@@ -401,7 +403,7 @@ public class DataValidationTask
     {
         if ( validationResults.size() > 0 )
         {
-            context.getValidationResults().addAll( validationResults );
+            context.addValidationResults( validationResults );
         }
     }
 
@@ -69,12 +69,13 @@ import org.hisp.dhis.period.PeriodService;
 import org.hisp.dhis.period.PeriodType;
 import org.hisp.dhis.program.AnalyticsType;
 import org.hisp.dhis.program.ProgramIndicator;
+import org.hisp.dhis.scheduling.JobProgress;
 import org.hisp.dhis.system.util.Clock;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.CurrentUserServiceTarget;
 import org.hisp.dhis.user.User;
 import org.hisp.dhis.validation.notification.ValidationNotificationService;
-import org.springframework.context.ApplicationContext;
+import org.hisp.quick.BatchHandlerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -112,7 +113,9 @@ public class DefaultValidationService
 
     private final ValidationRuleService validationRuleService;
 
-    private final ApplicationContext applicationContext;
+    private final Validator validator;
+
+    private final BatchHandlerFactory batchHandlerFactory;
 
     private final ValidationResultService validationResultService;
 
@@ -124,8 +127,9 @@ public class DefaultValidationService
         ExpressionService expressionService, DimensionService dimensionService, DataValueService dataValueService,
         CategoryService categoryService, ConstantService constantService, IdentifiableObjectManager idObjectManager,
         ValidationNotificationService notificationService, ValidationRuleService validationRuleService,
-        ApplicationContext applicationContext, ValidationResultService validationResultService,
-        AnalyticsService analyticsService, CurrentUserService currentUserService )
+        Validator validator, BatchHandlerFactory batchHandlerFactory,
+        ValidationResultService validationResultService, AnalyticsService analyticsService,
+        CurrentUserService currentUserService )
     {
         checkNotNull( periodService );
         checkNotNull( organisationUnitService );
@@ -137,7 +141,8 @@ public class DefaultValidationService
         checkNotNull( idObjectManager );
         checkNotNull( notificationService );
         checkNotNull( validationRuleService );
-        checkNotNull( applicationContext );
+        checkNotNull( validator );
+        checkNotNull( batchHandlerFactory );
         checkNotNull( validationResultService );
         checkNotNull( analyticsService );
         checkNotNull( currentUserService );
@@ -152,7 +157,8 @@ public class DefaultValidationService
         this.idObjectManager = idObjectManager;
         this.notificationService = notificationService;
         this.validationRuleService = validationRuleService;
-        this.applicationContext = applicationContext;
+        this.validator = validator;
+        this.batchHandlerFactory = batchHandlerFactory;
         this.validationResultService = validationResultService;
         this.analyticsService = analyticsService;
         this.currentUserService = currentUserService;
@@ -176,6 +182,49 @@ public class DefaultValidationService
 
     @Override
     public List<ValidationResult> validationAnalysis( ValidationAnalysisParams parameters )
+    {
+        ValidationRunContext context = runValidationAnalysis( parameters, null, true );
+
+        return new ArrayList<>( context.getValidationResults() );
+    }
+
+    @Override
+    public int validationAnalysis( ValidationAnalysisParams parameters, JobProgress progress )
+    {
+        ValidationRunContext context = runValidationAnalysis( parameters, progress,
+            parameters.isSendNotifications() );
+
+        return context.getValidationResultCount();
+    }
+
+    @Override
+    public ValidationRuleExpressionDetails getValidationRuleExpressionDetails( ValidationAnalysisParams parameters )
+    {
+        ValidationRunContext context = getValidationContext( parameters );
+
+        ValidationRuleExpressionDetails details = new ValidationRuleExpressionDetails();
+
+        context.setValidationRuleExpressionDetails( details );
+
+        validator.validate( context, analyticsService );
+
+        details.sortByName();
+
+        return details;
+    }
+
+    /**
+     * Runs a validation analysis. If results are persisted, they are written
+     * to the database as they are found.
+     *
+     * @param parameters the parameters to base the analysis on.
+     * @param progress the progress tracking of the job running the analysis,
+     *        or null for an interactive analysis.
+     * @param retainResults whether to keep the results in memory.
+     * @return the context of the validation run.
+     */
+    private ValidationRunContext runValidationAnalysis( ValidationAnalysisParams parameters, JobProgress progress,
+        boolean retainResults )
     {
         Clock clock = new Clock( log ).startClock().logTime( "Starting validation analysis"
             + (parameters.getOrgUnit() == null ? ""
@@ -192,39 +241,43 @@ public class DefaultValidationService
 
         ValidationRunContext context = getValidationContext( parameters );
 
-        clock.logTime( "Initialized validation analysis" );
+        context.setRetainResults( retainResults );
 
-        List<ValidationResult> results = Validator.validate( context, applicationContext, analyticsService );
+        ValidationResultWriter writer = null;
 
         if ( context.isPersistResults() )
         {
-            validationResultService.saveValidationResults( context.getValidationResults() );
+            writer = new ValidationResultWriter( validationResultService, batchHandlerFactory );
+            context.setResultSink( writer );
         }
 
-        clock.logTime( "Finished validation analysis, " + context.getValidationResults().size() + " results" ).stop();
+        clock.logTime( "Initialized validation analysis" );
 
-        if ( context.isSendNotifications() )
+        List<ValidationResult> results;
+
+        try
         {
-            notificationService.sendNotifications( Sets.newHashSet( results ) );
+            results = progress == null
+                ? validator.validate( context, analyticsService )
+                : validator.validate( context, analyticsService, progress );
+        }
+        finally
+        {
+            if ( writer != null )
+            {
+                writer.flush();
+            }
         }
 
-        return results;
-    }
-
-    @Override
-    public ValidationRuleExpressionDetails getValidationRuleExpressionDetails( ValidationAnalysisParams parameters )
-    {
-        ValidationRunContext context = getValidationContext( parameters );
-
-        ValidationRuleExpressionDetails details = new ValidationRuleExpressionDetails();
-
-        context.setValidationRuleExpressionDetails( details );
-
-        Validator.validate( context, applicationContext, analyticsService );
+        clock.logTime( "Finished validation analysis, " + context.getValidationResultCount() + " results"
+            + (writer != null ? ", " + writer.getWritten() + " persisted" : "") ).stop();
 
-        details.sortByName();
+        if ( context.isSendNotifications() )
+        {
+            notificationService.sendNotifications( Sets.newHashSet( results ) );
+        }
 
-        return details;
+        return context;
     }
 
     @Override
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.validation;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.hisp.dhis.jdbc.batchhandler.ValidationResultBatchHandler;
+import org.hisp.quick.BatchHandler;
+import org.hisp.quick.BatchHandlerFactory;
+
+/**
+ * Writes validation results to the database as they are found, so that a
+ * validation run does not need to keep all its results in memory until the
+ * end.
+ * <p>
+ * For performance, a BatchHandler is used where possible. Validation tasks
+ * run concurrently, so writes are synchronized.
+ */
+public class ValidationResultWriter
+    implements Consumer<Collection<ValidationResult>>
+{
+    private final ValidationResultService validationResultService;
+
+    private final BatchHandler<ValidationResult> batchHandler;
+
+    private int written = 0;
+
+    public ValidationResultWriter( ValidationResultService validationResultService,
+        BatchHandlerFactory batchHandlerFactory )
+    {
+        checkNotNull( validationResultService );
+        checkNotNull( batchHandlerFactory );
+
+        this.validationResultService = validationResultService;
+        this.batchHandler = batchHandlerFactory.createBatchHandler( ValidationResultBatchHandler.class ).init();
+    }
+
+    /**
+     * Writes new validation results.
+     * <p>
+     * Note: BatchHandler can be used for inserting only when the period
+     * already exists in the database. Results for periods which are not yet
+     * stored are saved through the validationResultService, which adds the
+     * period.
+     *
+     * @param results the new validation results.
+     */
+    @Override
+    public synchronized void accept( Collection<ValidationResult> results )
+    {
+        Date created = new Date();
+
+        List<ValidationResult> unsavedPeriodResults = new ArrayList<>();
+
+        for ( ValidationResult result : results )
+        {
+            if ( result.getPeriod().getId() == 0 )
+            {
+                unsavedPeriodResults.add( result );
+            }
+            else
+            {
+                result.setCreated( created );
+                batchHandler.addObject( result );
+            }
+        }
+
+        if ( !unsavedPeriodResults.isEmpty() )
+        {
+            validationResultService.saveValidationResults( unsavedPeriodResults );
+        }
+
+        written += results.size();
+    }
+
+    public synchronized void flush()
+    {
+        batchHandler.flush();
+    }
+
+    public synchronized int getWritten()
+    {
+        return written;
+    }
+}
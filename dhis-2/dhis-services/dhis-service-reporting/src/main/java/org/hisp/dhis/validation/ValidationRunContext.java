@@ -35,6 +35,9 @@ import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 import org.apache.commons.lang3.Validate;
 import org.hisp.dhis.category.CategoryOption;
@@ -66,6 +69,10 @@ public class ValidationRunContext
 
     private Queue<ValidationResult> validationResults;
 
+    private final AtomicInteger validationResultCount = new AtomicInteger();
+
+    private final Map<ValidationRule, LongAdder> ruleNanos = new ConcurrentHashMap<>();
+
     private List<OrganisationUnit> orgUnits;
 
     private List<PeriodTypeExtended> periodTypeXs;
@@ -107,6 +114,14 @@ public class ValidationRunContext
 
     private ValidationRuleExpressionDetails validationRuleExpressionDetails;
 
+    // -------------------------------------------------------------------------
+    // Streaming of results as they are found
+    // -------------------------------------------------------------------------
+
+    private Consumer<Collection<ValidationResult>> resultSink;
+
+    private boolean retainResults = true;
+
     // -------------------------------------------------------------------------
     // Id-to-Object Caches
     // -------------------------------------------------------------------------
@@ -126,6 +141,24 @@ public class ValidationRunContext
         this.validationRuleExpressionDetails = validationRuleExpressionDetails;
     }
 
+    /**
+     * Sets a sink that receives new validation results as soon as they are
+     * found by a validation task. The sink may be called concurrently.
+     */
+    public void setResultSink( Consumer<Collection<ValidationResult>> resultSink )
+    {
+        this.resultSink = resultSink;
+    }
+
+    /**
+     * Sets whether new validation results are kept in memory. When false, new
+     * results are only handed to the result sink and counted.
+     */
+    public void setRetainResults( boolean retainResults )
+    {
+        this.retainResults = retainResults;
+    }
+
     // -------------------------------------------------------------------------
     // Getter methods
     // -------------------------------------------------------------------------
@@ -241,14 +274,52 @@ public class ValidationRunContext
 
     }
 
-    public int getNumberOfTasks()
+    /**
+     * Adds validation results found by a validation task. The results are
+     * counted towards the maximum number of results, handed to the result
+     * sink if there is one, and kept in memory if results are retained.
+     *
+     * @param results the new validation results.
+     */
+    public void addValidationResults( Collection<ValidationResult> results )
+    {
+        validationResultCount.addAndGet( results.size() );
+
+        if ( resultSink != null )
+        {
+            resultSink.accept( results );
+        }
+
+        if ( retainResults )
+        {
+            validationResults.addAll( results );
+        }
+    }
+
+    public int getValidationResultCount()
+    {
+        return validationResultCount.get();
+    }
+
+    /**
+     * Adds time spent evaluating a validation rule.
+     *
+     * @param rule the validation rule.
+     * @param nanos the time spent, in nanoseconds.
+     */
+    public void addRuleTime( ValidationRule rule, long nanos )
+    {
+        ruleNanos.computeIfAbsent( rule, r -> new LongAdder() ).add( nanos );
+    }
+
+    public Map<ValidationRule, LongAdder> getRuleNanos()
     {
-        return (orgUnits.size() + ORG_UNITS_PER_TASK - 1) / ORG_UNITS_PER_TASK;
+        return ruleNanos;
     }
 
     public boolean isAnalysisComplete()
     {
-        return validationResults.size() >= maxResults;
+        return validationResultCount.get() >= maxResults;
     }
 
     public boolean processExpressionDetails()
@@ -402,6 +473,7 @@ public class ValidationRunContext
         public Builder withInitialResults( Collection<ValidationResult> results )
         {
             this.context.validationResults.addAll( results );
+            this.context.validationResultCount.addAndGet( results.size() );
 
             results.forEach( validationResult -> {
                 List<ValidationResult> res = context.initialValidationResults
@@ -27,73 +27,176 @@
  */
 package org.hisp.dhis.validation;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.stream.Collectors.joining;
+
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
 
 import org.hisp.dhis.analytics.AnalyticsService;
 import org.hisp.dhis.category.CategoryService;
 import org.hisp.dhis.commons.util.SystemUtils;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.scheduling.JobProgress;
+import org.hisp.dhis.scheduling.NoopJobProgress;
 import org.springframework.context.ApplicationContext;
-
-import com.google.common.collect.Lists;
+import org.springframework.stereotype.Component;
 
 /**
  * Evaluates validation rules.
+ * <p>
+ * Validation tasks run on work-stealing pools, so threads are not created and
+ * torn down for each run. Runs of scheduled jobs and interactive runs use
+ * separate pools, so a long running job does not delay validations requested
+ * by users. Runs which fit into a single task are evaluated on the calling
+ * thread.
+ * <p>
+ * Pool threads are reused across runs and do not carry state of the caller:
+ * each {@link ValidationTask} gets everything it needs from the
+ * {@link ValidationRunContext}, does not depend on the current user, and binds
+ * its transaction and session to the pool thread only while it runs.
  *
  * @author Jim Grace
  */
+@Slf4j
+@Component( "org.hisp.dhis.validation.Validator" )
 public class Validator
 {
+    /**
+     * Number of tasks to aim for per worker thread. Having several smaller
+     * tasks per thread lets idle threads take over work from busy ones when
+     * the cost estimates turn out to be uneven.
+     */
+    static final int TASKS_PER_THREAD = 4;
+
+    private static final int SLOWEST_RULES_REPORTED = 5;
+
+    private final ApplicationContext applicationContext;
+
+    private final CategoryService categoryService;
+
+    /**
+     * Pool for validation runs of scheduled jobs.
+     */
+    private final ForkJoinPool jobPool;
+
+    /**
+     * Pool for interactive validation runs.
+     */
+    private final ForkJoinPool requestPool;
+
+    public Validator( ApplicationContext applicationContext, CategoryService categoryService )
+    {
+        checkNotNull( applicationContext );
+        checkNotNull( categoryService );
+
+        this.applicationContext = applicationContext;
+        this.categoryService = categoryService;
+        this.jobPool = newPool( "validation-job-worker-" );
+        this.requestPool = newPool( "validation-request-worker-" );
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        jobPool.shutdownNow();
+        requestPool.shutdownNow();
+    }
+
+    /**
+     * Evaluates validation rules for an interactive request.
+     *
+     * @param context validation run context
+     * @param analyticsService analytics service used by the validation tasks
+     * @return a collection of any validations that were found and retained
+     * @see #validate(ValidationRunContext, AnalyticsService, JobProgress)
+     */
+    public List<ValidationResult> validate( ValidationRunContext context, AnalyticsService analyticsService )
+    {
+        return validate( context, analyticsService, NoopJobProgress.INSTANCE, requestPool );
+    }
+
     /**
      * Evaluates validation rules for a collection of organisation units. This
-     * method breaks the job down by organisation unit. It assigns the
-     * evaluation for each organisation unit to a task that can be evaluated
-     * independently in a multi-threaded environment.
+     * method breaks the job down into tasks of organisation units with roughly
+     * the same estimated cost, where each task can be evaluated independently
+     * in a multi-threaded environment.
      * <p/>
      * Return early with no results if there are no organisation units or no
      * validation rules.
      *
-     * @return a collection of any validations that were found
+     * @param context validation run context
+     * @param analyticsService analytics service used by the validation tasks
+     * @param progress progress tracking of the job, one work item per task
+     * @return a collection of any validations that were found and retained
      */
-    public static List<ValidationResult> validate( ValidationRunContext context,
-        ApplicationContext applicationContext, AnalyticsService analyticsService )
+    public List<ValidationResult> validate( ValidationRunContext context, AnalyticsService analyticsService,
+        JobProgress progress )
     {
-        CategoryService categoryService = applicationContext.getBean( CategoryService.class );
-
-        int threadPoolSize = getThreadPoolSize( context );
+        return validate( context, analyticsService, progress, jobPool );
+    }
 
-        if ( threadPoolSize == 0 || context.getPeriodTypeXs().isEmpty() )
+    private List<ValidationResult> validate( ValidationRunContext context, AnalyticsService analyticsService,
+        JobProgress progress, ForkJoinPool pool )
+    {
+        if ( context.getOrgUnits().isEmpty() || context.getPeriodTypeXs().isEmpty() )
         {
             return new ArrayList<>( context.getValidationResults() );
         }
 
-        ExecutorService executor = Executors.newFixedThreadPool( threadPoolSize );
+        List<List<OrganisationUnit>> orgUnitLists = partitionByCost( context,
+            pool.getParallelism() * TASKS_PER_THREAD );
 
-        List<List<OrganisationUnit>> orgUnitLists = Lists.partition( context.getOrgUnits(),
-            ValidationRunContext.ORG_UNITS_PER_TASK );
+        progress.startingStage( "Validating " + context.getOrgUnits().size() + " organisation units in "
+            + orgUnitLists.size() + " tasks", orgUnitLists.size() );
 
-        for ( List<OrganisationUnit> orgUnits : orgUnitLists )
+        if ( orgUnitLists.size() == 1 )
         {
-            ValidationTask task = (ValidationTask) applicationContext.getBean( DataValidationTask.NAME );
-            task.init( orgUnits, context, analyticsService );
+            runTask( newTask( orgUnitLists.get( 0 ), context, analyticsService ), orgUnitLists.get( 0 ).size(),
+                context, progress );
+        }
+        else
+        {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>( orgUnitLists.size() );
+
+            for ( List<OrganisationUnit> orgUnits : orgUnitLists )
+            {
+                ValidationTask task = newTask( orgUnits, context, analyticsService );
+
+                tasks.add( pool.submit( () -> runTask( task, orgUnits.size(), context, progress ) ) );
+            }
 
-            executor.execute( task );
+            awaitTasks( tasks );
         }
 
-        executor.shutdown();
+        String slowestRules = getSlowestRules( context );
 
-        try
+        log.info( "Validation found " + context.getValidationResultCount() + " results, slowest rules: "
+            + slowestRules );
+
+        if ( progress.isCancellationRequested() )
         {
-            executor.awaitTermination( 6, TimeUnit.HOURS );
+            progress.failedStage( new CancellationException( "cancelled validation" ) );
         }
-        catch ( InterruptedException e )
+        else
         {
-            executor.shutdownNow();
+            progress.completedStage( context.getValidationResultCount() + " results, slowest rules: "
+                + slowestRules );
         }
 
         reloadAttributeOptionCombos( context.getValidationResults(), categoryService );
@@ -101,31 +204,187 @@ public class Validator
         return new ArrayList<>( context.getValidationResults() );
     }
 
+    private ValidationTask newTask( List<OrganisationUnit> orgUnits, ValidationRunContext context,
+        AnalyticsService analyticsService )
+    {
+        ValidationTask task = (ValidationTask) applicationContext.getBean( DataValidationTask.NAME );
+        task.init( orgUnits, context, analyticsService );
+        return task;
+    }
+
     /**
-     * Determines how many threads we should use for testing validation rules.
+     * Partitions the organisation units into lists of roughly equal estimated
+     * cost. The cost of an organisation unit is the number of rule and period
+     * combinations that apply to its level. The order of the organisation
+     * units is kept, so each task fetches data for neighbouring organisation
+     * units, and no task gets more than
+     * {@link ValidationRunContext#ORG_UNITS_PER_TASK} organisation units.
      *
      * @param context validation run context
-     * @return number of threads we should use for testing validation rules
+     * @param targetTasks number of tasks to aim for
+     * @return the organisation unit lists
      */
-    private static int getThreadPoolSize( ValidationRunContext context )
+    static List<List<OrganisationUnit>> partitionByCost( ValidationRunContext context, int targetTasks )
     {
-        int threadPoolSize = SystemUtils.getCpuCores();
+        List<OrganisationUnit> orgUnits = context.getOrgUnits();
 
-        if ( threadPoolSize > 2 )
+        Map<Integer, Long> levelCosts = new HashMap<>();
+
+        long[] costs = new long[orgUnits.size()];
+
+        long totalCost = 0;
+
+        for ( int i = 0; i < orgUnits.size(); i++ )
         {
-            threadPoolSize--;
+            costs[i] = levelCosts.computeIfAbsent( orgUnits.get( i ).getLevel(), level -> getCost( context, level ) );
+            totalCost += costs[i];
         }
 
-        int numberOfTasks = context.getNumberOfTasks();
+        long targetCost = Math.max( 1, (totalCost + targetTasks - 1) / targetTasks );
+
+        List<List<OrganisationUnit>> orgUnitLists = new ArrayList<>();
 
-        if ( threadPoolSize > numberOfTasks )
+        int from = 0;
+
+        long cost = 0;
+
+        for ( int i = 0; i < orgUnits.size(); i++ )
         {
-            threadPoolSize = numberOfTasks;
+            cost += costs[i];
+
+            if ( cost >= targetCost || i + 1 - from >= ValidationRunContext.ORG_UNITS_PER_TASK )
+            {
+                orgUnitLists.add( orgUnits.subList( from, i + 1 ) );
+                from = i + 1;
+                cost = 0;
+            }
+        }
+
+        if ( from < orgUnits.size() )
+        {
+            orgUnitLists.add( orgUnits.subList( from, orgUnits.size() ) );
+        }
+
+        return orgUnitLists;
+    }
+
+    /**
+     * Estimates the cost of validating one organisation unit at a level.
+     *
+     * @param context validation run context
+     * @param level organisation unit level
+     * @return number of rule and period combinations to evaluate
+     */
+    private static long getCost( ValidationRunContext context, int level )
+    {
+        long cost = 0;
+
+        for ( PeriodTypeExtended periodTypeX : context.getPeriodTypeXs() )
+        {
+            long rules = periodTypeX.getRuleXs().stream()
+                .filter( r -> r.getOrganisationUnitLevels().isEmpty()
+                    || r.getOrganisationUnitLevels().contains( level ) )
+                .count();
+
+            cost += rules * periodTypeX.getPeriods().size();
+        }
+
+        return cost;
+    }
+
+    /**
+     * Runs a validation task as a work item, unless cancellation has been
+     * requested or enough results have been found.
+     */
+    private static void runTask( ValidationTask task, int orgUnitCount, ValidationRunContext context,
+        JobProgress progress )
+    {
+        if ( progress.isCancellationRequested() || context.isAnalysisComplete() )
+        {
+            return;
+        }
+
+        progress.startingWorkItem( orgUnitCount + " organisation units" );
+
+        try
+        {
+            task.run();
+
+            progress.completedWorkItem( null );
+        }
+        catch ( RuntimeException ex )
+        {
+            progress.failedWorkItem( ex );
+        }
+    }
+
+    /**
+     * Waits for all validation tasks to finish. If the waiting thread is
+     * interrupted, the remaining tasks are cancelled.
+     */
+    private static void awaitTasks( List<ForkJoinTask<?>> tasks )
+    {
+        for ( ForkJoinTask<?> task : tasks )
+        {
+            try
+            {
+                task.get();
+            }
+            catch ( InterruptedException e )
+            {
+                tasks.forEach( t -> t.cancel( true ) );
+
+                Thread.currentThread().interrupt();
+
+                return;
+            }
+            catch ( ExecutionException | CancellationException e )
+            {
+                log.error( "Validation task failed", e );
+            }
+        }
+    }
+
+    /**
+     * Describes the rules which took the most time to evaluate.
+     */
+    private static String getSlowestRules( ValidationRunContext context )
+    {
+        return context.getRuleNanos().entrySet().stream()
+            .sorted( Comparator.comparingLong( ( Map.Entry<ValidationRule, LongAdder> e ) -> e.getValue().sum() )
+                .reversed() )
+            .limit( SLOWEST_RULES_REPORTED )
+            .map( e -> e.getKey().getName() + " (" + NANOSECONDS.toMillis( e.getValue().sum() ) + " ms)" )
+            .collect( joining( ", " ) );
+    }
+
+    /**
+     * Determines how many threads we should use for testing validation rules.
+     *
+     * @return number of threads we should use for testing validation rules
+     */
+    private static int getThreadPoolSize()
+    {
+        int threadPoolSize = SystemUtils.getCpuCores();
+
+        if ( threadPoolSize > 2 )
+        {
+            threadPoolSize--;
         }
 
         return threadPoolSize;
     }
 
+    private static ForkJoinPool newPool( String threadNamePrefix )
+    {
+        return new ForkJoinPool( getThreadPoolSize(), pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread( pool );
+            thread.setName( threadNamePrefix + thread.getPoolIndex() );
+            thread.setContextClassLoader( Validator.class.getClassLoader() );
+            return thread;
+        }, null, true );
+    }
+
     /**
      * Reload attribute category option combos into this Hibernate context.
      *
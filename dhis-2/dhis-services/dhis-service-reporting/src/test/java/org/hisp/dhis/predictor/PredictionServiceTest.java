@@ -1243,6 +1243,42 @@ public class PredictionServiceTest
         assertEquals( "Pred 2 Ins 0 Upd 0 Del 0 Unch 2", shortSummary( summary ) );
     }
 
+    @Test
+    public void testPredictTaskPredictorsUsingEarlierPredictions()
+    {
+        useDataValue( dataElementA, makeMonth( 2001, 6 ), sourceA, 10 );
+        useDataValue( dataElementB, makeMonth( 2001, 6 ), sourceA, 20 );
+
+        dataValueBatchHandler.flush();
+
+        Expression expressionZ = new Expression( "#{" + dataElementX.getUid() + "} * 2", "descriptionZ",
+            MissingValueStrategy.SKIP_IF_ALL_VALUES_MISSING );
+
+        Predictor predictorA = createPredictor( dataElementX, defaultCombo, "A", expressionA, null,
+            periodTypeMonthly, orgUnitLevel1, 1, 0, 0 );
+
+        Predictor predictorB = createPredictor( dataElementY, defaultCombo, "B", expressionB, null,
+            periodTypeMonthly, orgUnitLevel1, 1, 0, 0 );
+
+        Predictor predictorZ = createPredictor( dataElementZ, defaultCombo, "Z", expressionZ, null,
+            periodTypeMonthly, orgUnitLevel1, 0, 0, 0 );
+
+        predictorService.addPredictor( predictorA );
+        predictorService.addPredictor( predictorB );
+        predictorService.addPredictor( predictorZ );
+
+        List<String> predictors = Lists.newArrayList( predictorA.getUid(), predictorB.getUid(),
+            predictorZ.getUid() );
+
+        summary = predictionService.predictTask( monthStart( 2001, 7 ), monthStart( 2001, 8 ), predictors, null, null );
+
+        assertEquals( "Pred 3 Ins 3 Upd 0 Del 0 Unch 0", shortSummary( summary ) );
+
+        assertEquals( "10.0", getDataValue( dataElementX, defaultCombo, sourceA, makeMonth( 2001, 7 ) ) );
+        assertEquals( "20", getDataValue( dataElementY, defaultCombo, sourceA, makeMonth( 2001, 7 ) ) );
+        assertEquals( "20", getDataValue( dataElementZ, defaultCombo, sourceA, makeMonth( 2001, 7 ) ) );
+    }
+
     @Test
     public void testPredictTaskPredictorGroups()
     {
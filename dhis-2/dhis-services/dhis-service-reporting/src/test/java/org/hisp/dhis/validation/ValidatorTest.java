@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.validation;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hisp.dhis.DhisConvenienceTest.createCategoryOptionCombo;
+import static org.hisp.dhis.DhisConvenienceTest.createExpression2;
+import static org.hisp.dhis.DhisConvenienceTest.createOrganisationUnit;
+import static org.hisp.dhis.DhisConvenienceTest.createPeriod;
+import static org.hisp.dhis.DhisConvenienceTest.createValidationRule;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.hisp.dhis.analytics.AnalyticsService;
+import org.hisp.dhis.category.CategoryService;
+import org.hisp.dhis.expression.Operator;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.period.PeriodType;
+import org.hisp.dhis.scheduling.NoopJobProgress;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class ValidatorTest
+{
+    private final PeriodType MONTHLY = PeriodType.getPeriodTypeFromIsoString( "201901" );
+
+    private final Set<String> taskThreads = ConcurrentHashMap.newKeySet();
+
+    private final Set<Object> taskAuthentications = ConcurrentHashMap.newKeySet();
+
+    private Validator validator;
+
+    @After
+    public void tearDown()
+    {
+        SecurityContextHolder.clearContext();
+
+        if ( validator != null )
+        {
+            validator.shutdown();
+        }
+    }
+
+    @Test
+    public void testSingleTaskRunsOnCallingThread()
+    {
+        validator = createValidator();
+
+        ValidationRunContext context = createContext( Lists.newArrayList( createOrganisationUnit( 'A' ) ),
+            createRule() );
+
+        validator.validate( context, mock( AnalyticsService.class ) );
+
+        assertThat( taskThreads, is( Set.of( Thread.currentThread().getName() ) ) );
+    }
+
+    @Test
+    public void testJobAndInteractiveRunsUseSeparatePools()
+    {
+        validator = createValidator();
+
+        validator.validate( createContext( createOrgUnits( 8 ), createRule() ), mock( AnalyticsService.class ),
+            NoopJobProgress.INSTANCE );
+
+        taskThreads.forEach( name -> assertThat( name, startsWith( "validation-job-worker-" ) ) );
+        assertFalse( taskThreads.isEmpty() );
+
+        taskThreads.clear();
+
+        validator.validate( createContext( createOrgUnits( 8 ), createRule() ), mock( AnalyticsService.class ) );
+
+        taskThreads.forEach( name -> assertThat( name, startsWith( "validation-request-worker-" ) ) );
+        assertFalse( taskThreads.isEmpty() );
+    }
+
+    @Test
+    public void testPoolThreadsDoNotSeeCallerSecurityContext()
+    {
+        validator = createValidator();
+
+        SecurityContextHolder.getContext().setAuthentication( new TestingAuthenticationToken( "admin", "district" ) );
+
+        validator.validate( createContext( createOrgUnits( 8 ), createRule() ), mock( AnalyticsService.class ) );
+
+        assertFalse( taskThreads.isEmpty() );
+        assertTrue( taskAuthentications.isEmpty() );
+    }
+
+    @Test
+    public void testPartitionByCostBalancesOrgUnitLevels()
+    {
+        OrganisationUnit ouA = createOrganisationUnit( 'A' );
+        List<OrganisationUnit> orgUnits = Lists.newArrayList( ouA,
+            createOrganisationUnit( 'B', ouA ), createOrganisationUnit( 'C', ouA ),
+            createOrganisationUnit( 'D', ouA ), createOrganisationUnit( 'E', ouA ) );
+        orgUnits.forEach( OrganisationUnit::getPath );
+
+        ValidationRule ruleAllLevels = createValidationRule( 'A', Operator.equal_to,
+            createExpression2( 'A', "1" ), createExpression2( 'B', "1" ), MONTHLY );
+        ValidationRule ruleLevelTwo = createValidationRule( 'B', Operator.equal_to,
+            createExpression2( 'C', "1" ), createExpression2( 'D', "1" ), MONTHLY );
+        ruleLevelTwo.setOrganisationUnitLevels( Sets.newHashSet( 2 ) );
+
+        ValidationRunContext context = createContext( orgUnits, ruleAllLevels, ruleLevelTwo );
+
+        // Costs are 3 for level 1 and 6 for level 2, so 27 in total
+        List<List<OrganisationUnit>> orgUnitLists = Validator.partitionByCost( context, 3 );
+
+        assertThat( orgUnitLists.size(), is( 3 ) );
+        assertThat( orgUnitLists.get( 0 ).size(), is( 2 ) );
+        assertThat( orgUnitLists.get( 1 ).size(), is( 2 ) );
+        assertThat( orgUnitLists.get( 2 ).size(), is( 1 ) );
+    }
+
+    @Test
+    public void testPartitionByCostLimitsOrgUnitsPerTask()
+    {
+        List<OrganisationUnit> orgUnits = new ArrayList<>();
+
+        for ( int i = 0; i < 1200; i++ )
+        {
+            orgUnits.add( createOrganisationUnit( "OrgUnit" + i ) );
+        }
+
+        ValidationRule rule = createValidationRule( 'A', Operator.equal_to,
+            createExpression2( 'A', "1" ), createExpression2( 'B', "1" ), MONTHLY );
+        rule.setOrganisationUnitLevels( Sets.newHashSet( 4 ) );
+
+        List<List<OrganisationUnit>> orgUnitLists = Validator.partitionByCost( createContext( orgUnits, rule ), 2 );
+
+        assertThat( orgUnitLists.size(), is( 3 ) );
+        assertThat( orgUnitLists.get( 0 ).size(), is( ValidationRunContext.ORG_UNITS_PER_TASK ) );
+        assertThat( orgUnitLists.get( 2 ).size(), is( 200 ) );
+    }
+
+    @Test
+    public void testStreamedResultsAreCountedButNotRetained()
+    {
+        ValidationRunContext context = createContext( Lists.newArrayList( createOrganisationUnit( 'A' ) ) );
+
+        List<ValidationResult> streamed = new ArrayList<>();
+        context.setResultSink( streamed::addAll );
+        context.setRetainResults( false );
+
+        Collection<ValidationResult> results = Lists.newArrayList( new ValidationResult(), new ValidationResult() );
+        context.addValidationResults( results );
+
+        assertThat( streamed.size(), is( 2 ) );
+        assertThat( context.getValidationResultCount(), is( 2 ) );
+        assertTrue( context.getValidationResults().isEmpty() );
+        assertFalse( context.isAnalysisComplete() );
+
+        context.addValidationResults( Lists.newArrayList( new ValidationResult() ) );
+
+        assertTrue( context.isAnalysisComplete() );
+    }
+
+    private Validator createValidator()
+    {
+        ApplicationContext applicationContext = mock( ApplicationContext.class );
+
+        when( applicationContext.getBean( DataValidationTask.NAME ) ).thenAnswer( invocation -> new ValidationTask()
+        {
+            @Override
+            public void init( List<OrganisationUnit> orgUnits, ValidationRunContext context,
+                AnalyticsService analyticsService )
+            {
+            }
+
+            @Override
+            public void run()
+            {
+                taskThreads.add( Thread.currentThread().getName() );
+
+                Object authentication = SecurityContextHolder.getContext().getAuthentication();
+
+                if ( authentication != null )
+                {
+                    taskAuthentications.add( authentication );
+                }
+            }
+        } );
+
+        return new Validator( applicationContext, mock( CategoryService.class ) );
+    }
+
+    private List<OrganisationUnit> createOrgUnits( int count )
+    {
+        List<OrganisationUnit> orgUnits = new ArrayList<>();
+
+        for ( int i = 0; i < count; i++ )
+        {
+            orgUnits.add( createOrganisationUnit( "OrgUnit" + i ) );
+        }
+
+        return orgUnits;
+    }
+
+    private ValidationRule createRule()
+    {
+        return createValidationRule( 'A', Operator.equal_to,
+            createExpression2( 'A', "1" ), createExpression2( 'B', "1" ), MONTHLY );
+    }
+
+    private ValidationRunContext createContext( List<OrganisationUnit> orgUnits, ValidationRule... rules )
+    {
+        PeriodTypeExtended periodTypeX = new PeriodTypeExtended( MONTHLY );
+        periodTypeX.addPeriod( createPeriod( "201901" ) );
+        periodTypeX.addPeriod( createPeriod( "201902" ) );
+        periodTypeX.addPeriod( createPeriod( "201903" ) );
+
+        for ( ValidationRule rule : rules )
+        {
+            periodTypeX.getRuleXs().add( new ValidationRuleExtended( rule ) );
+        }
+
+        return ValidationRunContext.newBuilder()
+            .withOrgUnits( orgUnits )
+            .withConstantMap( new HashMap<>() )
+            .withDefaultAttributeCombo( createCategoryOptionCombo( 'A', 'B' ) )
+            .withPeriodTypeXs( Lists.newArrayList( periodTypeX ) )
+            .withMaxResults( 3 )
+            .build();
+    }
+}
@@ -110,6 +110,9 @@ public enum SettingKey
         "keyRespectMetaDataStartEndDatesInAnalyticsTableExport", Boolean.FALSE, Boolean.class ),
     SKIP_DATA_TYPE_VALIDATION_IN_ANALYTICS_TABLE_EXPORT( "keySkipDataTypeValidationInAnalyticsTableExport",
         Boolean.FALSE, Boolean.class ),
+    UNLOGGED_ANALYTICS_TABLES_IN_ANALYTICS_TABLE_EXPORT( "keyUnloggedAnalyticsTablesInAnalyticsTableExport",
+        Boolean.FALSE, Boolean.class ),
+    ANALYTICS_ROLLUP_MAX_LEVEL( "keyAnalyticsRollupMaxLevel", 0, Integer.class ),
     CUSTOM_LOGIN_PAGE_LOGO( "keyCustomLoginPageLogo", Boolean.FALSE, Boolean.class ),
     CUSTOM_TOP_MENU_LOGO( "keyCustomTopMenuLogo", Boolean.FALSE, Boolean.class ),
     ANALYTICS_MAINTENANCE_MODE( "keyAnalyticsMaintenanceMode", Boolean.FALSE, Boolean.class ),
@@ -118,6 +121,7 @@ public enum SettingKey
     LAST_SUCCESSFUL_LATEST_ANALYTICS_PARTITION_RUNTIME( "keyLastSuccessfulLatestAnalyticsPartitionRuntime" ),
     LAST_MONITORING_RUN( "keyLastMonitoringRun", Date.class ),
     LAST_SUCCESSFUL_DATA_VALUE_SYNC( "keyLastSuccessfulDataSynch", new Date( 0 ), Date.class ),
+    DATA_VALUE_SYNC_CHECKPOINT( "keyDataSynchCheckpoint" ),
     LAST_SUCCESSFUL_EVENT_DATA_SYNC( "keyLastSuccessfulEventsDataSynch", new Date( 0 ), Date.class ),
     LAST_SUCCESSFUL_COMPLETE_DATA_SET_REGISTRATION_SYNC( "keyLastCompleteDataSetRegistrationSyncSuccess", new Date( 0 ),
         Date.class ),
@@ -41,4 +41,11 @@ public enum FlushMode
      * Let the importer decide the flushing.
      */
     AUTO,
+
+    /**
+     * Write entities in JDBC batches and flush once per batch instead of
+     * relying on automatic flushing. Only applies when the atomic mode is
+     * ALL, otherwise the importer falls back to AUTO.
+     */
+    BATCH,
 }
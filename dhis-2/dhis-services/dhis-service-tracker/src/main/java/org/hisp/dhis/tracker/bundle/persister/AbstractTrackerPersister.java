@@ -77,6 +77,12 @@ public abstract class AbstractTrackerPersister<T extends TrackerDto, V extends B
 
     protected final TrackedEntityAttributeValueAuditService trackedEntityAttributeValueAuditService;
 
+    /**
+     * Number of entities written per JDBC batch and flush when the bundle
+     * uses {@link FlushMode#BATCH}.
+     */
+    protected static final int BATCH_SIZE = 500;
+
     /**
      * Template method that can be used by classes extending this class to
      * execute the persistence flow of Tracker entities
@@ -102,6 +108,50 @@ public abstract class AbstractTrackerPersister<T extends TrackerDto, V extends B
 
         Set<String> updatedTeiList = bundle.getUpdatedTeis();
 
+        //
+        // In batch mode, let Hibernate group the statements into JDBC batches
+        // and only flush once per batch, avoiding dirty checking of the whole
+        // session before every query. Statements are not reordered, as
+        // hibernate.order_inserts and hibernate.order_updates can only be set
+        // for the whole session factory and would change the flush and lock
+        // order of all other writes too
+        //
+        final boolean batchMode = isBatchMode( bundle );
+        final Integer jdbcBatchSize = session.getJdbcBatchSize();
+        final org.hibernate.FlushMode hibernateFlushMode = session.getHibernateFlushMode();
+
+        if ( batchMode )
+        {
+            session.setJdbcBatchSize( BATCH_SIZE );
+            session.setHibernateFlushMode( org.hibernate.FlushMode.MANUAL );
+        }
+
+        try
+        {
+            persist( session, bundle, dtos, typeReport, sideEffectDataBundles, updatedTeiList, batchMode );
+
+            if ( batchMode )
+            {
+                session.flush();
+            }
+        }
+        finally
+        {
+            if ( batchMode )
+            {
+                session.setJdbcBatchSize( jdbcBatchSize );
+                session.setHibernateFlushMode( hibernateFlushMode );
+            }
+        }
+
+        typeReport.getSideEffectDataBundles().addAll( sideEffectDataBundles );
+
+        return typeReport;
+    }
+
+    private void persist( Session session, TrackerBundle bundle, List<T> dtos, TrackerTypeReport typeReport,
+        List<TrackerSideEffectDataBundle> sideEffectDataBundles, Set<String> updatedTeiList, boolean batchMode )
+    {
         for ( int idx = 0; idx < dtos.size(); idx++ )
         {
             //
@@ -161,7 +211,7 @@ public abstract class AbstractTrackerPersister<T extends TrackerDto, V extends B
                 //
                 updatePreheat( bundle.getPreheat(), convertedDto );
 
-                if ( FlushMode.OBJECT == bundle.getFlushMode() )
+                if ( FlushMode.OBJECT == bundle.getFlushMode() || (batchMode && (idx + 1) % BATCH_SIZE == 0) )
                 {
                     session.flush();
                 }
@@ -193,10 +243,31 @@ public abstract class AbstractTrackerPersister<T extends TrackerDto, V extends B
                 }
             }
         }
+    }
 
-        typeReport.getSideEffectDataBundles().addAll( sideEffectDataBundles );
+    /**
+     * Flushes pending changes of the session before running a query in batch
+     * mode, as queries do not see unflushed rows while the session uses
+     * {@link org.hibernate.FlushMode#MANUAL}. Does nothing in other modes, in
+     * which Hibernate flushes before queries as needed.
+     *
+     * @param session the Hibernate session.
+     */
+    protected void flushBeforeQuery( Session session )
+    {
+        if ( org.hibernate.FlushMode.MANUAL == session.getHibernateFlushMode() )
+        {
+            session.flush();
+        }
+    }
 
-        return typeReport;
+    /**
+     * Batch mode is only safe when the whole bundle is rolled back on error,
+     * since a failing batch can not be attributed to a single entity.
+     */
+    private boolean isBatchMode( TrackerBundle bundle )
+    {
+        return FlushMode.BATCH == bundle.getFlushMode() && AtomicMode.ALL == bundle.getAtomicMode();
     }
 
     // // // // // // // //
@@ -387,7 +458,7 @@ public abstract class AbstractTrackerPersister<T extends TrackerDto, V extends B
                         isUpdated );
                 }
 
-                handleReservedValue( trackedEntityAttributeValue );
+                handleReservedValue( session, trackedEntityAttributeValue );
             } );
     }
 
@@ -461,10 +532,12 @@ public abstract class AbstractTrackerPersister<T extends TrackerDto, V extends B
         return trackedEntityAttribute;
     }
 
-    private void handleReservedValue( TrackedEntityAttributeValue attributeValue )
+    private void handleReservedValue( Session session, TrackedEntityAttributeValue attributeValue )
     {
         if ( attributeValue.getAttribute().isGenerated() && attributeValue.getAttribute().getTextPattern() != null )
         {
+            flushBeforeQuery( session );
+
             reservedValueService.useReservedValue( attributeValue.getAttribute().getTextPattern(),
                 attributeValue.getValue() );
         }
@@ -30,22 +30,42 @@ package org.hisp.dhis.tracker.preheat;
 import static com.google.api.client.util.Preconditions.checkNotNull;
 
 import java.beans.Introspector;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.annotation.PreDestroy;
 
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.commons.timer.SystemTimer;
+import org.hisp.dhis.commons.timer.Timer;
 import org.hisp.dhis.preheat.PreheatException;
 import org.hisp.dhis.tracker.TrackerImportParams;
+import org.hisp.dhis.tracker.preheat.supplier.JdbcAbstractPreheatSupplier;
 import org.hisp.dhis.tracker.preheat.supplier.PreheatSupplier;
+import org.hisp.dhis.tracker.preheat.supplier.SupplierDependsOn;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
+import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.ClassUtils;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * @author Morten Olav Hansen <mortenoh@gmail.com>
@@ -73,6 +93,15 @@ public class DefaultTrackerPreheatService implements TrackerPreheatService, Appl
     // TODO this flag should be configurable
     private final static boolean FAIL_FAST_ON_PREHEAT_ERROR = false;
 
+    private final static int MAX_CONCURRENT_SUPPLIERS = 4;
+
+    /**
+     * Runs JDBC based suppliers, which use their own connection and can run
+     * concurrently with each other.
+     */
+    private final ExecutorService executor = Executors.newFixedThreadPool( MAX_CONCURRENT_SUPPLIERS,
+        new ThreadFactoryBuilder().setNameFormat( "tracker-preheat-%d" ).setDaemon( true ).build() );
+
     @Override
     @Transactional( readOnly = true )
     public TrackerPreheat preheat( TrackerImportParams params )
@@ -84,28 +113,160 @@ public class DefaultTrackerPreheatService implements TrackerPreheatService, Appl
 
         checkNotNull( preheat.getUser(), "TrackerPreheat is missing the user object." );
 
+        Map<String, PreheatSupplier> suppliers = getSuppliers();
+        Map<String, String> timings = new ConcurrentHashMap<>();
+
+        //
+        // Suppliers are run in waves following the dependencies declared with
+        // SupplierDependsOn. Within a wave, JDBC based suppliers run
+        // concurrently, while the remaining suppliers share the Hibernate
+        // session and run in the configured order once they are done
+        //
+        List<String> remaining = new ArrayList<>( suppliers.keySet() );
+        Set<String> done = new HashSet<>();
+
+        while ( !remaining.isEmpty() )
+        {
+            List<String> wave = getNextWave( remaining, done, suppliers );
+            List<Future<?>> futures = new ArrayList<>();
+
+            for ( String supplier : wave )
+            {
+                if ( suppliers.get( supplier ) instanceof JdbcAbstractPreheatSupplier )
+                {
+                    futures.add( executor.submit( () -> add( supplier, suppliers, params, preheat, timings ) ) );
+                }
+            }
+
+            waitFor( futures );
+
+            for ( String supplier : wave )
+            {
+                if ( !(suppliers.get( supplier ) instanceof JdbcAbstractPreheatSupplier) )
+                {
+                    add( supplier, suppliers, params, preheat, timings );
+                }
+            }
+
+            remaining.removeAll( wave );
+            done.addAll( wave );
+        }
+
+        suppliers.keySet().stream().filter( timings::containsKey )
+            .forEach( supplier -> preheat.getSupplierTimings().put( supplier, timings.get( supplier ) ) );
+
+        preheat.createReferenceTree();
+
+        return preheat;
+    }
+
+    private Map<String, PreheatSupplier> getSuppliers()
+    {
+        Map<String, PreheatSupplier> suppliers = new LinkedHashMap<>();
+
         for ( String supplier : preheatSuppliers )
         {
             final String beanName = Introspector.decapitalize( supplier );
             try
             {
-                ctx.getBean( beanName, PreheatSupplier.class ).add( params, preheat );
+                suppliers.put( supplier, ctx.getBean( beanName, PreheatSupplier.class ) );
             }
             catch ( BeansException beanException )
             {
                 processException( "Unable to find a preheat supplier with name " + beanName
                     + " in the Spring context. Skipping supplier.", beanException, supplier );
             }
-            catch ( Exception e )
+        }
+
+        return suppliers;
+    }
+
+    /**
+     * Returns the suppliers whose dependencies have all been executed. If the
+     * dependencies can not be resolved, the remaining suppliers are returned
+     * so they run in the configured order.
+     */
+    private List<String> getNextWave( List<String> remaining, Set<String> done,
+        Map<String, PreheatSupplier> suppliers )
+    {
+        List<String> wave = new ArrayList<>();
+
+        for ( String supplier : remaining )
+        {
+            SupplierDependsOn dependsOn = AnnotationUtils.findAnnotation(
+                ClassUtils.getUserClass( suppliers.get( supplier ) ), SupplierDependsOn.class );
+
+            String dependency = dependsOn != null ? dependsOn.value().getSimpleName() : null;
+
+            if ( dependency == null || done.contains( dependency ) || !suppliers.containsKey( dependency ) )
             {
-                processException( "An error occurred while executing a preheat supplier with name "
-                    + supplier, e, supplier );
+                wave.add( supplier );
             }
         }
 
-        preheat.createReferenceTree();
+        if ( wave.isEmpty() )
+        {
+            log.warn( "Unable to resolve the dependencies of preheat suppliers " + remaining
+                + ". Running them in the configured order." );
 
-        return preheat;
+            wave.add( remaining.get( 0 ) );
+        }
+
+        return wave;
+    }
+
+    private void add( String supplier, Map<String, PreheatSupplier> suppliers, TrackerImportParams params,
+        TrackerPreheat preheat, Map<String, String> timings )
+    {
+        Timer timer = new SystemTimer().start();
+
+        try
+        {
+            suppliers.get( supplier ).add( params, preheat );
+        }
+        catch ( Exception e )
+        {
+            processException( "An error occurred while executing a preheat supplier with name "
+                + supplier, e, supplier );
+        }
+
+        timer.stop();
+        timings.put( supplier, timer.toString() );
+    }
+
+    private void waitFor( List<Future<?>> futures )
+    {
+        try
+        {
+            for ( Future<?> future : futures )
+            {
+                future.get();
+            }
+        }
+        catch ( ExecutionException e )
+        {
+            futures.forEach( future -> future.cancel( true ) );
+
+            if ( e.getCause() instanceof RuntimeException )
+            {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new PreheatException( "An error occurred during the preheat process", e.getCause() );
+        }
+        catch ( InterruptedException e )
+        {
+            futures.forEach( future -> future.cancel( true ) );
+            Thread.currentThread().interrupt();
+
+            throw new PreheatException( "The preheat process was interrupted", e );
+        }
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        executor.shutdownNow();
     }
 
     private void processException( String message, Exception e, String supplier )
@@ -33,6 +33,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -251,6 +252,13 @@ public class TrackerPreheat
     @Setter
     private Map<String, List<String>> programWithOrgUnitsMap;
 
+    /**
+     * Elapsed time of each preheat supplier, in the order the suppliers are
+     * configured.
+     */
+    @Getter
+    private final Map<String, String> supplierTimings = new LinkedHashMap<>();
+
     public TrackerPreheat()
     {
     }
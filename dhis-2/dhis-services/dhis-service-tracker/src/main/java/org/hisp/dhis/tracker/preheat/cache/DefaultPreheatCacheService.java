@@ -27,114 +27,180 @@
  */
 package org.hisp.dhis.tracker.preheat.cache;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import static org.hisp.dhis.commons.util.SystemUtils.isTestRun;
+
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
 
 import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
 
-import org.cache2k.Cache;
-import org.cache2k.Cache2kBuilder;
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.RedisNearCacheInvalidator;
+import org.hisp.dhis.cache.SimpleCacheBuilder;
 import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.common.event.ApplicationCacheClearedEvent;
+import org.hisp.dhis.common.event.MetadataChangedEvent;
+import org.hisp.dhis.external.conf.ConfigurationKey;
 import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.tracker.TrackerIdScheme;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 
 /**
  * Pre-heat cache implementation for metadata objects.
  *
+ * The cache is a snapshot of the metadata seen by previous imports. Since
+ * cached objects reference other metadata objects, any change to metadata
+ * discards the whole snapshot and starts a new version of it. Changes are
+ * signalled by {@link MetadataChangedEvent}s, published after metadata import
+ * commits and for changes captured by the Debezium cache invalidation. When
+ * redis is enabled, the invalidation of a snapshot caused by a commit on this
+ * node is broadcast to all other nodes.
+ *
+ * Each entry is tagged with the version of the snapshot which was current when
+ * the object was read from the database. Objects read before a change was
+ * committed, but put into the cache after it, are rejected or ignored on read
+ * as they belong to an older snapshot.
+ *
  * @author Luciano Fiandesio
  */
+@Slf4j
 @RequiredArgsConstructor
 @Service
-public class DefaultPreheatCacheService implements PreheatCacheService
+public class DefaultPreheatCacheService implements PreheatCacheService, MeterBinder
 {
+    private static final String REGION = "trackerPreheat";
+
     private final DhisConfigurationProvider config;
 
     private final Environment environment;
 
+    @Autowired( required = false )
+    private RedisNearCacheInvalidator invalidator;
+
     /**
      * Data structure to hold the metadata cache:
      *
      * - the key is the full class name of the metadata class getting cached
      * (e.g. "org.hisp.dhis.program.Program")
      *
-     * - the value is a Cache2K cache holding the objects to cache
+     * - the value is a cache holding the objects to cache, tagged with the
+     * version they were loaded at
      *
      * Caveat: this data structure may reference multiple times the same
      * objects, if different {@link TrackerIdScheme} are used during different
      * imports.
      */
-    private static Map<String, Cache<String, IdentifiableObject>> cache = new HashMap<>();
+    private final Map<String, Cache<VersionedObject>> cache = new ConcurrentHashMap<>();
+
+    private final AtomicLong version = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    @PostConstruct
+    public void init()
+    {
+        if ( invalidator != null )
+        {
+            invalidator.register( REGION, key -> invalidateLocalCache() );
+        }
+    }
+
+    @Override
+    public long getVersion()
+    {
+        return version.get();
+    }
 
     @Override
     public Optional<IdentifiableObject> get( final String cacheKey, final String id )
     {
-        if ( isCacheEnabled() && cache.containsKey( cacheKey ) )
+        if ( !isCacheEnabled() )
         {
-            return Optional.ofNullable( cache.get( cacheKey ).get( id ) );
+            return Optional.empty();
         }
 
-        return Optional.empty();
+        Cache<VersionedObject> c = cache.get( cacheKey );
+
+        Optional<IdentifiableObject> object = Optional.empty();
+
+        if ( c != null )
+        {
+            Optional<VersionedObject> entry = c.getIfPresent( id );
+
+            if ( entry.isPresent() && !isCurrent( entry.get() ) )
+            {
+                c.invalidate( id );
+            }
+            else
+            {
+                object = entry.map( VersionedObject::getObject );
+            }
+        }
+
+        (object.isPresent() ? hits : misses).incrementAndGet();
+
+        return object;
     }
 
     @Override
     public boolean hasKey( String cacheKey )
     {
-        return cache.containsKey( cacheKey );
+        Cache<VersionedObject> c = cache.get( cacheKey );
+
+        return c != null && c.getAll().anyMatch( this::isCurrent );
     }
 
+    @Override
     public List<IdentifiableObject> getAll( String cacheKey )
     {
-        List<IdentifiableObject> res = new ArrayList<>();
-        if ( hasKey( cacheKey ) )
-        {
-            cache.get( cacheKey ).keys().forEach( k -> {
-                res.add( cache.get( cacheKey ).get( k ) );
-            } );
-        }
-        return res;
+        Cache<VersionedObject> c = cache.get( cacheKey );
 
+        return c != null
+            ? c.getAll().filter( this::isCurrent ).map( VersionedObject::getObject ).collect( Collectors.toList() )
+            : List.of();
     }
 
     @Override
     public void put( final String cacheKey, final String id, IdentifiableObject object,
-        final int cacheTTL, final long capacity )
+        final int cacheTTL, final long capacity, final long loadedVersion )
     {
         if ( cacheKey == null || id == null || object == null )
             return;
 
+        if ( loadedVersion < version.get() )
+        {
+            log.debug( "Ignoring stale tracker preheat cache entry {}:{} loaded at version {}", cacheKey, id,
+                loadedVersion );
+            return;
+        }
+
         if ( isCacheEnabled() )
         {
-            if ( cache.containsKey( cacheKey ) )
-            {
-                cache.get( cacheKey ).put( id, object );
-            }
-            else
-            {
-                Cache<String, IdentifiableObject> c = new Cache2kBuilder<String, IdentifiableObject>()
-                {
-                }
-                    .expireAfterWrite( cacheTTL, TimeUnit.MINUTES )
-                    .name( cacheKey )
-                    .permitNullValues( false )
-                    .entryCapacity( capacity == -1 ? Long.MAX_VALUE : capacity )
-                    .resilienceDuration( 30, TimeUnit.SECONDS ) // cope with at
-                                                                // most 30
-                                                                // seconds
-                    // outage before propagating exceptions
-                    .build();
-
-                c.put( id, object );
-
-                cache.put( cacheKey, c );
-            }
+            cache.computeIfAbsent( cacheKey, key -> new SimpleCacheBuilder<VersionedObject>()
+                .forRegion( REGION + ":" + key )
+                .expireAfterWrite( cacheTTL, TimeUnit.MINUTES )
+                .withMaximumSize( capacity == -1 ? Long.MAX_VALUE : capacity )
+                .build() )
+                .put( id, new VersionedObject( loadedVersion, object ) );
         }
     }
 
@@ -145,21 +211,78 @@ public class DefaultPreheatCacheService implements PreheatCacheService
         invalidateCache();
     }
 
+    @TransactionalEventListener( fallbackExecution = true )
+    @Override
+    public void handleMetadataChanged( MetadataChangedEvent event )
+    {
+        if ( event.isExternal() )
+        {
+            invalidateLocalCache();
+        }
+        else
+        {
+            invalidateCache();
+        }
+    }
+
     @Override
     public void invalidateCache()
     {
-        cache.values().forEach( Cache::removeAll );
+        invalidateLocalCache();
+
+        if ( invalidator != null )
+        {
+            invalidator.publishAll( REGION );
+        }
+    }
+
+    private void invalidateLocalCache()
+    {
+        cache.values().forEach( Cache::invalidateAll );
+
+        log.debug( "Tracker preheat cache invalidated, version: {}", version.incrementAndGet() );
+    }
+
+    /**
+     * An entry put concurrently with an invalidation may survive it, but it
+     * still carries the version it was loaded at.
+     */
+    private boolean isCurrent( VersionedObject entry )
+    {
+        return entry.getVersion() >= version.get();
     }
 
     private boolean isCacheEnabled()
     {
-        return false;
-
-        // Due to concerns and issues with the current cache implementation, we
-        // decided to
-        // deactivate the cache in the preheat completely for now.
-        // return !isTestRun( this.environment.getActiveProfiles() )
-        // && config.isEnabled(
-        // ConfigurationKey.TRACKER_IMPORT_PREHEAT_CACHE_ENABLED );
+        return !isTestRun( this.environment.getActiveProfiles() )
+            && config.isEnabled( ConfigurationKey.TRACKER_IMPORT_PREHEAT_CACHE_ENABLED );
+    }
+
+    // -------------------------------------------------------------------------
+    // MeterBinder implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void bindTo( MeterRegistry registry )
+    {
+        FunctionCounter.builder( "tracker.preheat.cache.hits", hits, AtomicLong::get )
+            .description( "Number of metadata objects found in the tracker preheat cache" )
+            .register( registry );
+
+        FunctionCounter.builder( "tracker.preheat.cache.misses", misses, AtomicLong::get )
+            .description( "Number of metadata objects not found in the tracker preheat cache" )
+            .register( registry );
+
+        FunctionCounter.builder( "tracker.preheat.cache.invalidations", version, AtomicLong::get )
+            .description( "Number of invalidations of the tracker preheat cache" )
+            .register( registry );
+    }
+
+    @Value
+    private static class VersionedObject
+    {
+        long version;
+
+        IdentifiableObject object;
     }
 }
@@ -32,6 +32,7 @@ import java.util.Optional;
 
 import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.common.event.ApplicationCacheClearedEvent;
+import org.hisp.dhis.common.event.MetadataChangedEvent;
 
 /**
  * A DHIS2 metadata cache implementation to reduce db lookups during pre-heat
@@ -40,6 +41,16 @@ import org.hisp.dhis.common.event.ApplicationCacheClearedEvent;
  */
 public interface PreheatCacheService
 {
+    /**
+     * Returns the current version of the cache. The version changes whenever
+     * the cache is invalidated. Callers read it before loading objects from
+     * the database and pass it to
+     * {@link #put(String, String, IdentifiableObject, int, long, long)}.
+     *
+     * @return the current version of the cache
+     */
+    long getVersion();
+
     /**
      * Fetches an object from the pre-heat cache.
      *
@@ -73,11 +84,15 @@ public interface PreheatCacheService
      * @param object The object being cached
      * @param cacheTTL The amount of **minutes**
      * @param capacity The maximum number of entries hold by the cache.
+     * @param loadedVersion the {@link #getVersion()} read before the object
+     *        was loaded. Objects loaded at an older version than the current
+     *        are not cached.
      */
-    void put( String cacheKey, String id, IdentifiableObject object, int cacheTTL, long capacity );
+    void put( String cacheKey, String id, IdentifiableObject object, int cacheTTL, long capacity,
+        long loadedVersion );
 
     /**
-     * Invalidates all caches.
+     * Invalidates all caches, on this and on all other nodes.
      */
     void invalidateCache();
 
@@ -87,4 +102,12 @@ public interface PreheatCacheService
      * @param event the {@link ApplicationCacheClearedEvent}.
      */
     void handleApplicationCachesCleared( ApplicationCacheClearedEvent event );
+
+    /**
+     * Event handler for {@link MetadataChangedEvent}. Invalidates all caches,
+     * since cached objects may reference the changed metadata.
+     *
+     * @param event the {@link MetadataChangedEvent}.
+     */
+    void handleMetadataChanged( MetadataChangedEvent event );
 }
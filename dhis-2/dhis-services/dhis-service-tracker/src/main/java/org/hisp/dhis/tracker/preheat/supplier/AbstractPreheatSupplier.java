@@ -87,16 +87,19 @@ public abstract class AbstractPreheatSupplier implements PreheatSupplier
         preheat.put( TrackerIdentifier.UID, relationshipTypes );
     }
 
+    /**
+     * @param version the {@link PreheatCacheService#getVersion()} read before
+     *        the objects were loaded
+     */
     protected void addToCache( PreheatCacheService cache, List<? extends IdentifiableObject> objects, int ttl,
-        long capacity )
+        long capacity, long version )
     {
-        objects.forEach(
-            rt -> cache.put( HibernateProxyUtils.getRealClass( rt ).getName(), rt.getUid(), rt, ttl, capacity ) );
+        objects.forEach( rt -> cache.put( HibernateProxyUtils.getRealClass( rt ).getName(), rt.getUid(), rt, ttl,
+            capacity, version ) );
     }
 
-    protected void addToCache( PreheatCacheService cache, List<? extends IdentifiableObject> objects )
+    protected void addToCache( PreheatCacheService cache, List<? extends IdentifiableObject> objects, long version )
     {
-        objects.forEach( rt -> cache.put( HibernateProxyUtils.getRealClass( rt ).getName(), rt.getUid(), rt, CACHE_TTL,
-            CACHE_CAPACITY ) );
+        addToCache( cache, objects, CACHE_TTL, CACHE_CAPACITY, version );
     }
 }
@@ -63,8 +63,9 @@ public class PeriodTypeSupplier extends AbstractPreheatSupplier
         }
         else
         {
+            final long version = cache.getVersion();
             final List<Period> periods = periodStore.getAll();
-            addToCache( cache, periods );
+            addToCache( cache, periods, version );
             _addToPreheat( preheat,
                 periods.stream().map( p -> (IdentifiableObject) p ).collect( Collectors.toList() ) );
         }
@@ -48,6 +48,7 @@ import org.springframework.stereotype.Component;
  */
 @RequiredArgsConstructor
 @Component
+@SupplierDependsOn( ClassBasedSupplier.class )
 public class ProgramInstanceSupplier extends AbstractPreheatSupplier
 {
     @NonNull
@@ -51,6 +51,7 @@ import org.springframework.stereotype.Component;
  * @author Luciano Fiandesio
  */
 @Component
+@SupplierDependsOn( ClassBasedSupplier.class )
 public class ProgramOrgUnitsSupplier extends JdbcAbstractPreheatSupplier
 {
     protected ProgramOrgUnitsSupplier( JdbcTemplate jdbcTemplate )
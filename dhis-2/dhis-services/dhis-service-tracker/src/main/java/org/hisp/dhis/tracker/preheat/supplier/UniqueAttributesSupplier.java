@@ -68,6 +68,7 @@ import com.google.common.collect.Lists;
  */
 @RequiredArgsConstructor
 @Component
+@SupplierDependsOn( ClassBasedSupplier.class )
 public class UniqueAttributesSupplier extends AbstractPreheatSupplier
 {
     @NonNull
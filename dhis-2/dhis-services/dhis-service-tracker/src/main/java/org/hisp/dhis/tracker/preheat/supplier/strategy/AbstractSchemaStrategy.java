@@ -158,6 +158,8 @@ public abstract class AbstractSchemaStrategy implements ClassBasedSupplierStrate
                     // remove from the list of ids the ids found in cache
                     ids.removeAll( foundInCache.keySet() );
 
+                    final long version = cache.getVersion();
+
                     // execute the query, fetching only the ids which are not in
                     // cache
                     objects = map(
@@ -168,7 +170,8 @@ public abstract class AbstractSchemaStrategy implements ClassBasedSupplierStrate
                     // can't get resolved, send null to the
                     // cacheService, which will ignore the entry
                     objects.forEach( o -> cache.put( cacheKey,
-                        PreheatUtils.resolveKey( identifier, o ).orElseGet( null ), o, getCacheTTL(), getCapacity() ) );
+                        PreheatUtils.resolveKey( identifier, o ).orElseGet( null ), o, getCacheTTL(), getCapacity(),
+                        version ) );
 
                     // add back the cached objects to the final list
                     objects.addAll( foundInCache.values() );
@@ -242,10 +245,12 @@ public abstract class AbstractSchemaStrategy implements ClassBasedSupplierStrate
         }
         else
         {
+            final long version = cache.getVersion();
+
             objects = manager.getAll( (Class<IdentifiableObject>) schema.getKlass() );
 
             objects.forEach( rt -> cache.put( HibernateProxyUtils.getRealClass( rt ).getSimpleName(),
-                rt.getUid(), rt, getCacheTTL(), getCapacity() ) );
+                rt.getUid(), rt, getCacheTTL(), getCapacity(), version ) );
         }
 
         return objects;
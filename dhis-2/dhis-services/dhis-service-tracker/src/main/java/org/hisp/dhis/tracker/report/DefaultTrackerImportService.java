@@ -146,6 +146,12 @@ public class DefaultTrackerImportService
         TrackerBundle trackerBundle = opsTimer.exec( PREHEAT_OPS,
             () -> preheatBundle( params ) );
 
+        if ( trackerBundle.getPreheat() != null )
+        {
+            trackerBundle.getPreheat().getSupplierTimings()
+                .forEach( ( supplier, elapsed ) -> opsTimer.set( PREHEAT_OPS + "." + supplier, elapsed ) );
+        }
+
         notifyOps( params, PREHEAT_OPS, opsTimer );
 
         return trackerBundle;
@@ -29,8 +29,10 @@ package org.hisp.dhis.tracker.report;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import lombok.Data;
 
@@ -198,6 +200,22 @@ public class ValidationErrorReporter
         this.warningsReportList.addAll( reporter.getWarningsReportList() );
     }
 
+    /**
+     * Merges the errors, warnings and invalid objects accumulated by the root
+     * reporter of a forked validation context into this reporter.
+     */
+    public void mergeRoot( ValidationErrorReporter reporter )
+    {
+        reporter.getInvalidDTOs().forEach( ( type, uids ) -> {
+            List<String> invalid = this.invalidDTOs.computeIfAbsent( type, k -> new ArrayList<>() );
+            Set<String> known = new HashSet<>( invalid );
+            uids.stream().filter( known::add ).forEach( invalid::add );
+        } );
+
+        this.reportList.addAll( reporter.getReportList() );
+        this.warningsReportList.addAll( reporter.getWarningsReportList() );
+    }
+
     /**
      * Checks if the provided uid and Tracker Type is part of the invalid
      * entities
@@ -29,8 +29,14 @@ package org.hisp.dhis.tracker.validation;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
+import javax.annotation.PreDestroy;
+
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -44,6 +50,8 @@ import org.hisp.dhis.user.User;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 /**
  * @author Morten Olav Hansen <mortenoh@gmail.com>
  */
@@ -59,6 +67,14 @@ public class DefaultTrackerValidationService
 
     private final TrackerValidationHookService trackerValidationHookService;
 
+    /**
+     * Runs consecutive hooks which are {@link TrackerValidationHook#isConcurrent()
+     * concurrent}.
+     */
+    private final ExecutorService executor = Executors.newFixedThreadPool(
+        Runtime.getRuntime().availableProcessors(),
+        new ThreadFactoryBuilder().setNameFormat( "tracker-validation-%d" ).setDaemon( true ).build() );
+
     @Autowired( required = false )
     public void setValidationHooks( List<TrackerValidationHook> validationHooks )
     {
@@ -98,19 +114,28 @@ public class DefaultTrackerValidationService
 
         try
         {
+            List<TrackerValidationHook> concurrentHooks = new ArrayList<>();
+
             for ( TrackerValidationHook hook : hooks )
             {
-                if ( hook.isEnabled() )
+                if ( !hook.isEnabled() )
                 {
-                    Timer hookTimer = Timer.startTimer();
-
-                    validationReport.add( hook.validate( context ) );
+                    continue;
+                }
 
-                    validationReport.add( TrackerValidationHookTimerReport.builder()
-                        .name( hook.getClass().getName() )
-                        .totalTime( hookTimer.toString() ).build() );
+                if ( hook.isConcurrent() )
+                {
+                    concurrentHooks.add( hook );
+                    continue;
                 }
+
+                validate( context, concurrentHooks, validationReport );
+                concurrentHooks.clear();
+
+                validate( context, hook, validationReport );
             }
+
+            validate( context, concurrentHooks, validationReport );
         }
         catch ( ValidationFailFastException e )
         {
@@ -122,6 +147,112 @@ public class DefaultTrackerValidationService
         return validationReport;
     }
 
+    private void validate( TrackerImportValidationContext context, TrackerValidationHook hook,
+        TrackerValidationReport validationReport )
+    {
+        Timer hookTimer = Timer.startTimer();
+
+        validationReport.add( hook.validate( context ) );
+
+        validationReport.add( timerReport( hook, hookTimer ) );
+    }
+
+    /**
+     * Runs the given concurrent hooks on the validation pool, each one against
+     * a fork of the context. The forked reports are merged in hook order once
+     * all hooks are done, so the result does not depend on scheduling. The
+     * authorities of the acting user are resolved first on the calling thread,
+     * which holds the Hibernate session of the import, so that hooks on the
+     * pool read the cached authorities instead of loading the lazy user roles.
+     */
+    private void validate( TrackerImportValidationContext context, List<TrackerValidationHook> hooks,
+        TrackerValidationReport validationReport )
+    {
+        if ( hooks.size() < 2 )
+        {
+            hooks.forEach( hook -> validate( context, hook, validationReport ) );
+            return;
+        }
+
+        resolveUserAuthorities( context.getBundle().getUser() );
+
+        List<TrackerImportValidationContext> forks = new ArrayList<>();
+        List<Future<TrackerValidationHookTimerReport>> futures = new ArrayList<>();
+
+        for ( TrackerValidationHook hook : hooks )
+        {
+            TrackerImportValidationContext fork = context.fork();
+            forks.add( fork );
+
+            futures.add( executor.submit( () -> {
+                Timer hookTimer = Timer.startTimer();
+                hook.validate( fork );
+                return timerReport( hook, hookTimer );
+            } ) );
+        }
+
+        try
+        {
+            for ( int i = 0; i < hooks.size(); i++ )
+            {
+                TrackerValidationHookTimerReport timerReport = getResult( futures.get( i ) );
+                ValidationErrorReporter reporter = forks.get( i ).getRootReporter();
+
+                context.getRootReporter().mergeRoot( reporter );
+                validationReport.add( reporter );
+                validationReport.add( timerReport );
+            }
+        }
+        finally
+        {
+            futures.forEach( future -> future.cancel( true ) );
+        }
+    }
+
+    private void resolveUserAuthorities( User user )
+    {
+        if ( user != null && user.getUserCredentials() != null )
+        {
+            user.getUserCredentials().getAllAuthorities();
+        }
+    }
+
+    private TrackerValidationHookTimerReport getResult( Future<TrackerValidationHookTimerReport> future )
+    {
+        try
+        {
+            return future.get();
+        }
+        catch ( ExecutionException e )
+        {
+            if ( e.getCause() instanceof RuntimeException )
+            {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new IllegalStateException( e.getCause() );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException( "Tracker validation was interrupted", e );
+        }
+    }
+
+    private TrackerValidationHookTimerReport timerReport( TrackerValidationHook hook, Timer hookTimer )
+    {
+        return TrackerValidationHookTimerReport.builder()
+            .name( hook.getClass().getName() )
+            .totalTime( hookTimer.toString() ).build();
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        executor.shutdownNow();
+    }
+
     private void removeInvalidObjects( TrackerBundle bundle, ValidationErrorReporter reporter )
     {
         bundle.setEvents( bundle.getEvents().stream().filter(
@@ -27,6 +27,7 @@
  */
 package org.hisp.dhis.tracker.validation;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -85,6 +86,22 @@ public class TrackerImportValidationContext
         this.rootReporter = ValidationErrorReporter.emptyReporter();
     }
 
+    /**
+     * Creates a context for a hook running concurrently with other hooks. The
+     * bundle and the caches are shared with this context, while errors are
+     * accumulated in a separate root reporter which only knows about the
+     * objects found to be invalid so far.
+     */
+    public TrackerImportValidationContext fork()
+    {
+        TrackerImportValidationContext fork = new TrackerImportValidationContext( bundle );
+        fork.eventCocCacheMap = eventCocCacheMap;
+        fork.cachedEventAOCProgramCC = cachedEventAOCProgramCC;
+        rootReporter.getInvalidDTOs().forEach(
+            ( type, uids ) -> fork.rootReporter.getInvalidDTOs().put( type, new ArrayList<>( uids ) ) );
+        return fork;
+    }
+
     public TrackerImportStrategy getStrategy( TrackerDto dto )
     {
         return bundle.getResolvedStrategyMap().get( dto.getTrackerType() ).get( dto.getUid() );
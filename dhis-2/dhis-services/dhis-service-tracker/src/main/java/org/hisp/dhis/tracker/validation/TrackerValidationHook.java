@@ -40,6 +40,19 @@ public interface TrackerValidationHook extends Ordered
         return true;
     }
 
+    /**
+     * Whether this hook can run concurrently with other concurrent hooks. A
+     * concurrent hook must only read the bundle and the preheat, must not
+     * remove objects from the bundle and must not depend on errors reported
+     * by the hooks preceding it. It runs outside the Hibernate session of the
+     * import, so it must not initialize lazy associations. The authorities of
+     * the acting user are resolved before concurrent hooks run.
+     */
+    default boolean isConcurrent()
+    {
+        return false;
+    }
+
     ValidationErrorReporter validate( TrackerImportValidationContext bundle );
 
     void setOrder( int order );
@@ -154,4 +154,10 @@ public class EventDateValidationHook
 
         return eventStatus == EventStatus.ACTIVE || eventStatus == EventStatus.COMPLETED;
     }
+
+    @Override
+    public boolean isConcurrent()
+    {
+        return true;
+    }
 }
@@ -57,4 +57,10 @@ public class EventGeoValidationHook
                 programStage.getFeatureType() );
         }
     }
+
+    @Override
+    public boolean isConcurrent()
+    {
+        return true;
+    }
 }
@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.tracker.bundle.persister;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hisp.dhis.reservedvalue.ReservedValueService;
+import org.hisp.dhis.textpattern.TextPattern;
+import org.hisp.dhis.trackedentity.TrackedEntityAttribute;
+import org.hisp.dhis.trackedentity.TrackedEntityInstance;
+import org.hisp.dhis.trackedentity.TrackedEntityType;
+import org.hisp.dhis.trackedentityattributevalue.TrackedEntityAttributeValueAuditService;
+import org.hisp.dhis.tracker.AtomicMode;
+import org.hisp.dhis.tracker.bundle.TrackerBundle;
+import org.hisp.dhis.tracker.converter.TrackerConverterService;
+import org.hisp.dhis.tracker.domain.Attribute;
+import org.hisp.dhis.tracker.domain.TrackedEntity;
+import org.hisp.dhis.tracker.preheat.TrackerPreheat;
+import org.hisp.dhis.tracker.report.TrackerTypeReport;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith( MockitoJUnitRunner.class )
+public class TrackedEntityPersisterTest
+{
+    @Mock
+    private Session session;
+
+    @Mock
+    private ReservedValueService reservedValueService;
+
+    @Mock
+    private TrackerConverterService<TrackedEntity, TrackedEntityInstance> teConverter;
+
+    @Mock
+    private TrackedEntityAttributeValueAuditService auditService;
+
+    @Mock
+    private TrackerPreheat preheat;
+
+    private FlushMode sessionFlushMode = FlushMode.AUTO;
+
+    private TrackedEntityPersister persister;
+
+    @Before
+    public void setUp()
+    {
+        persister = new TrackedEntityPersister( reservedValueService, teConverter, auditService );
+
+        when( session.getHibernateFlushMode() ).thenAnswer( invocation -> sessionFlushMode );
+        lenient().doAnswer( invocation -> sessionFlushMode = invocation.getArgument( 0 ) )
+            .when( session ).setHibernateFlushMode( any() );
+        when( teConverter.from( any(), any() ) ).thenAnswer( invocation -> newTrackedEntityInstance() );
+    }
+
+    @Test
+    public void testBatchModeFlushesOncePerBatch()
+    {
+        when( session.getJdbcBatchSize() ).thenReturn( 20 );
+
+        TrackerTypeReport report = persister.persist( session,
+            getBundle( org.hisp.dhis.tracker.FlushMode.BATCH, getTrackedEntities( 501 ) ) );
+
+        assertEquals( 501, report.getStats().getCreated() );
+        verify( session ).setJdbcBatchSize( AbstractTrackerPersister.BATCH_SIZE );
+        verify( session ).setHibernateFlushMode( FlushMode.MANUAL );
+        // once after the first batch and once for the remainder
+        verify( session, times( 2 ) ).flush();
+        // session settings are restored
+        verify( session ).setJdbcBatchSize( 20 );
+        assertEquals( FlushMode.AUTO, sessionFlushMode );
+    }
+
+    @Test
+    public void testAutoModeDoesNotChangeSession()
+    {
+        persister.persist( session,
+            getBundle( org.hisp.dhis.tracker.FlushMode.AUTO, getTrackedEntities( 10 ) ) );
+
+        verify( session, never() ).setJdbcBatchSize( anyInt() );
+        verify( session, never() ).setHibernateFlushMode( any() );
+        verify( session, never() ).flush();
+    }
+
+    @Test
+    public void testBatchModeFlushesBeforeReservedValueQuery()
+    {
+        TrackedEntityAttribute attribute = new TrackedEntityAttribute();
+        attribute.setUid( "AttributeUid" );
+        attribute.setGenerated( true );
+        attribute.setTextPattern( new TextPattern() );
+
+        when( preheat.get( TrackedEntityAttribute.class, "AttributeUid" ) ).thenReturn( attribute );
+
+        TrackedEntity trackedEntity = TrackedEntity.builder()
+            .trackedEntity( "TrackedEnt1" )
+            .attributes( Collections.singletonList( Attribute.builder()
+                .attribute( "AttributeUid" )
+                .value( "ABC123" )
+                .build() ) )
+            .build();
+
+        persister.persist( session,
+            getBundle( org.hisp.dhis.tracker.FlushMode.BATCH, Collections.singletonList( trackedEntity ) ) );
+
+        InOrder inOrder = inOrder( session, reservedValueService );
+        inOrder.verify( session ).persist( any( TrackedEntityInstance.class ) );
+        inOrder.verify( session ).flush();
+        inOrder.verify( reservedValueService ).useReservedValue( attribute.getTextPattern(), "ABC123" );
+    }
+
+    @Test
+    public void testAutoModeDoesNotFlushBeforeReservedValueQuery()
+    {
+        TrackedEntityAttribute attribute = new TrackedEntityAttribute();
+        attribute.setUid( "AttributeUid" );
+        attribute.setGenerated( true );
+        attribute.setTextPattern( new TextPattern() );
+
+        when( preheat.get( TrackedEntityAttribute.class, "AttributeUid" ) ).thenReturn( attribute );
+
+        TrackedEntity trackedEntity = TrackedEntity.builder()
+            .trackedEntity( "TrackedEnt1" )
+            .attributes( Collections.singletonList( Attribute.builder()
+                .attribute( "AttributeUid" )
+                .value( "ABC123" )
+                .build() ) )
+            .build();
+
+        persister.persist( session,
+            getBundle( org.hisp.dhis.tracker.FlushMode.AUTO, Collections.singletonList( trackedEntity ) ) );
+
+        verify( reservedValueService ).useReservedValue( attribute.getTextPattern(), "ABC123" );
+        verify( session, never() ).flush();
+    }
+
+    private TrackerBundle getBundle( org.hisp.dhis.tracker.FlushMode flushMode, List<TrackedEntity> trackedEntities )
+    {
+        return TrackerBundle.builder()
+            .preheat( preheat )
+            .atomicMode( AtomicMode.ALL )
+            .flushMode( flushMode )
+            .skipSideEffects( true )
+            .trackedEntities( trackedEntities )
+            .build();
+    }
+
+    private List<TrackedEntity> getTrackedEntities( int count )
+    {
+        List<TrackedEntity> trackedEntities = new ArrayList<>();
+
+        for ( int i = 0; i < count; i++ )
+        {
+            trackedEntities.add( TrackedEntity.builder().trackedEntity( "TrackedEnt" + i ).build() );
+        }
+
+        return trackedEntities;
+    }
+
+    private TrackedEntityInstance newTrackedEntityInstance()
+    {
+        TrackedEntityType trackedEntityType = new TrackedEntityType();
+        trackedEntityType.setAllowAuditLog( false );
+
+        TrackedEntityInstance trackedEntityInstance = new TrackedEntityInstance();
+        trackedEntityInstance.setTrackedEntityType( trackedEntityType );
+
+        return trackedEntityInstance;
+    }
+}
@@ -27,7 +27,9 @@
  */
 package org.hisp.dhis.tracker.preheat;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 import java.util.Collections;
@@ -42,6 +44,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
@@ -64,6 +67,9 @@ public class DefaultTrackerPreheatServiceTest
     @Mock
     private ClassBasedSupplier classBasedSupplier;
 
+    @Mock
+    private ProgramOrgUnitsSupplier programOrgUnitsSupplier;
+
     @Mock
     private ApplicationContext applicationContext;
 
@@ -131,6 +137,29 @@ public class DefaultTrackerPreheatServiceTest
         verify( classBasedSupplier ).add( any(), any() );
     }
 
+    @Test
+    public void shouldRunSuppliersAfterTheirDependencies()
+    {
+        preheatService = new DefaultTrackerPreheatService( manager, ImmutableList.of(
+            ProgramOrgUnitsSupplier.class.getSimpleName(), ClassBasedSupplier.class.getSimpleName() ) );
+        preheatService.setApplicationContext( applicationContext );
+
+        when( applicationContext.getBean( eq( "classBasedSupplier" ), eq( PreheatSupplier.class ) ) )
+            .thenReturn( classBasedSupplier );
+        when( applicationContext.getBean( eq( "programOrgUnitsSupplier" ), eq( PreheatSupplier.class ) ) )
+            .thenReturn( programOrgUnitsSupplier );
+
+        TrackerPreheat preheat = preheatService.preheat( preheatParams );
+
+        InOrder inOrder = inOrder( classBasedSupplier, programOrgUnitsSupplier );
+        inOrder.verify( classBasedSupplier ).add( any(), any() );
+        inOrder.verify( programOrgUnitsSupplier ).add( any(), any() );
+
+        assertEquals( ImmutableList.of( ProgramOrgUnitsSupplier.class.getSimpleName(),
+            ClassBasedSupplier.class.getSimpleName() ),
+            ImmutableList.copyOf( preheat.getSupplierTimings().keySet() ) );
+    }
+
     private User getUser()
     {
         User user = new User();
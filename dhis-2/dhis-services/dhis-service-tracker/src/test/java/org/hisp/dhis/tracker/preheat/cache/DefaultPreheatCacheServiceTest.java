@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.tracker.preheat.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.hisp.dhis.common.event.MetadataChangedEvent;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.program.Program;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.core.env.Environment;
+
+public class DefaultPreheatCacheServiceTest
+{
+    @Mock
+    private DhisConfigurationProvider config;
+
+    @Mock
+    private Environment environment;
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    private DefaultPreheatCacheService cacheService;
+
+    private Program program;
+
+    @Before
+    public void setUp()
+    {
+        when( environment.getActiveProfiles() ).thenReturn( new String[] {} );
+        when( config.isEnabled( ConfigurationKey.TRACKER_IMPORT_PREHEAT_CACHE_ENABLED ) ).thenReturn( true );
+
+        cacheService = new DefaultPreheatCacheService( config, environment );
+
+        program = new Program( "programA" );
+        program.setUid( "PrgUid00001" );
+    }
+
+    @Test
+    public void shouldReturnCachedObjects()
+    {
+        cacheService.put( Program.class.getName(), program.getUid(), program, 10, -1, cacheService.getVersion() );
+
+        assertTrue( cacheService.hasKey( Program.class.getName() ) );
+        assertEquals( program, cacheService.get( Program.class.getName(), program.getUid() ).get() );
+        assertEquals( List.of( program ), cacheService.getAll( Program.class.getName() ) );
+        assertFalse( cacheService.get( Program.class.getName(), "PrgUid00002" ).isPresent() );
+    }
+
+    @Test
+    public void shouldNotCacheObjectsWhenDisabled()
+    {
+        when( config.isEnabled( ConfigurationKey.TRACKER_IMPORT_PREHEAT_CACHE_ENABLED ) ).thenReturn( false );
+
+        cacheService.put( Program.class.getName(), program.getUid(), program, 10, -1, cacheService.getVersion() );
+
+        assertFalse( cacheService.hasKey( Program.class.getName() ) );
+        assertFalse( cacheService.get( Program.class.getName(), program.getUid() ).isPresent() );
+    }
+
+    @Test
+    public void shouldInvalidateAllObjectsOnMetadataChange()
+    {
+        cacheService.put( Program.class.getName(), program.getUid(), program, 10, -1, cacheService.getVersion() );
+
+        cacheService.handleMetadataChanged( new MetadataChangedEvent( this, List.of( DataElement.class ), true ) );
+
+        assertFalse( cacheService.hasKey( Program.class.getName() ) );
+        assertFalse( cacheService.get( Program.class.getName(), program.getUid() ).isPresent() );
+    }
+
+    @Test
+    public void shouldNotCacheObjectsLoadedBeforeMetadataChange()
+    {
+        long version = cacheService.getVersion();
+
+        cacheService.handleMetadataChanged( new MetadataChangedEvent( this, List.of( Program.class ), true ) );
+
+        cacheService.put( Program.class.getName(), program.getUid(), program, 10, -1, version );
+
+        assertFalse( cacheService.hasKey( Program.class.getName() ) );
+        assertFalse( cacheService.get( Program.class.getName(), program.getUid() ).isPresent() );
+    }
+
+    @Test
+    public void shouldCacheObjectsLoadedAfterMetadataChange()
+    {
+        cacheService.put( Program.class.getName(), program.getUid(), program, 10, -1, cacheService.getVersion() );
+
+        cacheService.handleMetadataChanged( new MetadataChangedEvent( this, List.of( Program.class ), true ) );
+
+        assertFalse( cacheService.hasKey( Program.class.getName() ) );
+
+        cacheService.put( Program.class.getName(), program.getUid(), program, 10, -1, cacheService.getVersion() );
+
+        assertEquals( List.of( program ), cacheService.getAll( Program.class.getName() ) );
+        assertTrue( cacheService.get( Program.class.getName(), program.getUid() ).isPresent() );
+    }
+}
@@ -27,6 +27,7 @@
  */
 package org.hisp.dhis.tracker.validation;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
@@ -35,14 +36,17 @@ import java.util.Arrays;
 
 import org.hisp.dhis.tracker.ValidationMode;
 import org.hisp.dhis.tracker.bundle.TrackerBundle;
+import org.hisp.dhis.tracker.domain.Event;
 import org.hisp.dhis.tracker.report.TrackerErrorCode;
 import org.hisp.dhis.tracker.report.TrackerValidationReport;
 import org.hisp.dhis.tracker.report.ValidationErrorReporter;
 import org.hisp.dhis.tracker.validation.hooks.*;
 import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserCredentials;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
@@ -63,6 +67,12 @@ public class DefaultTrackerValidationServiceTest
     @Mock
     private EventDataValuesValidationHook eventDataValuesValidationHook;
 
+    @Mock
+    private EventGeoValidationHook eventGeoValidationHook;
+
+    @Mock
+    private EventDateValidationHook eventDateValidationHook;
+
     @Mock
     private TrackerBundle bundle;
 
@@ -156,4 +166,67 @@ public class DefaultTrackerValidationServiceTest
         verify( trackedEntityAttributeValidationHook, times( 1 ) ).validate( any() );
         assertTrue( validationErrorReporter.hasErrors() );
     }
+
+    @Test
+    public void shouldMergeErrorsOfConcurrentHooks()
+    {
+        ReflectionTestUtils.setField( trackerValidationService, "validationHooks",
+            Arrays.asList( eventGeoValidationHook, eventDateValidationHook ) );
+
+        when( bundle.getUser() ).thenReturn( user );
+        when( bundle.getValidationMode() ).thenReturn( ValidationMode.FULL );
+        when( user.isSuper() ).thenReturn( false );
+
+        when( eventGeoValidationHook.isEnabled() ).thenReturn( true );
+        when( eventGeoValidationHook.isConcurrent() ).thenReturn( true );
+        when( eventGeoValidationHook.validate( any() ) ).thenAnswer( i -> addError( i.getArgument( 0 ), "eventA" ) );
+
+        when( eventDateValidationHook.isEnabled() ).thenReturn( true );
+        when( eventDateValidationHook.isConcurrent() ).thenReturn( true );
+        when( eventDateValidationHook.validate( any() ) ).thenAnswer( i -> addError( i.getArgument( 0 ), "eventB" ) );
+
+        TrackerValidationReport validationReport = trackerValidationService.validate( bundle );
+
+        verify( eventGeoValidationHook, times( 1 ) ).validate( any() );
+        verify( eventDateValidationHook, times( 1 ) ).validate( any() );
+        assertEquals( 2, validationReport.getErrorReports().size() );
+        assertEquals( "eventA", validationReport.getErrorReports().get( 0 ).getUid() );
+        assertEquals( "eventB", validationReport.getErrorReports().get( 1 ).getUid() );
+    }
+
+    @Test
+    public void shouldResolveUserAuthoritiesBeforeConcurrentHooks()
+    {
+        ReflectionTestUtils.setField( trackerValidationService, "validationHooks",
+            Arrays.asList( eventGeoValidationHook, eventDateValidationHook ) );
+
+        UserCredentials userCredentials = mock( UserCredentials.class );
+
+        when( bundle.getUser() ).thenReturn( user );
+        when( bundle.getValidationMode() ).thenReturn( ValidationMode.FULL );
+        when( user.getUserCredentials() ).thenReturn( userCredentials );
+
+        when( eventGeoValidationHook.isEnabled() ).thenReturn( true );
+        when( eventGeoValidationHook.isConcurrent() ).thenReturn( true );
+        when( eventGeoValidationHook.validate( any() ) ).thenReturn( ValidationErrorReporter.emptyReporter() );
+
+        when( eventDateValidationHook.isEnabled() ).thenReturn( true );
+        when( eventDateValidationHook.isConcurrent() ).thenReturn( true );
+        when( eventDateValidationHook.validate( any() ) ).thenReturn( ValidationErrorReporter.emptyReporter() );
+
+        trackerValidationService.validate( bundle );
+
+        InOrder inOrder = inOrder( userCredentials, eventGeoValidationHook );
+        inOrder.verify( userCredentials ).getAllAuthorities();
+        inOrder.verify( eventGeoValidationHook ).validate( any() );
+    }
+
+    private ValidationErrorReporter addError( TrackerImportValidationContext context, String event )
+    {
+        ValidationErrorReporter reporter = new ValidationErrorReporter( context,
+            Event.builder().event( event ).build() );
+        reporter.addError( ValidationErrorReporter.newReport( TrackerErrorCode.E1012 ) );
+        context.getRootReporter().merge( reporter );
+        return context.getRootReporter();
+    }
 }
@@ -150,4 +150,10 @@ public class EnrollmentNoteValidationHookTest
         assertThat( enrollment.getNotes(), hasSize( 5 ) );
     }
 
+    @Test
+    public void testHookIsNotConcurrent()
+    {
+        // The hook removes duplicate notes from the bundle objects
+        assertFalse( hook.isConcurrent() );
+    }
 }
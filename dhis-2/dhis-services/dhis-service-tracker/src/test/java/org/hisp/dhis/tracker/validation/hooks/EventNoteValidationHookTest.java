@@ -150,4 +150,10 @@ public class EventNoteValidationHookTest
         assertThat( event.getNotes(), hasSize( 5 ) );
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testHookIsNotConcurrent()
+    {
+        // The hook removes duplicate notes from the bundle objects
+        assertFalse( hook.isConcurrent() );
+    }
+}
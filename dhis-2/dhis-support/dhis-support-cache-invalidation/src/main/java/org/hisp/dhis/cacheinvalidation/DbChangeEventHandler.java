@@ -32,6 +32,8 @@ import static org.hisp.dhis.cacheinvalidation.TableNameToEntityMapping.printEnti
 import java.io.Serializable;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -44,7 +46,10 @@ import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hisp.dhis.cache.PaginationCacheManager;
 import org.hisp.dhis.cache.QueryCacheManager;
+import org.hisp.dhis.common.MetadataObject;
+import org.hisp.dhis.common.event.MetadataChangedEvent;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
@@ -85,6 +90,9 @@ public class DbChangeEventHandler
     @Autowired
     private TableNameToEntityMapping tableNameToEntityMapping;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Called by the {@link io.debezium.embedded.EmbeddedEngine}'s event
      * handler. Configured in {@link DebeziumService#startDebeziumEngine()}
@@ -241,6 +249,25 @@ public class DbChangeEventHandler
 
             evictCollections( entityClasses, entityId );
         }
+
+        publishMetadataChanges( entityClasses );
+    }
+
+    /**
+     * Notifies listeners of changes to metadata objects, so that caches of
+     * metadata outside of Hibernate can be invalidated as well.
+     */
+    private void publishMetadataChanges( List<Object[]> entityClasses )
+    {
+        Set<Class<?>> metadataClasses = entityClasses.stream()
+            .map( entityAndRole -> (Class<?>) entityAndRole[0] )
+            .filter( MetadataObject.class::isAssignableFrom )
+            .collect( Collectors.toSet() );
+
+        if ( !metadataClasses.isEmpty() )
+        {
+            eventPublisher.publishEvent( new MetadataChangedEvent( this, metadataClasses, true ) );
+        }
     }
 
     private void evictCollections( List<Object[]> entityAndRoles, Serializable id )
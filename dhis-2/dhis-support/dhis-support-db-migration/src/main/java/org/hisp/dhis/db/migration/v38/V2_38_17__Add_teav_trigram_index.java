@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.db.migration.v38;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Adds a trigram GIN index on lower(value) of tracked entity attribute values,
+ * which lets tracked entity instance searches by query or like filters use an
+ * index instead of scanning all attribute values. The index requires the
+ * pg_trgm extension, which can only be created by a sufficiently privileged
+ * database user. If the extension or index can not be created, a warning is
+ * logged and searches keep working without the index.
+ * <p>
+ * By setting canExecuteInTransaction to false, the index is created
+ * concurrently and a failure does not abort the other migrations.
+ */
+@Slf4j
+public class V2_38_17__Add_teav_trigram_index extends BaseJavaMigration
+{
+    @Override
+    public void migrate( Context context )
+    {
+        try ( Statement statement = context.getConnection().createStatement() )
+        {
+            statement.execute( "create extension if not exists pg_trgm" );
+            statement.execute( "create index concurrently if not exists in_trackedentityattributevalue_value_trgm " +
+                "on trackedentityattributevalue using gin (lower(value) gin_trgm_ops)" );
+        }
+        catch ( SQLException e )
+        {
+            log.warn( "Could not create trigram index on table 'trackedentityattributevalue'. " +
+                "Install the pg_trgm extension as a superuser with \"create extension pg_trgm;\" " +
+                "to speed up tracked entity instance searches. Error message was: " + e.getMessage() );
+        }
+    }
+
+    @Override
+    public boolean canExecuteInTransaction()
+    {
+        return false;
+    }
+}
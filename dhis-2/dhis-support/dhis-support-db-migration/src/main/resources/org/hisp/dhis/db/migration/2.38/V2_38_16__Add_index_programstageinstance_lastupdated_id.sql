@@ -0,0 +1,2 @@
+
+create index if not exists "in_programstageinstance_lastupdated_id" on programstageinstance (lastupdated, programstageinstanceid);
@@ -0,0 +1,19 @@
+create table if not exists reservedvaluepoolkey (
+    trackedentityattributeid bigint not null,
+    key character varying(255) not null,
+    lastrequested timestamp without time zone not null,
+    primary key (trackedentityattributeid, key),
+    constraint fk_reservedvaluepoolkey_trackedentityattributeid foreign key (trackedentityattributeid)
+        references trackedentityattribute(trackedentityattributeid) on delete cascade
+);
+
+create table if not exists reservedvaluepool (
+    reservedvaluepoolid bigserial not null primary key,
+    trackedentityattributeid bigint not null,
+    key character varying(255) not null,
+    value character varying(255) not null,
+    created timestamp without time zone not null,
+    constraint uk_reservedvaluepool_value unique (trackedentityattributeid, key, value),
+    constraint fk_reservedvaluepool_key foreign key (trackedentityattributeid, key)
+        references reservedvaluepoolkey(trackedentityattributeid, key) on delete cascade
+);
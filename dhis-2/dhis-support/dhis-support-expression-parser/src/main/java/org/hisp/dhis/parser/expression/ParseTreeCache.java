@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.parser.expression;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.antlr.v4.runtime.tree.AbstractParseTreeVisitor;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeVisitor;
+import org.hisp.dhis.antlr.Parser;
+import org.hisp.dhis.antlr.ParserException;
+import org.hisp.dhis.cache.Cache;
+
+/**
+ * Holds the parse trees of recently evaluated expressions, so that an
+ * expression which is evaluated for many organisation units and periods is
+ * only lexed and parsed once. A parse tree is not modified by the visitors
+ * walking it and can be shared between threads.
+ * <p>
+ * Expressions are parsed by {@link Parser}, so lexing, parsing and error
+ * reporting are the same as for expressions which are not cached.
+ */
+public class ParseTreeCache
+{
+    /**
+     * Returns the root of the parse tree it is asked to visit, which lets
+     * {@link Parser} build the tree without walking it.
+     */
+    private static final ParseTreeVisitor<ParseTree> ROOT_VISITOR = new AbstractParseTreeVisitor<>()
+    {
+        @Override
+        public ParseTree visit( ParseTree tree )
+        {
+            return tree;
+        }
+    };
+
+    private final Cache<ParseTree> cache;
+
+    public ParseTreeCache( Cache<ParseTree> cache )
+    {
+        checkNotNull( cache );
+
+        this.cache = cache;
+    }
+
+    /**
+     * Visits the parse tree of an expression, parsing the expression only if
+     * its parse tree is not already cached.
+     *
+     * @param expression the expression to visit.
+     * @param visitor the visitor to walk the parse tree with.
+     * @return the value returned by the visitor.
+     * @throws ParserException if the expression cannot be parsed.
+     */
+    public Object visit( String expression, ParseTreeVisitor<?> visitor )
+    {
+        return visitor.visit( getParseTree( expression ) );
+    }
+
+    /**
+     * Gets the parse tree of an expression, from the cache if present.
+     * Expressions with syntax errors are not cached.
+     *
+     * @param expression the expression to parse.
+     * @return the parse tree.
+     * @throws ParserException if the expression cannot be parsed.
+     */
+    public ParseTree getParseTree( String expression )
+    {
+        return cache.get( expression, ParseTreeCache::parse );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private static ParseTree parse( String expression )
+    {
+        return (ParseTree) Parser.visit( expression, ROOT_VISITOR );
+    }
+}
@@ -315,6 +315,24 @@ public enum ConfigurationKey
      */
     REDIS_ENABLED( "redis.enabled", Constants.FALSE, false ),
 
+    /**
+     * Enable a local near cache in front of each redis cache region, kept
+     * coherent across nodes through redis pub/sub. (default: false)
+     */
+    REDIS_NEAR_CACHE_ENABLED( "redis.near_cache.enabled", Constants.FALSE, false ),
+
+    /**
+     * Max number of entries of the near cache of a redis cache region, limited
+     * further by the max size of the region. (default: 10000)
+     */
+    REDIS_NEAR_CACHE_MAX_SIZE( "redis.near_cache.max_size", "10000", false ),
+
+    /**
+     * Max time in seconds an entry lives in a near cache, which bounds
+     * staleness if an invalidation message is lost. (default: 300)
+     */
+    REDIS_NEAR_CACHE_EXPIRATION( "redis.near_cache.expiration", "300", false ),
+
     /**
      * Allows Flyway migrations to be run "out of order".
      * <p>
@@ -339,6 +357,36 @@ public enum ConfigurationKey
      */
     ANALYTICS_CACHE_EXPIRATION( "analytics.cache.expiration", "0" ),
 
+    /**
+     * Max estimated size in megabytes of the cached results of analytics
+     * sub-queries held in memory. (default: 100)
+     */
+    ANALYTICS_QUERY_CACHE_MAX_SIZE( "analytics.query.cache.max_size_mb", "100", false ),
+
+    /**
+     * Max number of analytics sub-queries executing concurrently across all
+     * users. (default: 32)
+     */
+    ANALYTICS_QUERY_MAX_CONCURRENT( "analytics.query.max_concurrent", "32", false ),
+
+    /**
+     * Max number of analytics sub-queries executing or queued concurrently for
+     * a single user. (default: 8)
+     */
+    ANALYTICS_QUERY_MAX_CONCURRENT_PER_USER( "analytics.query.max_concurrent_per_user", "8", false ),
+
+    /**
+     * Max number of analytics sub-queries waiting for execution across all
+     * users. (default: 1000)
+     */
+    ANALYTICS_QUERY_MAX_QUEUED( "analytics.query.max_queued", "1000", false ),
+
+    /**
+     * Max time in seconds to wait for admission of an analytics sub-query when
+     * the per-user limit is reached. (default: 60)
+     */
+    ANALYTICS_QUERY_ADMISSION_TIMEOUT( "analytics.query.admission_timeout", "60", false ),
+
     /**
      * Artemis support mode, 2 modes supported: EMBEDDED (starts up an embedded
      * Artemis which lives in the same process as your DHIS2 instance), NATIVE
@@ -455,6 +503,21 @@ public enum ConfigurationKey
      */
     MONITORING_CPU_ENABLED( "monitoring.cpu.enabled", Constants.OFF, false ),
 
+    /**
+     * Analytics query executor monitoring. (default: off)
+     */
+    MONITORING_ANALYTICS_ENABLED( "monitoring.analytics.enabled", Constants.OFF, false ),
+
+    /**
+     * Capped local cache monitoring. (default: off)
+     */
+    MONITORING_CACHE_ENABLED( "monitoring.cache.enabled", Constants.OFF, false ),
+
+    /**
+     * Audit consumer monitoring. (default: off)
+     */
+    MONITORING_AUDIT_ENABLED( "monitoring.audit.enabled", Constants.OFF, false ),
+
     /**
      * AppHub base URL. (default: https://apps.dhis2.org).
      */
@@ -477,6 +540,33 @@ public enum ConfigurationKey
      */
     CHANGELOG_TRACKER( "changelog.tracker", Constants.ON ),
 
+    /**
+     * Enable/disable caching of metadata in the tracker import preheat. The
+     * cache is invalidated on metadata changes. (default: off)
+     */
+    TRACKER_IMPORT_PREHEAT_CACHE_ENABLED( "tracker.import.preheat.cache.enabled", Constants.OFF, false ),
+
+    /**
+     * Maximum number of best ranked tracked entity instances returned when
+     * searching attribute values by query, applied after the org unit, program
+     * ownership and tracked entity type constraints, 0 means no limit.
+     * (default: 0)
+     */
+    TRACKER_SEARCH_MAX_CANDIDATES( "tracker.search.max_candidates", "0", false ),
+
+    /**
+     * Number of pre-generated values kept per attribute and pattern key for
+     * tracked entity attributes with generated text patterns, 0 disables the
+     * pools. (default: 0)
+     */
+    RESERVED_VALUE_POOL_SIZE( "reservedvalue.pool.size", "0", false ),
+
+    /**
+     * Number of pooled values below which a pool is refilled, 0 means half the
+     * pool size. (default: 0)
+     */
+    RESERVED_VALUE_POOL_LOW_WATER_MARK( "reservedvalue.pool.low_water_mark", "0", false ),
+
     /**
      * Use in-memory queue before sending audits into the Artemis queue.
      * (default: off).
@@ -494,6 +584,23 @@ public enum ConfigurationKey
      */
     AUDIT_DATABASE( "audit.database", Constants.OFF, false ),
 
+    /**
+     * Save audits to the database in batches. Audits are buffered and saved
+     * when the batch size or the batch interval is reached. (default: off).
+     */
+    AUDIT_DATABASE_BATCH_ENABLED( "audit.database.batch.enabled", Constants.OFF, false ),
+
+    /**
+     * Max number of audits saved to the database in one batch. (default: 500).
+     */
+    AUDIT_DATABASE_BATCH_SIZE( "audit.database.batch.size", "500", false ),
+
+    /**
+     * Max time in milliseconds an audit is buffered before it is saved to the
+     * database. (default: 1000).
+     */
+    AUDIT_DATABASE_BATCH_INTERVAL( "audit.database.batch.interval", "1000", false ),
+
     /**
      * Sets the audit matrix for metadata. (default: none).
      */
@@ -615,6 +722,18 @@ public enum ConfigurationKey
 
     ACTIVE_READ_REPLICAS( "active.read.replicas", "0", false ),
 
+    /**
+     * Maximum replication lag in seconds for a read replica to receive
+     * queries, 0 disables the check (default: 30).
+     */
+    READ_REPLICA_MAX_LAG( "read.replica.max_lag", "30", false ),
+
+    /**
+     * Interval in seconds between availability and replication lag probes of
+     * read replicas, 0 disables probing (default: 10).
+     */
+    READ_REPLICA_PROBE_INTERVAL( "read.replica.probe_interval", "10", false ),
+
     /**
      * Allows enabling/disabling audits system-wide (without configuring the
      * audit matrix). (default: true)
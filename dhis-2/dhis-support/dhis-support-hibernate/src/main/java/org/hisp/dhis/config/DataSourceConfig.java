@@ -89,11 +89,32 @@ public class DataSourceConfig
         return jdbcTemplate;
     }
 
+    /**
+     * Template for read-only queries which must see the latest committed rows,
+     * like lookups during imports and access checks. Runs on the primary.
+     */
     @Bean( "readOnlyJdbcTemplate" )
     @DependsOn( "dataSource" )
     public JdbcTemplate readOnlyJdbcTemplate( @Qualifier( "dataSource" ) DataSource dataSource )
     {
-        DefaultReadOnlyDataSourceManager manager = new DefaultReadOnlyDataSourceManager( dhisConfig );
+        JdbcTemplate jdbcTemplate = new JdbcTemplate( dataSource );
+        jdbcTemplate.setFetchSize( 1000 );
+
+        return jdbcTemplate;
+    }
+
+    /**
+     * Template for read-only queries which tolerate replication lag, up to
+     * the configured maximum lag. Runs on the healthy read replicas, or on the
+     * primary if no replica is configured or healthy. Callers opt in by
+     * qualifier.
+     */
+    @Bean( "readReplicaJdbcTemplate" )
+    @DependsOn( "dataSource" )
+    public JdbcTemplate readReplicaJdbcTemplate( @Qualifier( "dataSource" ) DataSource dataSource )
+    {
+        DefaultReadOnlyDataSourceManager manager = new DefaultReadOnlyDataSourceManager( dhisConfig, dataSource );
+        manager.afterPropertiesSet();
 
         JdbcTemplate jdbcTemplate = new JdbcTemplate(
             MoreObjects.firstNonNull( manager.getReadOnlyDataSource(), dataSource ) );
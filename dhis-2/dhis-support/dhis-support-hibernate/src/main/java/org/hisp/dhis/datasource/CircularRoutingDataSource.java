@@ -27,36 +27,107 @@
  */
 package org.hisp.dhis.datasource;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.Collections;
-import java.util.Iterator;
+import java.sql.Statement;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import javax.sql.DataSource;
 
+import lombok.extern.slf4j.Slf4j;
+
 import org.springframework.jdbc.datasource.AbstractDataSource;
 
-import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
- * Data source implementation which routes to the configured target data sources
- * in a circular fashion.
+ * Data source implementation which routes to the configured target data
+ * sources. Each connection is taken from the healthy target with the fewest
+ * open connections, ties are broken in a circular fashion.
+ * <p>
+ * Targets are probed for availability and replication lag in the background,
+ * at most once per probe interval. Targets which cannot be connected to or
+ * which lag behind the primary by more than the maximum lag are skipped until
+ * a later probe succeeds. When no target is healthy, connections are taken
+ * from the fallback data source, or from any target if there is none.
  *
  * @author Lars Helge Overland
  */
+@Slf4j
 public class CircularRoutingDataSource
     extends AbstractDataSource
 {
-    private Iterator<DataSource> dataSourceIterator;
+    /**
+     * Returns the replication lag in seconds. A replica which is streaming
+     * from the primary and has replayed all received WAL is up to date even if
+     * the primary has been idle. A replica whose WAL receiver is not streaming
+     * lags by the time since its last replayed transaction, so that broken
+     * replication eventually exceeds the maximum lag. The status of the WAL
+     * receiver is only visible to members of pg_read_all_stats, for other
+     * users the lag is always the time since the last replayed transaction.
+     * The primary itself returns null.
+     */
+    static final String REPLICATION_LAG_SQL = "select case " +
+        "when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() " +
+        "and exists (select 1 from pg_stat_wal_receiver where status = 'streaming') then 0 " +
+        "else extract(epoch from now() - pg_last_xact_replay_timestamp()) end";
+
+    /**
+     * Runs the blocking probes, so that they never occupy threads of shared
+     * pools.
+     */
+    private static final ExecutorService PROBE_EXECUTOR = Executors.newSingleThreadExecutor(
+        new ThreadFactoryBuilder().setNameFormat( "read-replica-probe-%d" ).setDaemon( true ).build() );
+
+    private final List<Target> targets;
+
+    private final DataSource fallbackDataSource;
+
+    private final long maxLagSeconds;
+
+    private final long probeIntervalNanos;
 
-    public CircularRoutingDataSource()
+    private final AtomicInteger counter = new AtomicInteger();
+
+    private final AtomicBoolean probing = new AtomicBoolean();
+
+    private volatile long lastProbeNanos;
+
+    public CircularRoutingDataSource( List<DataSource> targetDataSources )
     {
+        this( targetDataSources, null, 0, 0 );
     }
 
-    public CircularRoutingDataSource( List<DataSource> targetDataSources )
+    /**
+     * @param targetDataSources the data sources to route to.
+     * @param fallbackDataSource the data source to use when no target is
+     *        healthy, can be null.
+     * @param maxLagSeconds the maximum replication lag in seconds of a healthy
+     *        target, 0 to not check the replication lag.
+     * @param probeIntervalSeconds the interval in seconds between probes of
+     *        the targets, 0 to not probe the targets.
+     */
+    public CircularRoutingDataSource( List<DataSource> targetDataSources, DataSource fallbackDataSource,
+        long maxLagSeconds, long probeIntervalSeconds )
     {
-        this.dataSourceIterator = Iterators.cycle( Collections.synchronizedList( targetDataSources ) );
+        checkArgument( !targetDataSources.isEmpty(), "At least one target data source is required" );
+
+        this.targets = targetDataSources.stream().map( Target::new ).collect( Collectors.toList() );
+        this.fallbackDataSource = fallbackDataSource;
+        this.maxLagSeconds = maxLagSeconds;
+        this.probeIntervalNanos = TimeUnit.SECONDS.toNanos( probeIntervalSeconds );
+        this.lastProbeNanos = System.nanoTime() - probeIntervalNanos;
     }
 
     // -------------------------------------------------------------------------
@@ -67,22 +138,194 @@ public class CircularRoutingDataSource
     public Connection getConnection()
         throws SQLException
     {
-        return getDataSource().getConnection();
+        return getConnection( DataSource::getConnection );
     }
 
     @Override
     public Connection getConnection( String username, String password )
         throws SQLException
     {
-        return getDataSource().getConnection( username, password );
+        return getConnection( dataSource -> dataSource.getConnection( username, password ) );
     }
 
     // -------------------------------------------------------------------------
     // Private methods
     // -------------------------------------------------------------------------
 
-    private synchronized DataSource getDataSource()
+    private Connection getConnection( ConnectionFactory factory )
+        throws SQLException
+    {
+        probeIfDue();
+
+        Target target = getTarget();
+
+        if ( target == null )
+        {
+            return factory.getConnection( fallbackDataSource );
+        }
+
+        target.openConnections.incrementAndGet();
+
+        try
+        {
+            return target.track( factory.getConnection( target.dataSource ) );
+        }
+        catch ( SQLException ex )
+        {
+            target.openConnections.decrementAndGet();
+            target.healthy = false;
+
+            log.warn( "Read replica connection failed, skipping replica until next probe: " + ex.getMessage() );
+
+            if ( fallbackDataSource != null )
+            {
+                return factory.getConnection( fallbackDataSource );
+            }
+
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns the healthy target with the fewest open connections, starting
+     * the search at the next target in circular order. If no target is
+     * healthy, returns null if there is a fallback data source, otherwise the
+     * next target in circular order.
+     */
+    private Target getTarget()
     {
-        return dataSourceIterator.next();
+        int size = targets.size();
+        int start = Math.floorMod( counter.getAndIncrement(), size );
+
+        Target selected = null;
+
+        for ( int i = 0; i < size; i++ )
+        {
+            Target target = targets.get( (start + i) % size );
+
+            if ( target.healthy && (selected == null
+                || target.openConnections.get() < selected.openConnections.get()) )
+            {
+                selected = target;
+            }
+        }
+
+        return selected == null && fallbackDataSource == null ? targets.get( start ) : selected;
+    }
+
+    /**
+     * Starts an asynchronous probe of all targets if the probe interval has
+     * passed and no probe is running.
+     */
+    private void probeIfDue()
+    {
+        if ( probeIntervalNanos <= 0 || System.nanoTime() - lastProbeNanos < probeIntervalNanos
+            || !probing.compareAndSet( false, true ) )
+        {
+            return;
+        }
+
+        PROBE_EXECUTOR.execute( () -> {
+            try
+            {
+                probeTargets();
+            }
+            finally
+            {
+                lastProbeNanos = System.nanoTime();
+                probing.set( false );
+            }
+        } );
+    }
+
+    /**
+     * Probes all targets for availability and replication lag.
+     */
+    void probeTargets()
+    {
+        targets.forEach( this::probe );
+    }
+
+    private void probe( Target target )
+    {
+        boolean wasHealthy = target.healthy;
+
+        try ( Connection connection = target.dataSource.getConnection();
+            Statement statement = connection.createStatement();
+            ResultSet resultSet = statement.executeQuery( REPLICATION_LAG_SQL ) )
+        {
+            double lagSeconds = resultSet.next() ? resultSet.getDouble( 1 ) : 0d;
+
+            target.healthy = maxLagSeconds <= 0 || lagSeconds <= maxLagSeconds;
+
+            if ( wasHealthy && !target.healthy )
+            {
+                log.warn( String.format( "Read replica lags %.1f seconds behind, skipping replica", lagSeconds ) );
+            }
+        }
+        catch ( SQLException ex )
+        {
+            target.healthy = false;
+
+            if ( wasHealthy )
+            {
+                log.warn( "Read replica probe failed, skipping replica: " + ex.getMessage() );
+            }
+        }
+
+        if ( !wasHealthy && target.healthy )
+        {
+            log.info( "Read replica is healthy again" );
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConnectionFactory
+    {
+        Connection getConnection( DataSource dataSource )
+            throws SQLException;
+    }
+
+    /**
+     * Target data source with its health and number of open connections.
+     */
+    private static class Target
+    {
+        private final DataSource dataSource;
+
+        private final AtomicInteger openConnections = new AtomicInteger();
+
+        private volatile boolean healthy = true;
+
+        private Target( DataSource dataSource )
+        {
+            this.dataSource = dataSource;
+        }
+
+        /**
+         * Wraps the given connection so that closing it decrements the number
+         * of open connections of this target.
+         */
+        private Connection track( Connection connection )
+        {
+            AtomicBoolean closed = new AtomicBoolean();
+
+            return (Connection) Proxy.newProxyInstance( CircularRoutingDataSource.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, ( proxy, method, args ) -> {
+                    if ( "close".equals( method.getName() ) && closed.compareAndSet( false, true ) )
+                    {
+                        openConnections.decrementAndGet();
+                    }
+
+                    try
+                    {
+                        return method.invoke( connection, args );
+                    }
+                    catch ( InvocationTargetException ex )
+                    {
+                        throw ex.getTargetException();
+                    }
+                } );
+        }
     }
 }
@@ -72,10 +72,21 @@ public class DefaultReadOnlyDataSourceManager
 
     private final DhisConfigurationProvider config;
 
+    /**
+     * Data source to use when no read replica is healthy, can be null.
+     */
+    private final DataSource fallbackDataSource;
+
     public DefaultReadOnlyDataSourceManager( DhisConfigurationProvider config )
+    {
+        this( config, null );
+    }
+
+    public DefaultReadOnlyDataSourceManager( DhisConfigurationProvider config, DataSource fallbackDataSource )
     {
         checkNotNull( config );
         this.config = config;
+        this.fallbackDataSource = fallbackDataSource;
     }
 
     /**
@@ -94,7 +105,9 @@ public class DefaultReadOnlyDataSourceManager
         List<DataSource> ds = getReadOnlyDataSources();
 
         this.internalReadOnlyInstanceList = ds;
-        this.internalReadOnlyDataSource = !ds.isEmpty() ? new CircularRoutingDataSource( ds ) : null;
+        this.internalReadOnlyDataSource = !ds.isEmpty() ? new CircularRoutingDataSource( ds, fallbackDataSource,
+            Long.parseLong( config.getProperty( ConfigurationKey.READ_REPLICA_MAX_LAG ) ),
+            Long.parseLong( config.getProperty( ConfigurationKey.READ_REPLICA_PROBE_INTERVAL ) ) ) : null;
     }
 
     // -------------------------------------------------------------------------
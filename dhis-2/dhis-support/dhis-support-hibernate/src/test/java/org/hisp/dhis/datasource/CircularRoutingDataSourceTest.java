@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.datasource;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+import javax.sql.DataSource;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link CircularRoutingDataSource}.
+ */
+public class CircularRoutingDataSourceTest
+{
+    private DataSource replicaA;
+
+    private DataSource replicaB;
+
+    private DataSource primary;
+
+    private Connection connectionA;
+
+    private Connection connectionB;
+
+    private Connection connectionPrimary;
+
+    @Before
+    public void setUp()
+        throws SQLException
+    {
+        replicaA = mock( DataSource.class );
+        replicaB = mock( DataSource.class );
+        primary = mock( DataSource.class );
+
+        connectionA = mock( Connection.class );
+        connectionB = mock( Connection.class );
+        connectionPrimary = mock( Connection.class );
+
+        when( replicaA.getConnection() ).thenReturn( connectionA );
+        when( replicaB.getConnection() ).thenReturn( connectionB );
+        when( primary.getConnection() ).thenReturn( connectionPrimary );
+    }
+
+    @Test
+    public void testRoutesToTargetWithFewestOpenConnections()
+        throws SQLException
+    {
+        CircularRoutingDataSource dataSource = new CircularRoutingDataSource(
+            Arrays.asList( replicaA, replicaB ), primary, 0, 0 );
+
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+        Connection third = dataSource.getConnection();
+
+        first.close();
+        third.close();
+
+        // next in circular order is B, but A has fewer open connections
+
+        dataSource.getConnection().isClosed();
+        second.isClosed();
+
+        verify( replicaA, times( 3 ) ).getConnection();
+        verify( replicaB, times( 1 ) ).getConnection();
+        verify( connectionA, times( 2 ) ).close();
+        verify( connectionA, times( 1 ) ).isClosed();
+        verify( connectionB, times( 1 ) ).isClosed();
+    }
+
+    @Test
+    public void testFailingTargetIsSkipped()
+        throws SQLException
+    {
+        when( replicaA.getConnection() ).thenThrow( new SQLException( "Connection refused" ) );
+
+        CircularRoutingDataSource dataSource = new CircularRoutingDataSource(
+            Arrays.asList( replicaA, replicaB ), primary, 0, 0 );
+
+        dataSource.getConnection().isClosed();
+        dataSource.getConnection().isClosed();
+        dataSource.getConnection().isClosed();
+
+        verify( replicaA, times( 1 ) ).getConnection();
+        verify( connectionPrimary, times( 1 ) ).isClosed();
+        verify( connectionB, times( 2 ) ).isClosed();
+    }
+
+    @Test
+    public void testFallsBackToPrimaryWhenNoTargetIsHealthy()
+        throws SQLException
+    {
+        when( replicaA.getConnection() ).thenThrow( new SQLException( "Connection refused" ) );
+
+        CircularRoutingDataSource dataSource = new CircularRoutingDataSource(
+            Arrays.asList( replicaA ), primary, 0, 0 );
+
+        dataSource.getConnection().isClosed();
+        dataSource.getConnection().isClosed();
+
+        verify( replicaA, times( 1 ) ).getConnection();
+        verify( connectionPrimary, times( 2 ) ).isClosed();
+    }
+
+    @Test( expected = SQLException.class )
+    public void testFailsWithoutFallback()
+        throws SQLException
+    {
+        when( replicaA.getConnection() ).thenThrow( new SQLException( "Connection refused" ) );
+
+        CircularRoutingDataSource dataSource = new CircularRoutingDataSource( Arrays.asList( replicaA ) );
+
+        dataSource.getConnection();
+    }
+
+    @Test
+    public void testUsesTargetWithoutFallback()
+        throws SQLException
+    {
+        CircularRoutingDataSource dataSource = new CircularRoutingDataSource( Arrays.asList( replicaA ) );
+
+        dataSource.getConnection().isClosed();
+
+        verify( connectionA ).isClosed();
+    }
+
+    @Test
+    public void testLaggingTargetIsSkippedAfterProbe()
+        throws SQLException
+    {
+        Statement statement = mock( Statement.class );
+        ResultSet resultSet = mock( ResultSet.class );
+
+        when( connectionA.createStatement() ).thenReturn( statement );
+        when( statement.executeQuery( CircularRoutingDataSource.REPLICATION_LAG_SQL ) ).thenReturn( resultSet );
+        when( resultSet.next() ).thenReturn( true );
+        when( resultSet.getDouble( 1 ) ).thenReturn( 60d );
+
+        CircularRoutingDataSource dataSource = new CircularRoutingDataSource(
+            Arrays.asList( replicaA ), primary, 30, 0 );
+
+        dataSource.probeTargets();
+
+        dataSource.getConnection().isClosed();
+
+        verify( connectionPrimary, times( 1 ) ).isClosed();
+        verify( connectionA, times( 0 ) ).isClosed();
+    }
+
+    @Test
+    public void testReplicationLagRequiresStreamingWalReceiver()
+    {
+        assertThat( CircularRoutingDataSource.REPLICATION_LAG_SQL,
+            containsString( "exists (select 1 from pg_stat_wal_receiver where status = 'streaming')" ) );
+    }
+}
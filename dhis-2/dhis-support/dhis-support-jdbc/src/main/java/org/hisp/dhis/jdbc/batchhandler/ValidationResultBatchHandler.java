@@ -27,6 +27,8 @@
  */
 package org.hisp.dhis.jdbc.batchhandler;
 
+import static org.hisp.dhis.util.DateUtils.getLongDateString;
+
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
@@ -102,26 +104,30 @@ public class ValidationResultBatchHandler
     public List<String> getColumns()
     {
         return getStringList(
+            "created",
             "leftsidevalue",
             "rightsidevalue",
             "validationruleid",
             "periodid",
             "organisationunitid",
             "attributeoptioncomboid",
-            "dayinperiod" );
+            "dayinperiod",
+            "notificationsent" );
     }
 
     @Override
     public List<Object> getValues( ValidationResult validationResult )
     {
         return getObjectList(
+            getLongDateString( validationResult.getCreated() ),
             validationResult.getLeftsideValue(),
             validationResult.getRightsideValue(),
             validationResult.getValidationRule().getId(),
             validationResult.getPeriod().getId(),
             validationResult.getOrganisationUnit().getId(),
             validationResult.getAttributeOptionCombo().getId(),
-            validationResult.getDayInPeriod() );
+            validationResult.getDayInPeriod(),
+            validationResult.getNotificationSent() );
     }
 
     @Override
@@ -28,6 +28,7 @@
 package org.hisp.dhis.cache;
 
 import java.time.Duration;
+import java.util.function.ToIntBiFunction;
 
 import org.hisp.dhis.common.event.ApplicationCacheClearedEvent;
 
@@ -46,12 +47,18 @@ public interface CacheProvider
 {
     <V> Cache<V> createAnalyticsResponseCache( Duration initialExpirationTime );
 
+    <V> Cache<V> createAnalyticsQueryCache( Duration initialExpirationTime, ToIntBiFunction<String, V> weigher );
+
+    <V> Cache<V> createAnalyticsTableVersionCache();
+
     <V> Cache<V> createDefaultObjectCache();
 
     <V> Cache<V> createIsDataApprovedCache();
 
     <V> Cache<V> createAllConstantsCache();
 
+    <V> Cache<V> createExpressionParseTreeCache();
+
     <V> Cache<V> createInUserOrgUnitHierarchyCache();
 
     <V> Cache<V> createInUserViewOrgUnitHierarchyCache();
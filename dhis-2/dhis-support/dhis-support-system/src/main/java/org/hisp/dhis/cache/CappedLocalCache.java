@@ -29,24 +29,15 @@ package org.hisp.dhis.cache;
 
 import static java.lang.Integer.parseInt;
 import static java.lang.Math.max;
-import static java.lang.System.currentTimeMillis;
+import static java.lang.Math.min;
 import static java.util.Collections.unmodifiableSet;
 
 import java.util.ArrayList;
-import java.util.Deque;
 import java.util.List;
-import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.function.Function;
-import java.util.function.LongConsumer;
-import java.util.function.UnaryOperator;
-import java.util.stream.Stream;
+import java.util.function.ToIntBiFunction;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -59,10 +50,16 @@ import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
 /**
- * The {@link CappedLocalCache} is a multi-region cache that tries to estimate
- * the memory usage of cache entries and prevent all cache regions from together
- * use over a configured cap limit.
+ * The {@link CappedLocalCache} is a multi-region cache that estimates the
+ * memory usage of cache entries and prevents all cache regions from together
+ * using more than a configured cap limit.
  *
  * The cap is in relation to the maximum heap memory available to the JVM.
  *
@@ -70,296 +67,75 @@ import org.springframework.stereotype.Component;
  * the cache is going to use at most. One has to remember that this is based on
  * estimated sizes of cached objects.
  *
- * Secondary cap settings are the soft and hard caps which are in relation to
- * the maximum memory the cache is using.
- *
- * When entries occupy memory beyond the hard cap the cache aggressively tries
- * to free memory by invalidating the entries it deems the most burden (the
- * least useful).
+ * The hard cap is in relation to the cap and is the memory which is divided
+ * between the regions. Each region gets a share of it proportional to its
+ * configured maximum size, but at least a minimum weight, so that the cap only
+ * trims the large regions. The maximum size of a region still limits its
+ * number of entries.
  *
- * When entries occupy memory beyond the soft cap the cache tries to free memory
- * each time a new entry is added by invalidating some entries deemed a burden.
+ * Each region is backed by a Caffeine cache weighted by the estimated size of
+ * its entries. Caffeine uses a frequency aware admission and eviction policy
+ * (W-TinyLFU) and does not lock on reads, so entries which are rarely used do
+ * not push out entries which are frequently used.
  *
- * The cache is organised by a map of regions, each having a map of entries.
- * Both regions and entries record metadata to distinguish entries that are a
- * burden from those that are useful.
- *
- * A watcher thread uses the metadata to compose a list of high burden entries
- * in a regular interval. This list is used in case memory should be freed after
- * entries are inserted or overall memory of the JVM is reaching its maximum.
+ * The cache can be bound to a {@link MeterRegistry} to publish hit, miss,
+ * eviction and load time metrics per region.
  *
  * @author Jan Bernitt
  */
 @Slf4j
 @Component
-public class CappedLocalCache
+public class CappedLocalCache implements MeterBinder
 {
     /**
      * Only used to measure the {@link Sizeof} overhead of the
-     * {@link CacheEntry} itself.
+     * {@link WeightedLocalCache.CacheEntry} itself.
      */
-    public static final Object EMPTY = new CacheEntry<>( null, null, null, 0L, 0L, 0L );
+    public static final Object EMPTY = new WeightedLocalCache.CacheEntry<>( null, 0L );
 
     /**
-     * A {@link CacheRegion} works like a {@link Cache} facade for the
-     * underlying {@link CappedLocalCache} where all values share a single
-     * space.
+     * The share of the hard cap of a region which does not have a maximum
+     * size, relative to the maximum size of other regions.
+     */
+    private static final long UNBOUNDED_REGION_SHARE = 10_000L;
+
+    /**
+     * The minimum weight in bytes of a region, so that regions with a small
+     * maximum size, like single entry regions, are not starved by the
+     * proportional split of the hard cap.
+     */
+    static final long MINIMUM_REGION_WEIGHT = 1024L * 1024L;
+
+    /**
+     * A {@link CacheRegion} is a weighted Caffeine cache which has its share of
+     * the space of the {@link CappedLocalCache}.
      *
      * @param <V> type of values stored.
      */
-    private static final class CacheRegion<V> implements Cache<V>
+    private static final class CacheRegion<V> extends WeightedLocalCache<V>
     {
-        private final String region;
-
-        private final V defaultValue;
+        private final long share;
 
-        private final long defaultTtlInSeconds;
-
-        private final ConcurrentMap<String, CacheEntry<V>> entries = new ConcurrentHashMap<>();
-
-        private final LongConsumer sizeDeltaListener;
-
-        private final Sizeof sizeof;
-
-        private final long emptyEntrySize;
-
-        private final AtomicLong totalRegionSize = new AtomicLong();
-
-        private final AtomicLong hits = new AtomicLong();
-
-        private final AtomicLong misses = new AtomicLong();
-
-        CacheRegion( final CacheBuilder<V> builder, Sizeof sizeof, LongConsumer sizeDeltaListener )
+        CacheRegion( final CacheBuilder<V> builder, ToIntBiFunction<String, Object> weigher,
+            long maximumWeight )
         {
-            this.region = builder.getRegion();
+            super( builder, weigher::applyAsInt, maximumWeight );
             log.info( "Local capped cache instance created for region: '{}'", region );
-            this.defaultValue = builder.getDefaultValue();
-            this.defaultTtlInSeconds = builder.getExpiryInSeconds();
-            this.sizeof = sizeof;
-            this.emptyEntrySize = sizeof.sizeof( EMPTY );
-            this.sizeDeltaListener = sizeDeltaListener;
-        }
-
-        long getHits()
-        {
-            return hits.get();
-        }
-
-        long getMisses()
-        {
-            return misses.get();
-        }
-
-        @Override
-        public Optional<V> getIfPresent( String key )
-        {
-            return getOrDefault( key, value -> value );
-        }
-
-        @Override
-        public Optional<V> get( String key )
-        {
-            return getOrDefault( key, value -> value == null ? defaultValue : value );
-        }
-
-        private Optional<V> getOrDefault( String key, UnaryOperator<V> value )
-        {
-            CacheEntry<V> entry = entries.get( key );
-            if ( entry == null )
-            {
-                misses.incrementAndGet();
-                return Optional.empty();
-            }
-            if ( entry.isExpired( currentTimeMillis() ) )
-            {
-                invalidate( entry, true );
-                misses.incrementAndGet();
-                return Optional.empty();
-            }
-            hits.incrementAndGet();
-            return Optional.ofNullable( value.apply( entry.read() ) );
-        }
-
-        @Override
-        public V get( String key, Function<String, V> fetcher )
-        {
-            if ( null == fetcher )
-            {
-                throw new IllegalArgumentException( "MappingFunction cannot be null" );
-            }
-            CacheEntry<V> entry = entries.get( key );
-            long now = currentTimeMillis();
-            V value = entry == null || entry.isExpired( now ) ? null : entry.read();
-            if ( value != null )
-            {
-                hits.incrementAndGet();
-                return value;
-            }
-            misses.incrementAndGet();
-            value = fetcher.apply( key );
-            if ( value == null && entry != null && !entry.isExpired( now ) )
-            {
-                // still null, no entry update needed
-                return defaultValue;
-            }
-            // need new entry...
-            put( key, value );
-            return value == null ? defaultValue : value;
-        }
-
-        @Override
-        public Stream<V> getAll()
-        {
-            return entries.values().stream().map( CacheEntry::read );
-        }
-
-        @Override
-        public void put( String key, V value )
-        {
-            put( key, value, defaultTtlInSeconds );
-        }
-
-        @Override
-        public void put( String key, V value, long ttlInSeconds )
-        {
-            long entrySize = emptyEntrySize + sizeof.sizeof( key ) + sizeof.sizeof( value );
-            long now = currentTimeMillis();
-            CacheEntry<V> oldEntry = entries.put( key,
-                new CacheEntry<>( region, key, value, now, now + (ttlInSeconds * 1000L), entrySize ) );
-            long sizeDelta = entrySize - (oldEntry == null ? 0L : oldEntry.size);
-            totalRegionSize.addAndGet( sizeDelta );
-            sizeDeltaListener.accept( sizeDelta );
-        }
-
-        @Override
-        public void invalidate( String key )
-        {
-            invalidate( entries.remove( key ), false );
-        }
-
-        /**
-         * @param entry the entry to invalidate
-         * @param remove true, if the entry needs removing, false if the passed
-         *        entry already was removed
-         * @return true, if the entry wasn't already removed, else false
-         */
-        boolean invalidate( CacheEntry<?> entry, boolean remove )
-        {
-            if ( entry == null )
-            {
-                return false; // already removed by another thread
-            }
-            if ( remove && entries.remove( entry.key ) != entry )
-            {
-                return false; // already removed
-            }
-            long sizeDelta = -entry.size;
-            totalRegionSize.addAndGet( sizeDelta );
-            sizeDeltaListener.accept( sizeDelta );
-            return true;
+            this.share = builder.getMaximumSize() > 0 ? builder.getMaximumSize() : UNBOUNDED_REGION_SHARE;
         }
 
-        @Override
-        public void invalidateAll()
+        CacheGroupInfo getInfo()
         {
-            long sizeDelta = -totalRegionSize.get();
-            entries.clear();
-            totalRegionSize.set( 0L );
-            sizeDeltaListener.accept( sizeDelta );
-        }
-
-        @Override
-        public CacheType getCacheType()
-        {
-            return CacheType.IN_MEMORY;
+            CacheStats stats = entries.stats();
+            return new CacheGroupInfo( region, (int) min( entries.estimatedSize(), Integer.MAX_VALUE ),
+                stats.hitCount(), stats.missCount(), getWeightedSize(), 0d );
         }
 
         @Override
         public String toString()
         {
-            return region + "[" + CacheInfo.humanReadableSize( totalRegionSize.get() ) + " for " + entries.size()
-                + " entries]";
-        }
-    }
-
-    private static final class CacheEntry<V>
-    {
-
-        final String region;
-
-        final String key;
-
-        private final V value;
-
-        /**
-         * System time when this entry was cached
-         */
-        final long created;
-
-        /**
-         * System time when this entry expires
-         */
-        final long expires;
-
-        /**
-         * Number of bytes this entry is estimated to use in memory
-         */
-        final long size;
-
-        /**
-         * Number of read accesses since creation
-         */
-        private int reads;
-
-        CacheEntry( String region, String key, V value, long created, long expires, long size )
-        {
-            this.region = region;
-            this.key = key;
-            this.value = value;
-            this.created = created;
-            this.expires = expires;
-            this.size = size;
-        }
-
-        V read()
-        {
-            reads++;
-            return value;
-        }
-
-        public boolean isExpired( long now )
-        {
-            return now >= expires;
-        }
-
-        /**
-         * Is a number that expresses how much an entry contributes to memory
-         * usage. Higher is worse. Lower is better.
-         * <p>
-         * We want to get rid of the entries with highest burden.
-         * <p>
-         * Burden increases the less a value is accessed and the closer it gets
-         * to the end of it maximum lifespan - its expiry.
-         *
-         * @param now what to consider system time of now
-         * @return burden this entry causes for memory
-         */
-        public long burden( long now )
-        {
-            if ( isExpired( now ) )
-            {
-                return Long.MAX_VALUE;
-            }
-            long avgAccessTime = (now - created) / max( 1, reads );
-            double avgReadsPerSec = 1000d / avgAccessTime;
-            double lifespanLeftRatio = getRelativeBurden( expires - now, expires - created );
-            return (long) (size / avgReadsPerSec / (lifespanLeftRatio == 0d ? 0.0001 : lifespanLeftRatio));
-        }
-
-        @Override
-        public String toString()
-        {
-            return region + ":" + key + "[" + CacheInfo.humanReadableSize( size ) + "]";
+            return region + "[" + CacheInfo.humanReadableSize( getWeightedSize() ) + " for "
+                + entries.estimatedSize() + " entries]";
         }
     }
 
@@ -367,22 +143,14 @@ public class CappedLocalCache
 
     private final Sizeof sizeof;
 
-    private final AtomicLong totalSize = new AtomicLong();
-
-    private final AtomicReference<Deque<CacheEntry<?>>> highBurdenEntries = new AtomicReference<>(
-        new ConcurrentLinkedDeque<>() );
+    private final long emptyEntrySize;
 
-    private final AtomicBoolean guardRunning = new AtomicBoolean();
+    private volatile MeterRegistry meterRegistry;
 
-    private final Runtime runtime;
     /*
-     * Settings and Statistics
+     * Settings
      */
 
-    private final AtomicReference<CacheInfo> info = new AtomicReference<>();
-
-    private volatile long highBurdenThreshold = Long.MAX_VALUE;
-
     /**
      * In reference to the JVM max heap that is the absolute cap for the memory
      * used by this cache. For example 50 means half the JVM heap is used max.
@@ -395,8 +163,7 @@ public class CappedLocalCache
     private volatile long capSize;
 
     /**
-     * In reference to {@link #capSize}. If more than this percentage of the
-     * reference size is used entries are freed aggressively.
+     * In reference to {@link #capSize}. The memory divided between the regions.
      */
     private volatile int hardCapPercentage = 80;
 
@@ -406,17 +173,11 @@ public class CappedLocalCache
     private volatile long hardCapSize;
 
     /**
-     * In reference to {@link #capSize}. If more than this percentage of the
-     * reference size is used adding entries tries to compensate by freeing
-     * burden entries of the same or larger size.
+     * In reference to {@link #capSize}. Reported only, as entries are evicted
+     * by the region caches when they reach their share of the hard cap.
      */
     private volatile int softCapPercentage = 60;
 
-    /**
-     * {@link #softCapPercentage} of {@link #capSize}
-     */
-    private volatile long softCapSize;
-
     @Autowired
     public CappedLocalCache( DhisConfigurationProvider config )
     {
@@ -427,13 +188,21 @@ public class CappedLocalCache
     public CappedLocalCache( Sizeof sizeof, int capPercent )
     {
         this.sizeof = sizeof;
-        this.runtime = Runtime.getRuntime();
+        this.emptyEntrySize = sizeof.sizeof( EMPTY );
         setCapPercent( capPercent );
     }
 
     public CacheInfo getInfo()
     {
-        return info.get();
+        List<CacheGroupInfo> regionsInfo = new ArrayList<>();
+        regions.values().forEach( region -> regionsInfo.add( region.getInfo() ) );
+        CacheGroupInfo total = new CacheGroupInfo( "total",
+            regionsInfo.stream().mapToInt( CacheGroupInfo::getEntries ).sum(),
+            regionsInfo.stream().mapToLong( CacheGroupInfo::getHits ).sum(),
+            regionsInfo.stream().mapToLong( CacheGroupInfo::getMisses ).sum(),
+            regionsInfo.stream().mapToLong( CacheGroupInfo::getSize ).sum(), 0d );
+        return new CacheInfo( new CacheCapInfo( capPercent, softCapPercentage, hardCapPercentage ),
+            new CacheBurdenInfo( 0, 0L, 0d ), total, regionsInfo );
     }
 
     public Set<String> getRegions()
@@ -446,19 +215,18 @@ public class CappedLocalCache
         this.capPercent = capPercent;
         this.capSize = Runtime.getRuntime().maxMemory() / 100 * capPercent;
         setHardCapPercentage( hardCapPercentage );
-        setSoftCapPercentage( softCapPercentage );
     }
 
     public void setHardCapPercentage( int hardCapPercentage )
     {
         this.hardCapPercentage = hardCapPercentage;
         this.hardCapSize = capSize / 100 * hardCapPercentage;
+        updateRegionWeights();
     }
 
     public void setSoftCapPercentage( int softCapPercentage )
     {
         this.softCapPercentage = softCapPercentage;
-        this.softCapSize = capSize / 100 * softCapPercentage;
     }
 
     public void invalidate()
@@ -478,278 +246,60 @@ public class CappedLocalCache
     @SuppressWarnings( "unchecked" )
     public <V> Cache<V> createRegion( CacheBuilder<V> builder )
     {
-        return (Cache<V>) regions.computeIfAbsent( builder.getRegion(),
-            region -> new CacheRegion<>( builder, sizeof, this::sizeUpdate ) );
-    }
-
-    /**
-     * We do start the thread lazily by intention so that it is only active if
-     * this cache is actually used with at least one {@link CacheRegion}.
-     */
-    private void ensureGuardThreadRunningWhenNeeded()
-    {
-        if ( totalSize.get() > 0L && capPercent > 0L && guardRunning.compareAndSet( false, true ) )
+        CacheRegion<V> region = (CacheRegion<V>) regions.computeIfAbsent( builder.getRegion(),
+            name -> new CacheRegion<>( builder, this::weigh, Long.MAX_VALUE ) );
+        updateRegionWeights();
+        MeterRegistry registry = meterRegistry;
+        if ( registry != null )
         {
-            log.info( "Starting capped cache cap guard." );
-            Thread watcher = new Thread( this::runCacheGuard );
-            watcher.setDaemon( true );
-            watcher.setName( "Capped Local Cache Guard" );
-            watcher.start();
-        }
-    }
-
-    private void sizeUpdate( long sizeDelta )
-    {
-        long newTotalSize = totalSize.addAndGet( sizeDelta );
-        if ( sizeDelta > 0L && newTotalSize > softCapSize )
-        {
-            free( sizeDelta ); // try compensate
-        }
-        ensureGuardThreadRunningWhenNeeded();
-    }
-
-    private void freeProtectRuntime()
-    {
-        // remember: this can be off as `sizeof` is only an estimate
-        long estimatedUsedSize = totalSize.get();
-        if ( estimatedUsedSize > hardCapSize )
-        {
-            long overflow = free( estimatedUsedSize - hardCapSize );
-            if ( overflow > 0L )
-            {
-                log.info( "Cache overflew {}.", CacheInfo.humanReadableSize( overflow ) );
-            }
-        }
-
-        // this is about actual memory
-        // if there is little actual memory left cache should free entries
-        long freeHeapSize = runtime.freeMemory();
-        // less then 10% heap left?
-        long tenthHeapSize = runtime.maxMemory() / 10;
-        if ( freeHeapSize < tenthHeapSize && estimatedUsedSize > tenthHeapSize )
-        {
-            free( tenthHeapSize );
+            bindTo( registry, region );
         }
+        return region;
     }
 
     /**
-     * @param freeSize number of bytes to try to free by invalidating high
-     *        burden entries
-     * @return the size that could not be freed
-     */
-    private long free( long freeSize )
-    {
-        if ( freeSize <= 0L )
-        {
-            return 0L; // we freed memory :)
-        }
-        Deque<CacheEntry<?>> highBurdens = highBurdenEntries.get();
-        if ( highBurdens.isEmpty() )
-        {
-            return 0L;
-        }
-        long now = currentTimeMillis();
-        List<CacheEntry<?>> secondQualityHighBurdens = new ArrayList<>();
-        long sizeLeft = free( freeSize, highBurdens, secondQualityHighBurdens );
-        // do we still want to free memory?
-        if ( sizeLeft <= 0L )
-        {
-            return 0;
-        }
-        // only sort if numbers aren't to high, otherwise we just take first
-        if ( secondQualityHighBurdens.size() < 500 )
-        {
-            secondQualityHighBurdens.sort( ( a, b ) -> Long.compare( b.burden( now ), a.burden( now ) ) );
-        }
-        long burdenThreshold = highBurdenThreshold;
-        for ( CacheEntry<?> e : secondQualityHighBurdens )
-        {
-            if ( sizeLeft <= 0L )
-            {
-                return 0; // done
-            }
-            if ( e.burden( now ) > burdenThreshold && regions.get( e.region ).invalidate( e, true ) )
-            {
-                sizeLeft -= e.size;
-            }
-        }
-        return freeSize - sizeLeft;
-    }
-
-    /**
-     * Tries to free memory by invalidating
+     * Binds the hit, miss, eviction and load time metrics of all current and
+     * future regions to the given registry.
      *
-     * @param freeSize number of bytes to try to free by invalidating high
-     *        burden entries
-     * @param highBurdens a list of candidates to invalidate
-     * @param secondQualityHighBurdens a target (output) list of those entries
-     *        in highBurdens list that were skipped so far
-     * @return the number of bytes left to free after invalidating first quality
-     *         entries in high burden list
+     * @param registry the {@link MeterRegistry}.
      */
-    private long free( long freeSize, Deque<CacheEntry<?>> highBurdens, List<CacheEntry<?>> secondQualityHighBurdens )
+    @Override
+    public void bindTo( MeterRegistry registry )
     {
-        long now = currentTimeMillis();
-        long sizeLeft = freeSize;
-        long burdenThreshold = highBurdenThreshold;
-        while ( sizeLeft > 0L && !highBurdens.isEmpty() )
-        {
-            CacheEntry<?> e = highBurdens.removeFirst();
-            if ( e.burden( now ) > burdenThreshold )
-            {
-                if ( regions.get( e.region ).invalidate( e, true ) )
-                {
-                    sizeLeft -= e.size;
-                }
-            }
-            else
-            {
-                secondQualityHighBurdens.add( e );
-            }
-        }
-        return sizeLeft;
+        this.meterRegistry = registry;
+        regions.values().forEach( region -> bindTo( registry, region ) );
     }
 
-    private void runCacheGuard()
+    private void bindTo( MeterRegistry registry, CacheRegion<?> region )
     {
-        while ( totalSize.get() > 0L )
+        if ( registry.find( "cache.gets" ).tag( "cache", region.region ).meter() == null )
         {
-            try
-            {
-                long start = currentTimeMillis();
-                long duration = currentTimeMillis() - start;
-                updateHighBurdenState();
-                freeProtectRuntime();
-                long delay = 10_000L - duration;
-                if ( delay > 0 )
-                {
-                    waitFor( delay );
-                }
-            }
-            catch ( RuntimeException ex )
-            {
-                log.error( "Cache guard threw exception", ex );
-            }
+            CaffeineCacheMetrics.monitor( registry, region.entries, region.region );
         }
-        guardRunning.compareAndSet( true, false );
     }
 
-    private void updateHighBurdenState()
+    /**
+     * Divides the hard cap between the regions proportional to their share,
+     * giving each region at least {@link #MINIMUM_REGION_WEIGHT}. A cap of
+     * zero leaves the regions unbounded.
+     */
+    private synchronized void updateRegionWeights()
     {
-        int totalEntryCount = 0;
-        long totalBurden = 0L;
-        long now = currentTimeMillis();
-        List<CacheGroupInfo> regionsInfo = new ArrayList<>();
+        long totalShare = regions.values().stream().mapToLong( region -> region.share ).sum();
         for ( CacheRegion<?> region : regions.values() )
         {
-            int regionEntryCount = 0;
-            long regionBurden = 0L;
-            long regionSize = 0L;
-            for ( CacheEntry<?> e : region.entries.values() )
-            {
-                if ( !e.isExpired( now ) )
-                {
-                    regionEntryCount++;
-                    regionBurden += e.burden( now );
-                    regionSize += e.size;
-                }
-            }
-            regionsInfo.add( new CacheGroupInfo( region.region, region.entries.size(), region.getHits(),
-                region.getMisses(), regionSize, getRelativeBurden( regionBurden, regionSize ) ) );
-            totalEntryCount += regionEntryCount;
-            totalBurden += regionBurden;
-        }
-
-        long avgBurden = totalEntryCount == 0 ? 0L : totalBurden / totalEntryCount;
-        // upper third entries are considered high burden
-        long newHighBurdenThreshold = avgBurden * 2 / 3;
-
-        Deque<CacheEntry<?>> newHighBurdenEntries = new ConcurrentLinkedDeque<>();
-
-        CacheGroupInfo total = findHighBurdens( regionsInfo, newHighBurdenEntries, newHighBurdenThreshold,
-            totalBurden );
-        info.set( new CacheInfo( new CacheCapInfo( capPercent, softCapPercentage, hardCapPercentage ),
-            new CacheBurdenInfo( newHighBurdenEntries.size(),
-                newHighBurdenEntries.stream().mapToLong( e -> e.size ).sum(),
-                getRelativeBurden( newHighBurdenThreshold, newHighBurdenEntries.size() ) ),
-            total, regionsInfo ) );
-
-        highBurdenThreshold = newHighBurdenThreshold;
-        highBurdenEntries.set( newHighBurdenEntries );
-    }
-
-    private CacheGroupInfo findHighBurdens( List<CacheGroupInfo> regionsInfo, Deque<CacheEntry<?>> newHighBurdenEntries,
-        long newHighBurdenThreshold, long totalBurden )
-    {
-        // OBS! we want to process regions high => low burden
-        regionsInfo.sort( ( a, b ) -> Double.compare( b.getBurden(), a.getBurden() ) );
-        for ( CacheGroupInfo regionInfo : regionsInfo )
-        {
-            findHighBurdensInRegion( regions.get( regionInfo.getName() ), regionInfo, newHighBurdenEntries,
-                newHighBurdenThreshold );
-        }
-        long totalNonExpiredSize = regionsInfo.stream().mapToLong( CacheGroupInfo::getSize ).sum();
-        CacheGroupInfo total = new CacheGroupInfo( "total",
-            regionsInfo.stream().mapToInt( CacheGroupInfo::getEntries ).sum(),
-            regionsInfo.stream().mapToLong( CacheGroupInfo::getHits ).sum(),
-            regionsInfo.stream().mapToLong( CacheGroupInfo::getMisses ).sum(),
-            totalNonExpiredSize,
-            getRelativeBurden( totalBurden, totalNonExpiredSize ) );
-        total.setHighBurdenEntries( regionsInfo.stream().mapToInt( CacheGroupInfo::getHighBurdenEntries ).sum() );
-        return total;
-    }
-
-    private void findHighBurdensInRegion( CacheRegion<?> region, CacheGroupInfo info,
-        Deque<CacheEntry<?>> newHighBurdenEntries, long currentHighBurdenThreshold )
-    {
-        long now = currentTimeMillis();
-        int regionHighBurdenCount = 0;
-        for ( CacheEntry<?> e : region.entries.values() )
-        {
-            if ( e.isExpired( now ) )
-            {
-                region.invalidate( e, true );
-            }
-            else
-            {
-                long burden = e.burden( now );
-                if ( burden > currentHighBurdenThreshold )
-                {
-                    if ( newHighBurdenEntries.isEmpty() || burden >= newHighBurdenEntries.peekFirst().burden( now ) )
-                    {
-                        newHighBurdenEntries.addFirst( e );
-                    }
-                    else
-                    {
-                        newHighBurdenEntries.addLast( e );
-                    }
-                    regionHighBurdenCount++;
-                }
-            }
+            region.setMaximumWeight( hardCapSize <= 0L
+                ? Long.MAX_VALUE
+                : max( MINIMUM_REGION_WEIGHT, (long) (hardCapSize * (region.share / (double) totalShare)) ) );
         }
-        info.setHighBurdenEntries( regionHighBurdenCount );
-    }
-
-    private static double getRelativeBurden( long burden, long size )
-    {
-        return round( size == 0 ? 0d : burden / (double) size );
     }
 
-    private static double round( double value )
-    {
-        return Math.round( value * 100d ) / 100d;
-    }
-
-    public static void waitFor( long ms )
+    /**
+     * @return the estimated number of bytes the given entry uses in memory
+     */
+    private int weigh( String key, Object value )
     {
-        try
-        {
-            Thread.sleep( ms );
-        }
-        catch ( InterruptedException ex )
-        {
-            Thread.currentThread().interrupt();
-        }
+        long size = emptyEntrySize + sizeof.sizeof( key ) + sizeof.sizeof( value );
+        return (int) min( size, Integer.MAX_VALUE );
     }
-
 }
@@ -50,13 +50,16 @@ public class DefaultCacheBuilderProvider implements CacheBuilderProvider
 
     private CappedLocalCache cappedLocalCache;
 
+    private RedisNearCacheInvalidator nearCacheInvalidator;
+
     @Override
     public <V> CacheBuilder<V> newCacheBuilder()
     {
         Function<CacheBuilder<V>, Cache<V>> capCacheFactory = cappedLocalCache != null
             ? cappedLocalCache::createRegion
             : builder -> new NoOpCache<>();
-        return new ExtendedCacheBuilder<>( redisTemplate, configurationProvider, capCacheFactory );
+        return new ExtendedCacheBuilder<>( redisTemplate, configurationProvider, capCacheFactory,
+            nearCacheInvalidator );
     }
 
     @Autowired
@@ -72,6 +75,12 @@ public class DefaultCacheBuilderProvider implements CacheBuilderProvider
         this.redisTemplate = redisTemplate;
     }
 
+    @Autowired( required = false )
+    public void setNearCacheInvalidator( RedisNearCacheInvalidator nearCacheInvalidator )
+    {
+        this.nearCacheInvalidator = nearCacheInvalidator;
+    }
+
     @Autowired
     public void setCappedLocalCache( CappedLocalCache cappedLocalCache )
     {
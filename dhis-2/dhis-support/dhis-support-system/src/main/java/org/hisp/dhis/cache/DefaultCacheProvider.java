@@ -35,6 +35,8 @@ import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
 
 import org.hisp.dhis.common.event.ApplicationCacheClearedEvent;
 import org.hisp.dhis.external.conf.ConfigurationKey;
@@ -69,11 +71,14 @@ public class DefaultCacheProvider
 
     private final Environment environment;
 
+    private final DhisConfigurationProvider dhisConfig;
+
     public DefaultCacheProvider( CacheBuilderProvider cacheBuilderProvider, Environment environment,
         DhisConfigurationProvider dhisConfig )
     {
         this.cacheBuilderProvider = cacheBuilderProvider;
         this.environment = environment;
+        this.dhisConfig = dhisConfig;
         this.cacheFactor = Double
             .parseDouble( dhisConfig.getProperty( ConfigurationKey.SYSTEM_CACHE_MAX_SIZE_FACTOR ) );
     }
@@ -86,6 +91,8 @@ public class DefaultCacheProvider
     private enum Region
     {
         analyticsResponse,
+        analyticsQuery,
+        analyticsTableVersion,
         defaultObjectCache,
         isDataApproved,
         allConstantsCache,
@@ -123,7 +130,8 @@ public class DefaultCacheProvider
         teiAttributesCache,
         programTeiAttributesCache,
         userGroupUIDCache,
-        securityCache
+        securityCache,
+        expressionParseTree
 
     }
 
@@ -139,10 +147,15 @@ public class DefaultCacheProvider
         return cacheBuilderProvider.newCacheBuilder();
     }
 
-    @SuppressWarnings( "unchecked" )
     private <V> Cache<V> registerCache( CacheBuilder<V> builder )
     {
-        return (Cache<V>) allCaches.computeIfAbsent( builder.getRegion(), region -> builder.build() );
+        return registerCache( builder, CacheBuilder::build );
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private <V> Cache<V> registerCache( CacheBuilder<V> builder, Function<CacheBuilder<V>, Cache<V>> factory )
+    {
+        return (Cache<V>) allCaches.computeIfAbsent( builder.getRegion(), region -> factory.apply( builder ) );
     }
 
     private long getActualSize( long size )
@@ -166,6 +179,45 @@ public class DefaultCacheProvider
             .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_10K ) ) ) );
     }
 
+    /**
+     * Cache for the results of individual analytics sub-queries. Kept in memory
+     * and bounded by the estimated size of the results rather than by their
+     * number, as the size of results varies a lot between sub-queries.
+     */
+    @Override
+    public <V> Cache<V> createAnalyticsQueryCache( Duration initialExpirationTime,
+        ToIntBiFunction<String, V> weigher )
+    {
+        CacheBuilder<V> builder = this.<V> newBuilder()
+            .forRegion( Region.analyticsQuery.name() )
+            .expireAfterWrite( initialExpirationTime.toMillis(), MILLISECONDS )
+            .forceInMemory();
+
+        long maxSizeInBytes = orZeroInTestRun( Long.parseLong(
+            dhisConfig.getProperty( ConfigurationKey.ANALYTICS_QUERY_CACHE_MAX_SIZE ) ) * 1024L * 1024L );
+
+        if ( maxSizeInBytes <= 0 )
+        {
+            return registerCache( builder.withMaximumSize( 0 ) );
+        }
+
+        return registerCache( builder, b -> new WeightedLocalCache<>( b, weigher, maxSizeInBytes ) );
+    }
+
+    /**
+     * Cache for the versions of analytics tables and partitions which are
+     * part of the keys of the analytics query cache. Shared between instances
+     * in a cluster so that swapping a table invalidates the query cache of all
+     * instances.
+     */
+    @Override
+    public <V> Cache<V> createAnalyticsTableVersionCache()
+    {
+        return registerCache( this.<V> newBuilder()
+            .forRegion( Region.analyticsTableVersion.name() )
+            .withMaximumSize( getActualSize( SIZE_10K ) ) );
+    }
+
     /**
      * Cache for default objects such as default category combination and
      * default category option combination which are permanent and will never
@@ -202,6 +254,21 @@ public class DefaultCacheProvider
             .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_1 ) ) ) );
     }
 
+    /**
+     * Cache for the parse trees of expressions, which are the same on all
+     * instances and kept in memory.
+     */
+    @Override
+    public <V> Cache<V> createExpressionParseTreeCache()
+    {
+        return registerCache( this.<V> newBuilder()
+            .forRegion( Region.expressionParseTree.name() )
+            .expireAfterAccess( 12, TimeUnit.HOURS )
+            .withInitialCapacity( (int) getActualSize( SIZE_1K ) )
+            .forceInMemory()
+            .withMaximumSize( getActualSize( SIZE_10K ) ) );
+    }
+
     @Override
     public <V> Cache<V> createInUserOrgUnitHierarchyCache()
     {
@@ -28,6 +28,7 @@
 package org.hisp.dhis.cache;
 
 import static java.lang.Integer.parseInt;
+import static java.lang.Long.parseLong;
 
 import java.util.function.Function;
 
@@ -56,13 +57,23 @@ public class ExtendedCacheBuilder<V> extends SimpleCacheBuilder<V>
 
     private final Function<CacheBuilder<V>, Cache<V>> cappedLocalCacheFactory;
 
+    private final RedisNearCacheInvalidator nearCacheInvalidator;
+
     public ExtendedCacheBuilder( RedisTemplate<String, ?> redisTemplate,
         DhisConfigurationProvider configuration, Function<CacheBuilder<V>, Cache<V>> cappedLocalCacheFactory )
+    {
+        this( redisTemplate, configuration, cappedLocalCacheFactory, null );
+    }
+
+    public ExtendedCacheBuilder( RedisTemplate<String, ?> redisTemplate,
+        DhisConfigurationProvider configuration, Function<CacheBuilder<V>, Cache<V>> cappedLocalCacheFactory,
+        RedisNearCacheInvalidator nearCacheInvalidator )
     {
         this.configuration = configuration;
         this.redisTemplate = redisTemplate;
         this.forceInMemory = false;
         this.cappedLocalCacheFactory = cappedLocalCacheFactory;
+        this.nearCacheInvalidator = nearCacheInvalidator;
     }
 
     /**
@@ -86,7 +97,8 @@ public class ExtendedCacheBuilder<V> extends SimpleCacheBuilder<V>
      * can be used during system testings where cache has to be disabled. If
      * {@code maximumSize} is greater than 0 than based on {@code redis.enabled}
      * property in dhis.conf, either Redis backed implementation
-     * {@link RedisCache} will be returned or a Local Caffeine backed cache
+     * {@link RedisCache} will be returned, or {@link RedisNearCache} if
+     * {@code redis.near_cache.enabled} is also set, or a Local Caffeine backed cache
      * implementation {@link LocalCache} will be returned. For Local cache,
      * every instance created using this method will be logically separate and
      * will not share any state. However, when using Redis Cache, every instance
@@ -116,6 +128,15 @@ public class ExtendedCacheBuilder<V> extends SimpleCacheBuilder<V>
         }
         if ( configuration.getProperty( ConfigurationKey.REDIS_ENABLED ).equalsIgnoreCase( "true" ) )
         {
+            if ( nearCacheInvalidator != null
+                && configuration.getProperty( ConfigurationKey.REDIS_NEAR_CACHE_ENABLED ).equalsIgnoreCase( "true" ) )
+            {
+                log.info( String.format( "Redis Cache instance with near cache created for region:'%s'",
+                    getRegion() ) );
+                return new RedisNearCache<>( this, nearCacheInvalidator,
+                    parseLong( configuration.getProperty( ConfigurationKey.REDIS_NEAR_CACHE_MAX_SIZE ) ),
+                    parseLong( configuration.getProperty( ConfigurationKey.REDIS_NEAR_CACHE_EXPIRATION ) ) );
+            }
             log.info( String.format( "Redis Cache instance created for region:'%s'", getRegion() ) );
             return new RedisCache<>( this );
         }
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.cache;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * A two level implementation of {@link Cache}. A {@link LocalCache} near cache
+ * is kept in front of a {@link RedisCache}, so that repeated reads of a key
+ * neither go over the network nor deserialize the value again.
+ *
+ * Changes, including values loaded through a mapping function, are written to
+ * redis and published through the {@link RedisNearCacheInvalidator}, which
+ * invalidates the near caches of the region on the other nodes. Near cache entries expire after at most the
+ * configured near cache expiration, which bounds staleness in case an
+ * invalidation message is lost. Reads served by the near cache do not refresh
+ * the expiry of the entry in redis.
+ */
+public class RedisNearCache<V> implements Cache<V>
+{
+    private final Cache<V> nearCache;
+
+    private final Cache<V> redisCache;
+
+    private final String cacheRegion;
+
+    private final V defaultValue;
+
+    private final RedisNearCacheInvalidator invalidator;
+
+    /**
+     * Constructor for instantiating RedisNearCache.
+     *
+     * @param cacheBuilder the cache builder instance.
+     * @param invalidator the near cache invalidator.
+     * @param maximumSize the max number of entries of the near cache.
+     * @param expiryInSeconds the max time to live of near cache entries.
+     */
+    public RedisNearCache( ExtendedCacheBuilder<V> cacheBuilder, RedisNearCacheInvalidator invalidator,
+        long maximumSize, long expiryInSeconds )
+    {
+        this.redisCache = new RedisCache<>( cacheBuilder );
+        this.cacheRegion = cacheBuilder.getRegion();
+        this.defaultValue = cacheBuilder.getDefaultValue();
+        this.invalidator = invalidator;
+
+        long nearExpiryInSeconds = cacheBuilder.isExpiryEnabled()
+            ? Math.min( cacheBuilder.getExpiryInSeconds(), expiryInSeconds )
+            : expiryInSeconds;
+
+        long nearMaximumSize = cacheBuilder.getMaximumSize() > 0
+            ? Math.min( cacheBuilder.getMaximumSize(), maximumSize )
+            : maximumSize;
+
+        this.nearCache = new LocalCache<>( new SimpleCacheBuilder<V>()
+            .forRegion( cacheRegion )
+            .expireAfterWrite( nearExpiryInSeconds, TimeUnit.SECONDS )
+            .withMaximumSize( nearMaximumSize ) );
+
+        invalidator.register( cacheRegion, nearCache );
+    }
+
+    @Override
+    public Optional<V> getIfPresent( String key )
+    {
+        return Optional.ofNullable( getValue( key ) );
+    }
+
+    @Override
+    public Optional<V> get( String key )
+    {
+        return Optional.ofNullable( Optional.ofNullable( getValue( key ) ).orElse( defaultValue ) );
+    }
+
+    @Override
+    public V get( String key, Function<String, V> mappingFunction )
+    {
+        if ( null == mappingFunction )
+        {
+            throw new IllegalArgumentException( "MappingFunction cannot be null" );
+        }
+
+        V value = getValue( key );
+
+        if ( null == value )
+        {
+            value = mappingFunction.apply( key );
+
+            if ( null != value )
+            {
+                put( key, value );
+            }
+        }
+
+        return Optional.ofNullable( value ).orElse( defaultValue );
+    }
+
+    @Override
+    public Stream<V> getAll()
+    {
+        return redisCache.getAll();
+    }
+
+    @Override
+    public void put( String key, V value )
+    {
+        redisCache.put( key, value );
+        nearCache.put( key, value );
+        invalidator.publish( cacheRegion, key );
+    }
+
+    @Override
+    public void put( String key, V value, long ttlInSeconds )
+    {
+        redisCache.put( key, value, ttlInSeconds );
+        nearCache.put( key, value, ttlInSeconds );
+        invalidator.publish( cacheRegion, key );
+    }
+
+    @Override
+    public void invalidate( String key )
+    {
+        redisCache.invalidate( key );
+        nearCache.invalidate( key );
+        invalidator.publish( cacheRegion, key );
+    }
+
+    @Override
+    public void invalidateAll()
+    {
+        redisCache.invalidateAll();
+        nearCache.invalidateAll();
+        invalidator.publishAll( cacheRegion );
+    }
+
+    @Override
+    public CacheType getCacheType()
+    {
+        return CacheType.REDIS;
+    }
+
+    /**
+     * Returns the value of the given key from the near cache, or from redis in
+     * which case the near cache is populated.
+     *
+     * @param key the cache key.
+     * @return the value, or null if the key is not cached.
+     */
+    private V getValue( String key )
+    {
+        Optional<V> value = nearCache.getIfPresent( key );
+
+        if ( value.isPresent() )
+        {
+            return value.get();
+        }
+
+        Optional<V> redisValue = redisCache.getIfPresent( key );
+
+        redisValue.ifPresent( v -> nearCache.put( key, v ) );
+
+        return redisValue.orElse( null );
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import javax.annotation.PostConstruct;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.hisp.dhis.common.CodeGenerator;
+import org.hisp.dhis.condition.RedisEnabledCondition;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the near caches of {@link RedisNearCache} instances coherent across
+ * nodes. Changes to a redis cache region are published on a redis pub/sub
+ * channel, and the near cache of the region is invalidated on all other nodes
+ * receiving the message.
+ *
+ * Messages have the format {@code <node>|<region>|<key>}, where an empty key
+ * means that the whole region is invalidated.
+ */
+@Slf4j
+@Component
+@Conditional( RedisEnabledCondition.class )
+public class RedisNearCacheInvalidator implements MessageListener
+{
+    public static final String CHANNEL = "dhis2:cache:invalidation";
+
+    private static final String SEP = "|";
+
+    private final String nodeId = CodeGenerator.generateUid();
+
+    private final Map<String, Consumer<String>> listeners = new ConcurrentHashMap<>();
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final RedisMessageListenerContainer listenerContainer;
+
+    public RedisNearCacheInvalidator( @Qualifier( "stringRedisTemplate" ) StringRedisTemplate redisTemplate,
+        RedisMessageListenerContainer listenerContainer )
+    {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+    }
+
+    @PostConstruct
+    public void init()
+    {
+        listenerContainer.addMessageListener( this, new ChannelTopic( CHANNEL ) );
+    }
+
+    /**
+     * Registers the near cache of the given region to be invalidated on
+     * changes from other nodes.
+     *
+     * @param region the cache region.
+     * @param nearCache the near cache.
+     */
+    public void register( String region, Cache<?> nearCache )
+    {
+        register( region, key -> {
+            if ( key.isEmpty() )
+            {
+                nearCache.invalidateAll();
+            }
+            else
+            {
+                nearCache.invalidate( key );
+            }
+        } );
+    }
+
+    /**
+     * Registers a listener to be notified on changes of the given region from
+     * other nodes. The listener receives the changed key, or an empty string
+     * if the whole region changed.
+     *
+     * @param region the cache region.
+     * @param listener the listener.
+     */
+    public void register( String region, Consumer<String> listener )
+    {
+        listeners.put( region, listener );
+    }
+
+    /**
+     * Notifies other nodes that the given key of the given region changed.
+     *
+     * @param region the cache region.
+     * @param key the cache key.
+     */
+    public void publish( String region, String key )
+    {
+        redisTemplate.convertAndSend( CHANNEL, nodeId + SEP + region + SEP + key );
+    }
+
+    /**
+     * Notifies other nodes that all keys of the given region changed.
+     *
+     * @param region the cache region.
+     */
+    public void publishAll( String region )
+    {
+        publish( region, "" );
+    }
+
+    @Override
+    public void onMessage( Message message, byte[] pattern )
+    {
+        String[] parts = new String( message.getBody(), StandardCharsets.UTF_8 ).split( "\\|", 3 );
+
+        if ( parts.length != 3 || nodeId.equals( parts[0] ) )
+        {
+            return;
+        }
+
+        Consumer<String> listener = listeners.get( parts[1] );
+
+        if ( listener == null )
+        {
+            return;
+        }
+
+        listener.accept( parts[2] );
+
+        log.debug( "Cache invalidation received for region: '{}', key: '{}'", parts[1], parts[2] );
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.cache;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+/**
+ * Local {@link Cache} which is bounded by the total weight of its entries
+ * rather than by their number. Backed by a Caffeine cache using a
+ * {@code maximumWeight} and a weigher, with individual time to live per entry.
+ *
+ * Useful for regions where the size of values varies a lot, so that a few
+ * large values can not use up an unexpected amount of memory.
+ *
+ * A maximum size set on the builder is enforced as well, by evicting the
+ * coldest entries, since Caffeine bounds a cache either by weight or by size.
+ *
+ * @param <V> type of values stored.
+ */
+public class WeightedLocalCache<V> implements Cache<V>
+{
+    protected final String region;
+
+    private final V defaultValue;
+
+    private final long defaultTtlInNanos;
+
+    /**
+     * Maximum number of entries, 0 or less for no maximum.
+     */
+    private final long maximumSize;
+
+    protected final com.github.benmanes.caffeine.cache.Cache<String, CacheEntry<V>> entries;
+
+    /**
+     * @param builder the builder providing region, default value and expiry.
+     * @param weigher the weight of a key and value, e.g. its estimated size in
+     *        bytes.
+     * @param maximumWeight the maximum total weight of all entries.
+     */
+    public WeightedLocalCache( CacheBuilder<V> builder, ToIntBiFunction<String, V> weigher, long maximumWeight )
+    {
+        this.region = builder.getRegion();
+        this.defaultValue = builder.getDefaultValue();
+        this.defaultTtlInNanos = builder.isExpiryEnabled()
+            ? TimeUnit.SECONDS.toNanos( builder.getExpiryInSeconds() )
+            : Long.MAX_VALUE;
+        this.maximumSize = builder.getMaximumSize();
+        this.entries = Caffeine.newBuilder()
+            .maximumWeight( maximumWeight )
+            .weigher( ( String key, CacheEntry<V> entry ) -> weigher.applyAsInt( key, entry.value ) )
+            .expireAfter( new CacheEntryExpiry<V>( builder.isRefreshExpiryOnAccess() ) )
+            .recordStats()
+            .build();
+    }
+
+    @Override
+    public Optional<V> getIfPresent( String key )
+    {
+        return getOrDefault( key, value -> value );
+    }
+
+    @Override
+    public Optional<V> get( String key )
+    {
+        return getOrDefault( key, value -> value == null ? defaultValue : value );
+    }
+
+    private Optional<V> getOrDefault( String key, UnaryOperator<V> value )
+    {
+        CacheEntry<V> entry = entries.getIfPresent( key );
+        return entry == null ? Optional.empty() : Optional.ofNullable( value.apply( entry.value ) );
+    }
+
+    @Override
+    public V get( String key, Function<String, V> fetcher )
+    {
+        if ( null == fetcher )
+        {
+            throw new IllegalArgumentException( "MappingFunction cannot be null" );
+        }
+        // null results are not stored, like in the other cache types
+        CacheEntry<V> entry = entries.get( key, k -> {
+            V fetched = fetcher.apply( k );
+            return fetched == null ? null : new CacheEntry<>( fetched, defaultTtlInNanos );
+        } );
+        trimToMaximumSize();
+        return entry == null || entry.value == null ? defaultValue : entry.value;
+    }
+
+    @Override
+    public Stream<V> getAll()
+    {
+        return entries.asMap().values().stream().map( entry -> entry.value );
+    }
+
+    @Override
+    public void put( String key, V value )
+    {
+        entries.put( key, new CacheEntry<>( value, defaultTtlInNanos ) );
+        trimToMaximumSize();
+    }
+
+    @Override
+    public void put( String key, V value, long ttlInSeconds )
+    {
+        entries.put( key, new CacheEntry<>( value, TimeUnit.SECONDS.toNanos( ttlInSeconds ) ) );
+        trimToMaximumSize();
+    }
+
+    @Override
+    public void invalidate( String key )
+    {
+        entries.invalidate( key );
+    }
+
+    @Override
+    public void invalidateAll()
+    {
+        entries.invalidateAll();
+    }
+
+    @Override
+    public CacheType getCacheType()
+    {
+        return CacheType.IN_MEMORY;
+    }
+
+    /**
+     * Evicts the coldest entries while there are more entries than the
+     * maximum size.
+     */
+    private void trimToMaximumSize()
+    {
+        long excess = maximumSize > 0 ? entries.estimatedSize() - maximumSize : 0L;
+
+        if ( excess > 0 )
+        {
+            entries.policy().eviction().ifPresent( eviction -> eviction
+                .coldest( (int) Math.min( excess, Integer.MAX_VALUE ) ).keySet().forEach( entries::invalidate ) );
+        }
+    }
+
+    public void setMaximumWeight( long maximumWeight )
+    {
+        entries.policy().eviction().ifPresent( eviction -> eviction.setMaximum( maximumWeight ) );
+    }
+
+    public long getWeightedSize()
+    {
+        return entries.policy().eviction()
+            .map( eviction -> eviction.weightedSize().orElse( 0L ) )
+            .orElse( 0L );
+    }
+
+    static final class CacheEntry<V>
+    {
+        final V value;
+
+        /**
+         * Time to live of this entry in nanoseconds
+         */
+        final long ttlInNanos;
+
+        CacheEntry( V value, long ttlInNanos )
+        {
+            this.value = value;
+            this.ttlInNanos = ttlInNanos;
+        }
+    }
+
+    /**
+     * Expires entries after their individual time to live, optionally
+     * refreshing the time to live on each read.
+     */
+    private static final class CacheEntryExpiry<V> implements Expiry<String, CacheEntry<V>>
+    {
+        private final boolean refreshOnAccess;
+
+        CacheEntryExpiry( boolean refreshOnAccess )
+        {
+            this.refreshOnAccess = refreshOnAccess;
+        }
+
+        @Override
+        public long expireAfterCreate( String key, CacheEntry<V> entry, long currentTime )
+        {
+            return entry.ttlInNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate( String key, CacheEntry<V> entry, long currentTime,
+            long currentDuration )
+        {
+            return entry.ttlInNanos;
+        }
+
+        @Override
+        public long expireAfterRead( String key, CacheEntry<V> entry, long currentTime,
+            long currentDuration )
+        {
+            return refreshOnAccess ? entry.ttlInNanos : currentDuration;
+        }
+    }
+}
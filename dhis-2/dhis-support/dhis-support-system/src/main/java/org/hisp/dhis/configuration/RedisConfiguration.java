@@ -40,6 +40,7 @@ import org.springframework.data.redis.connection.lettuce.LettuceClientConfigurat
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 /**
@@ -112,4 +113,12 @@ public class RedisConfiguration
         return stringRedisTemplate;
     }
 
+    @Bean( name = "redisMessageListenerContainer" )
+    public RedisMessageListenerContainer redisMessageListenerContainer()
+    {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory( lettuceConnectionFactory() );
+        return container;
+    }
+
 }
\ No newline at end of file
@@ -31,11 +31,14 @@ import static java.util.stream.Collectors.toList;
 import static org.hisp.dhis.utils.Assertions.assertContainsOnly;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.commons.lang3.StringUtils;
 import org.junit.Test;
 
 /**
@@ -59,14 +62,9 @@ public class CappedLocalCacheTest
     public void testSizeofCacheEntry()
     {
         // 20 object header of CacheEntry
-        // + 4 ref region
-        // + 4 ref key
         // + 4 ref value
-        // + 8 created
-        // + 8 expires
-        // + 8 size
-        // + 4 reads
-        assertEquals( 60L, sizeof.sizeof( CappedLocalCache.EMPTY ) );
+        // + 8 ttl
+        assertEquals( 32L, sizeof.sizeof( CappedLocalCache.EMPTY ) );
     }
 
     @Test
@@ -119,4 +117,84 @@ public class CappedLocalCacheTest
         testRegion.put( "a", "b" );
         assertContainsOnly( testRegion.getAll().collect( toList() ), "y", "b" );
     }
+
+    @Test
+    public void testGetWithFetcherDoesNotCacheNull()
+    {
+        AtomicInteger fetches = new AtomicInteger();
+        assertNull( testRegion.get( "foo", key -> {
+            fetches.incrementAndGet();
+            return null;
+        } ) );
+        assertEquals( "bar", testRegion.get( "foo", key -> {
+            fetches.incrementAndGet();
+            return "bar";
+        } ) );
+        assertEquals( 2, fetches.get() );
+        assertEquals( "bar", testRegion.get( "foo" ).get() );
+    }
+
+    @Test
+    public void testNoExpiryWhenNotConfigured()
+    {
+        Cache<String> region = cache.createRegion( new SimpleCacheBuilder<String>()
+            .forRegion( "eternal" )
+            .forceInMemory() );
+        region.put( "foo", "bar" );
+        assertEquals( "bar", region.get( "foo" ).get() );
+    }
+
+    @Test
+    public void testGetInfo()
+    {
+        testRegion.put( "foo", "bar" );
+        testRegion.get( "foo" );
+        testRegion.get( "x" );
+
+        CacheInfo.CacheGroupInfo info = cache.getInfo().getRegions().stream()
+            .filter( region -> region.getName().equals( "test" ) )
+            .findFirst().get();
+
+        assertEquals( 1L, info.getHits() );
+        assertEquals( 1L, info.getMisses() );
+        assertTrue( cache.getRegions().contains( "test" ) );
+    }
+
+    @Test
+    public void testSmallRegionGetsMinimumWeight()
+    {
+        CappedLocalCache cappedCache = new CappedLocalCache( sizeof, 1 );
+
+        cappedCache.createRegion( new SimpleCacheBuilder<String>()
+            .forRegion( "large" )
+            .withMaximumSize( 1_000_000 )
+            .forceInMemory() );
+
+        Cache<String> single = cappedCache.createRegion( new SimpleCacheBuilder<String>()
+            .forRegion( "single" )
+            .withMaximumSize( 1 )
+            .forceInMemory() );
+
+        String value = StringUtils.repeat( 'x', 10_000 );
+        single.put( "all", value );
+        ((WeightedLocalCache<String>) single).entries.cleanUp();
+
+        assertSame( value, single.get( "all" ).get() );
+    }
+
+    @Test
+    public void testRegionMaximumSizeIsEnforced()
+    {
+        Cache<String> sized = cache.createRegion( new SimpleCacheBuilder<String>()
+            .forRegion( "sized" )
+            .withMaximumSize( 2 )
+            .forceInMemory() );
+
+        sized.put( "a", "1" );
+        sized.put( "b", "2" );
+        sized.put( "c", "3" );
+        ((WeightedLocalCache<String>) sized).entries.cleanUp();
+
+        assertEquals( 2L, sized.getAll().count() );
+    }
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.BoundValueOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Tests the {@link RedisNearCache}.
+ */
+public class RedisNearCacheTest
+{
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private BoundValueOperations<String, String> valueOps;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    private RedisNearCacheInvalidator invalidator;
+
+    private Cache<String> cache;
+
+    @Before
+    public void setUp()
+    {
+        when( redisTemplate.boundValueOps( anyString() ) ).thenReturn( valueOps );
+
+        invalidator = new RedisNearCacheInvalidator( stringRedisTemplate,
+            mock( RedisMessageListenerContainer.class ) );
+
+        ExtendedCacheBuilder<String> builder = new ExtendedCacheBuilder<>( redisTemplate, null, null, invalidator );
+        builder.forRegion( "test" ).expireAfterWrite( 1, TimeUnit.MINUTES );
+
+        cache = new RedisNearCache<>( builder, invalidator, 100, 60 );
+    }
+
+    @Test
+    public void testReadIsServedByNearCache()
+    {
+        when( valueOps.get() ).thenReturn( "bar" );
+
+        assertEquals( "bar", cache.get( "foo" ).get() );
+        assertEquals( "bar", cache.get( "foo" ).get() );
+
+        verify( valueOps, times( 1 ) ).get();
+    }
+
+    @Test
+    public void testPutPublishesInvalidation()
+    {
+        cache.put( "foo", "bar" );
+
+        assertEquals( "bar", cache.get( "foo" ).get() );
+        verify( stringRedisTemplate ).convertAndSend( anyString(), anyString() );
+    }
+
+    @Test
+    public void testLoadPublishesInvalidation()
+    {
+        assertEquals( "bar", cache.get( "foo", key -> "bar" ) );
+
+        verify( stringRedisTemplate ).convertAndSend( anyString(), anyString() );
+    }
+
+    @Test
+    public void testInvalidationFromOtherNode()
+    {
+        cache.put( "foo", "bar" );
+
+        invalidator.onMessage( new DefaultMessage( RedisNearCacheInvalidator.CHANNEL.getBytes(),
+            "othernode|test|foo".getBytes( StandardCharsets.UTF_8 ) ), null );
+
+        assertFalse( cache.getIfPresent( "foo" ).isPresent() );
+    }
+}
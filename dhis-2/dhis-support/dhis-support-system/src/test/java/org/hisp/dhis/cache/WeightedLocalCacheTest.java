@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * A test for the {@link WeightedLocalCache}.
+ */
+public class WeightedLocalCacheTest
+{
+    private final WeightedLocalCache<String> cache = new WeightedLocalCache<>(
+        new SimpleCacheBuilder<String>().forRegion( "test" ).forceInMemory(),
+        ( key, value ) -> value.length(), 10L );
+
+    @Test
+    public void testWeightedSize()
+    {
+        cache.put( "a", "12345" );
+        cache.put( "b", "123" );
+        cache.entries.cleanUp();
+
+        assertEquals( 8L, cache.getWeightedSize() );
+    }
+
+    @Test
+    public void testEntryHeavierThanMaximumIsNotKept()
+    {
+        cache.put( "a", "12345678901" );
+        cache.entries.cleanUp();
+
+        assertFalse( cache.get( "a" ).isPresent() );
+    }
+
+    @Test
+    public void testEvictionByWeight()
+    {
+        cache.put( "a", "123456" );
+        cache.put( "b", "123456" );
+        cache.entries.cleanUp();
+
+        assertTrue( cache.getWeightedSize() <= 10L );
+    }
+
+    @Test
+    public void testEvictionBySize()
+    {
+        WeightedLocalCache<String> sizedCache = new WeightedLocalCache<>(
+            new SimpleCacheBuilder<String>().forRegion( "sized" ).withMaximumSize( 2 ).forceInMemory(),
+            ( key, value ) -> value.length(), 1000L );
+
+        sizedCache.put( "a", "1" );
+        sizedCache.put( "b", "2" );
+        sizedCache.put( "c", "3" );
+        sizedCache.entries.cleanUp();
+
+        assertEquals( 2L, sizedCache.entries.estimatedSize() );
+    }
+}
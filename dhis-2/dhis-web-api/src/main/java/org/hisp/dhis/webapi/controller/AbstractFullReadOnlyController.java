@@ -223,7 +223,7 @@ public abstract class AbstractFullReadOnlyController<T extends IdentifiableObjec
             rootNode.addChild( NodeUtils.createPager( pager ) );
         }
 
-        rootNode.addChild( fieldFilterService.toCollectionNode( getEntityClass(),
+        rootNode.addChild( fieldFilterService.toLazyCollectionNode( getEntityClass(),
             new FieldFilterParams( entities, fields, Defaults.valueOf( options.get( "defaults", DEFAULTS ) ) ) ) );
 
         cachePrivate( response );
@@ -42,6 +42,7 @@ import static org.springframework.http.MediaType.TEXT_XML_VALUE;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
@@ -134,6 +135,8 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Joiner;
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.Lists;
@@ -185,6 +188,8 @@ public class EventController
 
     private final ContextUtils contextUtils;
 
+    private final ObjectMapper jsonMapper;
+
     private Schema schema;
 
     protected Schema getSchema()
@@ -645,6 +650,89 @@ public class EventController
         csvEventService.writeEvents( outputStream, events.getEvents(), !skipHeader );
     }
 
+    // -------------------------------------------------------------------------
+    // Streaming Read
+    // -------------------------------------------------------------------------
+
+    /**
+     * Exports all events matching the criteria as JSON. Events are fetched in
+     * pages using keyset pagination and written to the response one at a
+     * time, so paging parameters are ignored.
+     */
+    @GetMapping( value = "/stream", produces = APPLICATION_JSON_VALUE )
+    public void streamJsonEvents( EventCriteria eventCriteria, HttpServletResponse response )
+        throws IOException,
+        WebMessageException
+    {
+        EventSearchParams params = requestToSearchParamsMapper.map( eventCriteria );
+
+        response.setContentType( APPLICATION_JSON_VALUE );
+
+        if ( !StringUtils.isEmpty( eventCriteria.getAttachment() ) )
+        {
+            response.addHeader( ContextUtils.HEADER_CONTENT_DISPOSITION,
+                "attachment; filename=" + eventCriteria.getAttachment() );
+        }
+
+        try ( JsonGenerator generator = jsonMapper.getFactory().createGenerator( response.getOutputStream() ) )
+        {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart( "events" );
+
+            eventService.streamEvents( params, event -> {
+                try
+                {
+                    jsonMapper.writeValue( generator, event );
+                }
+                catch ( IOException ex )
+                {
+                    throw new UncheckedIOException( ex );
+                }
+            } );
+
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        catch ( UncheckedIOException ex )
+        {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Exports all events matching the criteria as CSV. Events are fetched in
+     * pages using keyset pagination and written to the response one at a
+     * time, so paging parameters are ignored.
+     */
+    @GetMapping( value = "/stream", produces = { "application/csv", "application/csv+gzip", "text/csv" } )
+    public void streamCsvEvents(
+        EventCriteria eventCriteria,
+        @RequestParam( required = false, defaultValue = "false" ) boolean skipHeader,
+        HttpServletResponse response, HttpServletRequest request )
+        throws IOException,
+        WebMessageException
+    {
+        EventSearchParams params = requestToSearchParamsMapper.map( eventCriteria );
+
+        OutputStream outputStream = response.getOutputStream();
+        response.setContentType( "application/csv" );
+
+        if ( ContextUtils.isAcceptCsvGzip( request ) )
+        {
+            response.addHeader( ContextUtils.HEADER_CONTENT_TRANSFER_ENCODING, "binary" );
+            outputStream = new GZIPOutputStream( outputStream );
+            response.setContentType( "application/csv+gzip" );
+        }
+
+        if ( !StringUtils.isEmpty( eventCriteria.getAttachment() ) )
+        {
+            response.addHeader( "Content-Disposition", "attachment; filename=" + eventCriteria.getAttachment() );
+        }
+
+        csvEventService.writeEventStream( outputStream, consumer -> eventService.streamEvents( params, consumer ),
+            !skipHeader );
+    }
+
     // -------------------------------------------------------------------------
     // Rows Read
     // -------------------------------------------------------------------------